@@ -1,14 +1,22 @@
 package com.robsartin.graphs.application;
 
+import com.robsartin.graphs.application.services.GraphConnectivityService;
+import com.robsartin.graphs.infrastructure.CsrGraph;
+import com.robsartin.graphs.infrastructure.GraphTraversals;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.infrastructure.StronglyConnectedComponents;
+import com.robsartin.graphs.infrastructure.TopologicalOrder;
 import com.robsartin.graphs.models.Graph;
 import com.robsartin.graphs.models.GraphDegreeDistribution;
 import com.robsartin.graphs.models.GraphMetrics;
 import com.robsartin.graphs.models.GraphNode;
 import com.robsartin.graphs.models.GraphNodeMetrics;
 import com.robsartin.graphs.ports.out.GraphDegreeDistributionRepository;
+import com.robsartin.graphs.ports.out.GraphDistanceDistributionRepository;
 import com.robsartin.graphs.ports.out.GraphMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphNodeMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphRepository;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
@@ -21,8 +29,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -33,8 +43,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for managing graphs.
@@ -49,15 +63,27 @@ public class GraphController {
     private final GraphMetricsRepository metricsRepository;
     private final GraphNodeMetricsRepository nodeMetricsRepository;
     private final GraphDegreeDistributionRepository degreeDistRepository;
+    private final GraphDistanceDistributionRepository distanceDistRepository;
+    private final GraphVersionRepository versionRepository;
+    private final GraphConnectivityService connectivityService;
+
+    @Value("${app.graph.parallel-bfs-threshold:50000}")
+    private int parallelBfsThreshold;
 
     public GraphController(GraphRepository graphRepository,
                           GraphMetricsRepository metricsRepository,
                           GraphNodeMetricsRepository nodeMetricsRepository,
-                          GraphDegreeDistributionRepository degreeDistRepository) {
+                          GraphDegreeDistributionRepository degreeDistRepository,
+                          GraphDistanceDistributionRepository distanceDistRepository,
+                          GraphVersionRepository versionRepository,
+                          GraphConnectivityService connectivityService) {
         this.graphRepository = graphRepository;
         this.metricsRepository = metricsRepository;
         this.nodeMetricsRepository = nodeMetricsRepository;
         this.degreeDistRepository = degreeDistRepository;
+        this.distanceDistRepository = distanceDistRepository;
+        this.versionRepository = versionRepository;
+        this.connectivityService = connectivityService;
     }
 
     /**
@@ -124,6 +150,7 @@ public class GraphController {
      * GET /graphs/{id}/full - Retrieves a complete graph with all nodes and edges in a single call
      *
      * @param id the graph ID
+     * @param atVersion optional retained version to read instead of the latest
      * @return the full graph structure if found, 404 if not found
      */
     @GetMapping("/{id}/full")
@@ -131,16 +158,20 @@ public class GraphController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Full graph found",
                     content = @Content(schema = @Schema(implementation = FullGraphResponse.class))),
-            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
     })
     @Timed(value = "graph.getFull", description = "Time taken to retrieve full graph")
     @CircuitBreaker(name = "graphService")
     @RateLimiter(name = "graphService")
     @Retry(name = "graphService")
     public ResponseEntity<FullGraphResponse> getFullGraph(
-            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id) {
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Retained graph version to read") @RequestParam(required = false) Long atVersion) {
         return graphRepository.findById(id)
                 .map(graph -> {
+                    if (atVersion != null) {
+                        return ResponseEntity.ok(fullGraphAt(graph, graphAt(graph, atVersion)));
+                    }
                     List<NodeResponse> nodes = graph.getNodes().stream()
                             .map(n -> new NodeResponse(n.getId(), n.getName()))
                             .toList();
@@ -236,49 +267,36 @@ public class GraphController {
             @Valid @RequestBody GraphImportRequest request) {
         Graph graph = new Graph(request.graph().name());
 
-        // Map old IDs to new nodes
+        // Add all nodes in one pass and map old IDs to the new nodes
+        List<GraphNode> addedNodes = graph.addNodes(request.graph().nodes().stream()
+                .map(ExportNodeDto::name)
+                .toList());
         java.util.Map<String, GraphNode> nodeMap = new java.util.HashMap<>();
-        for (ExportNodeDto nodeDto : request.graph().nodes()) {
-            GraphNode node = graph.addNode(nodeDto.name());
-            nodeMap.put(nodeDto.id(), node);
-        }
-
-        // Save to get IDs assigned
-        Graph savedGraph = graphRepository.save(graph);
-
-        // Rebuild node map with saved nodes
-        nodeMap.clear();
-        for (int i = 0; i < request.graph().nodes().size(); i++) {
-            String oldId = request.graph().nodes().get(i).id();
-            GraphNode savedNode = savedGraph.getNodes().get(i);
-            nodeMap.put(oldId, savedNode);
+        for (int i = 0; i < addedNodes.size(); i++) {
+            nodeMap.put(request.graph().nodes().get(i).id(), addedNodes.get(i));
         }
 
-        // Add edges using mapped IDs
+        // Add edges using mapped IDs, skipping any that reference unknown nodes
+        List<ImmutableGraph.NodePair> pairs = new ArrayList<>();
         for (ExportEdgeDto edgeDto : request.graph().edges()) {
             GraphNode fromNode = nodeMap.get(edgeDto.from());
             GraphNode toNode = nodeMap.get(edgeDto.to());
             if (fromNode != null && toNode != null) {
-                savedGraph.addEdge(fromNode.getId(), toNode.getId());
+                pairs.add(new ImmutableGraph.NodePair(fromNode.getId(), toNode.getId()));
             }
         }
+        graph.addEdges(pairs);
 
-        savedGraph = graphRepository.save(savedGraph);
+        Graph savedGraph = graphRepository.save(graph);
 
         // Build response
         List<NodeResponse> nodes = savedGraph.getNodes().stream()
                 .map(n -> new NodeResponse(n.getId(), n.getName()))
                 .toList();
 
-        List<EdgeResponse> edges = new ArrayList<>();
-        for (GraphNode node : savedGraph.getNodes()) {
-            var context = savedGraph.getImmutableGraph().getContext(node.getId());
-            if (context != null) {
-                for (UUID successorId : context.getSuccessors().keySet()) {
-                    edges.add(new EdgeResponse(node.getId(), successorId));
-                }
-            }
-        }
+        List<EdgeResponse> edges = savedGraph.getEdges().stream()
+                .map(e -> new EdgeResponse(e.getFromNodeId(), e.getToNodeId()))
+                .toList();
 
         return new FullGraphResponse(savedGraph.getId(), savedGraph.getName(), nodes, edges);
     }
@@ -538,13 +556,13 @@ public class GraphController {
                             List<NodeInfoResponse> toNodes = new ArrayList<>();
 
                             if (node.getId() != null) {
-                                var context = graph.getImmutableGraph().getContext(node.getId());
+                                ImmutableGraph<String, String> structure = graph.getImmutableGraph();
+                                var context = structure.getContext(node.getId());
                                 if (context != null) {
+                                    // Successor names come from their contexts rather than a scan of the node list each
                                     for (UUID successorId : context.getSuccessors().keySet()) {
-                                        GraphNode linkedNode = graph.findNodeById(successorId);
-                                        if (linkedNode != null) {
-                                            toNodes.add(new NodeInfoResponse(linkedNode.getId(), linkedNode.getName()));
-                                        }
+                                        toNodes.add(new NodeInfoResponse(successorId,
+                                                structure.getContext(successorId).getLabel()));
                                     }
                                 }
                             }
@@ -583,7 +601,7 @@ public class GraphController {
                         .filter(n -> n.getId().equals(nodeId))
                         .findFirst()
                         .map(node -> {
-                            node.setName(request.name());
+                            graph.renameNode(nodeId, request.name());
                             graphRepository.save(graph);
                             return ResponseEntity.ok(new NodeResponse(node.getId(), node.getName()));
                         })
@@ -705,17 +723,65 @@ public class GraphController {
     }
 
     /**
-     * GET /graphs/{id}/dfs/{nodeId} - Performs depth-first search from a node
+     * POST /graphs/{id}/delete - Deletes many nodes and edges in one edit
+     *
+     * @param id the graph ID
+     * @param request the nodes and edges to delete; IDs not in the graph are ignored
+     * @return how many nodes and edges were deleted, 404 if the graph is not found
+     */
+    @PostMapping("/{id}/delete")
+    @Transactional
+    @Operation(summary = "Bulk delete nodes and edges", description = "Removes the listed edges, then the listed nodes with all edges connected to them, in a single graph edit")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Nodes and edges deleted",
+                    content = @Content(schema = @Schema(implementation = BulkDeleteResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "node.bulkDelete", description = "Time taken to delete many nodes and edges")
+    @CircuitBreaker(name = "nodeService")
+    @RateLimiter(name = "nodeService")
+    @Retry(name = "nodeService")
+    public ResponseEntity<BulkDeleteResponse> bulkDelete(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @RequestBody BulkDeleteRequest request) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    List<ImmutableGraph.NodePair> pairs = request.edges() == null ? List.of()
+                            : request.edges().stream()
+                                    .map(edge -> new ImmutableGraph.NodePair(edge.from(), edge.to()))
+                                    .toList();
+                    int edgesDeleted = graph.removeEdges(pairs);
+                    int nodesDeleted = graph.removeNodes(
+                            request.nodeIds() == null ? List.of() : request.nodeIds());
+                    if (edgesDeleted > 0 || nodesDeleted > 0) {
+                        graphRepository.save(graph);
+                    }
+                    return ResponseEntity.ok(new BulkDeleteResponse(nodesDeleted, edgesDeleted));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/dfs/{nodeId} - Performs depth-first search from a node.
+     * Successors are followed in the order their nodes were added to the graph, whatever
+     * order the edges were added in.
      *
      * @param id the graph ID
      * @param nodeId the starting node ID
+     * @param direction edges to follow (out, in or both)
+     * @param maxDepth optional maximum number of edges between the starting node and a visited node,
+     *                 measured along the shortest path rather than the DFS tree
+     * @param limit optional maximum number of nodes to return
+     * @param stopAt optional node after which the traversal stops
+     * @param atVersion optional retained version to traverse instead of the latest
      * @return list of nodes visited in DFS order
      */
     @GetMapping("/{id}/dfs/{nodeId}")
-    @Operation(summary = "Depth-first search", description = "Performs a depth-first traversal of the graph starting from the specified node")
+    @Operation(summary = "Depth-first search", description = "Performs a depth-first traversal of the graph starting from the specified node, following successors in the order their nodes were added to the graph")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "DFS completed successfully",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = NodeResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid traversal parameters", content = @Content),
             @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
     })
     @Timed(value = "traversal.dfs", description = "Time taken to perform depth-first search")
@@ -724,28 +790,32 @@ public class GraphController {
     @Retry(name = "traversalService")
     public ResponseEntity<List<NodeResponse>> depthFirstSearch(
             @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
-            @Parameter(description = "Starting node ID for traversal", required = true) @PathVariable UUID nodeId) {
+            @Parameter(description = "Starting node ID for traversal", required = true) @PathVariable UUID nodeId,
+            @Parameter(description = "Edges to follow: out, in or both") @RequestParam(defaultValue = "out") String direction,
+            @Parameter(description = "Maximum number of edges from the starting node, along the shortest path") @RequestParam(required = false) Integer maxDepth,
+            @Parameter(description = "Maximum number of nodes to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Stop after visiting this node") @RequestParam(required = false) UUID stopAt,
+            @Parameter(description = "Retained graph version to traverse") @RequestParam(required = false) Long atVersion) {
         return graphRepository.findById(id)
-                .map(graph -> {
-                    List<NodeResponse> visited = new ArrayList<>();
-                    graph.getImmutableGraph().depthFirstTraversal(nodeId, context -> {
-                        GraphNode node = graph.findNodeById(context.getNodeId());
-                        if (node != null) {
-                            visited.add(new NodeResponse(node.getId(), node.getName()));
-                        } else {
-                            visited.add(new NodeResponse(context.getNodeId(), context.getLabel()));
-                        }
-                    });
-                    return ResponseEntity.ok(visited);
-                })
+                .map(graph -> ResponseEntity.ok(collectTraversal(
+                        graphAt(graph, atVersion).depthFirstStream(nodeId, parseDirection(direction),
+                                maxDepth == null ? GraphTraversals.UNBOUNDED : maxDepth),
+                        limit, stopAt)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * GET /graphs/{id}/bfs/{nodeId} - Performs breadth-first search from a node
+     * GET /graphs/{id}/bfs/{nodeId} - Performs breadth-first search from a node.
+     * Unbounded-result walks of graphs above app.graph.parallel-bfs-threshold run in parallel
+     * and list each level's nodes in index order rather than discovery order.
      *
      * @param id the graph ID
      * @param nodeId the starting node ID
+     * @param direction edges to follow (out, in or both)
+     * @param maxDepth optional maximum depth from the starting node
+     * @param limit optional maximum number of nodes to return
+     * @param stopAt optional node after which the traversal stops
+     * @param atVersion optional retained version to traverse instead of the latest
      * @return list of nodes visited in BFS order
      */
     @GetMapping("/{id}/bfs/{nodeId}")
@@ -753,6 +823,7 @@ public class GraphController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "BFS completed successfully",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = NodeResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid traversal parameters", content = @Content),
             @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
     })
     @Timed(value = "traversal.bfs", description = "Time taken to perform breadth-first search")
@@ -761,23 +832,483 @@ public class GraphController {
     @Retry(name = "traversalService")
     public ResponseEntity<List<NodeResponse>> breadthFirstSearch(
             @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
-            @Parameter(description = "Starting node ID for traversal", required = true) @PathVariable UUID nodeId) {
+            @Parameter(description = "Starting node ID for traversal", required = true) @PathVariable UUID nodeId,
+            @Parameter(description = "Edges to follow: out, in or both") @RequestParam(defaultValue = "out") String direction,
+            @Parameter(description = "Maximum depth from the starting node") @RequestParam(required = false) Integer maxDepth,
+            @Parameter(description = "Maximum number of nodes to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Stop after visiting this node") @RequestParam(required = false) UUID stopAt,
+            @Parameter(description = "Retained graph version to traverse") @RequestParam(required = false) Long atVersion) {
         return graphRepository.findById(id)
                 .map(graph -> {
-                    List<NodeResponse> visited = new ArrayList<>();
-                    graph.getImmutableGraph().breadthFirstTraversal(nodeId, context -> {
-                        GraphNode node = graph.findNodeById(context.getNodeId());
-                        if (node != null) {
-                            visited.add(new NodeResponse(node.getId(), node.getName()));
-                        } else {
-                            visited.add(new NodeResponse(context.getNodeId(), context.getLabel()));
+                    ImmutableGraph<String, String> immutableGraph = graphAt(graph, atVersion);
+                    GraphTraversals.Direction edges = parseDirection(direction);
+                    int depth = maxDepth == null ? GraphTraversals.UNBOUNDED : maxDepth;
+                    // Early-terminating requests stay lazy; full walks of big graphs go parallel
+                    if (limit == null && stopAt == null && immutableGraph.nodeCount() >= parallelBfsThreshold) {
+                        List<ImmutableGraph.Context<String, String>> visited = new ArrayList<>();
+                        immutableGraph.parallelBreadthFirstTraversal(nodeId, edges, depth, visited::add);
+                        return ResponseEntity.ok(collectTraversal(visited.stream(), null, null));
+                    }
+                    return ResponseEntity.ok(collectTraversal(
+                            immutableGraph.breadthFirstStream(nodeId, edges, depth), limit, stopAt));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/nodes/{nodeId}/neighborhood - Extracts the subgraph within k hops of a node
+     *
+     * @param id the graph ID
+     * @param nodeId the center node ID
+     * @param hops maximum number of edges from the center
+     * @param direction edges to follow (out, in or both)
+     * @param maxNodes maximum number of nodes to return
+     * @param atVersion optional retained version to search instead of the latest
+     * @return the nodes in range in BFS order and every edge between them
+     */
+    @GetMapping("/{id}/nodes/{nodeId}/neighborhood")
+    @Operation(summary = "k-hop neighborhood", description = "Returns the subgraph induced by the nodes within the given number of hops of a node, collected breadth-first and cut off at maxNodes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Neighborhood extracted",
+                    content = @Content(schema = @Schema(implementation = NeighborhoodResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Node not in graph or invalid parameters", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
+    })
+    @Timed(value = "traversal.neighborhood", description = "Time taken to extract a node's neighborhood")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<NeighborhoodResponse> neighborhood(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Center node ID", required = true) @PathVariable UUID nodeId,
+            @Parameter(description = "Maximum number of edges from the center") @RequestParam(defaultValue = "2") int hops,
+            @Parameter(description = "Edges to follow: out, in or both") @RequestParam(defaultValue = "both") String direction,
+            @Parameter(description = "Maximum number of nodes to return") @RequestParam(defaultValue = "1000") int maxNodes,
+            @Parameter(description = "Retained graph version to search") @RequestParam(required = false) Long atVersion) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    ImmutableGraph.Neighborhood<String, String> neighborhood = graphAt(graph, atVersion)
+                            .neighborhood(nodeId, parseDirection(direction), hops, maxNodes);
+                    List<NodeResponse> nodes = neighborhood.nodes().stream()
+                            .map(context -> new NodeResponse(context.getNodeId(), context.getLabel()))
+                            .toList();
+                    List<EdgeResponse> edges = neighborhood.edges().stream()
+                            .map(edge -> new EdgeResponse(edge.from(), edge.to()))
+                            .toList();
+                    return ResponseEntity.ok(new NeighborhoodResponse(nodeId, hops, nodes, edges,
+                            neighborhood.truncated()));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/path/{fromId}/{toId} - Finds a shortest path between two nodes
+     *
+     * @param id the graph ID
+     * @param fromId the source node ID
+     * @param toId the target node ID
+     * @param atVersion optional retained version to search instead of the latest
+     * @return the nodes on a shortest path and its hop count, 404 if there is no path
+     */
+    @GetMapping("/{id}/path/{fromId}/{toId}")
+    @Operation(summary = "Shortest path", description = "Finds a shortest directed path between two nodes using bidirectional breadth-first search")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Path found",
+                    content = @Content(schema = @Schema(implementation = PathResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Node not in graph", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found, or no path exists", content = @Content)
+    })
+    @Timed(value = "traversal.path", description = "Time taken to find a shortest path")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<PathResponse> shortestPath(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Source node ID", required = true) @PathVariable UUID fromId,
+            @Parameter(description = "Target node ID", required = true) @PathVariable UUID toId,
+            @Parameter(description = "Retained graph version to search") @RequestParam(required = false) Long atVersion) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    List<ImmutableGraph.Context<String, String>> path =
+                            graphAt(graph, atVersion).shortestPath(fromId, toId);
+                    if (path.isEmpty()) {
+                        return ResponseEntity.notFound().<PathResponse>build();
+                    }
+                    List<NodeResponse> nodes = collectTraversal(path.stream(), null, null);
+                    return ResponseEntity.ok(new PathResponse(nodes, nodes.size() - 1));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/toposort - Orders the nodes so that every edge points forward
+     *
+     * @param id the graph ID
+     * @param atVersion optional retained version to sort instead of the latest
+     * @return the topological order, or a cycle if the graph has one
+     */
+    @GetMapping("/{id}/toposort")
+    @Operation(summary = "Topological sort", description = "Orders the nodes so that every edge goes from an earlier node to a later one; if the graph has a cycle, returns one instead. Cached per graph version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order or cycle found",
+                    content = @Content(schema = @Schema(implementation = TopologicalSortResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
+    })
+    @Timed(value = "traversal.toposort", description = "Time taken to sort a graph topologically")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<TopologicalSortResponse> topologicalSort(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Retained graph version to sort") @RequestParam(required = false) Long atVersion) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    ImmutableGraph<String, String> version = graphAt(graph, atVersion);
+                    TopologicalOrder order = version.topologicalOrder();
+                    return ResponseEntity.ok(new TopologicalSortResponse(order.isAcyclic(),
+                            toNodeResponses(version, order.order()), toNodeResponses(version, order.cycle())));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/critical-path - Finds a longest path through a DAG
+     *
+     * @param id the graph ID
+     * @param atVersion optional retained version to search instead of the latest
+     * @return a longest path by hop count, or a cycle if the graph has one
+     */
+    @GetMapping("/{id}/critical-path")
+    @Operation(summary = "Critical path", description = "Finds a longest directed path by hop count in an acyclic graph; if the graph has a cycle, returns one instead. Cached per graph version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Path or cycle found",
+                    content = @Content(schema = @Schema(implementation = CriticalPathResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
+    })
+    @Timed(value = "traversal.criticalPath", description = "Time taken to find a critical path")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<CriticalPathResponse> criticalPath(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Retained graph version to search") @RequestParam(required = false) Long atVersion) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    ImmutableGraph<String, String> version = graphAt(graph, atVersion);
+                    TopologicalOrder order = version.topologicalOrder();
+                    List<NodeResponse> path = toNodeResponses(version, order.criticalPath());
+                    return ResponseEntity.ok(new CriticalPathResponse(order.isAcyclic(), path,
+                            Math.max(0, path.size() - 1), toNodeResponses(version, order.cycle())));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/scc - Finds the strongly connected components and their condensation
+     *
+     * @param id the graph ID
+     * @param atVersion optional retained version to decompose instead of the latest
+     * @return each component's nodes and the edges of the condensation DAG
+     */
+    @GetMapping("/{id}/scc")
+    @Operation(summary = "Strongly connected components", description = "Groups nodes into strongly connected components, numbered so that every condensation edge goes from a higher component ID to a lower one. Cached per graph version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Components found",
+                    content = @Content(schema = @Schema(implementation = StrongComponentsResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
+    })
+    @Timed(value = "traversal.scc", description = "Time taken to find strongly connected components")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<StrongComponentsResponse> stronglyConnectedComponents(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Retained graph version to decompose") @RequestParam(required = false) Long atVersion) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    ImmutableGraph<String, String> version = graphAt(graph, atVersion);
+                    CsrGraph csr = version.toCsr();
+                    StronglyConnectedComponents components = version.stronglyConnectedComponents();
+                    List<StrongComponentResponse> componentResponses = new ArrayList<>(components.count());
+                    List<CondensationEdgeResponse> condensation = new ArrayList<>(components.dagEdgeCount());
+                    for (int c = 0; c < components.count(); c++) {
+                        List<UUID> members = new ArrayList<>(components.size(c));
+                        for (int i = 0; i < components.size(c); i++) {
+                            members.add(csr.nodeId(components.member(c, i)));
                         }
-                    });
-                    return ResponseEntity.ok(visited);
+                        members.sort(null);
+                        componentResponses.add(new StrongComponentResponse(c, toNodeResponses(version, members)));
+                        for (int i = 0; i < components.successorCount(c); i++) {
+                            condensation.add(new CondensationEdgeResponse(c, components.successor(c, i)));
+                        }
+                    }
+                    return ResponseEntity.ok(new StrongComponentsResponse(components.count(),
+                            componentResponses, condensation));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * GET /graphs/{id}/components - Finds the weakly connected components
+     *
+     * @param id the graph ID
+     * @return the component of every node
+     */
+    @GetMapping("/{id}/components")
+    @Operation(summary = "Weakly connected components", description = "Gives every node the ID of its weakly connected component, ignoring edge directions. Components are kept per graph and updated from each edit, including edits that split them")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Components found",
+                    content = @Content(schema = @Schema(implementation = WeakComponentsResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "traversal.components", description = "Time taken to find weakly connected components")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<WeakComponentsResponse> weaklyConnectedComponents(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id) {
+        return graphRepository.findById(id)
+                .map(graph -> ResponseEntity.ok(connectivityService.queryLatest(graph, components ->
+                        new WeakComponentsResponse(components.count(), components.componentIds().entrySet().stream()
+                                .map(entry -> new NodeComponentResponse(entry.getKey(), entry.getValue()))
+                                .toList()))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/components/{fromId}/{toId} - Checks whether two nodes are in the same weakly connected component
+     *
+     * @param id the graph ID
+     * @param fromId the first node ID
+     * @param toId the second node ID
+     * @return whether the nodes are joined by a path, ignoring edge directions
+     */
+    @GetMapping("/{id}/components/{fromId}/{toId}")
+    @Operation(summary = "Same component", description = "Checks whether two nodes are in the same weakly connected component, in constant time once the components have been listed and logarithmic time otherwise")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Check done",
+                    content = @Content(schema = @Schema(implementation = SameComponentResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Node not in graph", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "traversal.sameComponent", description = "Time taken to check whether two nodes share a component")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<SameComponentResponse> inSameComponent(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "First node ID", required = true) @PathVariable UUID fromId,
+            @Parameter(description = "Second node ID", required = true) @PathVariable UUID toId) {
+        return graphRepository.findById(id)
+                .map(graph -> ResponseEntity.ok(new SameComponentResponse(fromId, toId,
+                        connectivityService.queryLatest(graph, components -> components.connected(fromId, toId)))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/reachable/{fromId}/{toId} - Checks whether one node can reach another
+     *
+     * @param id the graph ID
+     * @param fromId the source node ID
+     * @param toId the target node ID
+     * @return whether a directed path leads from the source to the target
+     */
+    @GetMapping("/{id}/reachable/{fromId}/{toId}")
+    @Operation(summary = "Reachability", description = "Checks whether a directed path leads from one node to another, using the graph's cached reachability index")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reachability determined",
+                    content = @Content(schema = @Schema(implementation = ReachabilityResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Node not in graph", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "traversal.reachable", description = "Time taken to answer a reachability query")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<ReachabilityResponse> isReachable(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Source node ID", required = true) @PathVariable UUID fromId,
+            @Parameter(description = "Target node ID", required = true) @PathVariable UUID toId) {
+        return graphRepository.findById(id)
+                .map(graph -> ResponseEntity.ok(new ReachabilityResponse(fromId, toId,
+                        graph.getImmutableGraph().canReach(fromId, toId))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /graphs/{id}/reachable - Answers a batch of reachability queries
+     *
+     * @param id the graph ID
+     * @param queries the node pairs to check
+     * @return one answer per query, in request order
+     */
+    @PostMapping("/{id}/reachable")
+    @Operation(summary = "Batch reachability", description = "Checks several source/target pairs against the graph's cached reachability index")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reachability determined",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ReachabilityResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Node not in graph", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "traversal.reachableBatch", description = "Time taken to answer a batch of reachability queries")
+    @CircuitBreaker(name = "traversalService")
+    @RateLimiter(name = "traversalService")
+    @Retry(name = "traversalService")
+    public ResponseEntity<List<ReachabilityResponse>> areReachable(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @RequestBody List<ReachabilityQuery> queries) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    ImmutableGraph<String, String> immutableGraph = graph.getImmutableGraph();
+                    return ResponseEntity.ok(queries.stream()
+                            .map(query -> new ReachabilityResponse(query.from(), query.to(),
+                                    immutableGraph.canReach(query.from(), query.to())))
+                            .toList());
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /graphs/{id}/versions - Lists the retained versions of a graph
+     *
+     * @param id the graph ID
+     * @return the retained version numbers, oldest first
+     */
+    @GetMapping("/{id}/versions")
+    @Operation(summary = "List graph versions", description = "Lists the recent graph versions that can be read with the atVersion parameter")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Versions listed",
+                    content = @Content(schema = @Schema(implementation = GraphVersionsResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "graph.getVersions", description = "Time taken to list graph versions")
+    @CircuitBreaker(name = "graphService")
+    @RateLimiter(name = "graphService")
+    @Retry(name = "graphService")
+    public ResponseEntity<GraphVersionsResponse> getVersions(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id) {
+        if (!graphRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new GraphVersionsResponse(id, versionRepository.findVersionNumbers(id)));
+    }
+
+    /**
+     * GET /graphs/{id}/diff - Lists the changes between two retained versions of a graph
+     *
+     * @param id the graph ID
+     * @param from the version to compare from
+     * @param to the version to compare to, the latest if omitted
+     * @return the nodes and edges added, removed or relabeled between the two versions
+     */
+    @GetMapping("/{id}/diff")
+    @Operation(summary = "Diff graph versions", description = "Lists the nodes and edges that changed between two retained graph versions; the cost is proportional to the changes, not to the graph size")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes listed",
+                    content = @Content(schema = @Schema(implementation = GraphDiffResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Graph or version not found", content = @Content)
+    })
+    @Timed(value = "graph.diff", description = "Time taken to diff graph versions")
+    @CircuitBreaker(name = "graphService")
+    @RateLimiter(name = "graphService")
+    @Retry(name = "graphService")
+    public ResponseEntity<GraphDiffResponse> diffVersions(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id,
+            @Parameter(description = "Version to compare from", required = true) @RequestParam long from,
+            @Parameter(description = "Version to compare to; defaults to the latest") @RequestParam(required = false) Long to) {
+        return graphRepository.findById(id)
+                .map(graph -> {
+                    long toVersion = to != null ? to : versionRepository.findLatestVersion(id)
+                            .map(GraphVersionRepository.GraphVersion::number)
+                            .orElseThrow(() -> new EntityNotFoundException("No version of graph " + id + " is retained"));
+                    ImmutableGraph.GraphDiff<String, String> diff = graphAt(graph, from).diff(graphAt(graph, toVersion));
+                    Comparator<EdgeResponse> edgeOrder = Comparator.comparing(EdgeResponse::source)
+                            .thenComparing(EdgeResponse::target);
+                    return ResponseEntity.ok(new GraphDiffResponse(id, from, toVersion,
+                            toNodeResponses(diff.addedNodes()),
+                            diff.removedNodes().stream().sorted().toList(),
+                            toNodeResponses(diff.relabeledNodes()),
+                            diff.addedEdges().stream()
+                                    .map(edge -> new EdgeResponse(edge.from(), edge.to()))
+                                    .sorted(edgeOrder).toList(),
+                            diff.removedEdges().stream()
+                                    .map(edge -> new EdgeResponse(edge.from(), edge.to()))
+                                    .sorted(edgeOrder).toList()));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The graph's latest structure, or a retained earlier version of it
+     */
+    private ImmutableGraph<String, String> graphAt(Graph graph, Long atVersion) {
+        if (atVersion == null) {
+            return graph.getImmutableGraph();
+        }
+        return versionRepository.findVersion(graph.getId(), atVersion)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Version " + atVersion + " of graph " + graph.getId() + " is not retained"));
+    }
+
+    private static List<NodeResponse> toNodeResponses(ImmutableGraph<String, String> version, List<UUID> nodeIds) {
+        return nodeIds.stream()
+                .map(nodeId -> new NodeResponse(nodeId, version.getContext(nodeId).getLabel()))
+                .toList();
+    }
+
+    private static List<NodeResponse> toNodeResponses(Map<UUID, String> labels) {
+        return labels.entrySet().stream()
+                .map(entry -> new NodeResponse(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(NodeResponse::id))
+                .toList();
+    }
+
+    /**
+     * Full graph response built from one version's structure; nodes are listed in
+     * ID order, which for UUID v7 IDs is creation order
+     */
+    private FullGraphResponse fullGraphAt(Graph graph, ImmutableGraph<String, String> version) {
+        List<UUID> nodeIds = version.getNodeIds().stream().sorted().toList();
+        List<NodeResponse> nodes = new ArrayList<>(nodeIds.size());
+        List<EdgeResponse> edges = new ArrayList<>();
+        for (UUID nodeId : nodeIds) {
+            ImmutableGraph.Context<String, String> context = version.getContext(nodeId);
+            nodes.add(new NodeResponse(nodeId, context.getLabel()));
+            for (UUID successorId : context.getSuccessors().keySet()) {
+                edges.add(new EdgeResponse(nodeId, successorId));
+            }
+        }
+        return new FullGraphResponse(graph.getId(), graph.getName(), nodes, edges);
+    }
+
+    /**
+     * Drains a lazy traversal, stopping at the limit or right after the stop node
+     */
+    private static List<NodeResponse> collectTraversal(Stream<ImmutableGraph.Context<String, String>> traversal,
+                                                       Integer limit, UUID stopAt) {
+        if (limit != null && limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        if (stopAt != null) {
+            traversal = GraphTraversals.takeUntil(traversal, context -> context.getNodeId().equals(stopAt));
+        }
+        if (limit != null) {
+            traversal = traversal.limit(limit);
+        }
+        // Labels come from the traversed version, which may predate later renames
+        return traversal
+                .map(context -> new NodeResponse(context.getNodeId(), context.getLabel()))
+                .toList();
+    }
+
+    private static GraphTraversals.Direction parseDirection(String direction) {
+        try {
+            return GraphTraversals.Direction.valueOf(direction.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("direction must be one of out, in, both");
+        }
+    }
+
     /**
      * GET /graphs/{id}/metrics - Retrieves aggregate metrics for a graph
      *
@@ -805,9 +1336,16 @@ public class GraphController {
                         metrics.getAverageDegree(),
                         metrics.isConnected(),
                         metrics.getComponentCount(),
+                        metrics.getStrongComponentCount(),
                         metrics.getDiameter(),
+                        metrics.isDiameterExact(),
+                        metrics.getDiameterUpperBound(),
                         metrics.getAveragePathLength(),
+                        metrics.getEffectiveDiameter(),
+                        metrics.isPathLengthsApproximate(),
                         metrics.getAverageClusteringCoefficient(),
+                        metrics.isClusteringApproximate(),
+                        metrics.isPathMetricsStale(),
                         metrics.getComputedAt().toString()
                 )))
                 .orElse(ResponseEntity.notFound().build());
@@ -843,6 +1381,7 @@ public class GraphController {
                         metrics.getInDegree(),
                         metrics.getOutDegree(),
                         metrics.getBetweennessCentrality(),
+                        metrics.isBetweennessApproximate(),
                         metrics.getClosenessCentrality(),
                         metrics.getClusteringCoefficient()
                 )))
@@ -876,6 +1415,34 @@ public class GraphController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /graphs/{id}/metrics/distances - Retrieves the distance distribution for a graph
+     *
+     * @param id the graph ID
+     * @return how many node pairs lie at each distance, 404 if the graph is not found
+     */
+    @GetMapping("/{id}/metrics/distances")
+    @Operation(summary = "Get distance distribution",
+            description = "Retrieves how many ordered node pairs lie at each shortest path distance. "
+                    + "Estimated with HyperANF when the graph's path metrics are approximate.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Distribution found",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = DistanceDistributionResponse.class)))),
+            @ApiResponse(responseCode = "404", description = "Graph not found", content = @Content)
+    })
+    @Timed(value = "metrics.getDistanceDistribution", description = "Time taken to retrieve distance distribution")
+    public ResponseEntity<List<DistanceDistributionResponse>> getDistanceDistribution(
+            @Parameter(description = "Graph ID", required = true) @PathVariable UUID id) {
+        if (!graphRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        List<DistanceDistributionResponse> response = distanceDistRepository.findByGraphId(id).stream()
+                .map(d -> new DistanceDistributionResponse(d.getDistance(), d.getPairCount()))
+                .sorted((a, b) -> Integer.compare(a.distance(), b.distance()))
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Request DTO for creating a graph
      */
@@ -938,6 +1505,223 @@ public class GraphController {
             List<NodeInfoResponse> toNodes) {
     }
 
+    /**
+     * Response DTO for a shortest path
+     */
+    @Schema(description = "Shortest path between two nodes")
+    public record PathResponse(
+            @Schema(description = "Nodes on the path, from source to target inclusive")
+            List<NodeResponse> nodes,
+            @Schema(description = "Number of edges on the path", example = "3")
+            int hops) {
+    }
+
+    /**
+     * Response DTO for a topological sort
+     */
+    @Schema(description = "Topological order of a graph, or a cycle that prevents one")
+    public record TopologicalSortResponse(
+            @Schema(description = "True if the graph has no directed cycle")
+            boolean acyclic,
+            @Schema(description = "Nodes ordered so that every edge goes forward; empty if the graph has a cycle")
+            List<NodeResponse> order,
+            @Schema(description = "Nodes of one directed cycle, each linked to the next and the last back to the first; empty if acyclic")
+            List<NodeResponse> cycle) {
+    }
+
+    /**
+     * Response DTO for a critical path
+     */
+    @Schema(description = "Longest path of an acyclic graph, or a cycle that prevents one")
+    public record CriticalPathResponse(
+            @Schema(description = "True if the graph has no directed cycle")
+            boolean acyclic,
+            @Schema(description = "Nodes on a longest path by hop count, in order; empty if the graph has a cycle")
+            List<NodeResponse> nodes,
+            @Schema(description = "Number of edges on the path", example = "3")
+            int hops,
+            @Schema(description = "Nodes of one directed cycle; empty if acyclic")
+            List<NodeResponse> cycle) {
+    }
+
+    /**
+     * Response DTO for a k-hop neighborhood
+     */
+    @Schema(description = "Subgraph induced by the nodes within a number of hops of a center node")
+    public record NeighborhoodResponse(
+            @Schema(description = "Center node ID")
+            UUID center,
+            @Schema(description = "Maximum number of edges from the center", example = "2")
+            int hops,
+            @Schema(description = "Nodes in range in breadth-first order, starting with the center")
+            List<NodeResponse> nodes,
+            @Schema(description = "Every edge whose endpoints are both in the neighborhood")
+            List<EdgeResponse> edges,
+            @Schema(description = "True if maxNodes left out nodes within range")
+            boolean truncated) {
+    }
+
+    /**
+     * Response DTO for strongly connected components
+     */
+    @Schema(description = "Strongly connected components of a graph version and the DAG they condense to")
+    public record StrongComponentsResponse(
+            @Schema(description = "Number of strongly connected components", example = "4")
+            int componentCount,
+            @Schema(description = "Components by ID; a node's component ID is the ID of the component listing it")
+            List<StrongComponentResponse> components,
+            @Schema(description = "Distinct edges between components, each from a higher component ID to a lower one")
+            List<CondensationEdgeResponse> condensationEdges) {
+    }
+
+    /**
+     * Response DTO for one strongly connected component
+     */
+    @Schema(description = "Nodes that all reach each other")
+    public record StrongComponentResponse(
+            @Schema(description = "Component ID, from 0 to componentCount - 1", example = "0")
+            int id,
+            @Schema(description = "Member nodes, in ID order")
+            List<NodeResponse> nodes) {
+    }
+
+    /**
+     * Response DTO for an edge of the condensation DAG
+     */
+    @Schema(description = "Edge between two strongly connected components")
+    public record CondensationEdgeResponse(
+            @Schema(description = "Component the edge leaves", example = "2")
+            int source,
+            @Schema(description = "Component the edge enters", example = "0")
+            int target) {
+    }
+
+    /**
+     * Response DTO for weakly connected components
+     */
+    @Schema(description = "Weakly connected components of a graph, ignoring edge directions")
+    public record WeakComponentsResponse(
+            @Schema(description = "Number of weakly connected components", example = "2")
+            int componentCount,
+            @Schema(description = "Every node with its component")
+            List<NodeComponentResponse> nodes) {
+    }
+
+    /**
+     * Response DTO for a node's weakly connected component
+     */
+    @Schema(description = "A node and the weakly connected component it is in")
+    public record NodeComponentResponse(
+            @Schema(description = "Node ID")
+            UUID nodeId,
+            @Schema(description = "Component ID, from 0 to componentCount - 1; IDs can change when the graph does", example = "0")
+            int componentId) {
+    }
+
+    /**
+     * Response DTO for a same-component check
+     */
+    @Schema(description = "Whether two nodes are in the same weakly connected component")
+    public record SameComponentResponse(
+            @Schema(description = "First node ID")
+            UUID from,
+            @Schema(description = "Second node ID")
+            UUID to,
+            @Schema(description = "True if a path joins the nodes, ignoring edge directions")
+            boolean sameComponent) {
+    }
+
+    /**
+     * Response DTO for the retained versions of a graph
+     */
+    @Schema(description = "Retained versions of a graph")
+    public record GraphVersionsResponse(
+            @Schema(description = "Graph ID")
+            UUID graphId,
+            @Schema(description = "Retained version numbers, oldest first; the last is the latest")
+            List<Long> versions) {
+    }
+
+    /**
+     * Response DTO for the changes between two graph versions
+     */
+    @Schema(description = "Nodes and edges that changed between two graph versions")
+    public record GraphDiffResponse(
+            @Schema(description = "Graph ID")
+            UUID graphId,
+            @Schema(description = "Version compared from")
+            long fromVersion,
+            @Schema(description = "Version compared to")
+            long toVersion,
+            @Schema(description = "Nodes added, with their labels")
+            List<NodeResponse> addedNodes,
+            @Schema(description = "IDs of nodes removed")
+            List<UUID> removedNodes,
+            @Schema(description = "Nodes whose label changed, with their new labels")
+            List<NodeResponse> relabeledNodes,
+            @Schema(description = "Edges added, including those of added nodes")
+            List<EdgeResponse> addedEdges,
+            @Schema(description = "Edges removed, including those of removed nodes")
+            List<EdgeResponse> removedEdges) {
+    }
+
+    /**
+     * Request DTO for one reachability query
+     */
+    @Schema(description = "Source and target node of a reachability query")
+    public record ReachabilityQuery(
+            @Schema(description = "Source node ID", requiredMode = Schema.RequiredMode.REQUIRED)
+            UUID from,
+            @Schema(description = "Target node ID", requiredMode = Schema.RequiredMode.REQUIRED)
+            UUID to) {
+    }
+
+    /**
+     * Request DTO for a bulk delete
+     */
+    @Schema(description = "Nodes and edges to delete in one edit")
+    public record BulkDeleteRequest(
+            @Schema(description = "IDs of nodes to delete along with all their edges")
+            List<UUID> nodeIds,
+            @Schema(description = "Directed edges to delete")
+            List<EdgeReference> edges) {
+    }
+
+    /**
+     * Request DTO naming a directed edge by its endpoints
+     */
+    @Schema(description = "A directed edge identified by its source and target nodes")
+    public record EdgeReference(
+            @Schema(description = "Source node ID", requiredMode = Schema.RequiredMode.REQUIRED)
+            UUID from,
+            @Schema(description = "Target node ID", requiredMode = Schema.RequiredMode.REQUIRED)
+            UUID to) {
+    }
+
+    /**
+     * Response DTO for a bulk delete
+     */
+    @Schema(description = "Number of nodes and edges a bulk delete removed")
+    public record BulkDeleteResponse(
+            @Schema(description = "Nodes deleted")
+            int nodesDeleted,
+            @Schema(description = "Edges deleted explicitly, not counting those removed with their nodes")
+            int edgesDeleted) {
+    }
+
+    /**
+     * Response DTO for a reachability query
+     */
+    @Schema(description = "Whether the target node can be reached from the source node")
+    public record ReachabilityResponse(
+            @Schema(description = "Source node ID")
+            UUID from,
+            @Schema(description = "Target node ID")
+            UUID to,
+            @Schema(description = "True if a directed path leads from source to target")
+            boolean reachable) {
+    }
+
     /**
      * Response DTO for graph metrics
      */
@@ -955,12 +1739,29 @@ public class GraphController {
             boolean connected,
             @Schema(description = "Number of connected components")
             int componentCount,
+            @Schema(description = "Number of strongly connected components")
+            int strongComponentCount,
             @Schema(description = "Graph diameter (longest shortest path), null if disconnected")
             Integer diameter,
+            @Schema(description = "Whether the diameter is exact; if not, it is a lower bound")
+            boolean diameterExact,
+            @Schema(description = "Upper bound on the diameter when it is not exact")
+            Integer diameterUpperBound,
             @Schema(description = "Average shortest path length, null if disconnected")
             Double averagePathLength,
+            @Schema(description = "Distance within which 90% of reachable node pairs lie, null if disconnected")
+            Double effectiveDiameter,
+            @Schema(description = "Whether average path length, effective diameter and distance distribution are HyperANF estimates")
+            boolean pathLengthsApproximate,
             @Schema(description = "Average clustering coefficient")
             Double averageClusteringCoefficient,
+            @Schema(description = "Whether the average clustering coefficient was estimated by wedge sampling")
+            boolean clusteringApproximate,
+            @Schema(description = "Whether the graph changed since the last full computation. Counts, density, average degree, "
+                    + "weak connectivity and degrees are current; the strong component count, diameter, path lengths, "
+                    + "effective diameter, distance distribution, clustering coefficients and node closeness and "
+                    + "betweenness describe an earlier version until they are recomputed")
+            boolean pathMetricsStale,
             @Schema(description = "Timestamp when metrics were computed")
             String computedAt) {
     }
@@ -980,6 +1781,8 @@ public class GraphController {
             Integer outDegree,
             @Schema(description = "Betweenness centrality")
             Double betweennessCentrality,
+            @Schema(description = "Whether betweenness centrality was estimated by sampling")
+            boolean betweennessApproximate,
             @Schema(description = "Closeness centrality")
             Double closenessCentrality,
             @Schema(description = "Local clustering coefficient")
@@ -997,6 +1800,17 @@ public class GraphController {
             int count) {
     }
 
+    /**
+     * Response DTO for distance distribution entry
+     */
+    @Schema(description = "Node pair count at one distance")
+    public record DistanceDistributionResponse(
+            @Schema(description = "Shortest path distance in hops")
+            int distance,
+            @Schema(description = "Number of ordered node pairs at this distance")
+            double pairCount) {
+    }
+
     /**
      * Response DTO for edge
      */
@@ -47,14 +47,12 @@ public class RandomGraphDemo {
      * where nodes with higher degree are more likely to receive new edges.
      */
     private static ImmutableGraph<String, Integer> createRandomGraphWithPreferentialAttachment() {
-        ImmutableGraph<String, Integer> graph = new ImmutableGraph<>();
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
         List<UUID> nodeIds = new ArrayList<>();
 
         // Create all nodes first (labeled "1" through "10")
         for (int i = 0; i < NUM_NODES; i++) {
-            var result = graph.addNode(String.valueOf(i + 1));
-            graph = result.getGraph();
-            nodeIds.add(result.getNodeId());
+            nodeIds.add(builder.addNode(String.valueOf(i + 1)));
         }
 
         // Track degree of each node for preferential attachment
@@ -65,24 +63,20 @@ public class RandomGraphDemo {
             int fromIndex = selectNodeByPreferentialAttachment(degrees);
             int toIndex = selectNodeByPreferentialAttachment(degrees);
 
-            // Avoid self-loops and ensure we're not duplicating edges
+            // Avoid self-loops
             int attempts = 0;
             while (fromIndex == toIndex && attempts < 100) {
                 toIndex = selectNodeByPreferentialAttachment(degrees);
                 attempts++;
             }
 
-            // Add the edge
-            try {
-                graph = graph.addEdge(nodeIds.get(fromIndex), nodeIds.get(toIndex), edgeCount + 1);
-                degrees[fromIndex]++;
-                degrees[toIndex]++;
-            } catch (Exception e) {
-                // Edge might already exist, continue
-            }
+            // Add the edge; a repeated pair keeps the latest label
+            builder.addEdge(nodeIds.get(fromIndex), nodeIds.get(toIndex), edgeCount + 1);
+            degrees[fromIndex]++;
+            degrees[toIndex]++;
         }
 
-        return graph;
+        return builder.build();
     }
 
     /**
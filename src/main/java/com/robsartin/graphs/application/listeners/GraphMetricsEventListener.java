@@ -1,6 +1,7 @@
 package com.robsartin.graphs.application.listeners;
 
 import com.robsartin.graphs.application.services.GraphMetricsComputationService;
+import com.robsartin.graphs.application.services.GraphMetricsComputationService.ChangeOutcome;
 import com.robsartin.graphs.events.GraphSavedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,15 +9,30 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Async event listener that triggers graph metrics computation
  * when a graph is saved.
+ * Saves that record a version are first applied incrementally; the full computation then
+ * runs only if they could not be, or to refresh the metrics they left stale once no later
+ * save is waiting, so a burst of edits recomputes those once rather than per edit.
+ * Events for the same graph are handled one at a time, in arrival order: an event that
+ * arrives while another for its graph is being handled is queued and handled by that
+ * same thread afterwards, so no thread waits on a running computation.
  */
 @Component
 public class GraphMetricsEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(GraphMetricsEventListener.class);
 
+    /** Events per graph being handled; the head is the one in progress */
+    private final Map<UUID, Deque<GraphSavedEvent>> queuedEvents = new ConcurrentHashMap<>();
+
     private final GraphMetricsComputationService metricsService;
 
     public GraphMetricsEventListener(GraphMetricsComputationService metricsService) {
@@ -27,19 +43,78 @@ public class GraphMetricsEventListener {
     @EventListener
     public void handleGraphSavedEvent(GraphSavedEvent event) {
         log.info("Received GraphSavedEvent for graph {}", event.graphId());
+        // Saves publish their event after committing, so the saved version is readable here
+        if (!enqueue(event)) {
+            log.debug("Queued GraphSavedEvent for graph {} behind the one in progress", event.graphId());
+            return;
+        }
+        boolean drained = false;
         try {
-            // Small delay to ensure transaction commits before we read
-            Thread.sleep(100);
+            for (GraphSavedEvent next = event; next != null; next = completeAndPoll(next.graphId())) {
+                try {
+                    updateMetrics(next);
+                } catch (Exception e) {
+                    // Log but don't rethrow - metrics computation failure should not
+                    // affect the original graph save operation
+                    log.error("Failed to compute metrics for graph {}: {}",
+                            next.graphId(), e.getMessage(), e);
+                }
+            }
+            drained = true;
+        } finally {
+            if (!drained) {
+                queuedEvents.remove(event.graphId());
+            }
+        }
+    }
+
+    /**
+     * Queues an event; true if no other event for its graph is in progress, so the caller
+     * must handle it
+     */
+    private boolean enqueue(GraphSavedEvent event) {
+        boolean[] first = new boolean[1];
+        queuedEvents.compute(event.graphId(), (graphId, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                first[0] = true;
+            }
+            queue.addLast(event);
+            return queue;
+        });
+        return first[0];
+    }
+
+    /**
+     * Drops the event just handled and returns the next one queued for the graph, or null
+     * after releasing the graph if there is none
+     */
+    private GraphSavedEvent completeAndPoll(UUID graphId) {
+        GraphSavedEvent[] next = new GraphSavedEvent[1];
+        queuedEvents.computeIfPresent(graphId, (id, queue) -> {
+            queue.pollFirst();
+            next[0] = queue.peekFirst();
+            return queue.isEmpty() ? null : queue;
+        });
+        return next[0];
+    }
+
+    private void updateMetrics(GraphSavedEvent event) {
+        ChangeOutcome outcome = ChangeOutcome.NOT_APPLIED;
+        if (event.version() > 0) {
+            try {
+                outcome = metricsService.applyChanges(event);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply changes to metrics for graph {}, recomputing: {}",
+                        event.graphId(), e.getMessage());
+            }
+        }
+        if (outcome == ChangeOutcome.PATH_METRICS_STALE
+                && metricsService.hasNewerVersion(event.graphId(), event.version())) {
+            log.info("Deferring stale metrics for graph {} to a later save", event.graphId());
+        } else if (outcome != ChangeOutcome.CURRENT) {
             metricsService.computeAndSaveMetrics(event.graphId());
             log.info("Completed metrics computation for graph {}", event.graphId());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.warn("Metrics computation interrupted for graph {}", event.graphId());
-        } catch (Exception e) {
-            // Log but don't rethrow - metrics computation failure should not
-            // affect the original graph save operation
-            log.error("Failed to compute metrics for graph {}: {}",
-                    event.graphId(), e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,163 @@
+package com.robsartin.graphs.application.services;
+
+import com.robsartin.graphs.infrastructure.DynamicConnectivity;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.models.Graph;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Service keeping the weak components of recently used graphs.
+ * Each graph's components are held in a {@link DynamicConnectivity} for the last version
+ * asked about. Asking about a version derived from that one by edits applies the diff
+ * between the two; such versions share every unchanged node, which the diff skips, so
+ * the cost follows the size of the edit rather than of the graph, whether the edit joins
+ * components or splits one. Versions with no common history, diffs beyond the incremental
+ * change limit, and graphs not held yet are loaded from the version's CSR snapshot instead.
+ */
+@Service
+public class GraphConnectivityService {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphConnectivityService.class);
+
+    /** Graphs whose components are kept, least recently used dropped first */
+    private static final int TRACKED_GRAPHS = 16;
+
+    /** Locks striped by graph ID, so queries on different graphs rarely wait on each other */
+    private static final int LOCK_STRIPES = 64;
+
+    private final GraphVersionRepository versionRepository;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Map<UUID, TrackedComponents> trackedComponents = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, TrackedComponents> eldest) {
+                    return size() > TRACKED_GRAPHS;
+                }
+            });
+
+    private final int incrementalChangeLimit;
+
+    public GraphConnectivityService(GraphVersionRepository versionRepository,
+                                    @Value("${app.graph.incremental-change-limit:100}") int incrementalChangeLimit) {
+        this.versionRepository = versionRepository;
+        this.incrementalChangeLimit = incrementalChangeLimit;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Answers a query from the weak components of a graph version. The components are
+     * only valid inside the query, which must not keep them.
+     *
+     * @param graphId the graph ID
+     * @param structure the graph version
+     * @param query what to read from the components
+     * @return the query's answer
+     */
+    public <T> T query(UUID graphId, ImmutableGraph<String, String> structure, Function<DynamicConnectivity, T> query) {
+        synchronized (locks[Math.floorMod(graphId.hashCode(), LOCK_STRIPES)]) {
+            return query.apply(componentsAt(graphId, structure));
+        }
+    }
+
+    /**
+     * Answers a query from the weak components of a graph's latest version: the latest
+     * retained one, which later saves diff against cheaply, or the graph as loaded if no
+     * version is retained
+     */
+    public <T> T queryLatest(Graph graph, Function<DynamicConnectivity, T> query) {
+        ImmutableGraph<String, String> structure = versionRepository.findLatestVersion(graph.getId())
+                .map(GraphVersionRepository.GraphVersion::graph)
+                .orElse(graph.getImmutableGraph());
+        return query(graph.getId(), structure, query);
+    }
+
+    /**
+     * Number of weak components of a graph version
+     */
+    public int componentCount(UUID graphId, ImmutableGraph<String, String> structure) {
+        return query(graphId, structure, DynamicConnectivity::count);
+    }
+
+    /**
+     * Number of weak components of a graph version reached by a known diff from an earlier
+     * one. Components kept for the earlier version take the diff as it is instead of
+     * diffing the two versions again.
+     */
+    public int componentCount(UUID graphId, ImmutableGraph<String, String> before,
+                              ImmutableGraph.GraphDiff<String, String> diff, ImmutableGraph<String, String> after) {
+        synchronized (locks[Math.floorMod(graphId.hashCode(), LOCK_STRIPES)]) {
+            return componentsAt(graphId, after, before, diff).count();
+        }
+    }
+
+    private DynamicConnectivity componentsAt(UUID graphId, ImmutableGraph<String, String> structure) {
+        return componentsAt(graphId, structure, null, null);
+    }
+
+    private DynamicConnectivity componentsAt(UUID graphId, ImmutableGraph<String, String> structure,
+                                             ImmutableGraph<String, String> knownBefore,
+                                             ImmutableGraph.GraphDiff<String, String> knownDiff) {
+        TrackedComponents tracked = trackedComponents.get(graphId);
+        if (tracked != null && tracked.structure() == structure) {
+            return tracked.components();
+        }
+        DynamicConnectivity components = null;
+        if (tracked != null && tracked.structure().sharesHistoryWith(structure)) {
+            ImmutableGraph.GraphDiff<String, String> diff = tracked.structure() == knownBefore
+                    ? knownDiff
+                    : tracked.structure().diff(structure);
+            int changes = diff.addedNodes().size() + diff.removedNodes().size()
+                    + diff.addedEdges().size() + diff.removedEdges().size();
+            if (changes <= incrementalChangeLimit) {
+                try {
+                    applyChanges(tracked.components(), diff);
+                    components = tracked.components();
+                } catch (IllegalArgumentException e) {
+                    // The components no longer match the version they were kept for
+                    log.warn("Could not apply changes to components of graph {}: {}", graphId, e.getMessage());
+                }
+            }
+        }
+        if (components == null) {
+            components = DynamicConnectivity.of(structure.toCsr());
+        }
+        trackedComponents.put(graphId, new TrackedComponents(structure, components));
+        return components;
+    }
+
+    /**
+     * Applies a diff to components: the diff lists every edge of a removed node, so edges
+     * go before nodes are removed, and nodes are added before edges
+     */
+    private static void applyChanges(DynamicConnectivity components, ImmutableGraph.GraphDiff<String, String> diff) {
+        for (ImmutableGraph.NodePair edge : diff.removedEdges()) {
+            components.removeEdge(edge.from(), edge.to());
+        }
+        for (UUID nodeId : diff.removedNodes()) {
+            components.removeNode(nodeId);
+        }
+        for (UUID nodeId : diff.addedNodes().keySet()) {
+            components.addNode(nodeId);
+        }
+        for (ImmutableGraph.Edge<String> edge : diff.addedEdges()) {
+            components.addEdge(edge.from(), edge.to());
+        }
+    }
+
+    /**
+     * Graph version the components describe
+     */
+    private record TrackedComponents(ImmutableGraph<String, String> structure, DynamicConnectivity components) {}
+}
@@ -1,53 +1,158 @@
 package com.robsartin.graphs.application.services;
 
+import com.robsartin.graphs.events.GraphSavedEvent;
+import com.robsartin.graphs.infrastructure.BetweennessCentrality;
+import com.robsartin.graphs.infrastructure.ClusteringCoefficients;
+import com.robsartin.graphs.infrastructure.CsrGraph;
+import com.robsartin.graphs.infrastructure.DenseGraph;
+import com.robsartin.graphs.infrastructure.DiameterBounds;
+import com.robsartin.graphs.infrastructure.DistanceDistribution;
+import com.robsartin.graphs.infrastructure.HyperAnf;
 import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.infrastructure.ShortestPathStatistics;
+import com.robsartin.graphs.infrastructure.StronglyConnectedComponents;
 import com.robsartin.graphs.models.Graph;
 import com.robsartin.graphs.models.GraphDegreeDistribution;
+import com.robsartin.graphs.models.GraphDistanceDistribution;
 import com.robsartin.graphs.models.GraphMetrics;
 import com.robsartin.graphs.models.GraphNodeMetrics;
 import com.robsartin.graphs.ports.out.GraphDegreeDistributionRepository;
+import com.robsartin.graphs.ports.out.GraphDistanceDistributionRepository;
 import com.robsartin.graphs.ports.out.GraphMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphNodeMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphRepository;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Service responsible for computing graph metrics.
- * All computations are performed on the ImmutableGraph representation.
+ * All computations run on the graph version's cached {@link CsrGraph} snapshot,
+ * using dense int node indices and flat arrays rather than hashed contexts.
+ * A full computation describes the latest recorded version of the graph. Later versions
+ * within the incremental change limit of it are applied by {@link #applyChanges} from the
+ * diff between the two versions: counts, density, average degree, node degrees, the degree
+ * distribution and weak components (from {@link GraphConnectivityService}, which follows
+ * splits as well as merges) are updated in place. The strong component count, path metrics,
+ * distance distribution, clustering coefficients and closeness and betweenness are not, and
+ * are marked stale until the next full computation.
+ * Graphs at or above the parallel BFS threshold find strong components with the parallel
+ * forward-backward algorithm.
+ * Graphs above the approximate betweenness threshold estimate node betweenness by
+ * sampling shortest paths, to the configured (epsilon, delta) bound, instead of running
+ * Brandes' algorithm from every node.
+ * Diameter, average path length and closeness come from a single parallel pass of one
+ * BFS per source ({@link ShortestPathStatistics}), never from a distance matrix.
+ * From the exact path metrics threshold up, that pass is skipped and the diameter is
+ * bounded with {@link DiameterBounds}, recorded as exact when the bounds meet, and the
+ * distance distribution, average path length and effective diameter are estimated with
+ * {@link HyperAnf}.
+ * Clustering coefficients come from one parallel triangle count
+ * ({@link ClusteringCoefficients}); above the clustering sampling threshold only their
+ * average is estimated, from sampled wedges.
  */
 @Service
 public class GraphMetricsComputationService {
 
     private static final Logger log = LoggerFactory.getLogger(GraphMetricsComputationService.class);
 
+    /** Fixed, so recomputing an unchanged graph gives the same estimates */
+    private static final long SAMPLE_SEED = 1L;
+
+    /** Graphs whose described version is kept for incremental updates, least recently used dropped first */
+    private static final int TRACKED_GRAPHS = 64;
+
+    /**
+     * How {@link #applyChanges} left a graph's stored metrics
+     */
+    public enum ChangeOutcome {
+        /** Every metric describes the saved version or a later one */
+        CURRENT,
+        /**
+         * The cheap metrics describe the saved version; strong components, path metrics,
+         * clustering and closeness and betweenness need recomputing
+         */
+        PATH_METRICS_STALE,
+        /** The changes could not be applied; the metrics need a full computation */
+        NOT_APPLIED
+    }
+
     private final GraphRepository graphRepository;
     private final GraphMetricsRepository metricsRepository;
     private final GraphNodeMetricsRepository nodeMetricsRepository;
     private final GraphDegreeDistributionRepository degreeDistRepository;
+    private final GraphDistanceDistributionRepository distanceDistRepository;
+    private final GraphVersionRepository versionRepository;
+    private final GraphConnectivityService connectivityService;
+    private final Map<UUID, VersionedGraph> describedVersions = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, VersionedGraph> eldest) {
+                    return size() > TRACKED_GRAPHS;
+                }
+            });
+
+    @Value("${app.graph.parallel-bfs-threshold:50000}")
+    private int parallelBfsThreshold;
+
+    @Value("${app.graph.approximate-betweenness-threshold:1000000}")
+    private int approximateBetweennessThreshold;
+
+    @Value("${app.graph.betweenness-epsilon:0.01}")
+    private double betweennessEpsilon;
+
+    @Value("${app.graph.betweenness-delta:0.1}")
+    private double betweennessDelta;
+
+    @Value("${app.graph.exact-path-metrics-threshold:50000}")
+    private int exactPathMetricsThreshold;
+
+    @Value("${app.graph.diameter-search-budget:1000}")
+    private int diameterSearchBudget;
+
+    @Value("${app.graph.hyperanf-log2-registers:7}")
+    private int hyperAnfLog2Registers;
+
+    @Value("${app.graph.clustering-sampling-threshold:20000000}")
+    private int clusteringSamplingThreshold;
+
+    @Value("${app.graph.clustering-epsilon:0.001}")
+    private double clusteringEpsilon;
+
+    @Value("${app.graph.clustering-delta:0.01}")
+    private double clusteringDelta;
+
+    @Value("${app.graph.incremental-change-limit:100}")
+    private int incrementalChangeLimit;
 
     public GraphMetricsComputationService(
             GraphRepository graphRepository,
             GraphMetricsRepository metricsRepository,
             GraphNodeMetricsRepository nodeMetricsRepository,
-            GraphDegreeDistributionRepository degreeDistRepository) {
+            GraphDegreeDistributionRepository degreeDistRepository,
+            GraphDistanceDistributionRepository distanceDistRepository,
+            GraphVersionRepository versionRepository,
+            GraphConnectivityService connectivityService) {
         this.graphRepository = graphRepository;
         this.metricsRepository = metricsRepository;
         this.nodeMetricsRepository = nodeMetricsRepository;
         this.degreeDistRepository = degreeDistRepository;
+        this.distanceDistRepository = distanceDistRepository;
+        this.versionRepository = versionRepository;
+        this.connectivityService = connectivityService;
     }
 
     @Transactional
@@ -61,386 +166,370 @@ public class GraphMetricsComputationService {
         }
 
         Graph graph = graphOpt.get();
-        ImmutableGraph<String, String> immutableGraph = graph.getImmutableGraph();
+        VersionedGraph snapshot = latestVersion(graph);
+        CsrGraph csr = snapshot.graph().toCsr();
+        int componentCount = connectivityService.componentCount(graphId, snapshot.graph());
 
         // Clear existing metrics for this graph
         metricsRepository.deleteByGraphId(graphId);
         nodeMetricsRepository.deleteByGraphId(graphId);
         degreeDistRepository.deleteByGraphId(graphId);
+        distanceDistRepository.deleteByGraphId(graphId);
+
+        // One BFS per source feeds the path metrics and closeness, on graphs small enough for it
+        ShortestPathStatistics paths = csr.nodeCount() < exactPathMetricsThreshold
+                ? ShortestPathStatistics.compute(csr, ForkJoinPool.commonPool())
+                : null;
+        // Pairs at each distance: exact from that pass, otherwise estimated with HyperANF
+        DistanceDistribution distances = paths != null
+                ? paths.distanceDistribution()
+                : HyperAnf.estimate(csr, hyperAnfLog2Registers, SAMPLE_SEED, ForkJoinPool.commonPool());
+        // Per-node and average clustering from one triangle count, on graphs small enough for it
+        ClusteringCoefficients clustering = csr.edgeCount() <= clusteringSamplingThreshold
+                ? ClusteringCoefficients.compute(csr, ForkJoinPool.commonPool())
+                : null;
 
         // Compute and save aggregate metrics
-        GraphMetrics metrics = computeAggregateMetrics(graph, immutableGraph);
+        GraphMetrics metrics = computeAggregateMetrics(graph, snapshot.graph(), csr, componentCount, paths,
+                distances, clustering);
         metricsRepository.save(metrics);
 
         // Compute and save per-node metrics
-        List<GraphNodeMetrics> nodeMetricsList = computeNodeMetrics(graph, immutableGraph);
+        List<GraphNodeMetrics> nodeMetricsList = computeNodeMetrics(graph, csr, paths, clustering);
         nodeMetricsRepository.saveAll(nodeMetricsList);
 
         // Compute and save degree distribution
-        List<GraphDegreeDistribution> degreeDistList = computeDegreeDistribution(graph, immutableGraph);
+        List<GraphDegreeDistribution> degreeDistList = computeDegreeDistribution(graph, csr);
         degreeDistRepository.saveAll(degreeDistList);
 
+        // Save distance distribution
+        List<GraphDistanceDistribution> distanceDistList = new ArrayList<>();
+        for (int distance = 1; distance <= distances.maxDistance(); distance++) {
+            if (distances.pairs(distance) > 0) {
+                distanceDistList.add(new GraphDistanceDistribution(graph, distance, distances.pairs(distance)));
+            }
+        }
+        distanceDistRepository.saveAll(distanceDistList);
+
+        // Keep the described version for applying the next versions' changes
+        if (snapshot.version() > 0) {
+            describedVersions.put(graphId, snapshot);
+        } else {
+            describedVersions.remove(graphId);
+        }
+
         log.info("Computed metrics for graph {} with {} nodes and {} edges",
                 graphId, metrics.getNodeCount(), metrics.getEdgeCount());
     }
 
-    private GraphMetrics computeAggregateMetrics(Graph graph, ImmutableGraph<String, String> immutableGraph) {
-        GraphMetrics metrics = new GraphMetrics(graph);
-
-        int nodeCount = immutableGraph.nodeCount();
-        int edgeCount = graph.getEdges().size();
-
-        metrics.setNodeCount(nodeCount);
-        metrics.setEdgeCount(edgeCount);
-
-        // Density calculation (for directed graph)
-        if (nodeCount <= 1) {
-            metrics.setDensity(0.0);
-        } else {
-            double maxEdges = (double) nodeCount * (nodeCount - 1);
-            metrics.setDensity(edgeCount / maxEdges);
+    /**
+     * Brings a graph's stored metrics up to the version a save recorded, from the changes
+     * since the version they describe, without recomputing strong components, paths,
+     * clustering or centralities other than degree.
+     * Changes beyond the incremental change limit are not applied.
+     *
+     * @param event the save, with the version it recorded
+     * @return whether the metrics are current, still need their stale part recomputed, or
+     *         need a full computation
+     */
+    @Transactional
+    public ChangeOutcome applyChanges(GraphSavedEvent event) {
+        UUID graphId = event.graphId();
+        VersionedGraph described = describedVersions.get(graphId);
+        if (described == null) {
+            return ChangeOutcome.NOT_APPLIED;
         }
-
-        // Average degree (treating as directed: in-degree + out-degree)
-        if (nodeCount == 0) {
-            metrics.setAverageDegree(0.0);
-        } else {
-            metrics.setAverageDegree((2.0 * edgeCount) / nodeCount);
+        if (described.version() >= event.version()) {
+            return ChangeOutcome.CURRENT;
         }
 
-        // Connectivity analysis (treating graph as undirected for weak connectivity)
-        ConnectivityResult connectivity = analyzeConnectivity(immutableGraph);
-        metrics.setConnected(connectivity.isConnected());
-        metrics.setComponentCount(connectivity.componentCount());
-
-        // Path metrics (only for connected graphs with more than 1 node)
-        if (connectivity.isConnected() && nodeCount > 1) {
-            PathMetrics pathMetrics = computePathMetrics(immutableGraph);
-            metrics.setDiameter(pathMetrics.diameter());
-            metrics.setAveragePathLength(pathMetrics.averagePathLength());
+        Optional<ImmutableGraph<String, String>> after = versionRepository.findVersion(graphId, event.version());
+        Optional<GraphMetrics> metricsOpt = metricsRepository.findByGraphId(graphId);
+        Optional<Graph> graphOpt = graphRepository.findById(graphId);
+        if (after.isEmpty() || metricsOpt.isEmpty() || graphOpt.isEmpty()) {
+            return ChangeOutcome.NOT_APPLIED;
         }
 
-        // Average clustering coefficient
-        double avgClustering = computeAverageClusteringCoefficient(immutableGraph);
-        metrics.setAverageClusteringCoefficient(avgClustering);
+        ImmutableGraph.GraphDiff<String, String> diff = described.graph().diff(after.get());
+        int changes = diff.addedNodes().size() + diff.removedNodes().size()
+                + diff.addedEdges().size() + diff.removedEdges().size();
+        if (changes > incrementalChangeLimit) {
+            return ChangeOutcome.NOT_APPLIED;
+        }
 
-        return metrics;
+        GraphMetrics metrics = metricsOpt.get();
+        if (changes > 0) {
+            int componentCount = connectivityService.componentCount(graphId, described.graph(), diff, after.get());
+            applyStructuralChanges(graphOpt.get(), metrics, diff, componentCount);
+        }
+        describedVersions.put(graphId, new VersionedGraph(event.version(), after.get()));
+        log.info("Applied {} changes to metrics for graph {} at version {}", changes, graphId, event.version());
+        return metrics.isPathMetricsStale() ? ChangeOutcome.PATH_METRICS_STALE : ChangeOutcome.CURRENT;
     }
 
-    private List<GraphNodeMetrics> computeNodeMetrics(Graph graph, ImmutableGraph<String, String> immutableGraph) {
-        List<GraphNodeMetrics> nodeMetricsList = new ArrayList<>();
-        int nodeCount = immutableGraph.nodeCount();
+    /**
+     * Whether a graph has a recorded version later than the given one
+     */
+    public boolean hasNewerVersion(UUID graphId, long version) {
+        return versionRepository.findLatestVersion(graphId)
+                .map(latest -> latest.number() > version)
+                .orElse(false);
+    }
 
-        if (nodeCount == 0) {
-            return nodeMetricsList;
+    /**
+     * Updates counts, density, average degree, weak components, node degrees and the
+     * degree distribution for a diff, touching only the rows of nodes the diff changes, and
+     * marks the rest stale: strong components, path metrics, clustering, closeness and
+     * betweenness
+     */
+    private void applyStructuralChanges(Graph graph, GraphMetrics metrics, ImmutableGraph.GraphDiff<String, String> diff,
+                                        int componentCount) {
+        UUID graphId = graph.getId();
+        // In- and out-degree change of every remaining node an edge was added to or removed from
+        Map<UUID, int[]> degreeChanges = new HashMap<>();
+        for (ImmutableGraph.Edge<String> edge : diff.addedEdges()) {
+            degreeChanges.computeIfAbsent(edge.from(), id -> new int[2])[1]++;
+            degreeChanges.computeIfAbsent(edge.to(), id -> new int[2])[0]++;
         }
-
-        // Precompute all shortest paths for betweenness and closeness
-        Map<UUID, Map<UUID, Integer>> allPairsShortestPaths = computeAllPairsShortestPaths(immutableGraph);
-
-        // Compute betweenness centrality for all nodes
-        Map<UUID, Double> betweennessCentralities = computeAllBetweennessCentralities(immutableGraph, allPairsShortestPaths);
-
-        for (UUID nodeId : immutableGraph.getNodeIds()) {
-            GraphNodeMetrics nodeMetrics = new GraphNodeMetrics(graph, nodeId);
-
-            ImmutableGraph.Context<String, String> context = immutableGraph.getContext(nodeId);
-            int inDegree = context.getPredecessors().size();
-            int outDegree = context.getSuccessors().size();
-
-            nodeMetrics.setInDegree(inDegree);
-            nodeMetrics.setOutDegree(outDegree);
-
-            // Degree centrality (using total degree for directed graph)
-            int totalDegree = inDegree + outDegree;
-            if (nodeCount <= 1) {
-                nodeMetrics.setDegreeCentrality(0.0);
-            } else {
-                // Normalized by max possible degree (2*(n-1) for directed graph)
-                nodeMetrics.setDegreeCentrality((double) totalDegree / (2.0 * (nodeCount - 1)));
+        for (ImmutableGraph.NodePair edge : diff.removedEdges()) {
+            // The diff lists every edge of a removed node, whose row goes with it
+            if (!diff.removedNodes().contains(edge.from())) {
+                degreeChanges.computeIfAbsent(edge.from(), id -> new int[2])[1]--;
+            }
+            if (!diff.removedNodes().contains(edge.to())) {
+                degreeChanges.computeIfAbsent(edge.to(), id -> new int[2])[0]--;
             }
-
-            // Betweenness centrality
-            nodeMetrics.setBetweennessCentrality(betweennessCentralities.getOrDefault(nodeId, 0.0));
-
-            // Closeness centrality
-            double closeness = computeClosenessCentrality(nodeId, allPairsShortestPaths.get(nodeId), nodeCount);
-            nodeMetrics.setClosenessCentrality(closeness);
-
-            // Local clustering coefficient
-            double clustering = computeLocalClusteringCoefficient(nodeId, immutableGraph);
-            nodeMetrics.setClusteringCoefficient(clustering);
-
-            nodeMetricsList.add(nodeMetrics);
         }
 
-        return nodeMetricsList;
-    }
-
-    private List<GraphDegreeDistribution> computeDegreeDistribution(Graph graph, ImmutableGraph<String, String> immutableGraph) {
-        Map<Integer, Integer> distribution = new HashMap<>();
+        int nodeCount = metrics.getNodeCount() + diff.addedNodes().size() - diff.removedNodes().size();
+        int edgeCount = metrics.getEdgeCount() + diff.addedEdges().size() - diff.removedEdges().size();
+        Map<Integer, Integer> distributionChanges = new HashMap<>();
 
-        for (UUID nodeId : immutableGraph.getNodeIds()) {
-            ImmutableGraph.Context<String, String> context = immutableGraph.getContext(nodeId);
-            int degree = context.getPredecessors().size() + context.getSuccessors().size();
-            distribution.merge(degree, 1, Integer::sum);
+        for (UUID nodeId : diff.removedNodes()) {
+            nodeMetricsRepository.findByGraphIdAndNodeId(graphId, nodeId).ifPresent(row -> {
+                distributionChanges.merge(row.getInDegree() + row.getOutDegree(), -1, Integer::sum);
+                nodeMetricsRepository.delete(row);
+            });
         }
-
-        List<GraphDegreeDistribution> result = new ArrayList<>();
-        for (Map.Entry<Integer, Integer> entry : distribution.entrySet()) {
-            result.add(new GraphDegreeDistribution(graph, entry.getKey(), entry.getValue()));
+        List<GraphNodeMetrics> rows = new ArrayList<>();
+        for (UUID nodeId : diff.addedNodes().keySet()) {
+            // Centralities other than degree wait for the next full computation
+            GraphNodeMetrics row = new GraphNodeMetrics(graph, nodeId);
+            row.setInDegree(0);
+            row.setOutDegree(0);
+            distributionChanges.merge(0, 1, Integer::sum);
+            rows.add(row);
         }
-
-        return result;
-    }
-
-    private ConnectivityResult analyzeConnectivity(ImmutableGraph<String, String> graph) {
-        Set<UUID> nodeIds = graph.getNodeIds();
-        if (nodeIds.isEmpty()) {
-            return new ConnectivityResult(true, 0);
+        for (Map.Entry<UUID, int[]> entry : degreeChanges.entrySet()) {
+            if (!diff.addedNodes().containsKey(entry.getKey())) {
+                rows.add(nodeMetricsRepository.findByGraphIdAndNodeId(graphId, entry.getKey())
+                        .orElseThrow(() -> new IllegalStateException("No metrics for node " + entry.getKey())));
+            }
         }
-
-        // Find weakly connected components using BFS (treating edges as undirected)
-        Set<UUID> visited = new HashSet<>();
-        int componentCount = 0;
-
-        for (UUID startNode : nodeIds) {
-            if (!visited.contains(startNode)) {
-                componentCount++;
-                bfsUndirected(startNode, graph, visited);
+        for (GraphNodeMetrics row : rows) {
+            int[] change = degreeChanges.getOrDefault(row.getNodeId(), new int[2]);
+            if (change[0] == 0 && change[1] == 0) {
+                continue;
             }
+            int degree = row.getInDegree() + row.getOutDegree();
+            row.setInDegree(row.getInDegree() + change[0]);
+            row.setOutDegree(row.getOutDegree() + change[1]);
+            distributionChanges.merge(degree, -1, Integer::sum);
+            distributionChanges.merge(degree + change[0] + change[1], 1, Integer::sum);
+            row.setDegreeCentrality(degreeCentrality(degree + change[0] + change[1], nodeCount));
         }
+        nodeMetricsRepository.saveAll(rows);
 
-        return new ConnectivityResult(componentCount == 1, componentCount);
-    }
-
-    private void bfsUndirected(UUID startNode, ImmutableGraph<String, String> graph, Set<UUID> visited) {
-        Queue<UUID> queue = new LinkedList<>();
-        queue.offer(startNode);
-        visited.add(startNode);
-
-        while (!queue.isEmpty()) {
-            UUID current = queue.poll();
-            ImmutableGraph.Context<String, String> context = graph.getContext(current);
-
-            // Visit both predecessors and successors (undirected)
-            for (UUID neighbor : context.getSuccessors().keySet()) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    queue.offer(neighbor);
-                }
-            }
-            for (UUID neighbor : context.getPredecessors().keySet()) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    queue.offer(neighbor);
-                }
+        for (Map.Entry<Integer, Integer> entry : distributionChanges.entrySet()) {
+            if (entry.getValue() != 0) {
+                updateDegreeDistribution(graph, entry.getKey(), entry.getValue());
             }
         }
-    }
 
-    private PathMetrics computePathMetrics(ImmutableGraph<String, String> graph) {
-        Set<UUID> nodeIds = graph.getNodeIds();
-        int nodeCount = nodeIds.size();
+        setSizeMetrics(metrics, nodeCount, edgeCount);
+        metrics.setConnected(componentCount <= 1);
+        metrics.setComponentCount(componentCount);
+        metrics.setPathMetricsStale(true);
+        metricsRepository.save(metrics);
 
-        if (nodeCount <= 1) {
-            return new PathMetrics(0, 0.0);
+        // Every node's degree centrality is normalized by the node count
+        if (!diff.addedNodes().isEmpty() || !diff.removedNodes().isEmpty()) {
+            nodeMetricsRepository.rescaleDegreeCentrality(graphId, nodeCount);
         }
+    }
 
-        int maxDistance = 0;
-        long totalDistance = 0;
-        int pathCount = 0;
-
-        // BFS from each node to compute distances
-        for (UUID source : nodeIds) {
-            Map<UUID, Integer> distances = bfsDistances(source, graph);
-
-            for (Map.Entry<UUID, Integer> entry : distances.entrySet()) {
-                if (!entry.getKey().equals(source)) {
-                    int dist = entry.getValue();
-                    if (dist < Integer.MAX_VALUE) {
-                        maxDistance = Math.max(maxDistance, dist);
-                        totalDistance += dist;
-                        pathCount++;
-                    }
-                }
-            }
+    private void updateDegreeDistribution(Graph graph, int degree, int change) {
+        Optional<GraphDegreeDistribution> row = degreeDistRepository.findByGraphIdAndDegreeValue(graph.getId(), degree);
+        int nodeCount = row.map(GraphDegreeDistribution::getNodeCount).orElse(0) + change;
+        if (row.isEmpty()) {
+            degreeDistRepository.save(new GraphDegreeDistribution(graph, degree, nodeCount));
+        } else if (nodeCount == 0) {
+            degreeDistRepository.delete(row.get());
+        } else {
+            row.get().setNodeCount(nodeCount);
+            degreeDistRepository.save(row.get());
         }
+    }
 
-        double averagePathLength = pathCount > 0 ? (double) totalDistance / pathCount : 0.0;
-        return new PathMetrics(maxDistance, averagePathLength);
+    /**
+     * The latest recorded version of a graph, or the graph as loaded, numbered 0, if no
+     * version is retained
+     */
+    private VersionedGraph latestVersion(Graph graph) {
+        return versionRepository.findLatestVersion(graph.getId())
+                .map(latest -> new VersionedGraph(latest.number(), latest.graph()))
+                .orElseGet(() -> new VersionedGraph(0, graph.getImmutableGraph()));
     }
 
-    private Map<UUID, Integer> bfsDistances(UUID source, ImmutableGraph<String, String> graph) {
-        Map<UUID, Integer> distances = new HashMap<>();
-        for (UUID nodeId : graph.getNodeIds()) {
-            distances.put(nodeId, Integer.MAX_VALUE);
-        }
-        distances.put(source, 0);
+    private GraphMetrics computeAggregateMetrics(Graph graph, ImmutableGraph<String, String> structure, CsrGraph csr,
+                                                 int componentCount, ShortestPathStatistics paths,
+                                                 DistanceDistribution distances,
+                                                 ClusteringCoefficients clustering) {
+        GraphMetrics metrics = new GraphMetrics(graph);
 
-        Queue<UUID> queue = new LinkedList<>();
-        queue.offer(source);
+        int nodeCount = csr.nodeCount();
+        setSizeMetrics(metrics, nodeCount, csr.edgeCount());
 
-        while (!queue.isEmpty()) {
-            UUID current = queue.poll();
-            int currentDist = distances.get(current);
-            ImmutableGraph.Context<String, String> context = graph.getContext(current);
+        // Weak connectivity, from the same components later changes are applied to
+        boolean connected = componentCount <= 1;
+        metrics.setConnected(connected);
+        metrics.setComponentCount(componentCount);
+        metrics.setStrongComponentCount(strongComponents(structure, csr).count());
 
-            for (UUID neighbor : context.getSuccessors().keySet()) {
-                if (distances.get(neighbor) == Integer.MAX_VALUE) {
-                    distances.put(neighbor, currentDist + 1);
-                    queue.offer(neighbor);
+        // Path metrics (only for connected graphs with more than 1 node)
+        if (connected && nodeCount > 1) {
+            if (paths != null) {
+                metrics.setDiameter(paths.diameter());
+            } else {
+                DiameterBounds diameter = DiameterBounds.of(csr, diameterSearchBudget);
+                metrics.setDiameter(diameter.lower());
+                metrics.setDiameterExact(diameter.exact());
+                if (!diameter.exact()) {
+                    metrics.setDiameterUpperBound(diameter.upper());
                 }
             }
+            metrics.setAveragePathLength(distances.averagePathLength());
+            metrics.setEffectiveDiameter(distances.effectiveDiameter());
+            metrics.setPathLengthsApproximate(paths == null);
         }
 
-        return distances;
+        // Average clustering coefficient
+        if (clustering != null) {
+            metrics.setAverageClusteringCoefficient(clustering.average());
+        } else {
+            metrics.setAverageClusteringCoefficient(ClusteringCoefficients.estimateAverage(
+                    csr, clusteringEpsilon, clusteringDelta, SAMPLE_SEED));
+            metrics.setClusteringApproximate(true);
+        }
+
+        return metrics;
     }
 
-    private Map<UUID, Map<UUID, Integer>> computeAllPairsShortestPaths(ImmutableGraph<String, String> graph) {
-        Map<UUID, Map<UUID, Integer>> allPaths = new HashMap<>();
+    /**
+     * Node and edge counts, density and average degree
+     */
+    private void setSizeMetrics(GraphMetrics metrics, int nodeCount, int edgeCount) {
+        metrics.setNodeCount(nodeCount);
+        metrics.setEdgeCount(edgeCount);
 
-        for (UUID source : graph.getNodeIds()) {
-            allPaths.put(source, bfsDistances(source, graph));
+        // Density calculation (for directed graph)
+        if (nodeCount <= 1) {
+            metrics.setDensity(0.0);
+        } else {
+            double maxEdges = (double) nodeCount * (nodeCount - 1);
+            metrics.setDensity(edgeCount / maxEdges);
         }
 
-        return allPaths;
+        // Average degree (treating as directed: in-degree + out-degree)
+        if (nodeCount == 0) {
+            metrics.setAverageDegree(0.0);
+        } else {
+            metrics.setAverageDegree((2.0 * edgeCount) / nodeCount);
+        }
     }
 
-    private Map<UUID, Double> computeAllBetweennessCentralities(
-            ImmutableGraph<String, String> graph,
-            Map<UUID, Map<UUID, Integer>> allPairsShortestPaths) {
-
-        Map<UUID, Double> betweenness = new HashMap<>();
-        Set<UUID> nodeIds = graph.getNodeIds();
+    private List<GraphNodeMetrics> computeNodeMetrics(Graph graph, DenseGraph csr, ShortestPathStatistics paths,
+                                                      ClusteringCoefficients clustering) {
+        List<GraphNodeMetrics> nodeMetricsList = new ArrayList<>();
+        int nodeCount = csr.nodeCount();
 
-        for (UUID nodeId : nodeIds) {
-            betweenness.put(nodeId, 0.0);
+        if (nodeCount == 0) {
+            return nodeMetricsList;
         }
 
-        int n = nodeIds.size();
-        if (n <= 2) {
-            return betweenness;
-        }
+        // Compute betweenness centrality for all nodes
+        BetweennessCentrality.Estimate betweenness = betweennessCentralities(csr);
 
-        // For each pair (s, t), check if node v is on the shortest path
-        List<UUID> nodeList = new ArrayList<>(nodeIds);
-        for (int i = 0; i < nodeList.size(); i++) {
-            UUID s = nodeList.get(i);
-            for (int j = 0; j < nodeList.size(); j++) {
-                if (i == j) continue;
-                UUID t = nodeList.get(j);
-
-                int distST = allPairsShortestPaths.get(s).get(t);
-                if (distST == Integer.MAX_VALUE || distST == 0) continue;
-
-                // Find nodes on shortest path from s to t
-                for (UUID v : nodeIds) {
-                    if (v.equals(s) || v.equals(t)) continue;
-
-                    int distSV = allPairsShortestPaths.get(s).get(v);
-                    int distVT = allPairsShortestPaths.get(v).get(t);
-
-                    // v is on shortest path if dist(s,v) + dist(v,t) == dist(s,t)
-                    if (distSV != Integer.MAX_VALUE && distVT != Integer.MAX_VALUE
-                            && distSV + distVT == distST) {
-                        // Count shortest paths through v
-                        // Simplified: assume single shortest path
-                        betweenness.merge(v, 1.0, Double::sum);
-                    }
-                }
-            }
-        }
+        for (int v = 0; v < nodeCount; v++) {
+            GraphNodeMetrics nodeMetrics = new GraphNodeMetrics(graph, csr.nodeId(v));
 
-        // Normalize by (n-1)(n-2) for directed graphs
-        double normFactor = (n - 1) * (n - 2);
-        if (normFactor > 0) {
-            for (UUID nodeId : nodeIds) {
-                betweenness.put(nodeId, betweenness.get(nodeId) / normFactor);
-            }
-        }
+            int inDegree = csr.inDegree(v);
+            int outDegree = csr.outDegree(v);
 
-        return betweenness;
-    }
+            nodeMetrics.setInDegree(inDegree);
+            nodeMetrics.setOutDegree(outDegree);
 
-    private double computeClosenessCentrality(UUID nodeId, Map<UUID, Integer> shortestPaths, int nodeCount) {
-        if (nodeCount <= 1 || shortestPaths == null) {
-            return 0.0;
-        }
+            // Degree centrality (using total degree for directed graph)
+            nodeMetrics.setDegreeCentrality(degreeCentrality(inDegree + outDegree, nodeCount));
 
-        long totalDistance = 0;
-        int reachableCount = 0;
+            // Betweenness centrality
+            nodeMetrics.setBetweennessCentrality(betweenness.values()[v]);
+            nodeMetrics.setBetweennessApproximate(!betweenness.exact());
 
-        for (Map.Entry<UUID, Integer> entry : shortestPaths.entrySet()) {
-            if (!entry.getKey().equals(nodeId) && entry.getValue() < Integer.MAX_VALUE) {
-                totalDistance += entry.getValue();
-                reachableCount++;
+            // Closeness centrality
+            if (paths != null) {
+                nodeMetrics.setClosenessCentrality(paths.closeness(v));
             }
-        }
 
-        if (reachableCount == 0 || totalDistance == 0) {
-            return 0.0;
+            // Local clustering coefficient
+            if (clustering != null) {
+                nodeMetrics.setClusteringCoefficient(clustering.local(v));
+            }
+
+            nodeMetricsList.add(nodeMetrics);
         }
 
-        // Closeness = (n-1) / sum of distances (normalized)
-        return (double) reachableCount / totalDistance;
+        return nodeMetricsList;
     }
 
-    private double computeLocalClusteringCoefficient(UUID nodeId, ImmutableGraph<String, String> graph) {
-        ImmutableGraph.Context<String, String> context = graph.getContext(nodeId);
-
-        // Get all neighbors (both predecessors and successors)
-        Set<UUID> neighbors = new HashSet<>();
-        neighbors.addAll(context.getPredecessors().keySet());
-        neighbors.addAll(context.getSuccessors().keySet());
-
-        int k = neighbors.size();
-        if (k < 2) {
+    private static double degreeCentrality(int totalDegree, int nodeCount) {
+        if (nodeCount <= 1) {
             return 0.0;
         }
+        // Normalized by max possible degree (2*(n-1) for directed graph)
+        return (double) totalDegree / (2.0 * (nodeCount - 1));
+    }
 
-        // Count edges between neighbors
-        int edgesBetweenNeighbors = 0;
-        List<UUID> neighborList = new ArrayList<>(neighbors);
-
-        for (int i = 0; i < neighborList.size(); i++) {
-            UUID ni = neighborList.get(i);
-            ImmutableGraph.Context<String, String> niContext = graph.getContext(ni);
-
-            for (int j = 0; j < neighborList.size(); j++) {
-                if (i == j) continue;
-                UUID nj = neighborList.get(j);
+    private List<GraphDegreeDistribution> computeDegreeDistribution(Graph graph, DenseGraph csr) {
+        Map<Integer, Integer> distribution = new HashMap<>();
 
-                // Check if there's an edge from ni to nj
-                if (niContext.getSuccessors().containsKey(nj)) {
-                    edgesBetweenNeighbors++;
-                }
-            }
+        for (int v = 0; v < csr.nodeCount(); v++) {
+            int degree = csr.inDegree(v) + csr.outDegree(v);
+            distribution.merge(degree, 1, Integer::sum);
         }
 
-        // For directed graphs: possible edges = k * (k-1)
-        int possibleEdges = k * (k - 1);
+        List<GraphDegreeDistribution> result = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : distribution.entrySet()) {
+            result.add(new GraphDegreeDistribution(graph, entry.getKey(), entry.getValue()));
+        }
 
-        return (double) edgesBetweenNeighbors / possibleEdges;
+        return result;
     }
 
-    private double computeAverageClusteringCoefficient(ImmutableGraph<String, String> graph) {
-        Set<UUID> nodeIds = graph.getNodeIds();
-        int nodeCount = nodeIds.size();
-
-        if (nodeCount == 0) {
-            return 0.0;
+    private BetweennessCentrality.Estimate betweennessCentralities(DenseGraph csr) {
+        if (csr.edgeCount() > approximateBetweennessThreshold) {
+            return BetweennessCentrality.approximate(csr, betweennessEpsilon, betweennessDelta,
+                    SAMPLE_SEED, ForkJoinPool.commonPool());
         }
+        return new BetweennessCentrality.Estimate(BetweennessCentrality.compute(csr, ForkJoinPool.commonPool()), true);
+    }
 
-        double totalClustering = 0.0;
-        for (UUID nodeId : nodeIds) {
-            totalClustering += computeLocalClusteringCoefficient(nodeId, graph);
+    private StronglyConnectedComponents strongComponents(ImmutableGraph<String, String> structure, DenseGraph csr) {
+        if (csr.nodeCount() >= parallelBfsThreshold) {
+            return StronglyConnectedComponents.ofParallel(csr, ForkJoinPool.commonPool());
         }
-
-        return totalClustering / nodeCount;
+        return structure.stronglyConnectedComponents();
     }
 
-    private record ConnectivityResult(boolean isConnected, int componentCount) {}
-
-    private record PathMetrics(int diameter, double averagePathLength) {}
+    private record VersionedGraph(long version, ImmutableGraph<String, String> graph) {}
 }
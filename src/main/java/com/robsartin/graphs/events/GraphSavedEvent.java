@@ -5,12 +5,18 @@ import java.util.UUID;
 /**
  * Domain event published when a graph is saved.
  * Triggers async computation of graph metrics.
+ * Carries the number of the version the save recorded, so metrics can be brought up to
+ * date from the changes since the version they describe; 0 if the version is unknown.
  */
-public record GraphSavedEvent(UUID graphId) {
+public record GraphSavedEvent(UUID graphId, long version) {
 
     public GraphSavedEvent {
         if (graphId == null) {
             throw new IllegalArgumentException("graphId must not be null");
         }
     }
+
+    public GraphSavedEvent(UUID graphId) {
+        this(graphId, 0);
+    }
 }
@@ -0,0 +1,337 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Betweenness centrality of every node along out-edges, with Brandes' algorithm
+ * ("A Faster Algorithm for Betweenness Centrality").
+ *
+ * One BFS per source counts the shortest paths to every node; walking the BFS order
+ * backwards then accumulates each node's dependency on the source, so every pair's paths
+ * are shared out exactly, however many shortest paths there are, in O(nm) time overall.
+ * Predecessors are found by scanning in-edges for nodes one level closer instead of being
+ * stored, so each source needs only a few O(n) scratch arrays.
+ *
+ * Sources are split into ranges on a fork-join pool. Each range accumulates into its own
+ * array, and ranges are summed pairwise as they join, so the result does not depend on
+ * scheduling.
+ *
+ * For graphs too large for O(nm), {@link #approximate} samples node pairs instead
+ * (Riondato and Kornaropoulos, "Fast approximation of betweenness centrality through
+ * sampling"): each sample picks a pair uniformly and one of its shortest paths uniformly,
+ * and credits the path's inner nodes. The number of samples depends only on the error
+ * bound and on an upper bound on the vertex diameter, not on the graph size.
+ */
+public final class BetweennessCentrality {
+
+    /** Ranges per worker thread, so uneven BFS costs still balance */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /** The universal constant of the sample size bound, as estimated by Riondato and Kornaropoulos */
+    private static final double SAMPLE_SIZE_CONSTANT = 0.5;
+
+    /**
+     * Betweenness estimates, and whether they are exact: sampling falls back to Brandes when
+     * it would need at least as many BFS runs
+     */
+    public record Estimate(double[] values, boolean exact) {
+    }
+
+    private BetweennessCentrality() {
+    }
+
+    /**
+     * Betweenness of every node, normalized by (n - 1)(n - 2), the number of ordered pairs
+     * of other nodes
+     */
+    public static double[] compute(DenseGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        if (n <= 2) {
+            return new double[n];
+        }
+        int grain = Math.max(1, n / (pool.getParallelism() * RANGES_PER_THREAD));
+        double[] betweenness = pool.invoke(new Sources(graph, 0, n, grain));
+        double scale = 1.0 / ((double) (n - 1) * (n - 2));
+        for (int v = 0; v < n; v++) {
+            betweenness[v] *= scale;
+        }
+        return betweenness;
+    }
+
+    /**
+     * Betweenness of every node, normalized as by {@link #compute}, estimated from sampled
+     * shortest paths. With probability at least 1 - delta, every estimate is within
+     * epsilon * n / (n - 2) of the exact value (epsilon of the fraction of all ordered pairs
+     * whose shortest paths pass through the node). The same seed gives the same estimates
+     * on any pool.
+     */
+    public static Estimate approximate(DenseGraph graph, double epsilon, double delta, long seed,
+                                       ForkJoinPool pool) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be between 0 and 1, got " + epsilon);
+        }
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("delta must be between 0 and 1, got " + delta);
+        }
+        int n = graph.nodeCount();
+        long diameter = vertexDiameterBound(graph);
+        if (diameter < 3) {
+            // No shortest path has an inner node
+            return new Estimate(new double[n], true);
+        }
+        double samples = Math.ceil(SAMPLE_SIZE_CONSTANT / (epsilon * epsilon)
+                * (floorLog2(diameter - 2) + 1 + Math.log(1 / delta)));
+        if (samples >= n) {
+            return new Estimate(compute(graph, pool), true);
+        }
+
+        // Draw every pair and path seed up front, so the result does not depend on how the pool splits the work
+        int r = (int) samples;
+        int[] sources = new int[r];
+        int[] targets = new int[r];
+        long[] pathSeeds = new long[r];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < r; i++) {
+            sources[i] = random.nextInt(n);
+            int target = random.nextInt(n - 1);
+            targets[i] = target >= sources[i] ? target + 1 : target;
+            pathSeeds[i] = random.nextLong();
+        }
+
+        int grain = Math.max(1, r / (pool.getParallelism() * RANGES_PER_THREAD));
+        double[] betweenness = pool.invoke(new Samples(graph, sources, targets, pathSeeds, 0, r, grain));
+        // Samples estimate the fraction of all n(n - 1) ordered pairs; rescale to (n - 1)(n - 2)
+        double scale = (double) n / ((double) (n - 2) * r);
+        for (int v = 0; v < n; v++) {
+            betweenness[v] *= scale;
+        }
+        return new Estimate(betweenness, false);
+    }
+
+    /**
+     * An upper bound on the number of nodes on any shortest path. A shortest path visits
+     * each node at most once, and it passes through strong components in condensation order,
+     * so it has no more nodes than the heaviest condensation path weighted by component size.
+     */
+    static long vertexDiameterBound(DenseGraph graph) {
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+        long[] heaviest = new long[components.count()];
+        long bound = 0;
+        // Successors have lower numbers, so they are finished before their predecessors
+        for (int c = 0; c < components.count(); c++) {
+            long below = 0;
+            for (int i = 0; i < components.successorCount(c); i++) {
+                below = Math.max(below, heaviest[components.successor(c, i)]);
+            }
+            heaviest[c] = components.size(c) + below;
+            bound = Math.max(bound, heaviest[c]);
+        }
+        return bound;
+    }
+
+    private static int floorLog2(long value) {
+        return 63 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static final class Sources extends RecursiveTask<double[]> {
+        private final DenseGraph graph;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Sources(DenseGraph graph, int from, int to, int grain) {
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Sources right = new Sources(graph, mid, to, grain);
+                right.fork();
+                double[] sum = new Sources(graph, from, mid, grain).compute();
+                double[] other = right.join();
+                for (int v = 0; v < sum.length; v++) {
+                    sum[v] += other[v];
+                }
+                return sum;
+            }
+
+            int n = graph.nodeCount();
+            double[] betweenness = new double[n];
+            int[] distance = new int[n];
+            double[] paths = new double[n];  // shortest path counts; doubles, as they grow exponentially
+            double[] dependency = new double[n];
+            int[] order = new int[n];
+            Arrays.fill(distance, -1);
+            for (int source = from; source < to; source++) {
+                int reached = countPaths(source, distance, paths, order);
+                for (int k = reached - 1; k > 0; k--) {
+                    int w = order[k];
+                    double share = (1.0 + dependency[w]) / paths[w];
+                    for (int i = 0, degree = graph.inDegree(w); i < degree; i++) {
+                        int v = graph.inNeighbor(w, i);
+                        if (distance[v] == distance[w] - 1) {
+                            dependency[v] += paths[v] * share;
+                        }
+                    }
+                    betweenness[w] += dependency[w];
+                }
+                // Reset only what this source touched
+                for (int k = 0; k < reached; k++) {
+                    int v = order[k];
+                    distance[v] = -1;
+                    paths[v] = 0;
+                    dependency[v] = 0;
+                }
+            }
+            return betweenness;
+        }
+
+        /**
+         * BFS from source recording distances and shortest path counts; fills order with
+         * the reached nodes by distance and returns how many there are
+         */
+        private int countPaths(int source, int[] distance, double[] paths, int[] order) {
+            distance[source] = 0;
+            paths[source] = 1;
+            order[0] = source;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int v = order[head];
+                int next = distance[v] + 1;
+                for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                    int w = graph.outNeighbor(v, i);
+                    if (distance[w] < 0) {
+                        distance[w] = next;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == next) {
+                        paths[w] += paths[v];
+                    }
+                }
+            }
+            return tail;
+        }
+    }
+
+    private static final class Samples extends RecursiveTask<double[]> {
+        private final DenseGraph graph;
+        private final int[] sources;
+        private final int[] targets;
+        private final long[] pathSeeds;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Samples(DenseGraph graph, int[] sources, int[] targets, long[] pathSeeds, int from, int to, int grain) {
+            this.graph = graph;
+            this.sources = sources;
+            this.targets = targets;
+            this.pathSeeds = pathSeeds;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Samples right = new Samples(graph, sources, targets, pathSeeds, mid, to, grain);
+                right.fork();
+                double[] sum = new Samples(graph, sources, targets, pathSeeds, from, mid, grain).compute();
+                double[] other = right.join();
+                for (int v = 0; v < sum.length; v++) {
+                    sum[v] += other[v];
+                }
+                return sum;
+            }
+
+            int n = graph.nodeCount();
+            double[] hits = new double[n];
+            int[] distance = new int[n];
+            double[] paths = new double[n];
+            int[] order = new int[n];
+            Arrays.fill(distance, -1);
+            for (int sample = from; sample < to; sample++) {
+                int source = sources[sample];
+                int target = targets[sample];
+                int reached = countPathsTo(source, target, distance, paths, order);
+                if (distance[target] > 1) {
+                    samplePath(source, target, distance, paths, new SplittableRandom(pathSeeds[sample]), hits);
+                }
+                for (int k = 0; k < reached; k++) {
+                    int v = order[k];
+                    distance[v] = -1;
+                    paths[v] = 0;
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * BFS from source recording distances and shortest path counts, stopping once every
+         * node one level closer than target has been expanded; returns how many nodes it
+         * reached, listed in order
+         */
+        private int countPathsTo(int source, int target, int[] distance, double[] paths, int[] order) {
+            distance[source] = 0;
+            paths[source] = 1;
+            order[0] = source;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int v = order[head];
+                if (distance[target] >= 0 && distance[v] >= distance[target]) {
+                    break;
+                }
+                int next = distance[v] + 1;
+                for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                    int w = graph.outNeighbor(v, i);
+                    if (distance[w] < 0) {
+                        distance[w] = next;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == next) {
+                        paths[w] += paths[v];
+                    }
+                }
+            }
+            return tail;
+        }
+
+        /**
+         * Walks back from target to source choosing each predecessor in proportion to its
+         * path count, which picks one shortest path uniformly, and credits its inner nodes
+         */
+        private void samplePath(int source, int target, int[] distance, double[] paths,
+                                SplittableRandom random, double[] hits) {
+            int w = target;
+            while (true) {
+                double pick = random.nextDouble() * paths[w];
+                int chosen = -1;
+                for (int i = 0, degree = graph.inDegree(w); i < degree; i++) {
+                    int v = graph.inNeighbor(w, i);
+                    if (distance[v] == distance[w] - 1) {
+                        chosen = v;
+                        pick -= paths[v];
+                        if (pick < 0) {
+                            break;
+                        }
+                    }
+                }
+                if (chosen == source) {
+                    return;
+                }
+                hits[chosen]++;
+                w = chosen;
+            }
+        }
+    }
+}
@@ -0,0 +1,911 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistent hash map based on the Compressed Hash-Array Mapped Prefix-tree (CHAMP)
+ * from Steindorfer and Vinju, "Optimizing Hash-Array Mapped Tries for Fast and Lean
+ * Immutable JVM Collections".
+ *
+ * Updates return a new map that shares every untouched subtree with the original,
+ * so an edit costs O(log32 n) time and memory instead of a full copy, and older
+ * versions stay valid. The trie is kept in canonical form: maps with the same
+ * content have the same shape, regardless of the order of the edits that built them.
+ *
+ * The map is read-only through the {@link Map} interface; use {@link #plus} and
+ * {@link #minus} to derive new versions.
+ */
+public final class ChampMap<K, V> extends AbstractMap<K, V> {
+
+    private static final ChampMap<?, ?> EMPTY = new ChampMap<>(BitmapIndexedNode.EMPTY, 0);
+
+    private static final int BIT_PARTITION_SIZE = 5;
+    private static final int BIT_PARTITION_MASK = 0b11111;
+    private static final int HASH_CODE_LENGTH = 32;
+    private static final Object NOT_FOUND = new Object();
+
+    /** Bulk edits rebuild the trie once they touch more than 1/2^BULK_SHIFT of it */
+    private static final int BULK_SHIFT = 3;
+
+    private static final int SIZE_EMPTY = 0;
+    private static final int SIZE_ONE = 1;
+    private static final int SIZE_MORE_THAN_ONE = 2;
+
+    private final Node root;
+    private final int size;
+
+    private ChampMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ChampMap<K, V> empty() {
+        return (ChampMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the given map as a ChampMap, reusing it when it already is one.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> ChampMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof ChampMap<?, ?> champ) {
+            return (ChampMap<K, V>) champ;
+        }
+        if (map.isEmpty()) {
+            return empty();
+        }
+        Builder<K, V> builder = new Builder<>(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>(16);
+    }
+
+    /**
+     * Returns a builder pre-sized for the given number of entries.
+     */
+    public static <K, V> Builder<K, V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * Returns a map with the given mapping added or replaced. Returns this map if the
+     * key is already mapped to the identical value.
+     */
+    public ChampMap<K, V> plus(K key, V value) {
+        Change change = new Change();
+        Node newRoot = root.updated(key, value, hash(key), 0, change);
+        if (!change.modified) {
+            return this;
+        }
+        return new ChampMap<>(newRoot, change.replaced ? size : size + 1);
+    }
+
+    /**
+     * Returns a map without the given key. Returns this map if the key is absent.
+     */
+    public ChampMap<K, V> minus(Object key) {
+        Change change = new Change();
+        Node newRoot = root.removed(key, hash(key), 0, change);
+        if (!change.modified) {
+            return this;
+        }
+        return new ChampMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns a map without any of the given keys. Removes them one path at a time while
+     * they are few; once they are a large share of the map, rebuilds the survivors in one
+     * bulk pass instead. Returns this map if none of the keys is present.
+     */
+    public ChampMap<K, V> minusAll(Set<?> keys) {
+        if (keys.size() < size >>> BULK_SHIFT) {
+            ChampMap<K, V> result = this;
+            for (Object key : keys) {
+                result = result.minus(key);
+            }
+            return result;
+        }
+        Builder<K, V> builder = new Builder<>(size);
+        forEach((key, value) -> {
+            if (!keys.contains(key)) {
+                builder.put(key, value);
+            }
+        });
+        return builder.size() == size ? this : builder.build();
+    }
+
+    /**
+     * Returns a map with all the given mappings added or replaced, by path copies while
+     * they are few and by one bulk rebuild otherwise.
+     */
+    public ChampMap<K, V> plusAll(Map<? extends K, ? extends V> entries) {
+        if (entries.isEmpty()) {
+            return this;
+        }
+        if (entries.size() < size >>> BULK_SHIFT) {
+            ChampMap<K, V> result = this;
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                result = result.plus(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+        Builder<K, V> builder = new Builder<>(size + entries.size());
+        forEach(builder::put);
+        entries.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * Reports every key whose mapping differs between this map and other, as the changes
+     * that turn this map into other; values are compared with equals. Subtrees the two maps
+     * share are skipped without being visited, so comparing a map with one derived from it
+     * by a few edits costs time in proportion to those edits, not to the map size.
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(ChampMap<K, V> other, Differences<? super K, ? super V> differences) {
+        diff(root, other.root, 0, (Differences<Object, Object>) differences);
+    }
+
+    /**
+     * Receives the changes found by {@link #diff}
+     */
+    public interface Differences<K, V> {
+        void added(K key, V value);
+
+        void removed(K key, V value);
+
+        void changed(K key, V oldValue, V newValue);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object result = root.find(key, hash(key), 0);
+        return result == NOT_FOUND ? null : (V) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Object result = root.find(key, hash(key), 0);
+        return result == NOT_FOUND ? defaultValue : (V) result;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new TrieIterator<>(root) {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    Entry<K, V> element(Node node, int index) {
+                        return new SimpleImmutableEntry<>((K) node.getKey(index), (V) node.getValue(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new TrieIterator<>(root) {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    K element(Node node, int index) {
+                        return (K) node.getKey(index);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof ChampMap<?, ?> other && other.root == root) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static void diff(Node before, Node after, int shift, Differences<Object, Object> out) {
+        if (before == after) {
+            return;
+        }
+        if (!(before instanceof BitmapIndexedNode a) || !(after instanceof BitmapIndexedNode b)) {
+            // Hash collision nodes hold only a few keys; compare them by lookup
+            before.forEach((key, value) -> {
+                Object match = after.find(key, hash(key), shift);
+                if (match == NOT_FOUND) {
+                    out.removed(key, value);
+                } else if (!Objects.equals(value, match)) {
+                    out.changed(key, value, match);
+                }
+            });
+            after.forEach((key, value) -> {
+                if (before.find(key, hash(key), shift) == NOT_FOUND) {
+                    out.added(key, value);
+                }
+            });
+            return;
+        }
+        int bits = a.dataMap | a.nodeMap | b.dataMap | b.nodeMap;
+        while (bits != 0) {
+            int bit = Integer.lowestOneBit(bits);
+            bits &= bits - 1;
+            if ((a.dataMap & bit) != 0) {
+                int i = index(a.dataMap, bit);
+                Object key = a.content[2 * i];
+                Object value = a.content[2 * i + 1];
+                if ((b.dataMap & bit) != 0) {
+                    int j = index(b.dataMap, bit);
+                    diffEntries(key, value, b.content[2 * j], b.content[2 * j + 1], out);
+                } else if ((b.nodeMap & bit) != 0) {
+                    diffEntryAndNode(key, value, b.nodeAt(bit), true, out);
+                } else {
+                    out.removed(key, value);
+                }
+            } else if ((a.nodeMap & bit) != 0) {
+                Node node = a.nodeAt(bit);
+                if ((b.nodeMap & bit) != 0) {
+                    diff(node, b.nodeAt(bit), shift + BIT_PARTITION_SIZE, out);
+                } else if ((b.dataMap & bit) != 0) {
+                    int j = index(b.dataMap, bit);
+                    diffEntryAndNode(b.content[2 * j], b.content[2 * j + 1], node, false, out);
+                } else {
+                    node.forEach(out::removed);
+                }
+            } else if ((b.dataMap & bit) != 0) {
+                int j = index(b.dataMap, bit);
+                out.added(b.content[2 * j], b.content[2 * j + 1]);
+            } else {
+                b.nodeAt(bit).forEach(out::added);
+            }
+        }
+    }
+
+    private static void diffEntries(Object beforeKey, Object beforeValue, Object afterKey, Object afterValue,
+                                    Differences<Object, Object> out) {
+        if (!Objects.equals(beforeKey, afterKey)) {
+            out.removed(beforeKey, beforeValue);
+            out.added(afterKey, afterValue);
+        } else if (!Objects.equals(beforeValue, afterValue)) {
+            out.changed(beforeKey, beforeValue, afterValue);
+        }
+    }
+
+    /**
+     * Compares one inline entry with the sub-node holding the same hash slot on the other side
+     */
+    private static void diffEntryAndNode(Object key, Object value, Node node, boolean entryBefore,
+                                         Differences<Object, Object> out) {
+        boolean[] found = new boolean[1];
+        node.forEach((nodeKey, nodeValue) -> {
+            if (!Objects.equals(nodeKey, key)) {
+                if (entryBefore) {
+                    out.added(nodeKey, nodeValue);
+                } else {
+                    out.removed(nodeKey, nodeValue);
+                }
+                return;
+            }
+            found[0] = true;
+            if (!Objects.equals(value, nodeValue)) {
+                if (entryBefore) {
+                    out.changed(key, value, nodeValue);
+                } else {
+                    out.changed(key, nodeValue, value);
+                }
+            }
+        });
+        if (!found[0]) {
+            if (entryBefore) {
+                out.removed(key, value);
+            } else {
+                out.added(key, value);
+            }
+        }
+    }
+
+    /**
+     * Spreads the key's hash code so that keys with clustered hash codes still
+     * distribute evenly across the trie levels.
+     */
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int mask(int hash, int shift) {
+        return (hash >>> shift) & BIT_PARTITION_MASK;
+    }
+
+    private static int bitpos(int mask) {
+        return 1 << mask;
+    }
+
+    private static int index(int bitmap, int bitpos) {
+        return Integer.bitCount(bitmap & (bitpos - 1));
+    }
+
+    /**
+     * Records what an update or removal did, so the map can keep its size.
+     */
+    private static final class Change {
+        boolean modified;
+        boolean replaced;
+    }
+
+    private abstract static class Node {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node updated(Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node removed(Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract Object getKey(int index);
+
+        abstract Object getValue(int index);
+
+        abstract int nodeArity();
+
+        abstract Node getNode(int index);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+
+        int sizePredicate() {
+            if (nodeArity() > 0) {
+                return SIZE_MORE_THAN_ONE;
+            }
+            int payload = payloadArity();
+            return payload == 0 ? SIZE_EMPTY : payload == 1 ? SIZE_ONE : SIZE_MORE_THAN_ONE;
+        }
+    }
+
+    /**
+     * Trie node holding inline key/value pairs followed by sub-nodes.
+     * Layout of {@code content}: [k0, v0, k1, v1, ..., node0, node1, ...].
+     */
+    private static final class BitmapIndexedNode extends Node {
+
+        static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(0, 0, new Object[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        final Object[] content;
+
+        BitmapIndexedNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int idx = index(dataMap, bit);
+                return Objects.equals(content[2 * idx], key) ? content[2 * idx + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(bit).find(key, hash, shift + BIT_PARTITION_SIZE);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node updated(Object key, Object value, int hash, int shift, Change change) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int idx = index(dataMap, bit);
+                Object currentKey = content[2 * idx];
+                if (Objects.equals(currentKey, key)) {
+                    if (content[2 * idx + 1] == value) {
+                        return this;
+                    }
+                    change.modified = true;
+                    change.replaced = true;
+                    Object[] copy = content.clone();
+                    copy[2 * idx + 1] = value;
+                    return new BitmapIndexedNode(dataMap, nodeMap, copy);
+                }
+                Node subNode = mergeTwoKeyValuePairs(
+                        currentKey, content[2 * idx + 1], hash(currentKey),
+                        key, value, hash, shift + BIT_PARTITION_SIZE);
+                change.modified = true;
+                return copyAndMigrateFromInlineToNode(bit, subNode);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node subNode = nodeAt(bit);
+                Node newSubNode = subNode.updated(key, value, hash, shift + BIT_PARTITION_SIZE, change);
+                if (!change.modified) {
+                    return this;
+                }
+                return copyAndSetNode(bit, newSubNode);
+            }
+            change.modified = true;
+            return copyAndInsertValue(bit, key, value);
+        }
+
+        @Override
+        Node removed(Object key, int hash, int shift, Change change) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int idx = index(dataMap, bit);
+                if (!Objects.equals(content[2 * idx], key)) {
+                    return this;
+                }
+                change.modified = true;
+                return copyAndRemoveValue(bit);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node subNode = nodeAt(bit);
+                Node newSubNode = subNode.removed(key, hash, shift + BIT_PARTITION_SIZE, change);
+                if (!change.modified) {
+                    return this;
+                }
+                if (newSubNode.sizePredicate() == SIZE_ONE) {
+                    // Keep the trie canonical: a lone entry moves up until a node
+                    // with other content (or the root) can hold it inline
+                    if (shift != 0 && payloadArity() == 0 && nodeArity() == 1) {
+                        return newSubNode;
+                    }
+                    return copyAndMigrateFromNodeToInline(bit, newSubNode);
+                }
+                return copyAndSetNode(bit, newSubNode);
+            }
+            return this;
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object getKey(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object getValue(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node getNode(int index) {
+            return (Node) content[2 * payloadArity() + index];
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            int payload = payloadArity();
+            for (int i = 0; i < payload; i++) {
+                action.accept(content[2 * i], content[2 * i + 1]);
+            }
+            for (int i = 2 * payload; i < content.length; i++) {
+                ((Node) content[i]).forEach(action);
+            }
+        }
+
+        private Node nodeAt(int bit) {
+            return (Node) content[2 * payloadArity() + index(nodeMap, bit)];
+        }
+
+        private BitmapIndexedNode copyAndSetNode(int bit, Node node) {
+            Object[] copy = content.clone();
+            copy[2 * payloadArity() + index(nodeMap, bit)] = node;
+            return new BitmapIndexedNode(dataMap, nodeMap, copy);
+        }
+
+        private BitmapIndexedNode copyAndInsertValue(int bit, Object key, Object value) {
+            int idx = 2 * index(dataMap, bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, idx);
+            copy[idx] = key;
+            copy[idx + 1] = value;
+            System.arraycopy(content, idx, copy, idx + 2, content.length - idx);
+            return new BitmapIndexedNode(dataMap | bit, nodeMap, copy);
+        }
+
+        private BitmapIndexedNode copyAndRemoveValue(int bit) {
+            int idx = 2 * index(dataMap, bit);
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, idx);
+            System.arraycopy(content, idx + 2, copy, idx, content.length - idx - 2);
+            return new BitmapIndexedNode(dataMap ^ bit, nodeMap, copy);
+        }
+
+        private BitmapIndexedNode copyAndMigrateFromInlineToNode(int bit, Node node) {
+            int idxOld = 2 * index(dataMap, bit);
+            int idxNew = 2 * (payloadArity() - 1) + index(nodeMap, bit);
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, idxOld);
+            System.arraycopy(content, idxOld + 2, copy, idxOld, idxNew - idxOld);
+            copy[idxNew] = node;
+            System.arraycopy(content, idxNew + 2, copy, idxNew + 1, content.length - idxNew - 2);
+            return new BitmapIndexedNode(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        private BitmapIndexedNode copyAndMigrateFromNodeToInline(int bit, Node node) {
+            int idxOld = 2 * payloadArity() + index(nodeMap, bit);
+            int idxNew = 2 * index(dataMap, bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, idxNew);
+            copy[idxNew] = node.getKey(0);
+            copy[idxNew + 1] = node.getValue(0);
+            System.arraycopy(content, idxNew, copy, idxNew + 2, idxOld - idxNew);
+            System.arraycopy(content, idxOld + 1, copy, idxOld + 2, content.length - idxOld - 1);
+            return new BitmapIndexedNode(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        private static Node mergeTwoKeyValuePairs(Object key0, Object value0, int hash0,
+                                                  Object key1, Object value1, int hash1, int shift) {
+            if (shift >= HASH_CODE_LENGTH) {
+                return new HashCollisionNode(hash0, new Object[]{key0, key1}, new Object[]{value0, value1});
+            }
+            int mask0 = mask(hash0, shift);
+            int mask1 = mask(hash1, shift);
+            if (mask0 != mask1) {
+                int dataMap = bitpos(mask0) | bitpos(mask1);
+                Object[] content = mask0 < mask1
+                        ? new Object[]{key0, value0, key1, value1}
+                        : new Object[]{key1, value1, key0, value0};
+                return new BitmapIndexedNode(dataMap, 0, content);
+            }
+            Node node = mergeTwoKeyValuePairs(key0, value0, hash0, key1, value1, hash1, shift + BIT_PARTITION_SIZE);
+            return new BitmapIndexedNode(0, bitpos(mask0), new Object[]{node});
+        }
+    }
+
+    /**
+     * Leaf holding keys whose full 32-bit hashes are equal.
+     */
+    private static final class HashCollisionNode extends Node {
+
+        final int hash;
+        final Object[] keys;
+        final Object[] values;
+
+        HashCollisionNode(int hash, Object[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            for (int i = 0; i < keys.length; i++) {
+                if (Objects.equals(keys[i], key)) {
+                    return values[i];
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node updated(Object key, Object value, int hash, int shift, Change change) {
+            for (int i = 0; i < keys.length; i++) {
+                if (Objects.equals(keys[i], key)) {
+                    if (values[i] == value) {
+                        return this;
+                    }
+                    change.modified = true;
+                    change.replaced = true;
+                    Object[] newValues = values.clone();
+                    newValues[i] = value;
+                    return new HashCollisionNode(this.hash, keys, newValues);
+                }
+            }
+            change.modified = true;
+            Object[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+            Object[] newValues = Arrays.copyOf(values, values.length + 1);
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            return new HashCollisionNode(this.hash, newKeys, newValues);
+        }
+
+        @Override
+        Node removed(Object key, int hash, int shift, Change change) {
+            for (int i = 0; i < keys.length; i++) {
+                if (Objects.equals(keys[i], key)) {
+                    change.modified = true;
+                    Object[] newKeys = new Object[keys.length - 1];
+                    Object[] newValues = new Object[values.length - 1];
+                    System.arraycopy(keys, 0, newKeys, 0, i);
+                    System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+                    System.arraycopy(values, 0, newValues, 0, i);
+                    System.arraycopy(values, i + 1, newValues, i, values.length - i - 1);
+                    return new HashCollisionNode(this.hash, newKeys, newValues);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int payloadArity() {
+            return keys.length;
+        }
+
+        @Override
+        Object getKey(int index) {
+            return keys[index];
+        }
+
+        @Override
+        Object getValue(int index) {
+            return values[index];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Node getNode(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < keys.length; i++) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Depth-first iterator over the trie: a node's inline entries first, then its sub-nodes.
+     */
+    private abstract static class TrieIterator<T> implements Iterator<T> {
+
+        private static final int MAX_DEPTH = 8;
+
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] nodeCursors = new int[MAX_DEPTH];
+        private int depth;
+        private Node payloadNode;
+        private int payloadCursor;
+        private int payloadLength;
+
+        TrieIterator(Node root) {
+            nodes[0] = root;
+            payloadNode = root;
+            payloadLength = root.payloadArity();
+        }
+
+        abstract T element(Node node, int index);
+
+        @Override
+        public boolean hasNext() {
+            while (payloadCursor >= payloadLength) {
+                if (!advanceToNextPayloadNode()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return element(payloadNode, payloadCursor++);
+        }
+
+        private boolean advanceToNextPayloadNode() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (nodeCursors[depth] < node.nodeArity()) {
+                    Node child = node.getNode(nodeCursors[depth]++);
+                    nodes[++depth] = child;
+                    nodeCursors[depth] = 0;
+                    payloadNode = child;
+                    payloadCursor = 0;
+                    payloadLength = child.payloadArity();
+                    return true;
+                }
+                depth--;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Collects entries and builds the trie in a single bulk pass, which is O(n) per
+     * trie level instead of one path copy per insert. Later puts for the same key win.
+     */
+    public static final class Builder<K, V> {
+
+        private int[] hashes;
+        private Object[] keys;
+        private Object[] values;
+        private int count;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 4);
+            this.hashes = new int[capacity];
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            if (count == keys.length) {
+                int capacity = count + (count >> 1) + 1;
+                hashes = Arrays.copyOf(hashes, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            hashes[count] = hash(key);
+            keys[count] = key;
+            values[count] = value;
+            count++;
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public ChampMap<K, V> build() {
+            if (count == 0) {
+                return empty();
+            }
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            int[] size = new int[1];
+            Node root = buildNode(order, new int[count], 0, count, 0, size);
+            return new ChampMap<>(root, size[0]);
+        }
+
+        private Node buildNode(int[] order, int[] scratch, int from, int to, int shift, int[] size) {
+            if (shift >= HASH_CODE_LENGTH) {
+                return buildCollisionNode(order, from, to, size);
+            }
+            int[] counts = new int[BIT_PARTITION_MASK + 2];
+            for (int i = from; i < to; i++) {
+                counts[mask(hashes[order[i]], shift) + 1]++;
+            }
+            for (int i = 1; i < counts.length; i++) {
+                counts[i] += counts[i - 1];
+            }
+            // Stable counting sort on this level's hash fragment; counts[m] is the bucket start
+            int[] cursor = Arrays.copyOf(counts, counts.length);
+            for (int i = from; i < to; i++) {
+                int entry = order[i];
+                scratch[from + cursor[mask(hashes[entry], shift)]++] = entry;
+            }
+            System.arraycopy(scratch, from, order, from, to - from);
+
+            int dataMap = 0;
+            int nodeMap = 0;
+            Object[] data = new Object[2 * (to - from)];
+            Node[] children = new Node[BIT_PARTITION_MASK + 1];
+            int dataLength = 0;
+            int childCount = 0;
+            for (int m = 0; m <= BIT_PARTITION_MASK; m++) {
+                int start = from + counts[m];
+                int end = from + counts[m + 1];
+                if (end - start == 1) {
+                    dataMap |= bitpos(m);
+                    data[dataLength++] = keys[order[start]];
+                    data[dataLength++] = values[order[start]];
+                    size[0]++;
+                } else if (end - start > 1) {
+                    Node child = buildNode(order, scratch, start, end, shift + BIT_PARTITION_SIZE, size);
+                    if (child.sizePredicate() == SIZE_ONE) {
+                        dataMap |= bitpos(m);
+                        data[dataLength++] = child.getKey(0);
+                        data[dataLength++] = child.getValue(0);
+                    } else {
+                        nodeMap |= bitpos(m);
+                        children[childCount++] = child;
+                    }
+                }
+            }
+            Object[] content = new Object[dataLength + childCount];
+            System.arraycopy(data, 0, content, 0, dataLength);
+            System.arraycopy(children, 0, content, dataLength, childCount);
+            return new BitmapIndexedNode(dataMap, nodeMap, content);
+        }
+
+        private Node buildCollisionNode(int[] order, int from, int to, int[] size) {
+            Object[] nodeKeys = new Object[to - from];
+            Object[] nodeValues = new Object[to - from];
+            int length = 0;
+            for (int i = from; i < to; i++) {
+                Object key = keys[order[i]];
+                int existing = -1;
+                for (int j = 0; j < length; j++) {
+                    if (Objects.equals(nodeKeys[j], key)) {
+                        existing = j;
+                        break;
+                    }
+                }
+                if (existing >= 0) {
+                    nodeValues[existing] = values[order[i]];
+                } else {
+                    nodeKeys[length] = key;
+                    nodeValues[length] = values[order[i]];
+                    length++;
+                }
+            }
+            size[0] += length;
+            return new HashCollisionNode(hashes[order[from]],
+                    Arrays.copyOf(nodeKeys, length), Arrays.copyOf(nodeValues, length));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Local clustering coefficients of a {@link DenseGraph} and their average.
+ *
+ * A node's neighbors are the distinct nodes it has an edge to or from, and its coefficient
+ * is the number of directed edges among them over k(k - 1), the most k neighbors can have.
+ * A self-loop makes the node its own neighbor, linked to every other one.
+ *
+ * {@link #compute} counts every triangle once with the forward algorithm (Schank and
+ * Wagner, "Finding, Counting and Listing all Triangles in Large Graphs"): nodes are ranked
+ * by degree, each node keeps only its higher-ranked neighbors in a sorted int array, and the
+ * triangles over an edge u-v are the merge-intersection of u's and v's lists, in O(m^1.5)
+ * overall. Each triangle credits each corner with the number of directed edges between the
+ * other two. Nodes are split into ranges on a fork-join pool, each crediting its own array.
+ *
+ * {@link #estimateAverage} samples wedges instead (Seshadhri, Pinar and Kolda, "Wedge
+ * sampling for computing clustering coefficients and triangle counts on large graphs"):
+ * a random node and two of its neighbors, scored by how many of the two possible edges join
+ * them. The sample mean is the average coefficient, to within Hoeffding's bound.
+ */
+public final class ClusteringCoefficients {
+
+    /** Ranges per worker thread, so uneven degrees still balance */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private static final byte OUT = 1;
+    private static final byte IN = 2;
+
+    private final double[] local;
+    private final double average;
+
+    private ClusteringCoefficients(double[] local, double average) {
+        this.local = local;
+        this.average = average;
+    }
+
+    public static ClusteringCoefficients compute(DenseGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        if (n == 0) {
+            return new ClusteringCoefficients(new double[0], 0.0);
+        }
+        Neighbors neighbors = Neighbors.of(graph);
+        Neighbors forward = neighbors.forward();
+        int grain = Math.max(1, n / (pool.getParallelism() * RANGES_PER_THREAD));
+        long[] links = pool.invoke(new Triangles(forward, 0, n, grain));
+
+        double[] local = new double[n];
+        double total = 0;
+        for (int v = 0; v < n; v++) {
+            long k = neighbors.degree(v);
+            if (neighbors.selfLoop[v]) {
+                for (int i = neighbors.offsets[v]; i < neighbors.offsets[v + 1]; i++) {
+                    links[v] += Integer.bitCount(neighbors.links[i]);
+                }
+                k++;
+            }
+            local[v] = k < 2 ? 0.0 : (double) links[v] / (k * (k - 1));
+            total += local[v];
+        }
+        return new ClusteringCoefficients(local, total / n);
+    }
+
+    /**
+     * Average coefficient from sampled wedges; within epsilon of the exact average with
+     * probability at least 1 - delta
+     */
+    public static double estimateAverage(DenseGraph graph, double epsilon, double delta, long seed) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be between 0 and 1, got " + epsilon);
+        }
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("delta must be between 0 and 1, got " + delta);
+        }
+        int n = graph.nodeCount();
+        if (n == 0) {
+            return 0.0;
+        }
+        Neighbors neighbors = Neighbors.of(graph);
+        // Each sample scores 0, 1/2 or 1, so Hoeffding's inequality bounds the count
+        long samples = (long) Math.ceil(Math.log(2 / delta) / (2 * epsilon * epsilon));
+        SplittableRandom random = new SplittableRandom(seed);
+        double total = 0;
+        for (long s = 0; s < samples; s++) {
+            int v = random.nextInt(n);
+            int degree = neighbors.degree(v);
+            int k = neighbors.selfLoop[v] ? degree + 1 : degree;
+            if (k < 2) {
+                continue;
+            }
+            int i = random.nextInt(k);
+            int j = random.nextInt(k - 1);
+            if (j >= i) {
+                j++;
+            }
+            // Index degree stands for v itself, a neighbor through its self-loop
+            int a = i == degree ? v : neighbors.nodes[neighbors.offsets[v] + i];
+            int b = j == degree ? v : neighbors.nodes[neighbors.offsets[v] + j];
+            total += Integer.bitCount(neighbors.link(a, b)) / 2.0;
+        }
+        return total / samples;
+    }
+
+    /**
+     * Coefficient of node v
+     */
+    public double local(int v) {
+        return local[v];
+    }
+
+    public double average() {
+        return average;
+    }
+
+    /**
+     * Each node's distinct neighbors other than itself, sorted by index, with whether each
+     * is linked by an out-edge, an in-edge or both
+     */
+    private static final class Neighbors {
+        private final int[] offsets;
+        private final int[] nodes;
+        private final byte[] links;
+        private final boolean[] selfLoop;
+
+        private Neighbors(int[] offsets, int[] nodes, byte[] links, boolean[] selfLoop) {
+            this.offsets = offsets;
+            this.nodes = nodes;
+            this.links = links;
+            this.selfLoop = selfLoop;
+        }
+
+        static Neighbors of(DenseGraph graph) {
+            int n = graph.nodeCount();
+            int[] offsets = new int[n + 1];
+            int[] nodes = new int[graph.edgeCount() * 2];
+            byte[] links = new byte[nodes.length];
+            boolean[] selfLoop = new boolean[n];
+            long[] keys = new long[0];
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                int out = graph.outDegree(v);
+                int in = graph.inDegree(v);
+                if (keys.length < out + in) {
+                    keys = new long[out + in];
+                }
+                int count = 0;
+                for (int i = 0; i < out; i++) {
+                    keys[count++] = ((long) graph.outNeighbor(v, i) << 2) | OUT;
+                }
+                for (int i = 0; i < in; i++) {
+                    keys[count++] = ((long) graph.inNeighbor(v, i) << 2) | IN;
+                }
+                Arrays.sort(keys, 0, count);
+                for (int i = 0; i < count; i++) {
+                    int w = (int) (keys[i] >>> 2);
+                    byte link = (byte) (keys[i] & 3);
+                    if (w == v) {
+                        selfLoop[v] = true;
+                    } else if (size > offsets[v] && nodes[size - 1] == w) {
+                        links[size - 1] |= link;
+                    } else {
+                        nodes[size] = w;
+                        links[size] = link;
+                        size++;
+                    }
+                }
+                offsets[v + 1] = size;
+            }
+            return new Neighbors(offsets, nodes, links, selfLoop);
+        }
+
+        int degree(int v) {
+            return offsets[v + 1] - offsets[v];
+        }
+
+        /**
+         * Directions in which a and b are linked, 0 if they are not; a and b are distinct
+         */
+        byte link(int a, int b) {
+            int i = Arrays.binarySearch(nodes, offsets[a], offsets[a + 1], b);
+            return i >= 0 ? links[i] : 0;
+        }
+
+        /**
+         * Only the neighbors ranked above each node, by degree and then index
+         */
+        Neighbors forward() {
+            int n = offsets.length - 1;
+            int[] forwardOffsets = new int[n + 1];
+            int[] forwardNodes = new int[nodes.length / 2];
+            byte[] forwardLinks = new byte[forwardNodes.length];
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int w = nodes[i];
+                    if (degree(w) > degree(v) || (degree(w) == degree(v) && w > v)) {
+                        forwardNodes[size] = w;
+                        forwardLinks[size] = links[i];
+                        size++;
+                    }
+                }
+                forwardOffsets[v + 1] = size;
+            }
+            return new Neighbors(forwardOffsets, forwardNodes, forwardLinks, selfLoop);
+        }
+    }
+
+    /**
+     * Credits each triangle whose lowest-ranked corner is in a node range; returns per-node
+     * counts of directed edges between neighbors
+     */
+    private static final class Triangles extends RecursiveTask<long[]> {
+        private final Neighbors forward;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Triangles(Neighbors forward, int from, int to, int grain) {
+            this.forward = forward;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Triangles right = new Triangles(forward, mid, to, grain);
+                right.fork();
+                long[] sum = new Triangles(forward, from, mid, grain).compute();
+                long[] other = right.join();
+                for (int v = 0; v < sum.length; v++) {
+                    sum[v] += other[v];
+                }
+                return sum;
+            }
+
+            int[] offsets = forward.offsets;
+            int[] nodes = forward.nodes;
+            byte[] links = forward.links;
+            long[] counts = new long[offsets.length - 1];
+            for (int u = from; u < to; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = nodes[e];
+                    int uv = Integer.bitCount(links[e]);
+                    // Merge u's and v's forward lists: each common node w closes a triangle
+                    int i = offsets[u];
+                    int j = offsets[v];
+                    while (i < offsets[u + 1] && j < offsets[v + 1]) {
+                        if (nodes[i] < nodes[j]) {
+                            i++;
+                        } else if (nodes[i] > nodes[j]) {
+                            j++;
+                        } else {
+                            counts[u] += Integer.bitCount(links[j]);
+                            counts[v] += Integer.bitCount(links[i]);
+                            counts[nodes[i]] += uv;
+                            i++;
+                            j++;
+                        }
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only compressed-sparse-row snapshot of an {@link ImmutableGraph}.
+ *
+ * Nodes are numbered densely from 0 to n-1 in ascending order of their interned numbers,
+ * which for a built graph is the order they were added, and the out- and in-edges of
+ * node v are the slices [offsets[v], offsets[v+1]) of flat int arrays, listed in the
+ * same order as the context's successor and predecessor maps. Because both orders
+ * follow the interned numbers, every slice is sorted.
+ * Algorithms that walk the whole graph should run on this snapshot rather than on
+ * the hashed contexts. Obtain it with {@link ImmutableGraph#toCsr()}, which caches
+ * one snapshot per graph version.
+ */
+public final class CsrGraph implements DenseGraph {
+
+    private final UUID[] nodeIds;
+    private final NodeInterner interner;
+    private final int[] internedIds;  // dense index -> interned number, ascending
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inTargets;
+
+    private CsrGraph(UUID[] nodeIds, NodeInterner interner, int[] internedIds,
+                     int[] outOffsets, int[] outTargets,
+                     int[] inOffsets, int[] inTargets) {
+        this.nodeIds = nodeIds;
+        this.interner = interner;
+        this.internedIds = internedIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+    }
+
+    static <N, E> CsrGraph of(ImmutableGraph<N, E> graph) {
+        int n = graph.nodeCount();
+        NodeInterner interner = graph.interner();
+        // Indexed by live node only: the interner also numbers every node other versions
+        // of the lineage added, which can far outnumber this version's nodes
+        int[] internedIds = new int[n];
+        int i = 0;
+        for (UUID nodeId : graph.getNodeIds()) {
+            internedIds[i++] = interner.indexOf(nodeId);
+        }
+        Arrays.sort(internedIds);
+        UUID[] nodeIds = new UUID[n];
+        List<ImmutableGraph.Context<N, E>> contexts = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            nodeIds[v] = interner.nodeId(internedIds[v]);
+            contexts.add(graph.getContext(nodeIds[v]));
+        }
+
+        int[] outOffsets = new int[n + 1];
+        int[] inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            ImmutableGraph.Context<N, E> context = contexts.get(v);
+            outOffsets[v + 1] = outOffsets[v] + context.successorMap().size();
+            inOffsets[v + 1] = inOffsets[v] + context.predecessorMap().size();
+        }
+
+        int[] outTargets = new int[outOffsets[n]];
+        int[] inTargets = new int[inOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            ImmutableGraph.Context<N, E> context = contexts.get(v);
+            context.successorMap().copyKeys(outTargets, outOffsets[v]);
+            context.predecessorMap().copyKeys(inTargets, inOffsets[v]);
+        }
+        renumber(outTargets, outOffsets, internedIds);
+        renumber(inTargets, inOffsets, internedIds);
+
+        return new CsrGraph(nodeIds, interner, internedIds, outOffsets, outTargets, inOffsets, inTargets);
+    }
+
+    /**
+     * Replaces interned numbers by dense indexes. Each slice is sorted, so its search
+     * resumes where the previous target was found
+     */
+    private static void renumber(int[] targets, int[] offsets, int[] internedIds) {
+        for (int v = 0; v + 1 < offsets.length; v++) {
+            int from = 0;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                from = Arrays.binarySearch(internedIds, from, internedIds.length, targets[e]);
+                targets[e] = from;
+            }
+        }
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Dense index of a node, or -1 if the node is not in the graph
+     */
+    public int indexOf(UUID nodeId) {
+        int id = interner.indexOf(nodeId);
+        int v = id < 0 ? -1 : Arrays.binarySearch(internedIds, id);
+        return v < 0 ? -1 : v;
+    }
+
+    public UUID nodeId(int v) {
+        return nodeIds[v];
+    }
+
+    public int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /**
+     * The i-th successor of node v, for 0 &lt;= i &lt; outDegree(v)
+     */
+    public int outNeighbor(int v, int i) {
+        return outTargets[outOffsets[v] + i];
+    }
+
+    /**
+     * The i-th predecessor of node v, for 0 &lt;= i &lt; inDegree(v)
+     */
+    public int inNeighbor(int v, int i) {
+        return inTargets[inOffsets[v] + i];
+    }
+}
@@ -0,0 +1,66 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.UUID;
+import java.util.function.IntPredicate;
+
+/**
+ * A directed graph over dense node indices 0 to nodeCount() - 1, as read by the traversal,
+ * component and metrics algorithms.
+ *
+ * {@link CsrGraph} is the materialized implementation. {@link #reversed()},
+ * {@link #undirected()} and {@link #induced(IntPredicate)} return views over another
+ * dense graph, so an algorithm written for one direction or for the whole graph can run
+ * on the other direction, both directions or a node subset. Reversed and undirected views
+ * copy nothing; an induced view holds only flat int arrays for its own nodes and edges.
+ * Implementations are immutable and thread-safe.
+ */
+public interface DenseGraph {
+
+    int nodeCount();
+
+    int edgeCount();
+
+    /**
+     * Dense index of a node, or -1 if the node is not in the graph
+     */
+    int indexOf(UUID nodeId);
+
+    UUID nodeId(int v);
+
+    int outDegree(int v);
+
+    int inDegree(int v);
+
+    /**
+     * The i-th successor of node v, for 0 &lt;= i &lt; outDegree(v)
+     */
+    int outNeighbor(int v, int i);
+
+    /**
+     * The i-th predecessor of node v, for 0 &lt;= i &lt; inDegree(v)
+     */
+    int inNeighbor(int v, int i);
+
+    /**
+     * This graph with every edge turned around: successors and predecessors swap
+     */
+    default DenseGraph reversed() {
+        return GraphViews.reversed(this);
+    }
+
+    /**
+     * This graph with every edge followed both ways: each node's successors and predecessors
+     * are its successors followed by its predecessors. Like {@link GraphTraversals.Direction#BOTH},
+     * a pair linked in both directions, or a self-loop, lists the neighbor twice.
+     */
+    default DenseGraph undirected() {
+        return GraphViews.undirected(this);
+    }
+
+    /**
+     * The subgraph induced by the nodes keep accepts, renumbered densely in index order
+     */
+    default DenseGraph induced(IntPredicate keep) {
+        return GraphViews.induced(this, keep);
+    }
+}
@@ -0,0 +1,275 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+
+/**
+ * Lower and upper bounds on the diameter of a {@link DenseGraph}: the longest distance along
+ * out-edges between any pair where one reaches the other. On sparse real-world graphs the
+ * bounds usually meet after a few dozen BFS runs, giving the exact diameter without a BFS
+ * from every node.
+ *
+ * Strong components are bounded with DiFUB, the directed iterative fringe upper bound of
+ * Crescenzi, Grossi, Lanzi and Marino ("On computing the diameter of real-world directed
+ * (weighted) graphs"). From a high-degree node u, every pair further apart than 2(i - 1)
+ * has one end at least i steps from or to u, so the eccentricities of the nodes at distance
+ * i from and to u, taken from the farthest level inward, close the gap between the largest
+ * eccentricity seen and 2(i - 1).
+ *
+ * A graph with several strong components is bounded above by its heaviest condensation
+ * path, each component weighing one more than its own diameter bound: a shortest path runs
+ * through components in condensation order and never leaves one and comes back. It is
+ * bounded below by DiFUB on the largest component and by a double sweep (a BFS from the
+ * farthest node found by the previous one, alternating directions) over the whole graph.
+ */
+public final class DiameterBounds {
+
+    private final int lower;
+    private final int upper;
+    private final int searches;
+
+    private DiameterBounds(int lower, int upper, int searches) {
+        this.lower = lower;
+        this.upper = upper;
+        this.searches = searches;
+    }
+
+    /**
+     * Bounds the diameter, stopping before a DiFUB level would take the BFS count past
+     * maxSearches; the initial sweeps always run
+     */
+    public static DiameterBounds of(DenseGraph graph, int maxSearches) {
+        if (maxSearches < 0) {
+            throw new IllegalArgumentException("maxSearches must be non-negative, got " + maxSearches);
+        }
+        int n = graph.nodeCount();
+        if (n == 0) {
+            return new DiameterBounds(0, 0, 0);
+        }
+        Search search = new Search(graph, maxSearches);
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+        if (components.count() == 1) {
+            int[] bounds = search.difub(components, 0);
+            return new DiameterBounds(bounds[0], bounds[1], search.searches);
+        }
+
+        int largest = 0;
+        for (int c = 1; c < components.count(); c++) {
+            if (components.size(c) > components.size(largest)) {
+                largest = c;
+            }
+        }
+        int lower = 0;
+        int[] componentUpper = new int[components.count()];
+        for (int c = 0; c < components.count(); c++) {
+            if (components.size(c) == 1) {
+                continue;
+            }
+            if (c == largest) {
+                int[] bounds = search.difub(components, c);
+                lower = bounds[0];
+                componentUpper[c] = bounds[1];
+            } else {
+                // Any member reaches and is reached by the rest of the component
+                int root = components.member(c, 0);
+                int around = search.eccentricity(root, true, components, c)
+                        + search.eccentricity(root, false, components, c);
+                componentUpper[c] = Math.min(components.size(c) - 1, around);
+            }
+        }
+
+        // Successors have lower numbers, so they are finished before their predecessors
+        long[] heaviest = new long[components.count()];
+        long upper = 0;
+        for (int c = 0; c < components.count(); c++) {
+            long below = 0;
+            for (int i = 0; i < components.successorCount(c); i++) {
+                below = Math.max(below, heaviest[components.successor(c, i)]);
+            }
+            heaviest[c] = componentUpper[c] + 1 + below;
+            upper = Math.max(upper, heaviest[c]);
+        }
+
+        // Double sweep over the whole graph from its highest-degree node
+        int start = highestDegree(graph, null, -1);
+        int farthest = search.sweep(start, true);
+        lower = Math.max(lower, search.lastEccentricity);
+        farthest = search.sweep(farthest, false);
+        lower = Math.max(lower, search.lastEccentricity);
+        search.sweep(farthest, true);
+        lower = Math.max(lower, search.lastEccentricity);
+
+        return new DiameterBounds(lower, (int) Math.max(lower, upper - 1), search.searches);
+    }
+
+    public int lower() {
+        return lower;
+    }
+
+    public int upper() {
+        return upper;
+    }
+
+    public boolean exact() {
+        return lower == upper;
+    }
+
+    /**
+     * Number of BFS runs it took
+     */
+    public int searches() {
+        return searches;
+    }
+
+    /**
+     * Node with the most in- plus out-edges, among the members of component c, or among all
+     * nodes when components is null
+     */
+    private static int highestDegree(DenseGraph graph, StronglyConnectedComponents components, int c) {
+        int size = components == null ? graph.nodeCount() : components.size(c);
+        int best = -1;
+        int bestDegree = -1;
+        for (int k = 0; k < size; k++) {
+            int v = components == null ? k : components.member(c, k);
+            int degree = graph.outDegree(v) + graph.inDegree(v);
+            if (degree > bestDegree) {
+                best = v;
+                bestDegree = degree;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * BFS scratch space shared by every search, reset after each one
+     */
+    private static final class Search {
+        private final DenseGraph graph;
+        private final int maxSearches;
+        private final int[] distance;
+        private final int[] queue;
+        private int searches;
+        private int reached;
+        private int lastEccentricity;
+
+        Search(DenseGraph graph, int maxSearches) {
+            this.graph = graph;
+            this.maxSearches = maxSearches;
+            this.distance = new int[graph.nodeCount()];
+            this.queue = new int[graph.nodeCount()];
+            Arrays.fill(distance, -1);
+        }
+
+        /**
+         * DiFUB within component c; returns {lower, upper}
+         */
+        int[] difub(StronglyConnectedComponents components, int c) {
+            int u = highestDegree(graph, components, c);
+            Levels forward = levels(u, true, components, c);
+            Levels backward = levels(u, false, components, c);
+            int forwardEnd = forward.nodes().length;
+            int backwardEnd = backward.nodes().length;
+            int forwardEccentricity = forward.distances()[forwardEnd - 1];
+            int backwardEccentricity = backward.distances()[backwardEnd - 1];
+
+            int lower = Math.max(forwardEccentricity, backwardEccentricity);
+            int upper = forwardEccentricity + backwardEccentricity;
+            for (int i = lower; lower < upper; i--) {
+                int forwardStart = forward.start(forwardEnd, i);
+                int backwardStart = backward.start(backwardEnd, i);
+                if (searches + (forwardEnd - forwardStart) + (backwardEnd - backwardStart) > maxSearches) {
+                    break;
+                }
+                // Nodes i steps from u: the farthest any node reaches them
+                for (int k = forwardStart; k < forwardEnd; k++) {
+                    lower = Math.max(lower, eccentricity(forward.nodes()[k], false, components, c));
+                }
+                // Nodes i steps to u: the farthest they reach
+                for (int k = backwardStart; k < backwardEnd; k++) {
+                    lower = Math.max(lower, eccentricity(backward.nodes()[k], true, components, c));
+                }
+                upper = Math.max(lower, Math.min(upper, 2 * (i - 1)));
+                forwardEnd = forwardStart;
+                backwardEnd = backwardStart;
+            }
+            return new int[] {lower, upper};
+        }
+
+        /**
+         * Largest distance from (forward) or to source within component c
+         */
+        int eccentricity(int source, boolean forward, StronglyConnectedComponents components, int c) {
+            bfs(source, forward, components, c);
+            int eccentricity = distance[queue[reached - 1]];
+            reset();
+            return eccentricity;
+        }
+
+        /**
+         * BFS over the whole graph; records its eccentricity and returns its farthest node
+         */
+        int sweep(int source, boolean forward) {
+            bfs(source, forward, null, -1);
+            int farthest = queue[reached - 1];
+            lastEccentricity = distance[farthest];
+            reset();
+            return farthest;
+        }
+
+        /**
+         * The nodes reached from (forward) or reaching source within component c, by distance
+         */
+        private Levels levels(int source, boolean forward, StronglyConnectedComponents components, int c) {
+            bfs(source, forward, components, c);
+            int[] nodes = Arrays.copyOf(queue, reached);
+            int[] distances = new int[reached];
+            for (int k = 0; k < reached; k++) {
+                distances[k] = distance[nodes[k]];
+            }
+            reset();
+            return new Levels(nodes, distances);
+        }
+
+        private void bfs(int source, boolean forward, StronglyConnectedComponents components, int c) {
+            searches++;
+            distance[source] = 0;
+            queue[0] = source;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                int next = distance[v] + 1;
+                int degree = forward ? graph.outDegree(v) : graph.inDegree(v);
+                for (int i = 0; i < degree; i++) {
+                    int w = forward ? graph.outNeighbor(v, i) : graph.inNeighbor(v, i);
+                    if (distance[w] < 0 && (components == null || components.component(w) == c)) {
+                        distance[w] = next;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            reached = tail;
+        }
+
+        private void reset() {
+            for (int k = 0; k < reached; k++) {
+                distance[queue[k]] = -1;
+            }
+        }
+    }
+
+    /**
+     * BFS order from a node with each node's distance, so each level is a contiguous run
+     */
+    private record Levels(int[] nodes, int[] distances) {
+
+        /**
+         * Start of level i, given that it is the last level before end
+         */
+        int start(int end, int i) {
+            int start = end;
+            while (start > 0 && distances[start - 1] == i) {
+                start--;
+            }
+            return start;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+
+/**
+ * How many ordered pairs of distinct nodes lie at each hop distance, counting only pairs
+ * where the first reaches the second. Counts are doubles so that estimates, such as those
+ * of {@link HyperAnf}, and exact counts share one type.
+ */
+public final class DistanceDistribution {
+
+    /** Fraction of reachable pairs the effective diameter covers */
+    public static final double EFFECTIVE_DIAMETER_QUANTILE = 0.9;
+
+    private final double[] pairs;
+
+    /**
+     * pairs[d] holds the pair count at distance d; pairs[0] is ignored
+     */
+    DistanceDistribution(double[] pairs) {
+        int last = pairs.length - 1;
+        while (last > 0 && pairs[last] == 0) {
+            last--;
+        }
+        this.pairs = Arrays.copyOf(pairs, Math.max(1, last + 1));
+        this.pairs[0] = 0;
+    }
+
+    /**
+     * Largest distance with any pairs, 0 if there are none
+     */
+    public int maxDistance() {
+        return pairs.length - 1;
+    }
+
+    /**
+     * Pairs at the given distance, 0 beyond maxDistance()
+     */
+    public double pairs(int distance) {
+        return distance > 0 && distance < pairs.length ? pairs[distance] : 0.0;
+    }
+
+    public double totalPairs() {
+        double total = 0;
+        for (double count : pairs) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Mean distance over reachable pairs, 0 if there are none
+     */
+    public double averagePathLength() {
+        double total = totalPairs();
+        if (total == 0) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (int d = 1; d < pairs.length; d++) {
+            sum += d * pairs[d];
+        }
+        return sum / total;
+    }
+
+    /**
+     * Distance within which {@link #EFFECTIVE_DIAMETER_QUANTILE} of the reachable pairs lie,
+     * interpolated linearly between whole distances; 0 if there are no pairs
+     */
+    public double effectiveDiameter() {
+        double total = totalPairs();
+        if (total == 0) {
+            return 0.0;
+        }
+        double target = EFFECTIVE_DIAMETER_QUANTILE * total;
+        double below = 0;
+        for (int d = 1; d < pairs.length; d++) {
+            double upTo = below + pairs[d];
+            if (upTo >= target) {
+                return d - 1 + (target - below) / pairs[d];
+            }
+            below = upTo;
+        }
+        return maxDistance();
+    }
+}
@@ -0,0 +1,1034 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Weakly connected components of a graph kept up to date as nodes and edges are added and
+ * removed, with the algorithm of Holm, de Lichtenberg and Thorup ("Poly-logarithmic
+ * deterministic fully-dynamic algorithms for connectivity, minimum spanning tree, 2-edge,
+ * and biconnectivity"): O(log n) per insertion and O(log^2 n) amortized per deletion.
+ *
+ * Edge directions are ignored, and a pair of opposite edges counts as one undirected edge
+ * until both are gone. Every undirected edge has a level, 0 when inserted. F_i is a
+ * spanning forest of the edges of level i and above, so F_0 spans the whole graph and its
+ * trees are the components. Deleting a tree edge of level l splits its tree in each of
+ * F_0..F_l; from level l down, the smaller half has its level-i tree edges raised to i + 1,
+ * then its level-i non-tree edges are tried in turn as a replacement, each one that stays
+ * inside the half raised as well. Raising only smaller halves keeps every tree of F_i to
+ * at most n / 2^i nodes, so no edge is raised more than log n times.
+ *
+ * Each forest is kept as Euler tours in treaps (one {@link Forest} per level), holding
+ * for every subtree the number of nodes and whether any node has level-i tree or non-tree
+ * edges, so the smaller half and the next edge to try are found in O(log n). Treap nodes,
+ * edges and adjacency are dense ints in flat arrays.
+ *
+ * Queries take O(log n); once {@link #componentIds} has labelled the components, they take
+ * O(1) until an edit changes which nodes are connected.
+ */
+public final class DynamicConnectivity {
+
+    /** Treap priorities; fixed so the structure, though not its answers, is reproducible */
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final CsrGraph base;
+    private final Map<UUID, Integer> added = new HashMap<>();
+    private final List<Forest> forests = new ArrayList<>();
+    private final EdgeTable edgeTable = new EdgeTable();
+    private final Edges edges = new Edges();
+
+    /** Node of each vertex, null where the vertex is free */
+    private UUID[] ids;
+    /** Undirected edges at each vertex, self-loops aside */
+    private int[] degree;
+    private int[] freeVertices = new int[0];
+    private int freeVertexCount;
+    private int vertexCapacity;
+    private int nodeCount;
+    private int treeEdgeCount;
+
+    /** Component label of each vertex while the components have not changed since labelling */
+    private int[] labels;
+    private boolean labelled;
+
+    private DynamicConnectivity(CsrGraph base) {
+        this.base = base;
+        this.vertexCapacity = Math.max(base.nodeCount(), 1);
+        this.ids = new UUID[vertexCapacity];
+        this.degree = new int[vertexCapacity];
+        for (int v = 0; v < base.nodeCount(); v++) {
+            ids[v] = base.nodeId(v);
+        }
+        this.nodeCount = base.nodeCount();
+        forests.add(new Forest(vertexCapacity, random));
+    }
+
+    public static DynamicConnectivity of(CsrGraph graph) {
+        DynamicConnectivity connectivity = new DynamicConnectivity(graph);
+        connectivity.load(graph);
+        return connectivity;
+    }
+
+    /**
+     * Adds a node as a component of its own
+     *
+     * @throws IllegalArgumentException if the node is already present
+     */
+    public void addNode(UUID nodeId) {
+        if (index(nodeId) >= 0) {
+            throw new IllegalArgumentException("Node already present: " + nodeId);
+        }
+        int v;
+        if (freeVertexCount > 0) {
+            v = freeVertices[--freeVertexCount];
+        } else {
+            v = nodeCount + freeVertexCount;
+            if (v == vertexCapacity) {
+                growVertices(vertexCapacity * 2);
+            }
+        }
+        ids[v] = nodeId;
+        added.put(nodeId, v);
+        nodeCount++;
+        labelled = false;
+    }
+
+    /**
+     * Removes a node that has no edges left to other nodes
+     *
+     * @throws IllegalArgumentException if the node is not present or still has such edges
+     */
+    public void removeNode(UUID nodeId) {
+        int v = require(nodeId);
+        if (degree[v] > 0) {
+            throw new IllegalArgumentException("Node still has edges: " + nodeId);
+        }
+        for (Forest forest : forests) {
+            forest.releaseVertex(v);
+        }
+        ids[v] = null;
+        added.remove(nodeId);
+        if (freeVertexCount == freeVertices.length) {
+            freeVertices = Arrays.copyOf(freeVertices, Math.max(4, freeVertexCount * 2));
+        }
+        freeVertices[freeVertexCount++] = v;
+        nodeCount--;
+        labelled = false;
+    }
+
+    /**
+     * Adds a directed edge; self-loops leave the components as they are
+     *
+     * @throws IllegalArgumentException if either endpoint is not present
+     */
+    public void addEdge(UUID from, UUID to) {
+        int u = require(from);
+        int v = require(to);
+        if (u != v) {
+            insert(u, v);
+        }
+    }
+
+    /**
+     * Removes a directed edge; its endpoints stay connected while the opposite edge remains
+     *
+     * @throws IllegalArgumentException if either endpoint is not present or the nodes are
+     *         not joined by an edge
+     */
+    public void removeEdge(UUID from, UUID to) {
+        int u = require(from);
+        int v = require(to);
+        if (u == v) {
+            return;
+        }
+        int e = edgeTable.get(key(u, v));
+        if (e < 0) {
+            throw new IllegalArgumentException("No edge between " + from + " and " + to);
+        }
+        if (--edges.multiplicity[e] == 0) {
+            delete(e);
+        }
+    }
+
+    /**
+     * Whether two nodes are in the same component
+     *
+     * @throws IllegalArgumentException if either node is not present
+     */
+    public boolean connected(UUID a, UUID b) {
+        int u = require(a);
+        int v = require(b);
+        return labelled ? labels[u] == labels[v] : forests.get(0).connected(u, v);
+    }
+
+    public int count() {
+        return nodeCount - treeEdgeCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Component of every node, numbered from 0 to count() - 1; the numbering can change
+     * whenever the components do
+     */
+    public Map<UUID, Integer> componentIds() {
+        label();
+        Map<UUID, Integer> componentIds = new LinkedHashMap<>();
+        int[] renumbered = new int[count()];
+        Arrays.fill(renumbered, -1);
+        int next = 0;
+        for (int v = 0; v < vertexCapacity; v++) {
+            if (ids[v] != null) {
+                if (renumbered[labels[v]] < 0) {
+                    renumbered[labels[v]] = next++;
+                }
+                componentIds.put(ids[v], renumbered[labels[v]]);
+            }
+        }
+        return componentIds;
+    }
+
+    /**
+     * Labels every vertex with its component, walking each tree of F_0 once
+     */
+    private void label() {
+        if (labelled) {
+            return;
+        }
+        labels = new int[vertexCapacity];
+        Arrays.fill(labels, -1);
+        Forest forest = forests.get(0);
+        int next = 0;
+        int[] stack = new int[16];
+        for (int v = 0; v < vertexCapacity; v++) {
+            if (ids[v] == null || labels[v] >= 0) {
+                continue;
+            }
+            int node = forest.vertexNode[v];
+            if (node < 0) {
+                labels[v] = next++;
+                continue;
+            }
+            // Every vertex node in the treap holding v's tour is in v's component
+            int size = 0;
+            stack[size++] = forest.root(node);
+            while (size > 0) {
+                int x = stack[--size];
+                if (forest.vertexOf[x] >= 0) {
+                    labels[forest.vertexOf[x]] = next;
+                }
+                if (size + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                if (forest.left[x] >= 0) {
+                    stack[size++] = forest.left[x];
+                }
+                if (forest.right[x] >= 0) {
+                    stack[size++] = forest.right[x];
+                }
+            }
+            next++;
+        }
+        labelled = true;
+    }
+
+    /**
+     * Puts a snapshot's edges at level 0 in linear time: union-find picks a spanning
+     * forest, and each of its trees goes into a treap straight from its Euler tour
+     */
+    private void load(CsrGraph graph) {
+        int n = graph.nodeCount();
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        Forest forest = forests.get(0);
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, outDegree = graph.outDegree(v); i < outDegree; i++) {
+                int w = graph.outNeighbor(v, i);
+                if (w == v) {
+                    continue;
+                }
+                long key = key(v, w);
+                int e = edgeTable.get(key);
+                if (e >= 0) {
+                    edges.multiplicity[e]++;
+                    continue;
+                }
+                e = edges.add(Math.min(v, w), Math.max(v, w));
+                edgeTable.put(key, e);
+                degree[v]++;
+                degree[w]++;
+                int rootV = find(parent, v);
+                int rootW = find(parent, w);
+                if (rootV != rootW) {
+                    parent[rootV] = rootW;
+                    edges.tree[e] = true;
+                    treeEdgeCount++;
+                }
+                forest.addEdge(edges, e, edges.tree[e]);
+            }
+        }
+        forest.buildTours(edges, n);
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void insert(int u, int v) {
+        long key = key(u, v);
+        int e = edgeTable.get(key);
+        if (e >= 0) {
+            edges.multiplicity[e]++;
+            return;
+        }
+        e = edges.add(Math.min(u, v), Math.max(u, v));
+        edgeTable.put(key, e);
+        degree[u]++;
+        degree[v]++;
+        Forest forest = forests.get(0);
+        if (forest.connected(u, v)) {
+            forest.addEdge(edges, e, false);
+        } else {
+            edges.tree[e] = true;
+            forest.addEdge(edges, e, true);
+            edges.setArcs(e, 0, forest.link(u, v));
+            treeEdgeCount++;
+            labelled = false;
+        }
+    }
+
+    private void delete(int e) {
+        int u = edges.u[e];
+        int v = edges.v[e];
+        int level = edges.level[e];
+        edgeTable.remove(key(u, v));
+        degree[u]--;
+        degree[v]--;
+        forests.get(level).removeEdge(edges, e);
+        if (edges.tree[e]) {
+            for (int i = 0; i <= level; i++) {
+                forests.get(i).cut(edges.arc(e, i, 0), edges.arc(e, i, 1));
+            }
+            treeEdgeCount--;
+            labelled = false;
+            boolean replaced = false;
+            for (int i = level; i >= 0 && !replaced; i--) {
+                replaced = replace(u, v, i);
+            }
+        }
+        edges.free(e);
+    }
+
+    /**
+     * Looks among the level-i non-tree edges of the smaller of u's and v's trees in F_i
+     * for one that joins them again, raising what it passes over to level i + 1
+     */
+    private boolean replace(int u, int v, int i) {
+        Forest forest = forests.get(i);
+        int rootU = forest.treeRoot(u);
+        int rootV = forest.treeRoot(v);
+        int root = forest.treeSize(rootU) <= forest.treeSize(rootV) ? rootU : rootV;
+        if (root < 0) {
+            // A lone vertex has no edges of any level to raise or try
+            return false;
+        }
+
+        Forest next = forest(i + 1);
+        int w;
+        while ((w = forest.findFlagged(root, Forest.TREE)) >= 0) {
+            IntList list = forest.treeEdges[w];
+            while (list.size > 0) {
+                int e = list.get(list.size - 1);
+                forest.removeEdge(edges, e);
+                edges.level[e] = i + 1;
+                next.addEdge(edges, e, true);
+                edges.setArcs(e, i + 1, next.link(edges.u[e], edges.v[e]));
+            }
+        }
+        while ((w = forest.findFlagged(root, Forest.NON_TREE)) >= 0) {
+            IntList list = forest.nonTreeEdges[w];
+            while (list.size > 0) {
+                int e = list.get(list.size - 1);
+                int other = edges.u[e] == w ? edges.v[e] : edges.u[e];
+                forest.removeEdge(edges, e);
+                if (forest.treeRoot(other) == root) {
+                    edges.level[e] = i + 1;
+                    next.addEdge(edges, e, false);
+                } else {
+                    edges.tree[e] = true;
+                    forest.addEdge(edges, e, true);
+                    for (int j = 0; j <= i; j++) {
+                        edges.setArcs(e, j, forests.get(j).link(edges.u[e], edges.v[e]));
+                    }
+                    treeEdgeCount++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Forest forest(int level) {
+        while (forests.size() <= level) {
+            forests.add(new Forest(vertexCapacity, random));
+        }
+        return forests.get(level);
+    }
+
+    private void growVertices(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        degree = Arrays.copyOf(degree, capacity);
+        for (Forest forest : forests) {
+            forest.growVertices(capacity);
+        }
+        vertexCapacity = capacity;
+    }
+
+    private int index(UUID nodeId) {
+        Integer added = this.added.get(nodeId);
+        int v = added != null ? added : base.indexOf(nodeId);
+        return v >= 0 && nodeId.equals(ids[v]) ? v : -1;
+    }
+
+    private int require(UUID nodeId) {
+        int v = index(nodeId);
+        if (v < 0) {
+            throw new IllegalArgumentException("Node not present: " + nodeId);
+        }
+        return v;
+    }
+
+    private static long key(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    /**
+     * Growable list of edge ids
+     */
+    private static final class IntList {
+        private int[] items = new int[2];
+        private int size;
+
+        int add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size] = item;
+            return size++;
+        }
+
+        int get(int i) {
+            return items[i];
+        }
+    }
+
+    /**
+     * Undirected edges by id, smaller endpoint first, with their level, whether they are
+     * in the spanning forests, how many directed edges they stand for, where they sit in
+     * each endpoint's adjacency list, and for tree edges their two arc nodes in each forest
+     * up to their level
+     */
+    private static final class Edges {
+        int[] u = new int[16];
+        int[] v = new int[16];
+        int[] level = new int[16];
+        int[] multiplicity = new int[16];
+        int[] positionU = new int[16];
+        int[] positionV = new int[16];
+        boolean[] tree = new boolean[16];
+        int[][] arcs = new int[16][];
+        private int[] free = new int[0];
+        private int freeCount;
+        private int size;
+
+        int add(int from, int to) {
+            int e;
+            if (freeCount > 0) {
+                e = free[--freeCount];
+            } else {
+                if (size == u.length) {
+                    int capacity = size * 2;
+                    u = Arrays.copyOf(u, capacity);
+                    v = Arrays.copyOf(v, capacity);
+                    level = Arrays.copyOf(level, capacity);
+                    multiplicity = Arrays.copyOf(multiplicity, capacity);
+                    positionU = Arrays.copyOf(positionU, capacity);
+                    positionV = Arrays.copyOf(positionV, capacity);
+                    tree = Arrays.copyOf(tree, capacity);
+                    arcs = Arrays.copyOf(arcs, capacity);
+                }
+                e = size++;
+            }
+            u[e] = from;
+            v[e] = to;
+            level[e] = 0;
+            multiplicity[e] = 1;
+            tree[e] = false;
+            arcs[e] = null;
+            return e;
+        }
+
+        void free(int e) {
+            arcs[e] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, Math.max(4, freeCount * 2));
+            }
+            free[freeCount++] = e;
+        }
+
+        int arc(int e, int level, int which) {
+            return arcs[e][2 * level + which];
+        }
+
+        void setArcs(int e, int level, long pair) {
+            if (arcs[e] == null || arcs[e].length < 2 * (level + 1)) {
+                arcs[e] = arcs[e] == null ? new int[2 * (level + 1)] : Arrays.copyOf(arcs[e], 2 * (level + 1));
+            }
+            arcs[e][2 * level] = (int) (pair >>> 32);
+            arcs[e][2 * level + 1] = (int) pair;
+        }
+
+        int position(int e, int vertex) {
+            return u[e] == vertex ? positionU[e] : positionV[e];
+        }
+
+        void setPosition(int e, int vertex, int position) {
+            if (u[e] == vertex) {
+                positionU[e] = position;
+            } else {
+                positionV[e] = position;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from an undirected vertex pair to its edge id, with linear
+     * probing and backward-shift deletion
+     */
+    private static final class EdgeTable {
+        private static final long EMPTY = -1L;
+
+        private long[] keys = newKeys(16);
+        private int[] values = new int[16];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // Shift later entries of the probe run back over the gap
+            int gap = i;
+            for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    /**
+     * One level's spanning forest as Euler tours in treaps. A tour holds a node for each
+     * vertex and one for each direction of each tree edge; vertices with no node yet are
+     * alone in their tree. Each vertex also lists its edges of exactly this level.
+     */
+    private static final class Forest {
+        static final byte TREE = 1;
+        static final byte NON_TREE = 2;
+
+        private final SplittableRandom random;
+        int[] left = new int[16];
+        int[] right = new int[16];
+        int[] parent = new int[16];
+        int[] priority = new int[16];
+        /** Treap nodes in the subtree */
+        int[] nodes = new int[16];
+        /** Vertex nodes in the subtree */
+        int[] vertices = new int[16];
+        /** Vertex of a vertex node, -1 for an arc */
+        int[] vertexOf = new int[16];
+        byte[] flags = new byte[16];
+        byte[] subtreeFlags = new byte[16];
+        private int[] free = new int[0];
+        private int freeCount;
+        private int size;
+
+        int[] vertexNode;
+        IntList[] treeEdges;
+        IntList[] nonTreeEdges;
+
+        // Results of split
+        private int splitLeft;
+        private int splitRight;
+
+        Forest(int vertexCapacity, SplittableRandom random) {
+            this.random = random;
+            vertexNode = new int[vertexCapacity];
+            Arrays.fill(vertexNode, -1);
+            treeEdges = new IntList[vertexCapacity];
+            nonTreeEdges = new IntList[vertexCapacity];
+        }
+
+        void growVertices(int capacity) {
+            int old = vertexNode.length;
+            vertexNode = Arrays.copyOf(vertexNode, capacity);
+            Arrays.fill(vertexNode, old, capacity, -1);
+            treeEdges = Arrays.copyOf(treeEdges, capacity);
+            nonTreeEdges = Arrays.copyOf(nonTreeEdges, capacity);
+        }
+
+        boolean connected(int u, int v) {
+            return u == v || (vertexNode[u] >= 0 && vertexNode[v] >= 0 && root(vertexNode[u]) == root(vertexNode[v]));
+        }
+
+        /**
+         * Root of the treap holding v's tree, -1 if v is alone with no node
+         */
+        int treeRoot(int v) {
+            return vertexNode[v] < 0 ? -1 : root(vertexNode[v]);
+        }
+
+        /**
+         * Vertices in the tree whose treap root is given, -1 standing for a lone vertex
+         */
+        int treeSize(int root) {
+            return root < 0 ? 1 : vertices[root];
+        }
+
+        /**
+         * A vertex of the tree under root with the given flag, -1 if none has it
+         */
+        int findFlagged(int root, byte flag) {
+            if ((subtreeFlags[root] & flag) == 0) {
+                return -1;
+            }
+            int x = root;
+            while ((flags[x] & flag) == 0) {
+                x = left[x] >= 0 && (subtreeFlags[left[x]] & flag) != 0 ? left[x] : right[x];
+            }
+            return vertexOf[x];
+        }
+
+        /**
+         * Joins the trees of u and v, which must differ; returns the two new arc nodes,
+         * u to v in the high half and v to u in the low half
+         */
+        long link(int u, int v) {
+            int tourU = reroot(ensureVertex(u));
+            int tourV = reroot(ensureVertex(v));
+            int uv = newNode(-1);
+            int vu = newNode(-1);
+            detach(merge(merge(merge(tourU, uv), tourV), vu));
+            return ((long) uv << 32) | (vu & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Splits a tree at the edge whose arc nodes are given, and frees them
+         */
+        void cut(int first, int second) {
+            int root = root(first);
+            int a = position(first);
+            int b = position(second);
+            if (a > b) {
+                int swap = first;
+                first = second;
+                second = swap;
+                int swapPosition = a;
+                a = b;
+                b = swapPosition;
+            }
+            // Tour is A first B second C: A + C is one tree, B the other
+            split(root, b);
+            int beforeSecond = splitLeft;
+            split(splitRight, 1);
+            int c = splitRight;
+            split(beforeSecond, a);
+            int prefix = splitLeft;
+            split(splitRight, 1);
+            detach(splitRight);
+            detach(merge(prefix, c));
+            release(first);
+            release(second);
+        }
+
+        /**
+         * Lays out the tour of each tree in the tree lists of vertices below vertexCount,
+         * whose nodes must all still be alone, as a treap built in one pass
+         */
+        void buildTours(Edges edges, int vertexCount) {
+            boolean[] visited = new boolean[vertexCount];
+            int[] tour = new int[16];
+            int[] stack = new int[16];
+            int[] next = new int[16];
+            int[] via = new int[16];
+            int[] down = new int[16];
+            for (int start = 0; start < vertexCount; start++) {
+                if (visited[start] || treeEdges[start] == null || treeEdges[start].size == 0) {
+                    continue;
+                }
+                visited[start] = true;
+                int length = 0;
+                tour[length++] = vertexNode[start];
+                stack[0] = start;
+                next[0] = 0;
+                via[0] = -1;
+                int depth = 1;
+                while (depth > 0) {
+                    int v = stack[depth - 1];
+                    if (length + 2 > tour.length) {
+                        tour = Arrays.copyOf(tour, tour.length * 2);
+                    }
+                    if (next[depth - 1] < treeEdges[v].size) {
+                        int e = treeEdges[v].get(next[depth - 1]++);
+                        int w = edges.u[e] == v ? edges.v[e] : edges.u[e];
+                        if (visited[w]) {
+                            continue;
+                        }
+                        visited[w] = true;
+                        if (depth == stack.length) {
+                            stack = Arrays.copyOf(stack, depth * 2);
+                            next = Arrays.copyOf(next, depth * 2);
+                            via = Arrays.copyOf(via, depth * 2);
+                            down = Arrays.copyOf(down, depth * 2);
+                        }
+                        down[depth] = newNode(-1);
+                        tour[length++] = down[depth];
+                        tour[length++] = vertexNode[w];
+                        stack[depth] = w;
+                        next[depth] = 0;
+                        via[depth] = e;
+                        depth++;
+                    } else {
+                        depth--;
+                        if (via[depth] >= 0) {
+                            int up = newNode(-1);
+                            tour[length++] = up;
+                            edges.setArcs(via[depth], 0, ((long) down[depth] << 32) | (up & 0xFFFFFFFFL));
+                        }
+                    }
+                }
+                buildTreap(tour, length);
+            }
+        }
+
+        /**
+         * Makes a treap of lone nodes in the given order, as the Cartesian tree of their
+         * priorities
+         */
+        private void buildTreap(int[] sequence, int length) {
+            int[] spine = new int[length];
+            int top = 0;
+            for (int i = 0; i < length; i++) {
+                int x = sequence[i];
+                int last = -1;
+                while (top > 0 && priority[spine[top - 1]] < priority[x]) {
+                    last = spine[--top];
+                }
+                left[x] = last;
+                if (last >= 0) {
+                    parent[last] = x;
+                }
+                if (top > 0) {
+                    right[spine[top - 1]] = x;
+                    parent[x] = spine[top - 1];
+                }
+                spine[top++] = x;
+            }
+            // Breadth-first from the root, then aggregates from the deepest nodes up
+            int[] order = spine;
+            order[0] = root(sequence[0]);
+            for (int head = 0, tail = 1; head < tail; head++) {
+                int x = order[head];
+                if (left[x] >= 0) {
+                    order[tail++] = left[x];
+                }
+                if (right[x] >= 0) {
+                    order[tail++] = right[x];
+                }
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                update(order[i]);
+            }
+        }
+
+        void addEdge(Edges edges, int e, boolean tree) {
+            addToList(edges, e, edges.u[e], tree);
+            addToList(edges, e, edges.v[e], tree);
+        }
+
+        void removeEdge(Edges edges, int e) {
+            boolean tree = edges.tree[e];
+            removeFromList(edges, e, edges.u[e], tree);
+            removeFromList(edges, e, edges.v[e], tree);
+        }
+
+        /**
+         * Frees the node of a vertex with no edges left
+         */
+        void releaseVertex(int v) {
+            if (vertexNode[v] >= 0) {
+                release(vertexNode[v]);
+                vertexNode[v] = -1;
+            }
+            treeEdges[v] = null;
+            nonTreeEdges[v] = null;
+        }
+
+        private void addToList(Edges edges, int e, int vertex, boolean tree) {
+            IntList[] lists = tree ? treeEdges : nonTreeEdges;
+            if (lists[vertex] == null) {
+                lists[vertex] = new IntList();
+            }
+            edges.setPosition(e, vertex, lists[vertex].add(e));
+            updateFlags(vertex);
+        }
+
+        private void removeFromList(Edges edges, int e, int vertex, boolean tree) {
+            IntList list = (tree ? treeEdges : nonTreeEdges)[vertex];
+            int position = edges.position(e, vertex);
+            int last = list.items[--list.size];
+            list.items[position] = last;
+            edges.setPosition(last, vertex, position);
+            updateFlags(vertex);
+        }
+
+        private void updateFlags(int vertex) {
+            byte flag = 0;
+            if (treeEdges[vertex] != null && treeEdges[vertex].size > 0) {
+                flag |= TREE;
+            }
+            if (nonTreeEdges[vertex] != null && nonTreeEdges[vertex].size > 0) {
+                flag |= NON_TREE;
+            }
+            int x = flag == 0 && vertexNode[vertex] < 0 ? -1 : ensureVertex(vertex);
+            if (x >= 0 && flags[x] != flag) {
+                flags[x] = flag;
+                for (; x >= 0; x = parent[x]) {
+                    update(x);
+                }
+            }
+        }
+
+        private int ensureVertex(int v) {
+            if (vertexNode[v] < 0) {
+                vertexNode[v] = newNode(v);
+            }
+            return vertexNode[v];
+        }
+
+        private int newNode(int vertex) {
+            int x;
+            if (freeCount > 0) {
+                x = free[--freeCount];
+            } else {
+                if (size == left.length) {
+                    grow(size * 2);
+                }
+                x = size++;
+            }
+            left[x] = -1;
+            right[x] = -1;
+            parent[x] = -1;
+            priority[x] = random.nextInt();
+            vertexOf[x] = vertex;
+            flags[x] = 0;
+            update(x);
+            return x;
+        }
+
+        private void release(int x) {
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, Math.max(4, freeCount * 2));
+            }
+            free[freeCount++] = x;
+        }
+
+        private void grow(int capacity) {
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            vertices = Arrays.copyOf(vertices, capacity);
+            vertexOf = Arrays.copyOf(vertexOf, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            subtreeFlags = Arrays.copyOf(subtreeFlags, capacity);
+        }
+
+        private void update(int x) {
+            int l = left[x];
+            int r = right[x];
+            nodes[x] = 1 + (l >= 0 ? nodes[l] : 0) + (r >= 0 ? nodes[r] : 0);
+            vertices[x] = (vertexOf[x] >= 0 ? 1 : 0) + (l >= 0 ? vertices[l] : 0) + (r >= 0 ? vertices[r] : 0);
+            subtreeFlags[x] = (byte) (flags[x] | (l >= 0 ? subtreeFlags[l] : 0) | (r >= 0 ? subtreeFlags[r] : 0));
+        }
+
+        int root(int x) {
+            while (parent[x] >= 0) {
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /**
+         * Number of nodes before x in its tour
+         */
+        private int position(int x) {
+            int position = left[x] >= 0 ? nodes[left[x]] : 0;
+            for (int p = parent[x]; p >= 0; x = p, p = parent[p]) {
+                if (right[p] == x) {
+                    position += 1 + (left[p] >= 0 ? nodes[left[p]] : 0);
+                }
+            }
+            return position;
+        }
+
+        /**
+         * Rotates x's tour to start at x; returns the treap root
+         */
+        private int reroot(int x) {
+            int root = root(x);
+            split(root, position(x));
+            int before = splitLeft;
+            return detach(merge(splitRight, before));
+        }
+
+        private int merge(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (priority[a] > priority[b]) {
+                int merged = merge(right[a], b);
+                right[a] = merged;
+                parent[merged] = a;
+                update(a);
+                return a;
+            }
+            int merged = merge(a, left[b]);
+            left[b] = merged;
+            parent[merged] = b;
+            update(b);
+            return b;
+        }
+
+        /**
+         * Splits the treap under t into its first k nodes and the rest, left in splitLeft
+         * and splitRight with no parent
+         */
+        private void split(int t, int k) {
+            splitRecursive(t, k);
+            detach(splitLeft);
+            detach(splitRight);
+        }
+
+        private void splitRecursive(int t, int k) {
+            if (t < 0) {
+                splitLeft = -1;
+                splitRight = -1;
+                return;
+            }
+            int leftNodes = left[t] >= 0 ? nodes[left[t]] : 0;
+            if (k <= leftNodes) {
+                splitRecursive(left[t], k);
+                left[t] = splitRight;
+                if (splitRight >= 0) {
+                    parent[splitRight] = t;
+                }
+                update(t);
+                splitRight = t;
+            } else {
+                splitRecursive(right[t], k - leftNodes - 1);
+                right[t] = splitLeft;
+                if (splitLeft >= 0) {
+                    parent[splitLeft] = t;
+                }
+                update(t);
+                splitLeft = t;
+            }
+        }
+
+        private int detach(int root) {
+            if (root >= 0) {
+                parent[root] = -1;
+            }
+            return root;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Traversal engine over a {@link DenseGraph}.
+ *
+ * Traversals are iterative, with explicit int stacks/queues and a {@link BitSet} visited
+ * set over dense node indices, so they need O(n) primitive memory and never recurse,
+ * however long the paths in the graph are.
+ */
+public final class GraphTraversals {
+
+    /**
+     * Which edges a traversal follows from each node
+     */
+    public enum Direction {
+        /** Successors only */
+        OUT,
+        /** Predecessors only */
+        IN,
+        /** Successors, then predecessors */
+        BOTH;
+
+        /**
+         * The direction that walks the same edges the other way round
+         */
+        public Direction reverse() {
+            return switch (this) {
+                case OUT -> IN;
+                case IN -> OUT;
+                case BOTH -> BOTH;
+            };
+        }
+    }
+
+    /**
+     * Depth limit meaning "no limit"
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    // Forward and backward sides of this thread's shortest path searches
+    private static final ThreadLocal<PathSearch[]> PATH_SEARCHES =
+            ThreadLocal.withInitial(() -> new PathSearch[]{new PathSearch(), new PathSearch()});
+
+    private GraphTraversals() {
+    }
+
+    /**
+     * Depth-first preorder from start along out-edges. Visits nodes in exactly the order
+     * of the recursive definition: a node, then each unvisited successor's subtree in
+     * adjacency order.
+     */
+    public static void depthFirst(DenseGraph graph, int start, IntConsumer visitor) {
+        int n = graph.nodeCount();
+        BitSet visited = new BitSet(n);
+        // Path from start to the current node, and for each entry the next edge to try
+        int[] stack = new int[Math.max(1, n)];
+        int[] nextEdge = new int[Math.max(1, n)];
+        int depth = 0;
+
+        visited.set(start);
+        visitor.accept(start);
+        stack[0] = start;
+        nextEdge[0] = 0;
+
+        while (depth >= 0) {
+            int node = stack[depth];
+            int edge = nextEdge[depth];
+            if (edge == graph.outDegree(node)) {
+                depth--;
+                continue;
+            }
+            nextEdge[depth] = edge + 1;
+            int successor = graph.outNeighbor(node, edge);
+            if (!visited.get(successor)) {
+                visited.set(successor);
+                visitor.accept(successor);
+                depth++;
+                stack[depth] = successor;
+                nextEdge[depth] = 0;
+            }
+        }
+    }
+
+    /**
+     * Breadth-first order from start along out-edges
+     */
+    public static void breadthFirst(DenseGraph graph, int start, IntConsumer visitor) {
+        int n = graph.nodeCount();
+        BitSet visited = new BitSet(n);
+        int[] queue = new int[Math.max(1, n)];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = start;
+        visited.set(start);
+
+        while (head < tail) {
+            int node = queue[head++];
+            visitor.accept(node);
+
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int successor = graph.outNeighbor(node, i);
+                if (!visited.get(successor)) {
+                    visited.set(successor);
+                    queue[tail++] = successor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lazy depth-first preorder from start. Each call to next() does only the work needed
+     * to reach the next node, so abandoning the iterator abandons the traversal.
+     * Yields each node at most maxDepth edges from start exactly once, in the preorder of
+     * a depth-first walk cut off at maxDepth. A node first reached along a longer path is
+     * expanded again, without being yielded again, when a shorter path reaches it, as
+     * iterative deepening would; each node is expanded at most maxDepth times.
+     */
+    public static PrimitiveIterator.OfInt depthFirstIterator(DenseGraph graph, int start,
+                                                             Direction direction, int maxDepth) {
+        checkMaxDepth(maxDepth);
+        return new DepthFirstIterator(graph, start, direction, maxDepth);
+    }
+
+    /**
+     * Lazy breadth-first order from start, yielding only nodes at most maxDepth edges away
+     */
+    public static PrimitiveIterator.OfInt breadthFirstIterator(DenseGraph graph, int start,
+                                                               Direction direction, int maxDepth) {
+        checkMaxDepth(maxDepth);
+        return new BreadthFirstIterator(graph, start, direction, maxDepth);
+    }
+
+    /**
+     * A shortest path from source to target along out-edges, as node indices from source
+     * to target inclusive, or an empty array if target is unreachable.
+     *
+     * Bidirectional BFS: a forward search over successors and a backward search over
+     * predecessors each expand one whole level at a time, always the side with the smaller
+     * frontier, until they meet. On small-world graphs each side only has to reach about
+     * half the distance, so far fewer nodes are touched than by a one-sided BFS. The
+     * visited state lives in per-thread arrays that later searches reuse, so a search costs
+     * time in the nodes it touches rather than in the size of the graph.
+     */
+    public static int[] shortestPath(DenseGraph graph, int source, int target) {
+        if (source == target) {
+            return new int[]{source};
+        }
+        PathSearch[] sides = PATH_SEARCHES.get();
+        PathSearch forward = sides[0].start(graph, Direction.OUT, source);
+        PathSearch backward = sides[1].start(graph, Direction.IN, target);
+        try {
+            while (forward.size > 0 && backward.size > 0) {
+                PathSearch side = forward.size <= backward.size ? forward : backward;
+                int meet = side.expandLevel(side == forward ? backward : forward);
+                if (meet >= 0) {
+                    return joinPath(forward, backward, meet);
+                }
+            }
+            return new int[0];
+        } finally {
+            forward.graph = null;
+            backward.graph = null;
+        }
+    }
+
+    private static int[] joinPath(PathSearch forward, PathSearch backward, int meet) {
+        int[] path = new int[forward.depth[meet] + backward.depth[meet] + 1];
+        int i = forward.depth[meet];
+        for (int node = meet; i >= 0; node = forward.parent[node]) {
+            path[i--] = node;
+        }
+        i = forward.depth[meet];
+        for (int node = meet; node != backward.parent[node]; ) {
+            node = backward.parent[node];
+            path[++i] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Elements of stream up to and including the first one matching stop; unlike
+     * {@link Stream#takeWhile}, the matching element itself is kept.
+     */
+    public static <T> Stream<T> takeUntil(Stream<T> stream, Predicate<? super T> stop) {
+        Spliterator<T> source = stream.spliterator();
+        Spliterator<T> limited = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED)) {
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (done) {
+                    return false;
+                }
+                return source.tryAdvance(element -> {
+                    done = stop.test(element);
+                    action.accept(element);
+                });
+            }
+        };
+        return StreamSupport.stream(limited, false).onClose(stream::close);
+    }
+
+    static void checkMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+    }
+
+    static int degree(DenseGraph graph, int node, Direction direction) {
+        return switch (direction) {
+            case OUT -> graph.outDegree(node);
+            case IN -> graph.inDegree(node);
+            case BOTH -> graph.outDegree(node) + graph.inDegree(node);
+        };
+    }
+
+    static int neighbor(DenseGraph graph, int node, Direction direction, int i) {
+        return switch (direction) {
+            case OUT -> graph.outNeighbor(node, i);
+            case IN -> graph.inNeighbor(node, i);
+            case BOTH -> i < graph.outDegree(node)
+                    ? graph.outNeighbor(node, i)
+                    : graph.inNeighbor(node, i - graph.outDegree(node));
+        };
+    }
+
+    private static final class DepthFirstIterator implements PrimitiveIterator.OfInt {
+        private final DenseGraph graph;
+        private final Direction direction;
+        private final int maxDepth;
+        private final BitSet visited;
+        // Shallowest depth each node was expanded at; null when the limit cannot cut a path
+        private final int[] expandedDepth;
+        private final int[] stack;
+        private final int[] nextEdge;
+        private int depth;
+        private int pending;
+
+        DepthFirstIterator(DenseGraph graph, int start, Direction direction, int maxDepth) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.direction = direction;
+            this.maxDepth = maxDepth;
+            this.visited = new BitSet(n);
+            // A simple path has at most n - 1 edges
+            this.expandedDepth = maxDepth < n - 1 ? new int[n] : null;
+            this.stack = new int[Math.max(1, n)];
+            this.nextEdge = new int[Math.max(1, n)];
+            this.depth = -1;
+            this.pending = start;
+            visited.set(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending < 0 && depth >= 0) {
+                int node = stack[depth];
+                int edge = nextEdge[depth];
+                if (depth == maxDepth || edge == degree(graph, node, direction)) {
+                    depth--;
+                    continue;
+                }
+                nextEdge[depth] = edge + 1;
+                int next = neighbor(graph, node, direction, edge);
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    pending = next;
+                } else if (expandedDepth != null && depth + 1 < expandedDepth[next]) {
+                    // Reached by a shorter path than before, so its subtree reaches further
+                    push(next);
+                }
+            }
+            return pending >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int node = pending;
+            pending = -1;
+            push(node);
+            return node;
+        }
+
+        private void push(int node) {
+            depth++;
+            stack[depth] = node;
+            nextEdge[depth] = 0;
+            if (expandedDepth != null) {
+                expandedDepth[node] = depth;
+            }
+        }
+    }
+
+    private static final class BreadthFirstIterator implements PrimitiveIterator.OfInt {
+        private final DenseGraph graph;
+        private final Direction direction;
+        private final int maxDepth;
+        private final BitSet visited;
+        private final int[] queue;
+        private int head;
+        private int tail;
+        // Queue index where the level after the current one begins
+        private int levelEnd;
+        private int level;
+
+        BreadthFirstIterator(DenseGraph graph, int start, Direction direction, int maxDepth) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.direction = direction;
+            this.maxDepth = maxDepth;
+            this.visited = new BitSet(n);
+            this.queue = new int[Math.max(1, n)];
+            queue[tail++] = start;
+            visited.set(start);
+            levelEnd = tail;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return head < tail;
+        }
+
+        @Override
+        public int nextInt() {
+            if (head == tail) {
+                throw new NoSuchElementException();
+            }
+            if (head == levelEnd) {
+                level++;
+                levelEnd = tail;
+            }
+            int node = queue[head++];
+            if (level < maxDepth) {
+                int degree = degree(graph, node, direction);
+                for (int i = 0; i < degree; i++) {
+                    int next = neighbor(graph, node, direction, i);
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            return node;
+        }
+    }
+
+    /**
+     * One side of a bidirectional search: BFS tree and current frontier.
+     * A node counts as visited only if its stamp equals the current search's epoch, so a
+     * new search starts by bumping the epoch instead of clearing arrays. The arrays grow
+     * to the largest graph searched and are kept for the next search.
+     */
+    private static final class PathSearch {
+        private static final int[] NONE = new int[0];
+
+        private DenseGraph graph;
+        private Direction direction;
+        private int epoch;
+        private int[] stamp = NONE;
+        // parent[v] is the node v was reached from (the root points at itself); valid once stamped
+        private int[] parent = NONE;
+        private int[] depth = NONE;
+        private int[] frontier = new int[16];
+        private int[] next = new int[16];
+        private int size;
+
+        PathSearch start(DenseGraph graph, Direction direction, int root) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.direction = direction;
+            if (stamp.length < n) {
+                stamp = new int[n];
+                parent = new int[n];
+                depth = new int[n];
+                epoch = 0;
+            } else if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 0;
+            }
+            epoch++;
+            stamp[root] = epoch;
+            parent[root] = root;
+            depth[root] = 0;
+            frontier[0] = root;
+            size = 1;
+            return this;
+        }
+
+        boolean visited(int node) {
+            return stamp[node] == epoch;
+        }
+
+        /**
+         * Expands the whole frontier by one level. Returns the newly reached node that the
+         * other side has also reached with the shortest combined path, or -1 if none.
+         */
+        int expandLevel(PathSearch other) {
+            int nextSize = 0;
+            int meet = -1;
+            for (int i = 0; i < size; i++) {
+                int node = frontier[i];
+                int degree = degree(graph, node, direction);
+                for (int e = 0; e < degree; e++) {
+                    int neighbor = neighbor(graph, node, direction, e);
+                    if (visited(neighbor)) {
+                        continue;
+                    }
+                    stamp[neighbor] = epoch;
+                    parent[neighbor] = node;
+                    depth[neighbor] = depth[node] + 1;
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = neighbor;
+                    if (other.visited(neighbor)
+                            && (meet < 0 || other.depth[neighbor] < other.depth[meet])) {
+                        meet = neighbor;
+                    }
+                }
+            }
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            size = nextSize;
+            return meet;
+        }
+    }
+}
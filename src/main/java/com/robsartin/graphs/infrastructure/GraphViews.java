@@ -0,0 +1,232 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.UUID;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@link DenseGraph} views: each answers queries by delegating to the graph it wraps.
+ *
+ * Reversed and undirected views hold nothing but that graph. An induced view holds the
+ * index maps between the two numberings and the kept nodes' adjacency, renumbered, as flat
+ * int arrays; it allocates no objects per node and leaves the wrapped graph untouched.
+ */
+final class GraphViews {
+
+    private GraphViews() {
+    }
+
+    static DenseGraph reversed(DenseGraph graph) {
+        return graph instanceof Reversed reversed ? reversed.graph : new Reversed(graph);
+    }
+
+    static DenseGraph undirected(DenseGraph graph) {
+        return graph instanceof Undirected ? graph : new Undirected(graph);
+    }
+
+    static DenseGraph induced(DenseGraph graph, IntPredicate keep) {
+        return new Induced(graph, keep);
+    }
+
+    private static final class Reversed implements DenseGraph {
+        private final DenseGraph graph;
+
+        Reversed(DenseGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public int nodeCount() {
+            return graph.nodeCount();
+        }
+
+        @Override
+        public int edgeCount() {
+            return graph.edgeCount();
+        }
+
+        @Override
+        public int indexOf(UUID nodeId) {
+            return graph.indexOf(nodeId);
+        }
+
+        @Override
+        public UUID nodeId(int v) {
+            return graph.nodeId(v);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return graph.inDegree(v);
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return graph.outDegree(v);
+        }
+
+        @Override
+        public int outNeighbor(int v, int i) {
+            return graph.inNeighbor(v, i);
+        }
+
+        @Override
+        public int inNeighbor(int v, int i) {
+            return graph.outNeighbor(v, i);
+        }
+    }
+
+    private static final class Undirected implements DenseGraph {
+        private final DenseGraph graph;
+
+        Undirected(DenseGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public int nodeCount() {
+            return graph.nodeCount();
+        }
+
+        @Override
+        public int edgeCount() {
+            return 2 * graph.edgeCount();
+        }
+
+        @Override
+        public int indexOf(UUID nodeId) {
+            return graph.indexOf(nodeId);
+        }
+
+        @Override
+        public UUID nodeId(int v) {
+            return graph.nodeId(v);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return graph.outDegree(v) + graph.inDegree(v);
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return outDegree(v);
+        }
+
+        @Override
+        public int outNeighbor(int v, int i) {
+            int out = graph.outDegree(v);
+            return i < out ? graph.outNeighbor(v, i) : graph.inNeighbor(v, i - out);
+        }
+
+        @Override
+        public int inNeighbor(int v, int i) {
+            return outNeighbor(v, i);
+        }
+
+        @Override
+        public DenseGraph reversed() {
+            return this;
+        }
+    }
+
+    private static final class Induced implements DenseGraph {
+        private final DenseGraph graph;
+        private final int[] parentIndex;  // view index -> index in graph
+        private final int[] viewIndex;    // index in graph -> view index, -1 if left out
+        private final int[] outOffsets;
+        private final int[] outTargets;
+        private final int[] inOffsets;
+        private final int[] inTargets;
+
+        Induced(DenseGraph graph, IntPredicate keep) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.viewIndex = new int[n];
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                viewIndex[v] = keep.test(v) ? count++ : -1;
+            }
+            this.parentIndex = new int[count];
+            for (int v = 0; v < n; v++) {
+                if (viewIndex[v] >= 0) {
+                    parentIndex[viewIndex[v]] = v;
+                }
+            }
+
+            this.outOffsets = new int[count + 1];
+            this.inOffsets = new int[count + 1];
+            for (int v = 0; v < count; v++) {
+                int u = parentIndex[v];
+                outOffsets[v + 1] = outOffsets[v] + keptNeighbors(u, graph.outDegree(u), true);
+                inOffsets[v + 1] = inOffsets[v] + keptNeighbors(u, graph.inDegree(u), false);
+            }
+            this.outTargets = new int[outOffsets[count]];
+            this.inTargets = new int[inOffsets[count]];
+            for (int v = 0; v < count; v++) {
+                int u = parentIndex[v];
+                copyKeptNeighbors(u, graph.outDegree(u), true, outTargets, outOffsets[v]);
+                copyKeptNeighbors(u, graph.inDegree(u), false, inTargets, inOffsets[v]);
+            }
+        }
+
+        private int keptNeighbors(int u, int degree, boolean out) {
+            int kept = 0;
+            for (int i = 0; i < degree; i++) {
+                if (viewIndex[out ? graph.outNeighbor(u, i) : graph.inNeighbor(u, i)] >= 0) {
+                    kept++;
+                }
+            }
+            return kept;
+        }
+
+        private void copyKeptNeighbors(int u, int degree, boolean out, int[] targets, int at) {
+            for (int i = 0; i < degree; i++) {
+                int w = viewIndex[out ? graph.outNeighbor(u, i) : graph.inNeighbor(u, i)];
+                if (w >= 0) {
+                    targets[at++] = w;
+                }
+            }
+        }
+
+        @Override
+        public int nodeCount() {
+            return parentIndex.length;
+        }
+
+        @Override
+        public int edgeCount() {
+            return outTargets.length;
+        }
+
+        @Override
+        public int indexOf(UUID nodeId) {
+            int v = graph.indexOf(nodeId);
+            return v < 0 ? -1 : viewIndex[v];
+        }
+
+        @Override
+        public UUID nodeId(int v) {
+            return graph.nodeId(parentIndex[v]);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return outOffsets[v + 1] - outOffsets[v];
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return inOffsets[v + 1] - inOffsets[v];
+        }
+
+        @Override
+        public int outNeighbor(int v, int i) {
+            return outTargets[outOffsets[v] + i];
+        }
+
+        @Override
+        public int inNeighbor(int v, int i) {
+            return inTargets[inOffsets[v] + i];
+        }
+    }
+}
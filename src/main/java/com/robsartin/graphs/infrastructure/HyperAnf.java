@@ -0,0 +1,228 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Approximate {@link DistanceDistribution} of a {@link DenseGraph} along out-edges, with
+ * HyperANF (Boldi, Rosa and Vigna, "HyperANF: Approximating the Neighbourhood Function of
+ * Very Large Graphs on a Budget").
+ *
+ * Every node keeps a HyperLogLog counter of the nodes it reaches within t steps. Round t
+ * merges each node's counter with its successors' from round t - 1, register by register,
+ * so the sum of the counters estimates the number of pairs within distance t, and the
+ * differences between rounds the pairs at each distance. Rounds stop once no counter
+ * changes, after diameter + 1 of them. A node is only merged with successors whose
+ * counters changed in the previous round; the others contributed everything already.
+ *
+ * Each estimate of the number of pairs within distance t has a relative standard error of
+ * about {@link #relativeStandardError}. Memory is two counters of 2^log2Registers one-byte
+ * registers per node; rounds run on a fork-join pool over node ranges and do not depend
+ * on how the pool splits them.
+ */
+public final class HyperAnf {
+
+    public static final int MIN_LOG2_REGISTERS = 4;
+    public static final int MAX_LOG2_REGISTERS = 16;
+
+    /** Ranges per worker thread, so uneven degrees still balance */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private HyperAnf() {
+    }
+
+    /**
+     * Relative standard error of each counter, 1.04 / sqrt(2^log2Registers)
+     */
+    public static double relativeStandardError(int log2Registers) {
+        return 1.04 / Math.sqrt(1 << log2Registers);
+    }
+
+    public static DistanceDistribution estimate(DenseGraph graph, int log2Registers, long seed, ForkJoinPool pool) {
+        if (log2Registers < MIN_LOG2_REGISTERS || log2Registers > MAX_LOG2_REGISTERS) {
+            throw new IllegalArgumentException("log2Registers must be between " + MIN_LOG2_REGISTERS
+                    + " and " + MAX_LOG2_REGISTERS + ", got " + log2Registers);
+        }
+        int n = graph.nodeCount();
+        int registers = 1 << log2Registers;
+        if ((long) n * registers > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many registers for " + n + " nodes; lower log2Registers");
+        }
+
+        Counters counters = new Counters(n, log2Registers);
+        boolean[] modified = new boolean[n];
+        double total = 0;
+        for (int v = 0; v < n; v++) {
+            counters.add(v, seed);
+            modified[v] = true;
+            total += counters.estimates[v];
+        }
+
+        List<Double> withinDistance = new ArrayList<>();
+        withinDistance.add(total);
+        int grain = Math.max(1, n / (pool.getParallelism() * RANGES_PER_THREAD));
+        while (true) {
+            boolean[] nowModified = new boolean[n];
+            boolean changed = n > 0 && pool.invoke(new Round(graph, counters, modified, nowModified, 0, n, grain));
+            if (!changed) {
+                break;
+            }
+            counters.swap();
+            modified = nowModified;
+            total = 0;
+            for (int v = 0; v < n; v++) {
+                total += counters.estimates[v];
+            }
+            // Counters only grow, but their estimates can dip where the small-range correction hands over
+            withinDistance.add(Math.max(total, withinDistance.get(withinDistance.size() - 1)));
+        }
+
+        double[] pairs = new double[withinDistance.size()];
+        for (int d = 1; d < pairs.length; d++) {
+            pairs[d] = withinDistance.get(d) - withinDistance.get(d - 1);
+        }
+        return new DistanceDistribution(pairs);
+    }
+
+    /**
+     * The current and next round's registers, one block of 2^log2Registers per node, and
+     * each node's current estimate
+     */
+    private static final class Counters {
+        private final int log2Registers;
+        private final int registers;
+        private final double alpha;
+        private final double[] estimates;
+        private byte[] current;
+        private byte[] next;
+
+        Counters(int n, int log2Registers) {
+            this.log2Registers = log2Registers;
+            this.registers = 1 << log2Registers;
+            this.alpha = switch (registers) {
+                case 16 -> 0.673;
+                case 32 -> 0.697;
+                case 64 -> 0.709;
+                default -> 0.7213 / (1 + 1.079 / registers);
+            };
+            this.estimates = new double[n];
+            this.current = new byte[n * registers];
+            this.next = new byte[n * registers];
+        }
+
+        /**
+         * Adds node v to its own counter
+         */
+        void add(int v, long seed) {
+            long hash = mix(seed + v * 0x9E3779B97F4A7C15L);
+            int register = (int) (hash >>> (64 - log2Registers));
+            int rank = Math.min(Long.numberOfLeadingZeros(hash << log2Registers), 64 - log2Registers) + 1;
+            current[v * registers + register] = (byte) rank;
+            estimates[v] = estimate(current, v);
+        }
+
+        void swap() {
+            byte[] previous = current;
+            current = next;
+            next = previous;
+        }
+
+        /**
+         * HyperLogLog estimate of node v's counter in the given registers, with the linear
+         * counting correction for small counts
+         */
+        double estimate(byte[] from, int v) {
+            int base = v * registers;
+            double sum = 0;
+            int zeros = 0;
+            for (int j = 0; j < registers; j++) {
+                byte rank = from[base + j];
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+            double raw = alpha * registers * registers / sum;
+            if (raw <= 2.5 * registers && zeros > 0) {
+                return registers * Math.log((double) registers / zeros);
+            }
+            return raw;
+        }
+
+        /**
+         * Stafford's variant 13 of the MurmurHash3 finalizer
+         */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * One round over a node range: writes each node's next counter and estimate, and returns
+     * whether any counter grew
+     */
+    private static final class Round extends RecursiveTask<Boolean> {
+        private final DenseGraph graph;
+        private final Counters counters;
+        private final boolean[] modified;
+        private final boolean[] nowModified;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Round(DenseGraph graph, Counters counters, boolean[] modified, boolean[] nowModified,
+              int from, int to, int grain) {
+            this.graph = graph;
+            this.counters = counters;
+            this.modified = modified;
+            this.nowModified = nowModified;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Round right = new Round(graph, counters, modified, nowModified, mid, to, grain);
+                right.fork();
+                boolean left = new Round(graph, counters, modified, nowModified, from, mid, grain).compute();
+                return right.join() | left;
+            }
+
+            int registers = counters.registers;
+            byte[] current = counters.current;
+            byte[] next = counters.next;
+            boolean changed = false;
+            for (int v = from; v < to; v++) {
+                int base = v * registers;
+                System.arraycopy(current, base, next, base, registers);
+                boolean grew = false;
+                for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                    int w = graph.outNeighbor(v, i);
+                    if (!modified[w]) {
+                        continue;
+                    }
+                    int other = w * registers;
+                    for (int j = 0; j < registers; j++) {
+                        if (current[other + j] > next[base + j]) {
+                            next[base + j] = current[other + j];
+                            grew = true;
+                        }
+                    }
+                }
+                if (grew) {
+                    nowModified[v] = true;
+                    counters.estimates[v] = counters.estimate(next, v);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+}
@@ -1,47 +1,127 @@
 package com.robsartin.graphs.infrastructure;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Immutable graph implementation based on Martin Erwig's inductive graph approach
  * from "Fully Persistent Graphs – Which One To Choose?"
+ *
+ * Nodes and adjacency are stored in persistent trees, so each edit copies only the
+ * O(log n) path it touches and every earlier version stays valid. Each node UUID is
+ * interned to a dense int once per graph lineage ({@link NodeInterner}), and adjacency
+ * is kept as sorted ints in an {@link IntTreeMap}, so an edge costs a few bytes per
+ * endpoint rather than a UUID reference and a map entry.
+ * Bulk loads should go through {@link #builder()}, which collects nodes and edges
+ * mutably and freezes them into a graph once, in O(n + m).
  */
 public class ImmutableGraph<N, E> {
 
-    private final Map<UUID, Context<N, E>> nodes;
+    // Shared by every version derived from the same root; see NodeInterner
+    private final NodeInterner interner;
+    private final ChampMap<UUID, Context<N, E>> nodes;
+
+    // Numberings below this size are never worth compacting
+    private static final int MIN_SPARSE_NUMBERING = 1024;
+    private static final int SPARSE_NUMBERING_FACTOR = 4;
+
+    // Derived lazily, at most once per version (a racing duplicate build is harmless)
+    private volatile CsrGraph csr;
+    private volatile StronglyConnectedComponents components;
+    private volatile ReachabilityIndex reachability;
+    private volatile TopologicalOrder topologicalOrder;
 
     // Empty graph constructor
     public ImmutableGraph() {
-        this.nodes = Collections.emptyMap();
+        this(ChampMap.empty(), new NodeInterner());
     }
 
-    private ImmutableGraph(Map<UUID, Context<N, E>> nodes) {
-        this.nodes = Collections.unmodifiableMap(new HashMap<>(nodes));
+    private ImmutableGraph(ChampMap<UUID, Context<N, E>> nodes, NodeInterner interner) {
+        this.nodes = nodes;
+        this.interner = interner;
+    }
+
+    public static <N, E> Builder<N, E> builder() {
+        return new Builder<>();
     }
 
     /**
-     * Context represents a node with its label and adjacent edges
+     * Context represents a node with its label and adjacent edges.
+     * Adjacency is held in persistent maps keyed by the graph's interned node numbers,
+     * so a context derived from another shares everything except the path to the
+     * changed edge. The UUID-keyed maps it hands out are read-only views.
      */
     public static class Context<N, E> {
         private final UUID nodeId;
         private final N label;
-        private final Map<UUID, E> predecessors;  // incoming edges
-        private final Map<UUID, E> successors;    // outgoing edges
+        private final NodeInterner interner;
+        private final IntTreeMap<E> predecessors;  // incoming edges
+        private final IntTreeMap<E> successors;    // outgoing edges
 
         public Context(UUID nodeId, N label,
                        Map<UUID, E> predecessors,
                        Map<UUID, E> successors) {
+            this(nodeId, label, new NodeInterner(), predecessors, successors);
+        }
+
+        private Context(UUID nodeId, N label, NodeInterner interner,
+                        Map<UUID, E> predecessors, Map<UUID, E> successors) {
+            this(nodeId, label, interner, intern(predecessors, interner), intern(successors, interner));
+        }
+
+        private Context(UUID nodeId, N label, NodeInterner interner,
+                        IntTreeMap<E> predecessors, IntTreeMap<E> successors) {
             this.nodeId = nodeId;
             this.label = label;
-            this.predecessors = Collections.unmodifiableMap(new HashMap<>(predecessors));
-            this.successors = Collections.unmodifiableMap(new HashMap<>(successors));
+            this.interner = interner;
+            this.predecessors = predecessors;
+            this.successors = successors;
         }
 
         public UUID getNodeId() { return nodeId; }
         public N getLabel() { return label; }
-        public Map<UUID, E> getPredecessors() { return predecessors; }
-        public Map<UUID, E> getSuccessors() { return successors; }
+        public Map<UUID, E> getPredecessors() { return new AdjacencyView<>(interner, predecessors); }
+        public Map<UUID, E> getSuccessors() { return new AdjacencyView<>(interner, successors); }
+
+        IntTreeMap<E> predecessorMap() { return predecessors; }
+        IntTreeMap<E> successorMap() { return successors; }
+
+        private Context<N, E> withLabel(N newLabel) {
+            return Objects.equals(newLabel, label) ? this
+                    : new Context<>(nodeId, newLabel, interner, predecessors, successors);
+        }
+
+        private Context<N, E> withPredecessors(IntTreeMap<E> newPredecessors) {
+            return newPredecessors == predecessors ? this
+                    : new Context<>(nodeId, label, interner, newPredecessors, successors);
+        }
+
+        private Context<N, E> withSuccessors(IntTreeMap<E> newSuccessors) {
+            return newSuccessors == successors ? this
+                    : new Context<>(nodeId, label, interner, predecessors, newSuccessors);
+        }
+
+        /**
+         * This context renumbered for another graph's interner
+         */
+        private Context<N, E> internedIn(NodeInterner target) {
+            target.intern(nodeId);
+            return target == interner ? this
+                    : new Context<>(nodeId, label, target, getPredecessors(), getSuccessors());
+        }
+    }
+
+    private static <E> IntTreeMap<E> intern(Map<UUID, E> adjacency, NodeInterner interner) {
+        if (adjacency.isEmpty()) {
+            return IntTreeMap.empty();
+        }
+        IntTreeMap.Builder<E> builder = IntTreeMap.builder(adjacency.size());
+        adjacency.forEach((nodeId, label) -> builder.put(interner.intern(nodeId), label));
+        return builder.build();
     }
 
     /**
@@ -65,29 +145,28 @@ public class ImmutableGraph<N, E> {
      * Add a node with a label, returns new graph and node ID
      */
     public GraphWithNode<N, E> addNode(N label) {
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
-        UUID nodeId = UuidV7Generator.generate();
-        Context<N, E> context = new Context<>(nodeId, label,
-                                              Collections.emptyMap(), Collections.emptyMap());
-        newNodes.put(nodeId, context);
-        return new GraphWithNode<>(
-                new ImmutableGraph<>(newNodes),
-                nodeId
-        );
+        return addNodeWithId(UuidV7Generator.generate(), label);
     }
 
     /**
      * Add a node with a specific UUID (for reconstruction from persistence)
      */
     public GraphWithNode<N, E> addNodeWithId(UUID nodeId, N label) {
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
-        Context<N, E> context = new Context<>(nodeId, label,
-                                              Collections.emptyMap(), Collections.emptyMap());
-        newNodes.put(nodeId, context);
-        return new GraphWithNode<>(
-                new ImmutableGraph<>(newNodes),
-                nodeId
-        );
+        interner.intern(nodeId);
+        Context<N, E> context = new Context<>(nodeId, label, interner, IntTreeMap.empty(), IntTreeMap.empty());
+        return new GraphWithNode<>(withNodes(nodes.plus(nodeId, context)), nodeId);
+    }
+
+    /**
+     * Replace a node's label, returns new graph
+     */
+    public ImmutableGraph<N, E> relabelNode(UUID nodeId, N label) {
+        Context<N, E> context = nodes.get(nodeId);
+        if (context == null) {
+            throw new IllegalArgumentException("Node does not exist");
+        }
+        Context<N, E> relabeled = context.withLabel(label);
+        return relabeled == context ? this : withNodes(nodes.plus(nodeId, relabeled));
     }
 
     /**
@@ -97,24 +176,20 @@ public class ImmutableGraph<N, E> {
         if (!nodes.containsKey(fromNode) || !nodes.containsKey(toNode)) {
             throw new IllegalArgumentException("Both nodes must exist in the graph");
         }
-
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
+        int from = interner.indexOf(fromNode);
+        int to = interner.indexOf(toNode);
 
         // Update source node's successors
         Context<N, E> fromContext = nodes.get(fromNode);
-        Map<UUID, E> newSuccessors = new HashMap<>(fromContext.successors);
-        newSuccessors.put(toNode, edgeLabel);
-        newNodes.put(fromNode, new Context<>(fromNode, fromContext.label,
-                                             fromContext.predecessors, newSuccessors));
+        ChampMap<UUID, Context<N, E>> newNodes = nodes.plus(fromNode,
+                fromContext.withSuccessors(fromContext.successors.plus(to, edgeLabel)));
 
-        // Update target node's predecessors
-        Context<N, E> toContext = nodes.get(toNode);
-        Map<UUID, E> newPredecessors = new HashMap<>(toContext.predecessors);
-        newPredecessors.put(fromNode, edgeLabel);
-        newNodes.put(toNode, new Context<>(toNode, toContext.label,
-                                           newPredecessors, toContext.successors));
+        // Update target node's predecessors (re-read so a self-loop keeps both sides)
+        Context<N, E> toContext = newNodes.get(toNode);
+        newNodes = newNodes.plus(toNode,
+                toContext.withPredecessors(toContext.predecessors.plus(from, edgeLabel)));
 
-        return new ImmutableGraph<>(newNodes);
+        return withNodes(newNodes);
     }
 
     /**
@@ -124,94 +199,177 @@ public class ImmutableGraph<N, E> {
         if (!nodes.containsKey(fromNode) || !nodes.containsKey(toNode)) {
             return this;
         }
-
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
+        int from = interner.indexOf(fromNode);
+        int to = interner.indexOf(toNode);
 
         // Update source node's successors
         Context<N, E> fromContext = nodes.get(fromNode);
-        Map<UUID, E> newSuccessors = new HashMap<>(fromContext.successors);
-        newSuccessors.remove(toNode);
-        newNodes.put(fromNode, new Context<>(fromNode, fromContext.label,
-                                             fromContext.predecessors, newSuccessors));
+        ChampMap<UUID, Context<N, E>> newNodes = nodes.plus(fromNode,
+                fromContext.withSuccessors(fromContext.successors.minus(to)));
 
         // Update target node's predecessors
-        Context<N, E> toContext = nodes.get(toNode);
-        Map<UUID, E> newPredecessors = new HashMap<>(toContext.predecessors);
-        newPredecessors.remove(fromNode);
-        newNodes.put(toNode, new Context<>(toNode, toContext.label,
-                                           newPredecessors, toContext.successors));
+        Context<N, E> toContext = newNodes.get(toNode);
+        newNodes = newNodes.plus(toNode,
+                toContext.withPredecessors(toContext.predecessors.minus(from)));
 
-        return new ImmutableGraph<>(newNodes);
+        return newNodes == nodes ? this : withNodes(newNodes);
     }
 
     /**
      * Match operation - decompose graph by extracting a node
      */
     public Decomposition<N, E> match(UUID nodeId) {
-        if (!nodes.containsKey(nodeId)) {
+        Context<N, E> context = nodes.get(nodeId);
+        if (context == null) {
             return new Decomposition<>(null, this);
         }
+        int id = interner.indexOf(nodeId);
 
-        Context<N, E> context = nodes.get(nodeId);
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
-        newNodes.remove(nodeId);
+        ChampMap<UUID, Context<N, E>> newNodes = nodes.minus(nodeId);
 
         // Remove references to this node from all other nodes
-        for (UUID pred : context.predecessors.keySet()) {
-            if (newNodes.containsKey(pred)) {
-                Context<N, E> predContext = newNodes.get(pred);
-                Map<UUID, E> newSuccessors = new HashMap<>(predContext.successors);
-                newSuccessors.remove(nodeId);
-                newNodes.put(pred, new Context<>(pred, predContext.label,
-                                                 predContext.predecessors, newSuccessors));
+        IntTreeMap.Cursor<E> preds = context.predecessors.cursor();
+        while (preds.advance()) {
+            UUID pred = interner.nodeId(preds.key());
+            Context<N, E> predContext = newNodes.get(pred);
+            if (predContext != null) {
+                newNodes = newNodes.plus(pred,
+                        predContext.withSuccessors(predContext.successors.minus(id)));
             }
         }
 
-        for (UUID succ : context.successors.keySet()) {
-            if (newNodes.containsKey(succ)) {
-                Context<N, E> succContext = newNodes.get(succ);
-                Map<UUID, E> newPredecessors = new HashMap<>(succContext.predecessors);
-                newPredecessors.remove(nodeId);
-                newNodes.put(succ, new Context<>(succ, succContext.label,
-                                                 newPredecessors, succContext.successors));
+        IntTreeMap.Cursor<E> succs = context.successors.cursor();
+        while (succs.advance()) {
+            UUID succ = interner.nodeId(succs.key());
+            Context<N, E> succContext = newNodes.get(succ);
+            if (succContext != null) {
+                newNodes = newNodes.plus(succ,
+                        succContext.withPredecessors(succContext.predecessors.minus(id)));
             }
         }
 
-        return new Decomposition<>(context, new ImmutableGraph<>(newNodes));
+        return new Decomposition<>(context, withNodes(newNodes));
+    }
+
+    /**
+     * Remove many nodes and all their edges, returns new graph. The removed contexts are
+     * dropped together and each surviving neighbor is rewritten once, however many of
+     * its neighbors go; unknown node IDs are ignored.
+     */
+    public ImmutableGraph<N, E> removeNodes(Set<UUID> nodeIds) {
+        Set<UUID> removed = new HashSet<>();
+        BitSet removedIds = new BitSet();
+        for (UUID nodeId : nodeIds) {
+            if (nodes.containsKey(nodeId)) {
+                removed.add(nodeId);
+                removedIds.set(interner.indexOf(nodeId));
+            }
+        }
+        if (removed.isEmpty()) {
+            return this;
+        }
+
+        // Group the dangling references by the surviving node that holds them
+        Map<UUID, Keys> lostSuccessors = new HashMap<>();
+        Map<UUID, Keys> lostPredecessors = new HashMap<>();
+        for (UUID nodeId : removed) {
+            int id = interner.indexOf(nodeId);
+            Context<N, E> context = nodes.get(nodeId);
+            context.predecessors.forEach((pred, label) -> {
+                if (!removedIds.get(pred)) {
+                    lostSuccessors.computeIfAbsent(interner.nodeId(pred), k -> new Keys()).add(id);
+                }
+            });
+            context.successors.forEach((succ, label) -> {
+                if (!removedIds.get(succ)) {
+                    lostPredecessors.computeIfAbsent(interner.nodeId(succ), k -> new Keys()).add(id);
+                }
+            });
+        }
+
+        return withNodes(nodes.minusAll(removed).plusAll(patch(lostSuccessors, lostPredecessors)));
+    }
+
+    /**
+     * Remove many edges, returns new graph. Each endpoint is rewritten once, however many
+     * of its edges go; pairs that are not edges of this graph are ignored.
+     */
+    public ImmutableGraph<N, E> removeEdges(Collection<NodePair> edges) {
+        Map<UUID, Keys> lostSuccessors = new HashMap<>();
+        Map<UUID, Keys> lostPredecessors = new HashMap<>();
+        for (NodePair edge : edges) {
+            Context<N, E> fromContext = nodes.get(edge.from());
+            int to = interner.indexOf(edge.to());
+            if (fromContext != null && to >= 0 && fromContext.successors.containsKey(to)) {
+                lostSuccessors.computeIfAbsent(edge.from(), k -> new Keys()).add(to);
+                lostPredecessors.computeIfAbsent(edge.to(), k -> new Keys()).add(interner.indexOf(edge.from()));
+            }
+        }
+        if (lostSuccessors.isEmpty()) {
+            return this;
+        }
+        return withNodes(nodes.plusAll(patch(lostSuccessors, lostPredecessors)));
+    }
+
+    /**
+     * One rewritten context per node that loses successors, predecessors or both
+     */
+    private Map<UUID, Context<N, E>> patch(Map<UUID, Keys> lostSuccessors,
+                                           Map<UUID, Keys> lostPredecessors) {
+        Map<UUID, Context<N, E>> patched = new HashMap<>();
+        lostSuccessors.forEach((nodeId, lost) -> {
+            Context<N, E> context = nodes.get(nodeId);
+            patched.put(nodeId, context.withSuccessors(context.successors.minusAll(lost.items, lost.count)));
+        });
+        lostPredecessors.forEach((nodeId, lost) -> {
+            Context<N, E> context = patched.getOrDefault(nodeId, nodes.get(nodeId));
+            patched.put(nodeId, context.withPredecessors(context.predecessors.minusAll(lost.items, lost.count)));
+        });
+        return patched;
     }
 
     /**
      * Compose - add a context back to a graph
      */
     public ImmutableGraph<N, E> compose(Context<N, E> context) {
-        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
-        newNodes.put(context.nodeId, context);
+        Context<N, E> interned = context.internedIn(interner);
+        int id = interner.indexOf(interned.nodeId);
+        ChampMap<UUID, Context<N, E>> newNodes = nodes.plus(interned.nodeId, interned);
 
         // Update predecessor nodes
-        for (Map.Entry<UUID, E> pred : context.predecessors.entrySet()) {
-            if (newNodes.containsKey(pred.getKey())) {
-                Context<N, E> predContext = newNodes.get(pred.getKey());
-                Map<UUID, E> newSuccessors = new HashMap<>(predContext.successors);
-                newSuccessors.put(context.nodeId, pred.getValue());
-                newNodes.put(pred.getKey(), new Context<>(pred.getKey(),
-                                                          predContext.label, predContext.predecessors, newSuccessors));
+        IntTreeMap.Cursor<E> preds = interned.predecessors.cursor();
+        while (preds.advance()) {
+            UUID pred = interner.nodeId(preds.key());
+            Context<N, E> predContext = newNodes.get(pred);
+            if (predContext != null) {
+                newNodes = newNodes.plus(pred,
+                        predContext.withSuccessors(predContext.successors.plus(id, preds.value())));
             }
         }
 
         // Update successor nodes
-        for (Map.Entry<UUID, E> succ : context.successors.entrySet()) {
-            if (newNodes.containsKey(succ.getKey())) {
-                Context<N, E> succContext = newNodes.get(succ.getKey());
-                Map<UUID, E> newPredecessors = new HashMap<>(succContext.predecessors);
-                newPredecessors.put(context.nodeId, succ.getValue());
-                newNodes.put(succ.getKey(), new Context<>(succ.getKey(),
-                                                          succContext.label, newPredecessors, succContext.successors));
+        IntTreeMap.Cursor<E> succs = interned.successors.cursor();
+        while (succs.advance()) {
+            UUID succ = interner.nodeId(succs.key());
+            Context<N, E> succContext = newNodes.get(succ);
+            if (succContext != null) {
+                newNodes = newNodes.plus(succ,
+                        succContext.withPredecessors(succContext.predecessors.plus(id, succs.value())));
             }
         }
 
-        return new ImmutableGraph<>(newNodes);
+        return withNodes(newNodes);
     }
 
+    private ImmutableGraph<N, E> withNodes(ChampMap<UUID, Context<N, E>> newNodes) {
+        return new ImmutableGraph<>(newNodes, interner);
+    }
+
+    NodeInterner interner() {
+        return interner;
+    }
+
+
     public boolean containsNode(UUID nodeId) {
         return nodes.containsKey(nodeId);
     }
@@ -233,29 +391,190 @@ public class ImmutableGraph<N, E> {
     }
 
     /**
-     * Depth-first traversal
+     * This graph, or a copy of it with a fresh node numbering once the numbering has grown
+     * past {@value #SPARSE_NUMBERING_FACTOR} times the node count. Numbers are shared by
+     * every version of a lineage and never reused, so a long edit history that removes
+     * nodes leaves most of them naming nodes no current version holds. The copy has the
+     * same nodes, labels and edges but shares no history with this graph.
      */
-    public void depthFirstTraversal(UUID startNode, Consumer<Context<N, E>> visitor) {
-        if (!nodes.containsKey(startNode)) {
-            throw new IllegalArgumentException("Start node does not exist");
+    public ImmutableGraph<N, E> compacted() {
+        if (interner.size() <= Math.max(MIN_SPARSE_NUMBERING, SPARSE_NUMBERING_FACTOR * (long) nodeCount())) {
+            return this;
         }
+        Builder<N, E> builder = builder();
+        nodes.forEach((nodeId, context) -> builder.addNode(nodeId, context.label));
+        nodes.forEach((nodeId, context) -> {
+            IntTreeMap.Cursor<E> successors = context.successors.cursor();
+            while (successors.advance()) {
+                builder.addEdge(nodeId, interner.nodeId(successors.key()), successors.value());
+            }
+        });
+        return builder.build();
+    }
 
-        Set<UUID> visited = new HashSet<>();
-        dfsHelper(startNode, visitor, visited);
+    /**
+     * Whether this graph and other were derived by edits from a common graph, so that a
+     * {@link #diff} between them skips what they share
+     */
+    public boolean sharesHistoryWith(ImmutableGraph<N, E> other) {
+        return interner == other.interner;
     }
 
-    private void dfsHelper(UUID nodeId, Consumer<Context<N, E>> visitor, Set<UUID> visited) {
-        if (visited.contains(nodeId)) {
-            return;
+    /**
+     * Changes that turn this graph into other. Versions derived from one another by edits
+     * share most of their tries, and shared subtrees are skipped without being visited, so
+     * the cost is proportional to the edits between the two versions rather than to the
+     * graph size. Graphs with no common history are compared in full.
+     */
+    public GraphDiff<N, E> diff(ImmutableGraph<N, E> other) {
+        GraphDiff<N, E> diff = new GraphDiff<>(new LinkedHashMap<>(), new LinkedHashSet<>(),
+                new LinkedHashMap<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        nodes.diff(other.nodes, new ChampMap.Differences<>() {
+            @Override
+            public void added(UUID nodeId, Context<N, E> context) {
+                diff.addedNodes().put(nodeId, context.label);
+                context.getSuccessors().forEach((to, label) -> diff.addedEdges().add(new Edge<>(nodeId, to, label)));
+            }
+
+            @Override
+            public void removed(UUID nodeId, Context<N, E> context) {
+                diff.removedNodes().add(nodeId);
+                context.getSuccessors().keySet().forEach(to -> diff.removedEdges().add(new NodePair(nodeId, to)));
+            }
+
+            @Override
+            public void changed(UUID nodeId, Context<N, E> before, Context<N, E> after) {
+                if (!Objects.equals(before.label, after.label)) {
+                    diff.relabeledNodes().put(nodeId, after.label);
+                }
+                if (interner == other.interner) {
+                    diffSuccessors(nodeId, before, after, diff);
+                } else {
+                    diffSuccessorViews(nodeId, before.getSuccessors(), after.getSuccessors(), diff);
+                }
+            }
+        });
+        return diff;
+    }
+
+    /**
+     * Compares two versions of a node's successors by interned number; both versions
+     * share this graph's interner
+     */
+    private void diffSuccessors(UUID nodeId, Context<N, E> before, Context<N, E> after, GraphDiff<N, E> diff) {
+        before.successors.diff(after.successors, new IntTreeMap.Differences<>() {
+            @Override
+            public void added(int to, E label) {
+                diff.addedEdges().add(new Edge<>(nodeId, interner.nodeId(to), label));
+            }
+
+            @Override
+            public void removed(int to, E label) {
+                diff.removedEdges().add(new NodePair(nodeId, interner.nodeId(to)));
+            }
+
+            @Override
+            public void changed(int to, E oldLabel, E newLabel) {
+                diff.relabeledEdges().add(new Edge<>(nodeId, interner.nodeId(to), newLabel));
+            }
+        });
+    }
+
+    private static <N, E> void diffSuccessorViews(UUID nodeId, Map<UUID, E> before, Map<UUID, E> after,
+                                                  GraphDiff<N, E> diff) {
+        before.forEach((to, label) -> {
+            if (!after.containsKey(to)) {
+                diff.removedEdges().add(new NodePair(nodeId, to));
+            } else if (!Objects.equals(label, after.get(to))) {
+                diff.relabeledEdges().add(new Edge<>(nodeId, to, after.get(to)));
+            }
+        });
+        after.forEach((to, label) -> {
+            if (!before.containsKey(to)) {
+                diff.addedEdges().add(new Edge<>(nodeId, to, label));
+            }
+        });
+    }
+
+    /**
+     * Compressed-sparse-row snapshot of this version, built on first use and cached
+     */
+    public CsrGraph toCsr() {
+        CsrGraph snapshot = csr;
+        if (snapshot == null) {
+            snapshot = CsrGraph.of(this);
+            csr = snapshot;
         }
+        return snapshot;
+    }
 
-        visited.add(nodeId);
-        Context<N, E> context = nodes.get(nodeId);
-        visitor.accept(context);
+    /**
+     * Strongly connected components of this version, built on first use and cached
+     */
+    public StronglyConnectedComponents stronglyConnectedComponents() {
+        StronglyConnectedComponents found = components;
+        if (found == null) {
+            found = StronglyConnectedComponents.of(toCsr());
+            components = found;
+        }
+        return found;
+    }
+
+    /**
+     * View of the subgraph induced by the nodes whose contexts keep accepts, over this
+     * version's CSR snapshot
+     */
+    public DenseGraph inducedSubgraph(Predicate<Context<N, E>> keep) {
+        CsrGraph graph = toCsr();
+        return graph.induced(v -> keep.test(nodes.get(graph.nodeId(v))));
+    }
+
+    /**
+     * Reachability index of this version, built on first use and cached
+     */
+    public ReachabilityIndex reachability() {
+        ReachabilityIndex index = reachability;
+        if (index == null) {
+            index = ReachabilityIndex.of(stronglyConnectedComponents());
+            reachability = index;
+        }
+        return index;
+    }
+
+    /**
+     * Topological order and critical path of this version, built on first use and cached
+     */
+    public TopologicalOrder topologicalOrder() {
+        TopologicalOrder order = topologicalOrder;
+        if (order == null) {
+            order = TopologicalOrder.of(toCsr());
+            topologicalOrder = order;
+        }
+        return order;
+    }
 
-        for (UUID successor : context.successors.keySet()) {
-            dfsHelper(successor, visitor, visited);
+    /**
+     * Whether a directed path leads from fromNode to toNode; every node reaches itself
+     */
+    public boolean canReach(UUID fromNode, UUID toNode) {
+        if (!nodes.containsKey(fromNode) || !nodes.containsKey(toNode)) {
+            throw new IllegalArgumentException("Both nodes must exist in the graph");
         }
+        CsrGraph graph = toCsr();
+        return reachability().canReach(graph.indexOf(fromNode), graph.indexOf(toNode));
+    }
+
+    /**
+     * Depth-first traversal; iterative, so path length is not limited by the thread stack
+     */
+    public void depthFirstTraversal(UUID startNode, Consumer<Context<N, E>> visitor) {
+        if (!nodes.containsKey(startNode)) {
+            throw new IllegalArgumentException("Start node does not exist");
+        }
+
+        CsrGraph graph = toCsr();
+        GraphTraversals.depthFirst(graph, graph.indexOf(startNode),
+                node -> visitor.accept(nodes.get(graph.nodeId(node))));
     }
 
     /**
@@ -266,24 +585,187 @@ public class ImmutableGraph<N, E> {
             throw new IllegalArgumentException("Start node does not exist");
         }
 
-        Set<UUID> visited = new HashSet<>();
-        Queue<UUID> queue = new LinkedList<>();
+        CsrGraph graph = toCsr();
+        GraphTraversals.breadthFirst(graph, graph.indexOf(startNode),
+                node -> visitor.accept(nodes.get(graph.nodeId(node))));
+    }
 
-        queue.offer(startNode);
-        visited.add(startNode);
+    /**
+     * Breadth-first traversal that expands each level in parallel on the common fork-join
+     * pool. Nodes are visited level by level, and in dense index order within a level,
+     * so the order differs from {@link #breadthFirstTraversal} but each node's depth does not.
+     */
+    public void parallelBreadthFirstTraversal(UUID startNode, GraphTraversals.Direction direction,
+                                              int maxDepth, Consumer<Context<N, E>> visitor) {
+        CsrGraph graph = traversalSnapshot(startNode);
+        int[] distances = ParallelBfs.common().distances(graph, graph.indexOf(startNode), direction, maxDepth);
+        for (int node : ParallelBfs.levelOrder(distances)) {
+            visitor.accept(nodes.get(graph.nodeId(node)));
+        }
+    }
 
-        while (!queue.isEmpty()) {
-            UUID nodeId = queue.poll();
-            Context<N, E> context = nodes.get(nodeId);
-            visitor.accept(context);
+    /**
+     * The subgraph induced by the nodes at most hops edges from center along direction,
+     * collected breadth-first until maxNodes nodes are found. The search walks the interned
+     * adjacency directly instead of a CSR snapshot, so its cost follows the size of the
+     * neighborhood rather than of the graph.
+     */
+    public Neighborhood<N, E> neighborhood(UUID center, GraphTraversals.Direction direction,
+                                           int hops, int maxNodes) {
+        Context<N, E> start = nodes.get(center);
+        if (start == null) {
+            throw new IllegalArgumentException("Start node does not exist");
+        }
+        if (hops < 0) {
+            throw new IllegalArgumentException("hops must not be negative");
+        }
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive");
+        }
+
+        BitSet visited = new BitSet();
+        visited.set(interner.indexOf(center));
+        List<Context<N, E>> found = new ArrayList<>();
+        found.add(start);
+        boolean truncated = false;
+        // found doubles as the BFS queue; levelEnd is where the next level starts
+        int level = 0;
+        int levelEnd = 1;
+        for (int head = 0; head < found.size() && !truncated; head++) {
+            if (head == levelEnd) {
+                level++;
+                levelEnd = found.size();
+            }
+            if (level == hops) {
+                break;
+            }
+            Context<N, E> context = found.get(head);
+            if (direction != GraphTraversals.Direction.IN) {
+                truncated = collectNeighbors(context.successors, visited, found, maxNodes);
+            }
+            if (direction != GraphTraversals.Direction.OUT && !truncated) {
+                truncated = collectNeighbors(context.predecessors, visited, found, maxNodes);
+            }
+        }
+
+        List<Edge<E>> edges = new ArrayList<>();
+        for (Context<N, E> context : found) {
+            IntTreeMap.Cursor<E> successors = context.successors.cursor();
+            while (successors.advance()) {
+                if (visited.get(successors.key())) {
+                    edges.add(new Edge<>(context.nodeId, interner.nodeId(successors.key()), successors.value()));
+                }
+            }
+        }
+        return new Neighborhood<>(found, edges, truncated);
+    }
 
-            for (UUID successor : context.successors.keySet()) {
-                if (!visited.contains(successor)) {
-                    visited.add(successor);
-                    queue.offer(successor);
+    /**
+     * Appends the unvisited nodes of one adjacency map; true if one was left out because
+     * maxNodes were already found
+     */
+    private boolean collectNeighbors(IntTreeMap<E> adjacency, BitSet visited, List<Context<N, E>> found,
+                                     int maxNodes) {
+        IntTreeMap.Cursor<E> cursor = adjacency.cursor();
+        while (cursor.advance()) {
+            int id = cursor.key();
+            if (!visited.get(id)) {
+                if (found.size() == maxNodes) {
+                    return true;
                 }
+                visited.set(id);
+                found.add(nodes.get(interner.nodeId(id)));
             }
         }
+        return false;
+    }
+
+    /**
+     * A shortest path along out-edges from fromNode to toNode, both included, found by
+     * bidirectional BFS; empty if toNode is unreachable
+     */
+    public List<Context<N, E>> shortestPath(UUID fromNode, UUID toNode) {
+        if (!nodes.containsKey(fromNode) || !nodes.containsKey(toNode)) {
+            throw new IllegalArgumentException("Both nodes must exist in the graph");
+        }
+        CsrGraph graph = toCsr();
+        int[] path = GraphTraversals.shortestPath(graph, graph.indexOf(fromNode), graph.indexOf(toNode));
+        List<Context<N, E>> contexts = new ArrayList<>(path.length);
+        for (int node : path) {
+            contexts.add(nodes.get(graph.nodeId(node)));
+        }
+        return contexts;
+    }
+
+    /**
+     * Lazy depth-first traversal: nodes are discovered only as the iterator is advanced
+     */
+    public Iterator<Context<N, E>> depthFirstIterator(UUID startNode,
+                                                      GraphTraversals.Direction direction, int maxDepth) {
+        CsrGraph graph = traversalSnapshot(startNode);
+        return contexts(graph, GraphTraversals.depthFirstIterator(
+                graph, graph.indexOf(startNode), direction, maxDepth));
+    }
+
+    /**
+     * Lazy breadth-first traversal: nodes are discovered only as the iterator is advanced
+     */
+    public Iterator<Context<N, E>> breadthFirstIterator(UUID startNode,
+                                                        GraphTraversals.Direction direction, int maxDepth) {
+        CsrGraph graph = traversalSnapshot(startNode);
+        return contexts(graph, GraphTraversals.breadthFirstIterator(
+                graph, graph.indexOf(startNode), direction, maxDepth));
+    }
+
+    /**
+     * Depth-first traversal as a lazy stream, so limit(), takeWhile() and findFirst()
+     * stop the walk as soon as they are satisfied
+     */
+    public Stream<Context<N, E>> depthFirstStream(UUID startNode,
+                                                  GraphTraversals.Direction direction, int maxDepth) {
+        return stream(depthFirstIterator(startNode, direction, maxDepth));
+    }
+
+    public Stream<Context<N, E>> depthFirstStream(UUID startNode) {
+        return depthFirstStream(startNode, GraphTraversals.Direction.OUT, GraphTraversals.UNBOUNDED);
+    }
+
+    /**
+     * Breadth-first traversal as a lazy stream
+     */
+    public Stream<Context<N, E>> breadthFirstStream(UUID startNode,
+                                                    GraphTraversals.Direction direction, int maxDepth) {
+        return stream(breadthFirstIterator(startNode, direction, maxDepth));
+    }
+
+    public Stream<Context<N, E>> breadthFirstStream(UUID startNode) {
+        return breadthFirstStream(startNode, GraphTraversals.Direction.OUT, GraphTraversals.UNBOUNDED);
+    }
+
+    private CsrGraph traversalSnapshot(UUID startNode) {
+        if (!nodes.containsKey(startNode)) {
+            throw new IllegalArgumentException("Start node does not exist");
+        }
+        return toCsr();
+    }
+
+    private Iterator<Context<N, E>> contexts(CsrGraph graph, PrimitiveIterator.OfInt order) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return order.hasNext();
+            }
+
+            @Override
+            public Context<N, E> next() {
+                return nodes.get(graph.nodeId(order.nextInt()));
+            }
+        };
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
@@ -301,4 +783,263 @@ public class ImmutableGraph<N, E> {
         public ImmutableGraph<N, E> getGraph() { return graph; }
         public UUID getNodeId() { return nodeId; }
     }
+
+    /**
+     * A directed pair of node IDs, identifying an edge without its label
+     */
+    public record NodePair(UUID from, UUID to) {}
+
+    /**
+     * A directed edge with its label
+     */
+    public record Edge<E>(UUID from, UUID to, E label) {}
+
+    /**
+     * An induced subgraph around one node, as found by {@link #neighborhood}: its nodes in
+     * breadth-first order from the center, every edge between two of them, and whether the
+     * node limit left out nodes within range
+     */
+    public record Neighborhood<N, E>(List<Context<N, E>> nodes, List<Edge<E>> edges, boolean truncated) {}
+
+    /**
+     * Changes that turn one graph into another, as found by {@link #diff}: added nodes and
+     * relabeled nodes with their new labels, removed nodes, and added, removed and
+     * relabeled edges. Edges of added and removed nodes are listed too.
+     */
+    public record GraphDiff<N, E>(Map<UUID, N> addedNodes, Set<UUID> removedNodes, Map<UUID, N> relabeledNodes,
+                                  List<Edge<E>> addedEdges, List<NodePair> removedEdges,
+                                  List<Edge<E>> relabeledEdges) {
+
+        public boolean isEmpty() {
+            return addedNodes.isEmpty() && removedNodes.isEmpty() && relabeledNodes.isEmpty()
+                    && addedEdges.isEmpty() && removedEdges.isEmpty() && relabeledEdges.isEmpty();
+        }
+    }
+
+
+    /**
+     * Growable list of interned node numbers
+     */
+    private static final class Keys {
+        private int[] items = new int[4];
+        private int count;
+
+        void add(int key) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+            }
+            items[count++] = key;
+        }
+    }
+
+    /**
+     * Read-only UUID-keyed view of an interned adjacency map
+     */
+    private static final class AdjacencyView<E> extends AbstractMap<UUID, E> {
+        private final NodeInterner interner;
+        private final IntTreeMap<E> adjacency;
+
+        AdjacencyView(NodeInterner interner, IntTreeMap<E> adjacency) {
+            this.interner = interner;
+            this.adjacency = adjacency;
+        }
+
+        @Override
+        public int size() {
+            return adjacency.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return adjacency.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int id = key instanceof UUID nodeId ? interner.indexOf(nodeId) : -1;
+            return id >= 0 && adjacency.containsKey(id);
+        }
+
+        @Override
+        public E get(Object key) {
+            int id = key instanceof UUID nodeId ? interner.indexOf(nodeId) : -1;
+            return id < 0 ? null : adjacency.get(id);
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super UUID, ? super E> action) {
+            adjacency.forEach((id, label) -> action.accept(interner.nodeId(id), label));
+        }
+
+        @Override
+        public Set<UUID> keySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<UUID> iterator() {
+                    return new CursorIterator<>() {
+                        @Override
+                        UUID current(IntTreeMap.Cursor<E> cursor) {
+                            return interner.nodeId(cursor.key());
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return adjacency.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Entry<UUID, E>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<UUID, E>> iterator() {
+                    return new CursorIterator<>() {
+                        @Override
+                        Entry<UUID, E> current(IntTreeMap.Cursor<E> cursor) {
+                            return new SimpleImmutableEntry<>(interner.nodeId(cursor.key()), cursor.value());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return adjacency.size();
+                }
+            };
+        }
+
+        private abstract class CursorIterator<T> implements Iterator<T> {
+            private final IntTreeMap.Cursor<E> cursor = adjacency.cursor();
+            private boolean advanced;
+            private boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced) {
+                    hasNext = cursor.advance();
+                    advanced = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                advanced = false;
+                return current(cursor);
+            }
+
+            abstract T current(IntTreeMap.Cursor<E> cursor);
+        }
+    }
+
+    /**
+     * Transient builder: collects nodes and edges mutably, then builds every
+     * adjacency map and the node map in a single pass.
+     * Not thread-safe; {@link #build()} may be called more than once.
+     */
+    public static final class Builder<N, E> {
+        private final NodeInterner interner = new NodeInterner();
+        private final Map<UUID, NodeSlot<N, E>> slots = new HashMap<>();
+        // Interned endpoint numbers and labels of every edge, in the order added
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private final List<E> edgeLabels = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a node with a generated UUID, returns the node ID
+         */
+        public UUID addNode(N label) {
+            UUID nodeId = UuidV7Generator.generate();
+            addNode(nodeId, label);
+            return nodeId;
+        }
+
+        /**
+         * Add a node with a specific UUID; adding an existing ID replaces its label
+         */
+        public Builder<N, E> addNode(UUID nodeId, N label) {
+            slots.computeIfAbsent(nodeId, id -> new NodeSlot<>(interner.intern(id))).label = label;
+            return this;
+        }
+
+        /**
+         * Add an edge between two nodes already added; a repeated edge keeps the last label
+         */
+        public Builder<N, E> addEdge(UUID fromNode, UUID toNode, E edgeLabel) {
+            NodeSlot<N, E> from = slots.get(fromNode);
+            NodeSlot<N, E> to = slots.get(toNode);
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("Both nodes must exist in the graph");
+            }
+            from.outDegree++;
+            to.inDegree++;
+            int edge = edgeLabels.size();
+            if (edge == edgeSources.length) {
+                edgeSources = Arrays.copyOf(edgeSources, edge * 2);
+                edgeTargets = Arrays.copyOf(edgeTargets, edge * 2);
+            }
+            edgeSources[edge] = from.id;
+            edgeTargets[edge] = to.id;
+            edgeLabels.add(edgeLabel);
+            return this;
+        }
+
+        public boolean containsNode(UUID nodeId) {
+            return slots.containsKey(nodeId);
+        }
+
+        @SuppressWarnings("unchecked")
+        public ImmutableGraph<N, E> build() {
+            NodeSlot<N, E>[] byId = new NodeSlot[interner.size()];
+            for (NodeSlot<N, E> slot : slots.values()) {
+                slot.predecessors = slot.inDegree == 0 ? null : IntTreeMap.builder(slot.inDegree);
+                slot.successors = slot.outDegree == 0 ? null : IntTreeMap.builder(slot.outDegree);
+                byId[slot.id] = slot;
+            }
+            for (int i = 0; i < edgeLabels.size(); i++) {
+                int from = edgeSources[i];
+                int to = edgeTargets[i];
+                E label = edgeLabels.get(i);
+                byId[from].successors.put(to, label);
+                byId[to].predecessors.put(from, label);
+            }
+
+            ChampMap.Builder<UUID, Context<N, E>> contexts = ChampMap.builder(slots.size());
+            slots.forEach((nodeId, slot) -> {
+                contexts.put(nodeId, new Context<>(nodeId, slot.label, interner,
+                        slot.predecessors == null ? IntTreeMap.empty() : slot.predecessors.build(),
+                        slot.successors == null ? IntTreeMap.empty() : slot.successors.build()));
+                slot.predecessors = null;
+                slot.successors = null;
+            });
+            return new ImmutableGraph<>(contexts.build(), interner);
+        }
+
+        private static final class NodeSlot<N, E> {
+            private final int id;
+            private N label;
+            private int inDegree;
+            private int outDegree;
+            private IntTreeMap.Builder<E> predecessors;
+            private IntTreeMap.Builder<E> successors;
+
+            private NodeSlot(int id) {
+                this.id = id;
+            }
+        }
+    }
 }
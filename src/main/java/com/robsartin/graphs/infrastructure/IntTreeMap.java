@@ -0,0 +1,873 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Persistent sorted map from int keys to values, used for adjacency between interned nodes.
+ *
+ * Like {@code Map.of}, the representation is chosen by size: one shared empty map, a
+ * single entry held in fields, sorted inline arrays up to {@value #INLINE_CAPACITY}
+ * entries, and above that a copy-on-write B+ tree. Most nodes have only a few neighbors,
+ * so most maps are one small object, or two with their key array.
+ * The tree keeps keys unboxed and sorted in leaf arrays of up to {@value #LEAF_CAPACITY}
+ * entries under branches of up to {@value #BRANCH_CAPACITY} children, so an edit copies
+ * one leaf and the O(log n) branches above it, and even a hub with many neighbors pays
+ * about four bytes per key. While every value in a map is equal, which is the common case
+ * of uniformly labeled edges, it keeps the value once and stores keys only. Leaves are not
+ * merged on removal; a bulk rebuild repacks them.
+ */
+abstract class IntTreeMap<V> {
+
+    static final int INLINE_CAPACITY = 8;
+    static final int LEAF_CAPACITY = 64;
+    static final int BRANCH_CAPACITY = 32;
+
+    private static final int[] NO_KEYS = new int[0];
+    private static final IntTreeMap<?> EMPTY = new Inline<>(NO_KEYS, null, null);
+    private static final Object NOT_FOUND = new Object();
+
+    private IntTreeMap() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> IntTreeMap<V> empty() {
+        return (IntTreeMap<V>) EMPTY;
+    }
+
+    static <V> Builder<V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    abstract int size();
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    boolean containsKey(int key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    /**
+     * The value for key, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        Object result = find(key);
+        return result == NOT_FOUND ? null : (V) result;
+    }
+
+    abstract Object find(int key);
+
+    /**
+     * Returns a map with the given mapping added or replaced. Returns this map if the
+     * key is already mapped to the identical value.
+     */
+    abstract IntTreeMap<V> plus(int key, V value);
+
+    /**
+     * Returns a map without the given key. Returns this map if the key is absent.
+     */
+    abstract IntTreeMap<V> minus(int key);
+
+    /**
+     * Returns a map without the first count keys of the array, removing them one path at
+     * a time while they are few and rebuilding the survivors in one bulk pass otherwise
+     */
+    IntTreeMap<V> minusAll(int[] keys, int count) {
+        int size = size();
+        if (count < size >>> 3) {
+            IntTreeMap<V> result = this;
+            for (int i = 0; i < count; i++) {
+                result = result.minus(keys[i]);
+            }
+            return result;
+        }
+        int[] sorted = Arrays.copyOf(keys, count);
+        Arrays.sort(sorted);
+        Builder<V> builder = new Builder<>(size);
+        forEach((key, value) -> {
+            if (Arrays.binarySearch(sorted, key) < 0) {
+                builder.put(key, value);
+            }
+        });
+        return builder.size() == size ? this : builder.build();
+    }
+
+    /**
+     * Visits every entry in ascending key order
+     */
+    abstract void forEach(EntryConsumer<? super V> action);
+
+    /**
+     * Copies every key into target starting at offset, in ascending order
+     */
+    abstract void copyKeys(int[] target, int offset);
+
+    Cursor<V> cursor() {
+        return new Cursor<>(this);
+    }
+
+    /**
+     * Reports every key whose mapping differs between this map and other, as the changes
+     * that turn this map into other; values are compared with equals. Tree children the
+     * two maps share are skipped, so comparing a map with one derived from it by a few
+     * edits touches only the leaves those edits copied.
+     */
+    @SuppressWarnings("unchecked")
+    void diff(IntTreeMap<V> other, Differences<? super V> differences) {
+        if (this == other) {
+            return;
+        }
+        Differences<Object> out = (Differences<Object>) differences;
+        if (this instanceof Tree<V> before && other instanceof Tree<V> after
+                && (!before.uniform || !after.uniform || Objects.equals(before.uniformValue, after.uniformValue))) {
+            diffNodes(before.root, before.uniformValue, after.root, after.uniformValue, out);
+            return;
+        }
+        Builder<Object> beforeEntries = new Builder<>(size());
+        forEach(beforeEntries::put);
+        Builder<Object> afterEntries = new Builder<>(other.size());
+        other.forEach(afterEntries::put);
+        merge(beforeEntries, afterEntries, out);
+    }
+
+    /**
+     * Receives the changes found by {@link #diff}
+     */
+    interface Differences<V> {
+        void added(int key, V value);
+
+        void removed(int key, V value);
+
+        void changed(int key, V oldValue, V newValue);
+    }
+
+    /**
+     * Pairs up the children of two branches at the children they share; everything between
+     * two shared children covers the same key range on both sides
+     */
+    private static void diffNodes(Node before, Object beforeValue, Node after, Object afterValue,
+                                  Differences<Object> out) {
+        if (before == after) {
+            return;
+        }
+        if (!(before instanceof Branch a) || !(after instanceof Branch b)) {
+            mergeRuns(new Node[] {before}, 0, 1, beforeValue, new Node[] {after}, 0, 1, afterValue, out);
+            return;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.children.length || j < b.children.length) {
+            if (i < a.children.length && j < b.children.length && a.children[i] == b.children[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            int nextI = a.children.length;
+            int nextJ = b.children.length;
+            search:
+            for (int si = i; si < a.children.length; si++) {
+                for (int sj = j; sj < b.children.length; sj++) {
+                    if (a.children[si] == b.children[sj]) {
+                        nextI = si;
+                        nextJ = sj;
+                        break search;
+                    }
+                }
+            }
+            if (nextI - i == 1 && nextJ - j == 1) {
+                diffNodes(a.children[i], beforeValue, b.children[j], afterValue, out);
+            } else {
+                mergeRuns(a.children, i, nextI, beforeValue, b.children, j, nextJ, afterValue, out);
+            }
+            i = nextI;
+            j = nextJ;
+        }
+    }
+
+    private static void mergeRuns(Node[] before, int beforeFrom, int beforeTo, Object beforeValue,
+                                  Node[] after, int afterFrom, int afterTo, Object afterValue,
+                                  Differences<Object> out) {
+        Builder<Object> beforeEntries = new Builder<>(LEAF_CAPACITY);
+        for (int i = beforeFrom; i < beforeTo; i++) {
+            before[i].forEach(beforeValue, beforeEntries::put);
+        }
+        Builder<Object> afterEntries = new Builder<>(LEAF_CAPACITY);
+        for (int i = afterFrom; i < afterTo; i++) {
+            after[i].forEach(afterValue, afterEntries::put);
+        }
+        merge(beforeEntries, afterEntries, out);
+    }
+
+    /**
+     * Merges two runs of entries, each in ascending key order
+     */
+    private static void merge(Builder<Object> before, Builder<Object> after, Differences<Object> out) {
+        int i = 0;
+        int j = 0;
+        while (i < before.count || j < after.count) {
+            if (j == after.count || (i < before.count && before.keys[i] < after.keys[j])) {
+                out.removed(before.keys[i], before.values[i]);
+                i++;
+            } else if (i == before.count || after.keys[j] < before.keys[i]) {
+                out.added(after.keys[j], after.values[j]);
+                j++;
+            } else {
+                if (!Objects.equals(before.values[i], after.values[j])) {
+                    out.changed(before.keys[i], before.values[i], after.values[j]);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * The map holding the given sorted, distinct keys in the representation for their
+     * count; values is null when every key maps to uniformValue
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> IntTreeMap<V> of(int[] keys, Object[] values, V uniformValue) {
+        int size = keys.length;
+        if (size == 0) {
+            return empty();
+        }
+        if (size == 1) {
+            return new Single<>(keys[0], values == null ? uniformValue : (V) values[0]);
+        }
+        if (size <= INLINE_CAPACITY) {
+            return new Inline<>(keys, values, values == null ? uniformValue : null);
+        }
+        int leafCount = (size + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[leafCount];
+        for (int l = 0; l < leafCount; l++) {
+            int from = l * size / leafCount;
+            int to = (l + 1) * size / leafCount;
+            level[l] = new Leaf(Arrays.copyOfRange(keys, from, to),
+                    values == null ? null : Arrays.copyOfRange(values, from, to));
+        }
+        while (level.length > 1) {
+            int branchCount = (level.length + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+            Node[] parents = new Node[branchCount];
+            for (int b = 0; b < branchCount; b++) {
+                int from = b * level.length / branchCount;
+                int to = (b + 1) * level.length / branchCount;
+                Node[] children = Arrays.copyOfRange(level, from, to);
+                int[] lowKeys = new int[children.length];
+                for (int c = 0; c < children.length; c++) {
+                    lowKeys[c] = children[c].firstKey();
+                }
+                parents[b] = new Branch(lowKeys, children);
+            }
+            level = parents;
+        }
+        return new Tree<>(level[0], size, values == null ? uniformValue : null, values == null);
+    }
+
+    private static Object[] filled(int length, Object value) {
+        Object[] values = new Object[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    /**
+     * Exactly one entry, held in fields
+     */
+    private static final class Single<V> extends IntTreeMap<V> {
+        private final int key;
+        private final V value;
+
+        Single(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+
+        @Override
+        Object find(int key) {
+            return key == this.key ? value : NOT_FOUND;
+        }
+
+        @Override
+        IntTreeMap<V> plus(int key, V value) {
+            boolean same = Objects.equals(value, this.value);
+            if (key == this.key) {
+                return same ? this : new Single<>(key, value);
+            }
+            int[] keys = key < this.key ? new int[] {key, this.key} : new int[] {this.key, key};
+            if (same) {
+                return new Inline<>(keys, null, this.value);
+            }
+            Object[] values = key < this.key ? new Object[] {value, this.value} : new Object[] {this.value, value};
+            return new Inline<>(keys, values, null);
+        }
+
+        @Override
+        IntTreeMap<V> minus(int key) {
+            return key == this.key ? empty() : this;
+        }
+
+        @Override
+        void forEach(EntryConsumer<? super V> action) {
+            action.accept(key, value);
+        }
+
+        @Override
+        void copyKeys(int[] target, int offset) {
+            target[offset] = key;
+        }
+    }
+
+    /**
+     * No entries (only the shared empty map), or two to {@value #INLINE_CAPACITY} entries
+     * in sorted arrays
+     */
+    private static final class Inline<V> extends IntTreeMap<V> {
+        private final int[] keys;
+        private final Object[] values;  // null while every key maps to uniformValue
+        private final V uniformValue;
+
+        Inline(int[] keys, Object[] values, V uniformValue) {
+            this.keys = keys;
+            this.values = values;
+            this.uniformValue = uniformValue;
+        }
+
+        @Override
+        int size() {
+            return keys.length;
+        }
+
+        @Override
+        Object find(int key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) {
+                return NOT_FOUND;
+            }
+            return values == null ? uniformValue : values[i];
+        }
+
+        @Override
+        IntTreeMap<V> plus(int key, V value) {
+            int i = Arrays.binarySearch(keys, key);
+            if (values == null && keys.length > 0 && Objects.equals(value, uniformValue)) {
+                return i >= 0 ? this : of(insert(keys, -i - 1, key), null, uniformValue);
+            }
+            if (i >= 0) {
+                if (values != null && values[i] == value) {
+                    return this;
+                }
+                Object[] copy = values == null ? filled(keys.length, uniformValue) : values.clone();
+                copy[i] = value;
+                return new Inline<>(keys, copy, null);
+            }
+            Object[] current = values == null ? filled(keys.length, uniformValue) : values;
+            return of(insert(keys, -i - 1, key), insert(current, -i - 1, value), null);
+        }
+
+        @Override
+        IntTreeMap<V> minus(int key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) {
+                return this;
+            }
+            return of(remove(keys, i), values == null ? null : remove(values, i), uniformValue);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEach(EntryConsumer<? super V> action) {
+            for (int i = 0; i < keys.length; i++) {
+                action.accept(keys[i], values == null ? uniformValue : (V) values[i]);
+            }
+        }
+
+        @Override
+        void copyKeys(int[] target, int offset) {
+            System.arraycopy(keys, 0, target, offset, keys.length);
+        }
+    }
+
+    /**
+     * More than {@value #INLINE_CAPACITY} entries, in a B+ tree
+     */
+    private static final class Tree<V> extends IntTreeMap<V> {
+        private final Node root;
+        private final int size;
+        // While uniform, every key maps to uniformValue and the leaves carry no value arrays
+        private final V uniformValue;
+        private final boolean uniform;
+
+        Tree(Node root, int size, V uniformValue, boolean uniform) {
+            this.root = root;
+            this.size = size;
+            this.uniformValue = uniformValue;
+            this.uniform = uniform;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        Object find(int key) {
+            Node node = root;
+            while (node instanceof Branch branch) {
+                node = branch.children[branch.childIndex(key)];
+            }
+            Leaf leaf = (Leaf) node;
+            int i = Arrays.binarySearch(leaf.keys, key);
+            if (i < 0) {
+                return NOT_FOUND;
+            }
+            return uniform ? uniformValue : leaf.values[i];
+        }
+
+        @Override
+        IntTreeMap<V> plus(int key, V value) {
+            if (uniform && !Objects.equals(value, uniformValue)) {
+                return new Tree<V>(root.withValues(uniformValue), size, null, false).plus(key, value);
+            }
+            Change change = new Change();
+            Node newRoot = root.updated(key, value, change);
+            if (!change.modified) {
+                return this;
+            }
+            if (change.split != null) {
+                newRoot = new Branch(new int[] {newRoot.firstKey(), change.split.firstKey()},
+                        new Node[] {newRoot, change.split});
+            }
+            return new Tree<>(newRoot, change.replaced ? size : size + 1, uniformValue, uniform);
+        }
+
+        @Override
+        IntTreeMap<V> minus(int key) {
+            Change change = new Change();
+            Node newRoot = root.removed(key, change);
+            if (!change.modified) {
+                return this;
+            }
+            if (size - 1 <= INLINE_CAPACITY) {
+                int[] keys = new int[size - 1];
+                newRoot.copyKeys(keys, 0);
+                Object[] values = null;
+                if (!uniform) {
+                    values = new Object[size - 1];
+                    int[] next = new int[1];
+                    Object[] target = values;
+                    newRoot.forEach(null, (k, v) -> target[next[0]++] = v);
+                }
+                return of(keys, values, uniformValue);
+            }
+            while (newRoot instanceof Branch branch && branch.children.length == 1) {
+                newRoot = branch.children[0];
+            }
+            return new Tree<>(newRoot, size - 1, uniformValue, uniform);
+        }
+
+        @Override
+        void forEach(EntryConsumer<? super V> action) {
+            root.forEach(uniformValue, action);
+        }
+
+        @Override
+        void copyKeys(int[] target, int offset) {
+            root.copyKeys(target, offset);
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    /**
+     * Records what an update or removal did: whether anything changed, whether an
+     * existing key was replaced, and the right half of a node that overflowed
+     */
+    private static final class Change {
+        boolean modified;
+        boolean replaced;
+        Node split;
+    }
+
+    private abstract static class Node {
+
+        abstract int firstKey();
+
+        abstract Node updated(int key, Object value, Change change);
+
+        /**
+         * The node without key, or null if that leaves it empty
+         */
+        abstract Node removed(int key, Change change);
+
+        abstract Node withValues(Object value);
+
+        abstract <V> void forEach(V uniformValue, EntryConsumer<? super V> action);
+
+        abstract int copyKeys(int[] target, int offset);
+    }
+
+    /**
+     * Sorted keys, and their values unless the map is uniform
+     */
+    private static final class Leaf extends Node {
+        final int[] keys;
+        final Object[] values;
+
+        Leaf(int[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        int firstKey() {
+            return keys[0];
+        }
+
+        @Override
+        Node updated(int key, Object value, Change change) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) {
+                if (values == null || values[i] == value) {
+                    return this;
+                }
+                change.modified = true;
+                change.replaced = true;
+                Object[] copy = values.clone();
+                copy[i] = value;
+                return new Leaf(keys, copy);
+            }
+            change.modified = true;
+            int at = -i - 1;
+            int[] newKeys = insert(keys, at, key);
+            Object[] newValues = values == null ? null : insert(values, at, value);
+            if (newKeys.length <= LEAF_CAPACITY) {
+                return new Leaf(newKeys, newValues);
+            }
+            int half = newKeys.length / 2;
+            change.split = new Leaf(Arrays.copyOfRange(newKeys, half, newKeys.length),
+                    newValues == null ? null : Arrays.copyOfRange(newValues, half, newValues.length));
+            return new Leaf(Arrays.copyOf(newKeys, half),
+                    newValues == null ? null : Arrays.copyOf(newValues, half));
+        }
+
+        @Override
+        Node removed(int key, Change change) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) {
+                return this;
+            }
+            change.modified = true;
+            if (keys.length == 1) {
+                return null;
+            }
+            return new Leaf(remove(keys, i), values == null ? null : remove(values, i));
+        }
+
+        @Override
+        Node withValues(Object value) {
+            return new Leaf(keys, filled(keys.length, value));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <V> void forEach(V uniformValue, EntryConsumer<? super V> action) {
+            for (int i = 0; i < keys.length; i++) {
+                action.accept(keys[i], values == null ? uniformValue : (V) values[i]);
+            }
+        }
+
+        @Override
+        int copyKeys(int[] target, int offset) {
+            System.arraycopy(keys, 0, target, offset, keys.length);
+            return offset + keys.length;
+        }
+    }
+
+    /**
+     * Children in key order; child i holds keys from lowKeys[i] up to lowKeys[i + 1], and
+     * the first child also holds anything smaller
+     */
+    private static final class Branch extends Node {
+        final int[] lowKeys;
+        final Node[] children;
+
+        Branch(int[] lowKeys, Node[] children) {
+            this.lowKeys = lowKeys;
+            this.children = children;
+        }
+
+        int childIndex(int key) {
+            int i = Arrays.binarySearch(lowKeys, key);
+            return i >= 0 ? i : Math.max(0, -i - 2);
+        }
+
+        @Override
+        int firstKey() {
+            return lowKeys[0];
+        }
+
+        @Override
+        Node updated(int key, Object value, Change change) {
+            int i = childIndex(key);
+            Node child = children[i].updated(key, value, change);
+            if (!change.modified) {
+                return this;
+            }
+            int[] newLowKeys = lowKeys;
+            Node[] newChildren = children.clone();
+            newChildren[i] = child;
+            if (key < lowKeys[0]) {
+                newLowKeys = lowKeys.clone();
+                newLowKeys[0] = key;
+            }
+            if (change.split == null) {
+                return new Branch(newLowKeys, newChildren);
+            }
+            Node right = change.split;
+            change.split = null;
+            newLowKeys = insert(newLowKeys, i + 1, right.firstKey());
+            newChildren = insert(newChildren, i + 1, right);
+            if (newChildren.length <= BRANCH_CAPACITY) {
+                return new Branch(newLowKeys, newChildren);
+            }
+            int half = newChildren.length / 2;
+            change.split = new Branch(Arrays.copyOfRange(newLowKeys, half, newLowKeys.length),
+                    Arrays.copyOfRange(newChildren, half, newChildren.length));
+            return new Branch(Arrays.copyOf(newLowKeys, half), Arrays.copyOf(newChildren, half));
+        }
+
+        @Override
+        Node removed(int key, Change change) {
+            int i = childIndex(key);
+            Node child = children[i].removed(key, change);
+            if (!change.modified) {
+                return this;
+            }
+            if (child != null) {
+                Node[] newChildren = children.clone();
+                newChildren[i] = child;
+                return new Branch(lowKeys, newChildren);
+            }
+            if (children.length == 1) {
+                return null;
+            }
+            // Low keys stay valid lower bounds, so dropping a child needs no other fix-up
+            return new Branch(remove(lowKeys, i), remove(children, i));
+        }
+
+        @Override
+        Node withValues(Object value) {
+            Node[] copy = new Node[children.length];
+            for (int i = 0; i < children.length; i++) {
+                copy[i] = children[i].withValues(value);
+            }
+            return new Branch(lowKeys, copy);
+        }
+
+        @Override
+        <V> void forEach(V uniformValue, EntryConsumer<? super V> action) {
+            for (Node child : children) {
+                child.forEach(uniformValue, action);
+            }
+        }
+
+        @Override
+        int copyKeys(int[] target, int offset) {
+            int cursor = offset;
+            for (Node child : children) {
+                cursor = child.copyKeys(target, cursor);
+            }
+            return cursor;
+        }
+    }
+
+    private static int[] insert(int[] array, int index, int element) {
+        int[] copy = new int[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        copy[index] = element;
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        return copy;
+    }
+
+    private static int[] remove(int[] array, int index) {
+        int[] copy = new int[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    private static <T> T[] insert(T[] array, int index, T element) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        copy[index] = element;
+        return copy;
+    }
+
+    private static <T> T[] remove(T[] array, int index) {
+        T[] copy = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    /**
+     * Walks the entries in ascending key order without boxing keys
+     */
+    static final class Cursor<V> {
+        private final Branch[] path = new Branch[16];
+        private final int[] positions = new int[16];
+        private int depth = -1;
+        // The current run of entries: the inline arrays, or the current leaf of a tree
+        private int[] keys;
+        private Object[] values;
+        private V uniformValue;
+        private int index = -1;
+
+        private Cursor(IntTreeMap<V> map) {
+            if (map instanceof Single<V> single) {
+                keys = new int[] {single.key};
+                uniformValue = single.value;
+            } else if (map instanceof Inline<V> inline) {
+                keys = inline.keys;
+                values = inline.values;
+                uniformValue = inline.uniformValue;
+            } else {
+                Tree<V> tree = (Tree<V>) map;
+                uniformValue = tree.uniformValue;
+                descend(tree.root);
+            }
+        }
+
+        private void descend(Node node) {
+            while (node instanceof Branch branch) {
+                depth++;
+                path[depth] = branch;
+                positions[depth] = 0;
+                node = branch.children[0];
+            }
+            Leaf leaf = (Leaf) node;
+            keys = leaf.keys;
+            values = leaf.values;
+        }
+
+        /**
+         * Moves to the next entry; false once every entry has been visited
+         */
+        boolean advance() {
+            if (keys == null) {
+                return false;
+            }
+            if (index + 1 < keys.length) {
+                index++;
+                return true;
+            }
+            while (depth >= 0) {
+                Branch branch = path[depth];
+                if (positions[depth] + 1 < branch.children.length) {
+                    positions[depth]++;
+                    descend(branch.children[positions[depth]]);
+                    index = 0;
+                    return true;
+                }
+                depth--;
+            }
+            keys = null;
+            return false;
+        }
+
+        int key() {
+            checkPosition();
+            return keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        V value() {
+            checkPosition();
+            return values == null ? uniformValue : (V) values[index];
+        }
+
+        private void checkPosition() {
+            if (keys == null || index < 0) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    /**
+     * Collects entries and builds the map in one pass, packing a tree densely.
+     * Later puts for the same key win.
+     */
+    static final class Builder<V> {
+
+        private int[] keys;
+        private Object[] values;
+        private int count;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 4);
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+        }
+
+        Builder<V> put(int key, V value) {
+            if (count == keys.length) {
+                int capacity = count + (count >> 1) + 1;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[count] = key;
+            values[count] = value;
+            count++;
+            return this;
+        }
+
+        int size() {
+            return count;
+        }
+
+        @SuppressWarnings("unchecked")
+        IntTreeMap<V> build() {
+            if (count == 0) {
+                return empty();
+            }
+            // Sort by key, then by insertion order, so the last put of a key comes last
+            long[] order = new long[count];
+            boolean sorted = true;
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) keys[i] << 32) | i;
+                sorted &= i == 0 || keys[i] > keys[i - 1];
+            }
+            if (!sorted) {
+                Arrays.sort(order);
+            }
+            int[] sortedKeys = new int[count];
+            Object[] sortedValues = new Object[count];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                int entry = (int) order[i];
+                if (size > 0 && sortedKeys[size - 1] == keys[entry]) {
+                    size--;
+                }
+                sortedKeys[size] = keys[entry];
+                sortedValues[size] = values[entry];
+                size++;
+            }
+            boolean uniform = true;
+            for (int i = 1; i < size && uniform; i++) {
+                uniform = Objects.equals(sortedValues[i], sortedValues[0]);
+            }
+            return of(size == count ? sortedKeys : Arrays.copyOf(sortedKeys, size),
+                    uniform ? null : Arrays.copyOf(sortedValues, size), (V) sortedValues[0]);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Append-only numbering of node UUIDs as dense ints, so adjacency can be stored as
+ * unboxed int keys and UUIDs are only materialized at the API boundary.
+ *
+ * One interner is shared by every version derived from the same empty graph or builder.
+ * Numbers are never reused or reassigned, so any version can resolve every number it
+ * holds, even when sibling versions keep adding nodes. The numbering therefore only grows;
+ * {@link ImmutableGraph#compacted()} starts a lineage over with a fresh interner once most
+ * numbers name removed nodes. Interning is serialized; lookups take no lock.
+ */
+final class NodeInterner {
+
+    // Published by the volatile writes below; a reader that sees size sees every
+    // number below it in both arrays
+    private volatile UUID[] ids;
+    private volatile int[] table;  // open addressing: number + 1 per slot, 0 when empty
+    private volatile int size;
+
+    NodeInterner() {
+        this(16);
+    }
+
+    NodeInterner(int expectedSize) {
+        this.ids = new UUID[Math.max(expectedSize, 4)];
+        this.table = new int[tableCapacity(expectedSize)];
+    }
+
+    /**
+     * The number of nodeId, assigning the next free one on first sight
+     */
+    synchronized int intern(UUID nodeId) {
+        int existing = indexOf(nodeId);
+        if (existing >= 0) {
+            return existing;
+        }
+        int id = size;
+        UUID[] currentIds = ids;
+        if (id == currentIds.length) {
+            currentIds = Arrays.copyOf(currentIds, id + (id >> 1) + 1);
+        }
+        currentIds[id] = nodeId;
+        ids = currentIds;
+
+        int[] currentTable = table;
+        if (2 * (id + 1) > currentTable.length) {
+            currentTable = new int[tableCapacity(id + 1)];
+            for (int i = 0; i < id; i++) {
+                place(currentTable, currentIds[i], i);
+            }
+            place(currentTable, nodeId, id);
+            table = currentTable;
+        } else {
+            place(currentTable, nodeId, id);
+        }
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * The number of nodeId, or -1 if it was never interned
+     */
+    int indexOf(UUID nodeId) {
+        if (nodeId == null) {
+            return -1;
+        }
+        int limit = size;
+        int[] currentTable = table;
+        UUID[] currentIds = ids;
+        int mask = currentTable.length - 1;
+        for (int slot = slot(nodeId, mask); currentTable[slot] != 0; slot = (slot + 1) & mask) {
+            int id = currentTable[slot] - 1;
+            // Numbers at or above limit are still being interned by another thread
+            if (id < limit && nodeId.equals(currentIds[id])) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    UUID nodeId(int id) {
+        return ids[id];
+    }
+
+    /**
+     * Count of numbers assigned so far; every number is below it
+     */
+    int size() {
+        return size;
+    }
+
+    private static void place(int[] table, UUID nodeId, int id) {
+        int mask = table.length - 1;
+        int slot = slot(nodeId, mask);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    private static int slot(UUID nodeId, int mask) {
+        long h = (nodeId.getMostSignificantBits() ^ nodeId.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private static int tableCapacity(int expectedSize) {
+        return Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    }
+}
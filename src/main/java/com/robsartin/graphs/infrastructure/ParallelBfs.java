@@ -0,0 +1,276 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Level-synchronous parallel breadth-first search over a {@link DenseGraph}, after Beamer,
+ * Asanović and Patterson, "Direction-Optimizing Breadth-First Search".
+ *
+ * Each level is expanded on a {@link ForkJoinPool}, either top-down (frontier nodes claim
+ * their unvisited neighbors with a CAS) or bottom-up (every unvisited node looks for a
+ * parent in the frontier bitmap and stops at the first one). Top-down is cheap while the
+ * frontier is small; bottom-up skips most edge checks once the frontier covers a large
+ * part of the graph. The engine switches between them from the frontier's size.
+ */
+public final class ParallelBfs {
+
+    /** Switch to bottom-up once the frontier's edges exceed 1/ALPHA of the unexplored edges */
+    private static final int ALPHA = 14;
+    /** Switch back to top-down once a shrinking frontier holds fewer than 1/BETA of the nodes */
+    private static final int BETA = 24;
+    /** Frontier entries (top-down) or nodes (bottom-up, a multiple of 64) per leaf task */
+    private static final int GRAIN = 2048;
+
+    private static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final ForkJoinPool pool;
+
+    public ParallelBfs(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Engine running on the common fork-join pool
+     */
+    public static ParallelBfs common() {
+        return new ParallelBfs(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Hop counts from source following direction, -1 for nodes that are unreachable
+     * or more than maxDepth hops away
+     */
+    public int[] distances(DenseGraph graph, int source, GraphTraversals.Direction direction, int maxDepth) {
+        GraphTraversals.checkMaxDepth(maxDepth);
+        int n = graph.nodeCount();
+        int[] distances = new int[n];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+
+        long unexploredEdges = 0;
+        for (int v = 0; v < n; v++) {
+            unexploredEdges += GraphTraversals.degree(graph, v, direction);
+        }
+
+        int[] frontier = new int[Math.max(1, n)];
+        int[] next = new int[Math.max(1, n)];
+        long[] frontierBits = null;
+        frontier[0] = source;
+        int frontierSize = 1;
+        long frontierEdges = GraphTraversals.degree(graph, source, direction);
+        unexploredEdges -= frontierEdges;
+        boolean bottomUp = false;
+
+        for (int level = 0; frontierSize > 0 && level < maxDepth; level++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+                frontierBits = toBits(frontier, frontierSize, n);
+            }
+
+            Step step;
+            if (bottomUp) {
+                long[] nextBits = new long[frontierBits.length];
+                step = new Step();
+                pool.invoke(new BottomUp(graph, direction.reverse(), direction, distances,
+                        frontierBits, nextBits, level + 1, 0, n, step));
+                frontierBits = nextBits;
+                if (step.nodes() < frontierSize && step.nodes() < n / BETA) {
+                    bottomUp = false;
+                    frontierSize = toList(frontierBits, frontier);
+                } else {
+                    frontierSize = step.nodes();
+                }
+            } else {
+                step = new Step();
+                pool.invoke(new TopDown(graph, direction, distances,
+                        frontier, next, level + 1, 0, frontierSize, step));
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+                frontierSize = step.nodes();
+            }
+            frontierEdges = step.edges.sum();
+            unexploredEdges -= frontierEdges;
+        }
+        return distances;
+    }
+
+    /**
+     * Nodes reached in a distances array, ordered by distance and, within a level,
+     * by dense index
+     */
+    public static int[] levelOrder(int[] distances) {
+        int maxLevel = -1;
+        for (int d : distances) {
+            maxLevel = Math.max(maxLevel, d);
+        }
+        int[] starts = new int[maxLevel + 2];
+        for (int d : distances) {
+            if (d >= 0) {
+                starts[d + 1]++;
+            }
+        }
+        for (int level = 0; level <= maxLevel; level++) {
+            starts[level + 1] += starts[level];
+        }
+        int[] order = new int[starts[maxLevel + 1]];
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] >= 0) {
+                order[starts[distances[v]]++] = v;
+            }
+        }
+        return order;
+    }
+
+    private static long[] toBits(int[] nodes, int size, int n) {
+        long[] bits = new long[(n + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            bits[nodes[i] >>> 6] |= 1L << nodes[i];
+        }
+        return bits;
+    }
+
+    private static int toList(long[] bits, int[] nodes) {
+        int size = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                nodes[size++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Size and forward edge count of the frontier a level produced
+     */
+    private static final class Step {
+        private final AtomicInteger nodes = new AtomicInteger();
+        private final LongAdder edges = new LongAdder();
+
+        int nodes() {
+            return nodes.get();
+        }
+    }
+
+    private static final class TopDown extends RecursiveAction {
+        private final DenseGraph graph;
+        private final GraphTraversals.Direction direction;
+        private final int[] distances;
+        private final int[] frontier;
+        private final int[] next;
+        private final int level;
+        private final int from;
+        private final int to;
+        private final Step step;
+
+        TopDown(DenseGraph graph, GraphTraversals.Direction direction, int[] distances,
+                int[] frontier, int[] next, int level, int from, int to, Step step) {
+            this.graph = graph;
+            this.direction = direction;
+            this.distances = distances;
+            this.frontier = frontier;
+            this.next = next;
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TopDown(graph, direction, distances, frontier, next, level, from, mid, step),
+                        new TopDown(graph, direction, distances, frontier, next, level, mid, to, step));
+                return;
+            }
+            int[] found = new int[16];
+            int count = 0;
+            long edges = 0;
+            for (int i = from; i < to; i++) {
+                int node = frontier[i];
+                int degree = GraphTraversals.degree(graph, node, direction);
+                for (int e = 0; e < degree; e++) {
+                    int neighbor = GraphTraversals.neighbor(graph, node, direction, e);
+                    if (distances[neighbor] == -1
+                            && DISTANCE.compareAndSet(distances, neighbor, -1, level)) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = neighbor;
+                        edges += GraphTraversals.degree(graph, neighbor, direction);
+                    }
+                }
+            }
+            int at = step.nodes.getAndAdd(count);
+            System.arraycopy(found, 0, next, at, count);
+            step.edges.add(edges);
+        }
+    }
+
+    private static final class BottomUp extends RecursiveAction {
+        private final DenseGraph graph;
+        private final GraphTraversals.Direction parents;
+        private final GraphTraversals.Direction direction;
+        private final int[] distances;
+        private final long[] frontier;
+        private final long[] next;
+        private final int level;
+        private final int from;
+        private final int to;
+        private final Step step;
+
+        BottomUp(DenseGraph graph, GraphTraversals.Direction parents, GraphTraversals.Direction direction,
+                 int[] distances, long[] frontier, long[] next, int level, int from, int to, Step step) {
+            this.graph = graph;
+            this.parents = parents;
+            this.direction = direction;
+            this.distances = distances;
+            this.frontier = frontier;
+            this.next = next;
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN) {
+                // Split on a word boundary so each task owns whole words of the next bitmap
+                int mid = ((from + to) >>> 1) & ~63;
+                invokeAll(new BottomUp(graph, parents, direction, distances, frontier, next, level, from, mid, step),
+                        new BottomUp(graph, parents, direction, distances, frontier, next, level, mid, to, step));
+                return;
+            }
+            int count = 0;
+            long edges = 0;
+            for (int node = from; node < to; node++) {
+                if (distances[node] != -1) {
+                    continue;
+                }
+                int degree = GraphTraversals.degree(graph, node, parents);
+                for (int e = 0; e < degree; e++) {
+                    int parent = GraphTraversals.neighbor(graph, node, parents, e);
+                    if ((frontier[parent >>> 6] & (1L << parent)) != 0) {
+                        distances[node] = level;
+                        next[node >>> 6] |= 1L << node;
+                        count++;
+                        edges += GraphTraversals.degree(graph, node, direction);
+                        break;
+                    }
+                }
+            }
+            step.nodes.addAndGet(count);
+            step.edges.add(edges);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Answers "can node u reach node v" for one graph version without a traversal per query.
+ *
+ * The graph is collapsed to its {@link StronglyConnectedComponents} condensation, and every
+ * component gets GRAIL interval labels (Yildirim, Chaoji and Zaki, "GRAIL: Scalable
+ * Reachability Index for Large Graphs"): for each of a few randomized DFS passes over the
+ * DAG, a post-order rank and the lowest rank reachable below it. If v's interval is not
+ * nested in u's in every pass, u cannot reach v. The first pass also records each DFS
+ * subtree's rank range, which proves reachability when v lies in u's subtree. Only queries
+ * that neither test settles fall back to a DFS, pruned by the same labels.
+ *
+ * The index holds O(k * components) ints. Obtain it with {@link ImmutableGraph#reachability()},
+ * which builds it on first use and caches it per graph version. Queries are thread-safe.
+ */
+public final class ReachabilityIndex {
+
+    /** Number of randomized labelings */
+    private static final int LABELINGS = 3;
+
+    private final StronglyConnectedComponents components;
+    // [pass][component]: post-order rank, and lowest rank of anything it reaches
+    private final int[][] post;
+    private final int[][] low;
+    // First rank inside the component's subtree in the first pass's DFS tree
+    private final int[] subtreeStart;
+
+    private ReachabilityIndex(StronglyConnectedComponents components, int[][] post, int[][] low,
+                              int[] subtreeStart) {
+        this.components = components;
+        this.post = post;
+        this.low = low;
+        this.subtreeStart = subtreeStart;
+    }
+
+    public static ReachabilityIndex of(DenseGraph graph) {
+        return of(StronglyConnectedComponents.of(graph));
+    }
+
+    /**
+     * Index over components already found for the graph
+     */
+    public static ReachabilityIndex of(StronglyConnectedComponents components) {
+        int count = components.count();
+        int[][] post = new int[LABELINGS][count];
+        int[][] low = new int[LABELINGS][count];
+        int[] subtreeStart = new int[count];
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int pass = 0; pass < LABELINGS; pass++) {
+            label(components, post[pass], low[pass], pass == 0 ? subtreeStart : null, random);
+        }
+        return new ReachabilityIndex(components, post, low, subtreeStart);
+    }
+
+    /**
+     * One randomized post-order labeling of the condensation DAG
+     */
+    private static void label(StronglyConnectedComponents components, int[] post, int[] low,
+                              int[] subtreeStart, SplittableRandom random) {
+        int count = components.count();
+        int[] stack = new int[Math.max(1, count)];
+        int[] nextEdge = new int[Math.max(1, count)];
+        int[] firstEdge = new int[Math.max(1, count)];
+        int rank = 0;
+
+        int rootOffset = count == 0 ? 0 : random.nextInt(count);
+        for (int r = 0; r < count; r++) {
+            int root = (r + rootOffset) % count;
+            if (post[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            nextEdge[0] = 0;
+            firstEdge[0] = randomStart(components, root, random);
+            low[root] = Integer.MAX_VALUE;
+            if (subtreeStart != null) {
+                subtreeStart[root] = rank + 1;
+            }
+
+            while (depth >= 0) {
+                int c = stack[depth];
+                int degree = components.successorCount(c);
+                if (nextEdge[depth] < degree) {
+                    int child = components.successor(c, (firstEdge[depth] + nextEdge[depth]) % degree);
+                    nextEdge[depth]++;
+                    if (post[child] != 0) {
+                        low[c] = Math.min(low[c], low[child]);
+                    } else if (low[child] == 0) {
+                        // Unvisited: descend (low is set on entry, so 0 means never entered)
+                        low[child] = Integer.MAX_VALUE;
+                        if (subtreeStart != null) {
+                            subtreeStart[child] = rank + 1;
+                        }
+                        depth++;
+                        stack[depth] = child;
+                        nextEdge[depth] = 0;
+                        firstEdge[depth] = randomStart(components, child, random);
+                    }
+                    continue;
+                }
+                post[c] = ++rank;
+                low[c] = Math.min(low[c], post[c]);
+                depth--;
+                if (depth >= 0) {
+                    int parent = stack[depth];
+                    low[parent] = Math.min(low[parent], low[c]);
+                }
+            }
+        }
+    }
+
+    private static int randomStart(StronglyConnectedComponents components, int c, SplittableRandom random) {
+        int degree = components.successorCount(c);
+        return degree <= 1 ? 0 : random.nextInt(degree);
+    }
+
+    public StronglyConnectedComponents components() {
+        return components;
+    }
+
+    /**
+     * Whether there is a directed path from node u to node v; every node reaches itself
+     */
+    public boolean canReach(int u, int v) {
+        int from = components.component(u);
+        int to = components.component(v);
+        if (from == to) {
+            return true;
+        }
+        if (to > from || !mayReach(from, to)) {
+            return false;
+        }
+        if (inSubtree(from, to)) {
+            return true;
+        }
+        return search(from, to);
+    }
+
+    /**
+     * False only if component from certainly cannot reach component to
+     */
+    private boolean mayReach(int from, int to) {
+        for (int pass = 0; pass < LABELINGS; pass++) {
+            if (low[pass][to] < low[pass][from] || post[pass][to] > post[pass][from]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean inSubtree(int from, int to) {
+        int rank = post[0][to];
+        return subtreeStart[from] <= rank && rank <= post[0][from];
+    }
+
+    /**
+     * DFS over the condensation that never enters a component the labels rule out
+     */
+    private boolean search(int from, int to) {
+        BitSet visited = new BitSet(components.count());
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        visited.set(from);
+        while (size > 0) {
+            int c = stack[--size];
+            for (int i = 0; i < components.successorCount(c); i++) {
+                int next = components.successor(c, i);
+                if (next == to || inSubtree(next, to)) {
+                    return true;
+                }
+                if (!visited.get(next) && next > to && mayReach(next, to)) {
+                    visited.set(next);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = next;
+                }
+            }
+        }
+        return false;
+    }
+}
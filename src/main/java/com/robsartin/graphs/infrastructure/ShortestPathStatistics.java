@@ -0,0 +1,166 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hop-distance statistics of a {@link DenseGraph} along out-edges, from one BFS per source:
+ * the longest and the average distance over all reachable ordered pairs, how many pairs
+ * lie at each distance, and every node's closeness.
+ *
+ * Each BFS is folded into running totals as soon as it finishes, so no distance matrix is
+ * ever held: a worker needs a distance array, a queue and a distance histogram, O(n)
+ * however many sources it runs. Sources are split into ranges on a fork-join pool; each
+ * writes the closeness of its own sources and returns its totals, which are combined as
+ * ranges join.
+ */
+public final class ShortestPathStatistics {
+
+    /** Ranges per worker thread, so uneven BFS costs still balance */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final int diameter;
+    private final long distanceSum;
+    private final long pathCount;
+    private final double[] closeness;
+    private final DistanceDistribution distribution;
+
+    private ShortestPathStatistics(int diameter, long distanceSum, long pathCount, double[] closeness,
+                                   DistanceDistribution distribution) {
+        this.diameter = diameter;
+        this.distanceSum = distanceSum;
+        this.pathCount = pathCount;
+        this.closeness = closeness;
+        this.distribution = distribution;
+    }
+
+    public static ShortestPathStatistics compute(DenseGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        double[] closeness = new double[n];
+        if (n == 0) {
+            return new ShortestPathStatistics(0, 0, 0, closeness, new DistanceDistribution(new double[1]));
+        }
+        int grain = Math.max(1, n / (pool.getParallelism() * RANGES_PER_THREAD));
+        Totals totals = pool.invoke(new Sources(graph, closeness, 0, n, grain));
+        double[] pairs = new double[totals.diameter + 1];
+        for (int d = 1; d <= totals.diameter; d++) {
+            pairs[d] = totals.histogram[d];
+        }
+        return new ShortestPathStatistics(totals.diameter, totals.distanceSum, totals.pathCount, closeness,
+                new DistanceDistribution(pairs));
+    }
+
+    /**
+     * Longest distance between any pair where one reaches the other, 0 if no pair does
+     */
+    public int diameter() {
+        return diameter;
+    }
+
+    /**
+     * Mean distance over ordered pairs of distinct nodes where the first reaches the second,
+     * 0 if no pair does
+     */
+    public double averagePathLength() {
+        return pathCount > 0 ? (double) distanceSum / pathCount : 0.0;
+    }
+
+    /**
+     * Exact number of pairs at each distance
+     */
+    public DistanceDistribution distanceDistribution() {
+        return distribution;
+    }
+
+    /**
+     * Number of nodes v reaches divided by the sum of their distances, 0 if v reaches none
+     */
+    public double closeness(int v) {
+        return closeness[v];
+    }
+
+    private static final class Totals {
+        final long[] histogram;
+        int diameter;
+        long distanceSum;
+        long pathCount;
+
+        Totals(int n) {
+            histogram = new long[n];
+        }
+
+        void add(Totals other) {
+            for (int d = 1; d <= other.diameter; d++) {
+                histogram[d] += other.histogram[d];
+            }
+            diameter = Math.max(diameter, other.diameter);
+            distanceSum += other.distanceSum;
+            pathCount += other.pathCount;
+        }
+    }
+
+    private static final class Sources extends RecursiveTask<Totals> {
+        private final DenseGraph graph;
+        private final double[] closeness;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Sources(DenseGraph graph, double[] closeness, int from, int to, int grain) {
+            this.graph = graph;
+            this.closeness = closeness;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Sources right = new Sources(graph, closeness, mid, to, grain);
+                right.fork();
+                Totals totals = new Sources(graph, closeness, from, mid, grain).compute();
+                totals.add(right.join());
+                return totals;
+            }
+
+            Totals totals = new Totals(graph.nodeCount());
+            int[] distance = new int[graph.nodeCount()];
+            int[] queue = new int[graph.nodeCount()];
+            Arrays.fill(distance, -1);
+            for (int source = from; source < to; source++) {
+                distance[source] = 0;
+                queue[0] = source;
+                int tail = 1;
+                long sum = 0;
+                for (int head = 0; head < tail; head++) {
+                    int v = queue[head];
+                    int next = distance[v] + 1;
+                    for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                        int w = graph.outNeighbor(v, i);
+                        if (distance[w] < 0) {
+                            distance[w] = next;
+                            queue[tail++] = w;
+                            sum += next;
+                            totals.histogram[next]++;
+                        }
+                    }
+                }
+                int reached = tail - 1;
+                if (reached > 0) {
+                    closeness[source] = (double) reached / sum;
+                    totals.diameter = Math.max(totals.diameter, distance[queue[tail - 1]]);
+                    totals.distanceSum += sum;
+                    totals.pathCount += reached;
+                }
+                // Reset only what this source touched
+                for (int k = 0; k < tail; k++) {
+                    distance[queue[k]] = -1;
+                }
+            }
+            return totals;
+        }
+    }
+}
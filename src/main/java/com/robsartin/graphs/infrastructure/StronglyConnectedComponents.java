@@ -0,0 +1,456 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Strongly connected components of a {@link DenseGraph} and the condensation DAG they induce.
+ *
+ * {@link #of} finds components with an iterative Tarjan search, so deep graphs cannot
+ * overflow the thread stack. {@link #ofParallel} finds the same components with the
+ * forward-backward algorithm on a fork-join pool, for graphs large enough to pay for it.
+ * Either way they are numbered in a reverse topological order of the condensation: every
+ * edge between two components goes from a higher component number to a lower one.
+ */
+public final class StronglyConnectedComponents {
+
+    /** Smallest part that is handed to the pool as its own task */
+    static final int PARALLEL_GRAIN = 4096;
+
+    private final int[] component;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+
+    private StronglyConnectedComponents(int[] component, int[] memberOffsets, int[] members,
+                                        int[] dagOffsets, int[] dagTargets) {
+        this.component = component;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+        this.dagOffsets = dagOffsets;
+        this.dagTargets = dagTargets;
+    }
+
+    public static StronglyConnectedComponents of(DenseGraph graph) {
+        int[] component = tarjan(graph);
+        int count = 0;
+        for (int c : component) {
+            count = Math.max(count, c + 1);
+        }
+        return build(graph, component, count);
+    }
+
+    /**
+     * Same components as {@link #of}, found on pool with the forward-backward algorithm of
+     * Fleischer, Hendrickson and Pinar.
+     *
+     * Nodes left without a predecessor or a successor are first trimmed off as singleton
+     * components. In each remaining partition, the nodes a random pivot reaches and the nodes
+     * that reach it intersect in the pivot's component; no other component crosses between
+     * the forward-only, backward-only and unreached parts, so those are split independently.
+     * Parts of at least {@link #PARALLEL_GRAIN} nodes become fork-join tasks; smaller ones are
+     * split from a work list in the task that found them, so nothing recurses per part.
+     */
+    public static StronglyConnectedComponents ofParallel(DenseGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        AtomicInteger components = new AtomicInteger();
+        int[] remaining = trim(graph, component, components);
+
+        if (remaining.length > 0) {
+            // Partition label of each node still being split, -1 once it has a component
+            int[] partition = new int[n];
+            for (int v = 0; v < n; v++) {
+                if (component[v] != -1) {
+                    partition[v] = -1;
+                }
+            }
+            pool.invoke(new Split(graph, component, partition, components, new AtomicInteger(1), remaining));
+        }
+
+        int count = components.get();
+        renumberTopologically(graph, component, count);
+        return build(graph, component, count);
+    }
+
+    /**
+     * Repeatedly assigns singleton components to nodes with no remaining predecessor or no
+     * remaining successor; returns the nodes left over
+     */
+    private static int[] trim(DenseGraph graph, int[] component, AtomicInteger components) {
+        int n = graph.nodeCount();
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            inDegree[v] = graph.inDegree(v);
+            outDegree[v] = graph.outDegree(v);
+            if (inDegree[v] == 0 || outDegree[v] == 0) {
+                component[v] = components.getAndIncrement();
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = queue[head];
+            for (int i = 0, degree = graph.outDegree(u); i < degree; i++) {
+                int w = graph.outNeighbor(u, i);
+                if (component[w] == -1 && --inDegree[w] == 0) {
+                    component[w] = components.getAndIncrement();
+                    queue[tail++] = w;
+                }
+            }
+            for (int i = 0, degree = graph.inDegree(u); i < degree; i++) {
+                int w = graph.inNeighbor(u, i);
+                if (component[w] == -1 && --outDegree[w] == 0) {
+                    component[w] = components.getAndIncrement();
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        int[] remaining = new int[n - tail];
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (component[v] == -1) {
+                remaining[size++] = v;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Rewrites arbitrary component numbers so that they fall along every condensation edge,
+     * using Kahn's algorithm over the components
+     */
+    private static void renumberTopologically(DenseGraph graph, int[] component, int count) {
+        int n = graph.nodeCount();
+        int[] memberOffsets = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[component[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[n];
+        int[] cursor = Arrays.copyOf(memberOffsets, count);
+        int[] inDegree = new int[count];
+        for (int v = 0; v < n; v++) {
+            members[cursor[component[v]]++] = v;
+            for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                int d = component[graph.outNeighbor(v, i)];
+                if (d != component[v]) {
+                    inDegree[d]++;
+                }
+            }
+        }
+
+        int[] queue = new int[count];
+        int tail = 0;
+        for (int c = 0; c < count; c++) {
+            if (inDegree[c] == 0) {
+                queue[tail++] = c;
+            }
+        }
+        int[] number = new int[count];
+        for (int head = 0; head < tail; head++) {
+            int c = queue[head];
+            number[c] = count - 1 - head;
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = members[m];
+                for (int i = 0, degree = graph.outDegree(v); i < degree; i++) {
+                    int d = component[graph.outNeighbor(v, i)];
+                    if (d != c && --inDegree[d] == 0) {
+                        queue[tail++] = d;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            component[v] = number[component[v]];
+        }
+    }
+
+    /**
+     * Splits one part of the graph and, from a work list, every smaller part it produces.
+     * Tasks only write the entries of nodes in their own parts; reading a neighbour's
+     * partition label while another task rewrites it is harmless, because labels are never
+     * reused and so never match the labels this task is looking for.
+     */
+    private static final class Split extends RecursiveAction {
+        private final DenseGraph graph;
+        private final int[] component;
+        private final int[] partition;
+        private final AtomicInteger components;
+        private final AtomicInteger partitions;
+        private final int[] nodes;
+
+        Split(DenseGraph graph, int[] component, int[] partition, AtomicInteger components,
+              AtomicInteger partitions, int[] nodes) {
+            this.graph = graph;
+            this.component = component;
+            this.partition = partition;
+            this.components = components;
+            this.partitions = partitions;
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> forked = new ArrayList<>();
+            ArrayDeque<int[]> parts = new ArrayDeque<>();
+            parts.push(nodes);
+            while (!parts.isEmpty()) {
+                for (int[] part : split(parts.pop())) {
+                    if (part.length >= PARALLEL_GRAIN) {
+                        forked.add(new Split(graph, component, partition, components, partitions, part).fork());
+                    } else {
+                        parts.push(part);
+                    }
+                }
+            }
+            for (ForkJoinTask<?> task : forked) {
+                task.join();
+            }
+        }
+
+        /**
+         * Assigns the component of a random pivot and returns the non-empty parts left over
+         */
+        private List<int[]> split(int[] part) {
+            int label = partition[part[0]];
+            int forward = partitions.getAndIncrement();
+            int backward = partitions.getAndIncrement();
+            int pivot = part[ThreadLocalRandom.current().nextInt(part.length)];
+            int[] queue = new int[part.length];
+
+            // Forward search relabels what the pivot reaches within the part
+            partition[pivot] = forward;
+            queue[0] = pivot;
+            for (int head = 0, tail = 1; head < tail; head++) {
+                int u = queue[head];
+                for (int i = 0, degree = graph.outDegree(u); i < degree; i++) {
+                    int w = graph.outNeighbor(u, i);
+                    if (partition[w] == label) {
+                        partition[w] = forward;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            // Backward search: nodes reached both ways form the pivot's component
+            int c = components.getAndIncrement();
+            partition[pivot] = -1;
+            component[pivot] = c;
+            queue[0] = pivot;
+            for (int head = 0, tail = 1; head < tail; head++) {
+                int u = queue[head];
+                for (int i = 0, degree = graph.inDegree(u); i < degree; i++) {
+                    int w = graph.inNeighbor(u, i);
+                    if (partition[w] == forward) {
+                        partition[w] = -1;
+                        component[w] = c;
+                        queue[tail++] = w;
+                    } else if (partition[w] == label) {
+                        partition[w] = backward;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            int forwardSize = 0;
+            int backwardSize = 0;
+            int restSize = 0;
+            for (int v : part) {
+                int p = partition[v];
+                if (p == forward) {
+                    forwardSize++;
+                } else if (p == backward) {
+                    backwardSize++;
+                } else if (p == label) {
+                    restSize++;
+                }
+            }
+            int[] forwardPart = new int[forwardSize];
+            int[] backwardPart = new int[backwardSize];
+            int[] restPart = new int[restSize];
+            forwardSize = backwardSize = restSize = 0;
+            for (int v : part) {
+                int p = partition[v];
+                if (p == forward) {
+                    forwardPart[forwardSize++] = v;
+                } else if (p == backward) {
+                    backwardPart[backwardSize++] = v;
+                } else if (p == label) {
+                    restPart[restSize++] = v;
+                }
+            }
+
+            List<int[]> rest = new ArrayList<>(3);
+            for (int[] nonEmpty : new int[][] {forwardPart, backwardPart, restPart}) {
+                if (nonEmpty.length > 0) {
+                    rest.add(nonEmpty);
+                }
+            }
+            return rest;
+        }
+    }
+
+    /**
+     * Groups members and condensation edges for components numbered in reverse topological order
+     */
+    private static StronglyConnectedComponents build(DenseGraph graph, int[] component, int count) {
+        int n = graph.nodeCount();
+
+        // Members of each component, grouped by counting sort
+        int[] memberOffsets = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[component[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[n];
+        int[] cursor = Arrays.copyOf(memberOffsets, count);
+        for (int v = 0; v < n; v++) {
+            members[cursor[component[v]]++] = v;
+        }
+
+        // Distinct edges between components
+        int[] dagOffsets = new int[count + 1];
+        int[] dagTargets = new int[Math.max(1, Math.min(graph.edgeCount(), 16))];
+        int[] marks = new int[count];
+        Arrays.fill(marks, -1);
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = members[m];
+                for (int i = 0; i < graph.outDegree(v); i++) {
+                    int d = component[graph.outNeighbor(v, i)];
+                    if (d != c && marks[d] != c) {
+                        marks[d] = c;
+                        if (size == dagTargets.length) {
+                            dagTargets = Arrays.copyOf(dagTargets, size * 2);
+                        }
+                        dagTargets[size++] = d;
+                    }
+                }
+            }
+            dagOffsets[c + 1] = size;
+        }
+
+        return new StronglyConnectedComponents(component, memberOffsets, members,
+                dagOffsets, Arrays.copyOf(dagTargets, size));
+    }
+
+    /**
+     * Iterative Tarjan; returns each node's component number
+     */
+    private static int[] tarjan(DenseGraph graph) {
+        int n = graph.nodeCount();
+        int[] order = new int[n];      // discovery index + 1, 0 while undiscovered
+        int[] low = new int[n];
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] stack = new int[n];      // Tarjan's stack of open nodes
+        int[] path = new int[n];       // explicit DFS call stack
+        int[] nextEdge = new int[n];
+        int stackSize = 0;
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            path[0] = root;
+            nextEdge[0] = 0;
+            order[root] = low[root] = ++counter;
+            stack[stackSize++] = root;
+
+            while (depth >= 0) {
+                int node = path[depth];
+                int edge = nextEdge[depth];
+                if (edge < graph.outDegree(node)) {
+                    nextEdge[depth] = edge + 1;
+                    int successor = graph.outNeighbor(node, edge);
+                    if (order[successor] == 0) {
+                        order[successor] = low[successor] = ++counter;
+                        stack[stackSize++] = successor;
+                        depth++;
+                        path[depth] = successor;
+                        nextEdge[depth] = 0;
+                    } else if (component[successor] == -1) {
+                        low[node] = Math.min(low[node], order[successor]);
+                    }
+                    continue;
+                }
+
+                if (low[node] == order[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        component[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = path[depth];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+            }
+        }
+        return component;
+    }
+
+    public int count() {
+        return memberOffsets.length - 1;
+    }
+
+    /**
+     * Component number of node v
+     */
+    public int component(int v) {
+        return component[v];
+    }
+
+    public int size(int c) {
+        return memberOffsets[c + 1] - memberOffsets[c];
+    }
+
+    /**
+     * The i-th node of component c, for 0 &lt;= i &lt; size(c)
+     */
+    public int member(int c, int i) {
+        return members[memberOffsets[c] + i];
+    }
+
+    /**
+     * Number of distinct components component c has an edge to
+     */
+    public int successorCount(int c) {
+        return dagOffsets[c + 1] - dagOffsets[c];
+    }
+
+    /**
+     * The i-th component component c has an edge to; always a lower number than c
+     */
+    public int successor(int c, int i) {
+        return dagTargets[dagOffsets[c] + i];
+    }
+
+    public int dagEdgeCount() {
+        return dagTargets.length;
+    }
+}
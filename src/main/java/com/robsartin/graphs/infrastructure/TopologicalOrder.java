@@ -0,0 +1,158 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Topological order and critical path of one graph version, or a cycle proving there is none.
+ *
+ * The order comes from Kahn's algorithm over a primitive in-degree array: nodes whose
+ * in-degree drops to zero are appended to a flat int queue, which becomes the order. If
+ * nodes remain, each of them still has a remaining predecessor, so walking predecessors
+ * from any of them must revisit a node, and the walk closes a cycle. The critical path is
+ * the longest path by hop count, found by one relaxation pass in topological order.
+ *
+ * Obtain it with {@link ImmutableGraph#topologicalOrder()}, which builds it on first use and
+ * caches it per graph version. Instances are immutable and thread-safe.
+ */
+public final class TopologicalOrder {
+
+    private final DenseGraph graph;
+    private final int[] order;         // dense node indices in topological order; empty if cyclic
+    private final int[] cycle;         // a directed cycle, first node not repeated; empty if acyclic
+    private final int[] criticalPath;  // a longest path by hops; empty if cyclic or empty
+
+    private TopologicalOrder(DenseGraph graph, int[] order, int[] cycle, int[] criticalPath) {
+        this.graph = graph;
+        this.order = order;
+        this.cycle = cycle;
+        this.criticalPath = criticalPath;
+    }
+
+    public static TopologicalOrder of(DenseGraph graph) {
+        int n = graph.nodeCount();
+        int[] inDegree = new int[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            inDegree[v] = graph.inDegree(v);
+            if (inDegree[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = queue[head];
+            for (int i = 0, degree = graph.outDegree(u); i < degree; i++) {
+                int w = graph.outNeighbor(u, i);
+                if (--inDegree[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        if (tail < n) {
+            return new TopologicalOrder(graph, new int[0], findCycle(graph, inDegree), new int[0]);
+        }
+        return new TopologicalOrder(graph, queue, new int[0], longestPath(graph, queue));
+    }
+
+    /**
+     * Walks predecessors among the nodes Kahn's algorithm could not remove until one repeats
+     */
+    private static int[] findCycle(DenseGraph graph, int[] remainingInDegree) {
+        int n = graph.nodeCount();
+        int start = 0;
+        while (remainingInDegree[start] == 0) {
+            start++;
+        }
+        // Step at which each node was first visited, -1 if not yet
+        int[] step = new int[n];
+        Arrays.fill(step, -1);
+        int[] walk = new int[n + 1];
+        int length = 0;
+        int v = start;
+        while (step[v] < 0) {
+            step[v] = length;
+            walk[length++] = v;
+            int next = -1;
+            for (int i = 0, degree = graph.inDegree(v); i < degree && next < 0; i++) {
+                int u = graph.inNeighbor(v, i);
+                if (remainingInDegree[u] > 0) {
+                    next = u;
+                }
+            }
+            v = next;
+        }
+        // The walk follows edges backwards; reverse the closed part to list it forwards
+        int[] cycle = new int[length - step[v]];
+        for (int i = 0; i < cycle.length; i++) {
+            cycle[i] = walk[length - 1 - i];
+        }
+        return cycle;
+    }
+
+    private static int[] longestPath(DenseGraph graph, int[] order) {
+        int n = order.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int[] hops = new int[n];
+        int[] previous = new int[n];
+        Arrays.fill(previous, -1);
+        int end = order[0];
+        for (int u : order) {
+            for (int i = 0, degree = graph.outDegree(u); i < degree; i++) {
+                int w = graph.outNeighbor(u, i);
+                if (hops[u] + 1 > hops[w]) {
+                    hops[w] = hops[u] + 1;
+                    previous[w] = u;
+                }
+            }
+            if (hops[u] > hops[end]) {
+                end = u;
+            }
+        }
+        int[] path = new int[hops[end] + 1];
+        for (int i = path.length - 1, v = end; i >= 0; i--, v = previous[v]) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    public boolean isAcyclic() {
+        return cycle.length == 0;
+    }
+
+    /**
+     * Node IDs in topological order: every edge goes from an earlier node to a later one.
+     * Empty if the graph has a cycle.
+     */
+    public List<UUID> order() {
+        return nodeIds(order);
+    }
+
+    /**
+     * Node IDs of one directed cycle, each with an edge to the next and the last with an
+     * edge back to the first. Empty if the graph is acyclic.
+     */
+    public List<UUID> cycle() {
+        return nodeIds(cycle);
+    }
+
+    /**
+     * Node IDs of a longest path by edge count, from its first node to its last.
+     * Empty if the graph has a cycle or no nodes.
+     */
+    public List<UUID> criticalPath() {
+        return nodeIds(criticalPath);
+    }
+
+    private List<UUID> nodeIds(int[] nodes) {
+        List<UUID> ids = new ArrayList<>(nodes.length);
+        for (int v : nodes) {
+            ids.add(graph.nodeId(v));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,75 @@
+package com.robsartin.graphs.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded ring of the most recent versions of a value, numbered 1, 2, 3, ... in the
+ * order they were added. Once the ring is full, each new version evicts the oldest.
+ *
+ * Meant for persistent structures such as {@link ImmutableGraph}, where consecutive
+ * versions share everything but their changes, so retaining them is cheap.
+ * Thread-safe.
+ */
+public final class VersionRing<T> {
+
+    private final Object[] slots;
+    private long latestVersion;
+
+    public VersionRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.slots = new Object[capacity];
+    }
+
+    /**
+     * Adds a new latest version, returns its number
+     */
+    public synchronized long add(T value) {
+        latestVersion++;
+        slots[slot(latestVersion)] = value;
+        return latestVersion;
+    }
+
+    /**
+     * The given version, or empty if it was never added or has been evicted
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Optional<T> get(long version) {
+        if (version < oldestVersion() || version > latestVersion || version < 1) {
+            return Optional.empty();
+        }
+        return Optional.of((T) slots[slot(version)]);
+    }
+
+    /**
+     * Number of the newest version, 0 while the ring is empty
+     */
+    public synchronized long latestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Number of the oldest version still retained, 0 while the ring is empty
+     */
+    public synchronized long oldestVersion() {
+        return latestVersion == 0 ? 0 : Math.max(1, latestVersion - slots.length + 1);
+    }
+
+    /**
+     * Numbers of all retained versions, oldest first
+     */
+    public synchronized List<Long> versions() {
+        List<Long> versions = new ArrayList<>();
+        for (long v = oldestVersion(); v >= 1 && v <= latestVersion; v++) {
+            versions.add(v);
+        }
+        return versions;
+    }
+
+    private int slot(long version) {
+        return (int) ((version - 1) % slots.length);
+    }
+}
@@ -5,6 +5,7 @@ import com.robsartin.graphs.ports.out.GraphDegreeDistributionRepository;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -31,6 +32,16 @@ public class GraphDegreeDistributionRepositoryAdapter implements GraphDegreeDist
         return jpaRepository.findByGraphId(graphId);
     }
 
+    @Override
+    public Optional<GraphDegreeDistribution> findByGraphIdAndDegreeValue(UUID graphId, int degreeValue) {
+        return jpaRepository.findByGraphIdAndDegreeValue(graphId, degreeValue);
+    }
+
+    @Override
+    public void delete(GraphDegreeDistribution distribution) {
+        jpaRepository.delete(distribution);
+    }
+
     @Override
     public void deleteByGraphId(UUID graphId) {
         jpaRepository.deleteByGraphId(graphId);
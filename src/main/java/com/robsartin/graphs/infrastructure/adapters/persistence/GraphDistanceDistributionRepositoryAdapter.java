@@ -0,0 +1,38 @@
+package com.robsartin.graphs.infrastructure.adapters.persistence;
+
+import com.robsartin.graphs.models.GraphDistanceDistribution;
+import com.robsartin.graphs.ports.out.GraphDistanceDistributionRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class GraphDistanceDistributionRepositoryAdapter implements GraphDistanceDistributionRepository {
+
+    private final JpaGraphDistanceDistributionRepository jpaRepository;
+
+    public GraphDistanceDistributionRepositoryAdapter(JpaGraphDistanceDistributionRepository jpaRepository) {
+        this.jpaRepository = jpaRepository;
+    }
+
+    @Override
+    public GraphDistanceDistribution save(GraphDistanceDistribution distribution) {
+        return jpaRepository.save(distribution);
+    }
+
+    @Override
+    public List<GraphDistanceDistribution> saveAll(List<GraphDistanceDistribution> distributionList) {
+        return jpaRepository.saveAll(distributionList);
+    }
+
+    @Override
+    public List<GraphDistanceDistribution> findByGraphId(UUID graphId) {
+        return jpaRepository.findByGraphId(graphId);
+    }
+
+    @Override
+    public void deleteByGraphId(UUID graphId) {
+        jpaRepository.deleteByGraphId(graphId);
+    }
+}
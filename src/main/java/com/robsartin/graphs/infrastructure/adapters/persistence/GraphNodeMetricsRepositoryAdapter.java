@@ -5,6 +5,7 @@ import com.robsartin.graphs.ports.out.GraphNodeMetricsRepository;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -31,8 +32,28 @@ public class GraphNodeMetricsRepositoryAdapter implements GraphNodeMetricsReposi
         return jpaRepository.findByGraphId(graphId);
     }
 
+    @Override
+    public Optional<GraphNodeMetrics> findByGraphIdAndNodeId(UUID graphId, UUID nodeId) {
+        return jpaRepository.findByGraphIdAndNodeId(graphId, nodeId);
+    }
+
+    @Override
+    public void delete(GraphNodeMetrics metrics) {
+        jpaRepository.delete(metrics);
+    }
+
     @Override
     public void deleteByGraphId(UUID graphId) {
         jpaRepository.deleteByGraphId(graphId);
     }
+
+    @Override
+    public void rescaleDegreeCentrality(UUID graphId, int nodeCount) {
+        // Same normalization as a full computation: total degree over 2(n - 1), 0 below two nodes
+        if (nodeCount <= 1) {
+            jpaRepository.clearDegreeCentrality(graphId);
+        } else {
+            jpaRepository.updateDegreeCentrality(graphId, 2.0 * (nodeCount - 1));
+        }
+    }
 }
@@ -2,8 +2,10 @@ package com.robsartin.graphs.infrastructure.adapters.persistence;
 
 import com.robsartin.graphs.config.CacheConfiguration;
 import com.robsartin.graphs.events.GraphSavedEvent;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
 import com.robsartin.graphs.models.Graph;
 import com.robsartin.graphs.ports.out.GraphRepository;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
@@ -13,6 +15,8 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +26,9 @@ import java.util.UUID;
  * Adapter that implements the GraphRepository port using Spring Data JPA.
  * This adapter translates between the domain port interface and the JPA repository.
  * All read operations are cached with LRU eviction policy.
+ * Every committed save also records the graph's immutable structure as a new retained
+ * version, and loaded graphs continue from their latest retained version when it matches
+ * their rows.
  */
 @Component
 public class GraphRepositoryAdapter implements GraphRepository {
@@ -30,11 +37,14 @@ public class GraphRepositoryAdapter implements GraphRepository {
 
     private final JpaGraphRepository jpaGraphRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final GraphVersionRepository versionRepository;
 
     public GraphRepositoryAdapter(JpaGraphRepository jpaGraphRepository,
-                                  ApplicationEventPublisher eventPublisher) {
+                                  ApplicationEventPublisher eventPublisher,
+                                  GraphVersionRepository versionRepository) {
         this.jpaGraphRepository = jpaGraphRepository;
         this.eventPublisher = eventPublisher;
+        this.versionRepository = versionRepository;
     }
 
     @Override
@@ -44,26 +54,56 @@ public class GraphRepositoryAdapter implements GraphRepository {
     })
     public Graph save(Graph graph) {
         Graph savedGraph = jpaGraphRepository.save(graph);
-        log.info("Publishing GraphSavedEvent for graph {}", savedGraph.getId());
-        eventPublisher.publishEvent(new GraphSavedEvent(savedGraph.getId()));
+        // Saving merges, and a merged copy's transient structure is empty or rebuilt from the old rows.
+        // A lineage whose node numbering has grown sparse restarts here, at most once per growth
+        savedGraph.setImmutableGraph(graph.getImmutableGraph().compacted());
+        UUID graphId = savedGraph.getId();
+        ImmutableGraph<String, String> structure = savedGraph.getImmutableGraph();
+        afterCommit(() -> {
+            long version = versionRepository.save(graphId, structure);
+            log.debug("Recorded version {} of graph {}", version, graphId);
+            log.info("Publishing GraphSavedEvent for graph {}", graphId);
+            eventPublisher.publishEvent(new GraphSavedEvent(graphId, version));
+        });
         return savedGraph;
     }
 
+    /**
+     * Runs an action once the surrounding transaction commits, so a rolled-back save leaves
+     * no version behind, or right away when there is none and the save has already committed
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new AfterCommitAdapter(action));
+    }
+
+    private record AfterCommitAdapter(Runnable action) implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            action.run();
+        }
+    }
+
     @Override
     @Cacheable(value = CacheConfiguration.GRAPH_BY_ID_CACHE, key = "#id")
     public Optional<Graph> findById(UUID id) {
-        return jpaGraphRepository.findById(id);
+        return jpaGraphRepository.findById(id).map(this::continueLatestVersion);
     }
 
     @Override
     @Cacheable(value = CacheConfiguration.GRAPHS_CACHE)
     public List<Graph> findAll() {
-        return jpaGraphRepository.findAll();
+        List<Graph> graphs = jpaGraphRepository.findAll();
+        graphs.forEach(this::continueLatestVersion);
+        return graphs;
     }
 
     @Override
     public Page<Graph> findAll(Pageable pageable) {
-        return jpaGraphRepository.findAll(pageable);
+        return jpaGraphRepository.findAll(pageable).map(this::continueLatestVersion);
     }
 
     @Override
@@ -73,6 +113,23 @@ public class GraphRepositoryAdapter implements GraphRepository {
     })
     public void deleteById(UUID id) {
         jpaGraphRepository.deleteById(id);
+        versionRepository.deleteByGraphId(id);
+    }
+
+    /**
+     * Swaps a loaded graph's structure, rebuilt from its rows, for the latest retained
+     * version of it, so edits and their saved versions share structure with the versions
+     * before them and diffs between them only visit what changed. The version is only used
+     * when its nodes, labels and edges all match the rows; one another instance's writes
+     * have overtaken is left alone.
+     */
+    private Graph continueLatestVersion(Graph graph) {
+        ImmutableGraph<String, String> rebuilt = graph.getImmutableGraph();
+        versionRepository.findLatestVersion(graph.getId())
+                .map(GraphVersionRepository.GraphVersion::graph)
+                .filter(latest -> latest.nodeCount() == rebuilt.nodeCount() && latest.diff(rebuilt).isEmpty())
+                .ifPresent(graph::setImmutableGraph);
+        return graph;
     }
 
     @Override
@@ -87,5 +144,6 @@ public class GraphRepositoryAdapter implements GraphRepository {
     })
     public void deleteAll() {
         jpaGraphRepository.deleteAll();
+        versionRepository.deleteAll();
     }
 }
@@ -0,0 +1,69 @@
+package com.robsartin.graphs.infrastructure.adapters.persistence;
+
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.infrastructure.VersionRing;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapter that implements the GraphVersionRepository port in memory.
+ * Each graph keeps a {@link VersionRing} of its latest immutable structures; because
+ * versions share structure, the ring costs memory proportional to the edits it spans.
+ * Versions are not persisted and start again from 1 after a restart.
+ */
+@Component
+public class GraphVersionRepositoryAdapter implements GraphVersionRepository {
+
+    private final Map<UUID, VersionRing<ImmutableGraph<String, String>>> versions = new ConcurrentHashMap<>();
+    private final int retainedVersions;
+
+    public GraphVersionRepositoryAdapter(@Value("${app.graph.retained-versions:32}") int retainedVersions) {
+        this.retainedVersions = retainedVersions;
+    }
+
+    @Override
+    public long save(UUID graphId, ImmutableGraph<String, String> graph) {
+        return versions.computeIfAbsent(graphId, id -> new VersionRing<>(retainedVersions)).add(graph);
+    }
+
+    @Override
+    public Optional<ImmutableGraph<String, String>> findVersion(UUID graphId, long version) {
+        VersionRing<ImmutableGraph<String, String>> ring = versions.get(graphId);
+        return ring == null ? Optional.empty() : ring.get(version);
+    }
+
+    @Override
+    public Optional<GraphVersion> findLatestVersion(UUID graphId) {
+        VersionRing<ImmutableGraph<String, String>> ring = versions.get(graphId);
+        if (ring == null) {
+            return Optional.empty();
+        }
+        synchronized (ring) {
+            long latest = ring.latestVersion();
+            return ring.get(latest).map(graph -> new GraphVersion(latest, graph));
+        }
+    }
+
+    @Override
+    public List<Long> findVersionNumbers(UUID graphId) {
+        VersionRing<ImmutableGraph<String, String>> ring = versions.get(graphId);
+        return ring == null ? List.of() : ring.versions();
+    }
+
+    @Override
+    public void deleteByGraphId(UUID graphId) {
+        versions.remove(graphId);
+    }
+
+    @Override
+    public void deleteAll() {
+        versions.clear();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -14,6 +15,8 @@ public interface JpaGraphDegreeDistributionRepository extends JpaRepository<Grap
 
     List<GraphDegreeDistribution> findByGraphId(UUID graphId);
 
+    Optional<GraphDegreeDistribution> findByGraphIdAndDegreeValue(UUID graphId, int degreeValue);
+
     @Modifying
     @Query("DELETE FROM GraphDegreeDistribution d WHERE d.graph.id = :graphId")
     void deleteByGraphId(UUID graphId);
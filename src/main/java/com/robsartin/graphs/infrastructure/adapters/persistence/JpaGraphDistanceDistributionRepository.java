@@ -0,0 +1,20 @@
+package com.robsartin.graphs.infrastructure.adapters.persistence;
+
+import com.robsartin.graphs.models.GraphDistanceDistribution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaGraphDistanceDistributionRepository extends JpaRepository<GraphDistanceDistribution, UUID> {
+
+    List<GraphDistanceDistribution> findByGraphId(UUID graphId);
+
+    @Modifying
+    @Query("DELETE FROM GraphDistanceDistribution d WHERE d.graph.id = :graphId")
+    void deleteByGraphId(UUID graphId);
+}
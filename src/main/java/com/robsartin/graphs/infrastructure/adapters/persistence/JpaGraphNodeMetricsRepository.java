@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -14,7 +15,18 @@ public interface JpaGraphNodeMetricsRepository extends JpaRepository<GraphNodeMe
 
     List<GraphNodeMetrics> findByGraphId(UUID graphId);
 
+    Optional<GraphNodeMetrics> findByGraphIdAndNodeId(UUID graphId, UUID nodeId);
+
     @Modifying
     @Query("DELETE FROM GraphNodeMetrics m WHERE m.graph.id = :graphId")
     void deleteByGraphId(UUID graphId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE GraphNodeMetrics m SET m.degreeCentrality = (m.inDegree + m.outDegree) / :maxDegree "
+            + "WHERE m.graph.id = :graphId")
+    void updateDegreeCentrality(UUID graphId, double maxDegree);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE GraphNodeMetrics m SET m.degreeCentrality = 0 WHERE m.graph.id = :graphId")
+    void clearDegreeCentrality(UUID graphId);
 }
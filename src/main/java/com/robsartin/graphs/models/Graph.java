@@ -14,8 +14,11 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -101,6 +104,63 @@ public class Graph {
         this.edges.add(edge);
     }
 
+    /**
+     * Adds many nodes at once. A batch larger than the graph rebuilds the immutable graph
+     * in a single pass instead of one persistent edit per node; a smaller one is applied as
+     * edits, so the result keeps sharing structure with the versions before it.
+     */
+    public List<GraphNode> addNodes(List<String> nodeNames) {
+        List<GraphNode> added = new ArrayList<>(nodeNames.size());
+        for (String nodeName : nodeNames) {
+            GraphNode node = new GraphNode(nodeName, UuidV7Generator.generate());
+            node.setGraph(this);
+            added.add(node);
+        }
+        this.nodes.addAll(added);
+        if (added.size() > immutableGraph.nodeCount()) {
+            rebuildImmutableGraph();
+        } else {
+            for (GraphNode node : added) {
+                this.immutableGraph = immutableGraph.addNodeWithId(node.getId(), node.getName()).getGraph();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds many edges at once, rebuilding the immutable graph in a single pass when the
+     * batch is larger than the graph and applying them as edits otherwise.
+     *
+     * @throws IllegalArgumentException if any endpoint is not a node of this graph
+     */
+    public void addEdges(List<ImmutableGraph.NodePair> pairs) {
+        for (ImmutableGraph.NodePair pair : pairs) {
+            if (!immutableGraph.containsNode(pair.from()) || !immutableGraph.containsNode(pair.to())) {
+                throw new IllegalArgumentException("Both nodes must exist in the graph");
+            }
+        }
+        for (ImmutableGraph.NodePair pair : pairs) {
+            this.edges.add(new GraphEdge(this, pair.from(), pair.to()));
+        }
+        if (pairs.size() > immutableGraph.nodeCount()) {
+            rebuildImmutableGraph();
+        } else {
+            for (ImmutableGraph.NodePair pair : pairs) {
+                this.immutableGraph = immutableGraph.addEdge(pair.from(), pair.to(), "edge");
+            }
+        }
+    }
+
+    public boolean renameNode(UUID nodeId, String nodeName) {
+        GraphNode node = findNodeById(nodeId);
+        if (node == null) {
+            return false;
+        }
+        node.setName(nodeName);
+        this.immutableGraph = immutableGraph.relabelNode(nodeId, nodeName);
+        return true;
+    }
+
     public boolean removeNode(UUID nodeId) {
         GraphNode nodeToRemove = findNodeById(nodeId);
         if (nodeToRemove == null) {
@@ -126,6 +186,47 @@ public class Graph {
         return removed;
     }
 
+    /**
+     * Removes many nodes and their incident edges at once, with one pass over the edge
+     * list and one bulk edit of the immutable graph. Unknown node IDs are ignored.
+     *
+     * @return the number of nodes removed
+     */
+    public int removeNodes(Collection<UUID> nodeIds) {
+        Set<UUID> ids = new HashSet<>(nodeIds);
+        int before = nodes.size();
+        nodes.removeIf(node -> ids.contains(node.getId()));
+        int removed = before - nodes.size();
+        if (removed > 0) {
+            edges.removeIf(edge -> ids.contains(edge.getFromNodeId()) || ids.contains(edge.getToNodeId()));
+            this.immutableGraph = immutableGraph.removeNodes(ids);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes many edges at once, with one pass over the edge list and one bulk edit of
+     * the immutable graph. Pairs that are not edges of this graph are ignored.
+     *
+     * @return the number of distinct edges removed
+     */
+    public int removeEdges(Collection<ImmutableGraph.NodePair> pairs) {
+        Set<ImmutableGraph.NodePair> targets = new HashSet<>(pairs);
+        Set<ImmutableGraph.NodePair> removed = new HashSet<>();
+        edges.removeIf(edge -> {
+            ImmutableGraph.NodePair pair = new ImmutableGraph.NodePair(edge.getFromNodeId(), edge.getToNodeId());
+            if (!targets.contains(pair)) {
+                return false;
+            }
+            removed.add(pair);
+            return true;
+        });
+        if (!removed.isEmpty()) {
+            this.immutableGraph = immutableGraph.removeEdges(removed);
+        }
+        return removed.size();
+    }
+
     public List<GraphEdge> getEdges() {
         return edges;
     }
@@ -142,21 +243,17 @@ public class Graph {
     }
 
     @PostLoad
-    private void reconstructImmutableGraph() {
-        this.immutableGraph = new ImmutableGraph<>();
-        // Reconstruct nodes
+    private void rebuildImmutableGraph() {
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
         for (GraphNode node : nodes) {
             if (node.getId() != null) {
-                ImmutableGraph.GraphWithNode<String, String> result =
-                    immutableGraph.addNodeWithId(node.getId(), node.getName());
-                this.immutableGraph = result.getGraph();
+                builder.addNode(node.getId(), node.getName());
             }
         }
-        // Reconstruct edges
         for (GraphEdge edge : edges) {
-            this.immutableGraph = this.immutableGraph.addEdge(
-                edge.getFromNodeId(), edge.getToNodeId(), "edge");
+            builder.addEdge(edge.getFromNodeId(), edge.getToNodeId(), "edge");
         }
+        this.immutableGraph = builder.build();
     }
 
     @Override
@@ -70,6 +70,10 @@ public class GraphDegreeDistribution {
         return nodeCount;
     }
 
+    public void setNodeCount(int nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,86 @@
+package com.robsartin.graphs.models;
+
+import com.robsartin.graphs.infrastructure.UuidV7Generator;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Distance distribution entry for a graph.
+ * Stores how many ordered node pairs lie at each hop distance, counting only pairs where
+ * the first node reaches the second; estimated on graphs whose path metrics are approximate.
+ */
+@Entity
+@Table(name = "graph_distance_distribution",
+        indexes = @Index(name = "idx_distance_dist_graph", columnList = "graph_id"))
+public class GraphDistanceDistribution {
+
+    @Id
+    @Column(columnDefinition = "uuid")
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "graph_id", nullable = false)
+    private Graph graph;
+
+    @Column(name = "distance", nullable = false)
+    private int distance;
+
+    @Column(name = "pair_count", nullable = false)
+    private double pairCount;
+
+    protected GraphDistanceDistribution() {
+    }
+
+    public GraphDistanceDistribution(Graph graph, int distance, double pairCount) {
+        this.id = UuidV7Generator.generate();
+        this.graph = graph;
+        this.distance = distance;
+        this.pairCount = pairCount;
+    }
+
+    @PrePersist
+    private void ensureId() {
+        if (this.id == null) {
+            this.id = UuidV7Generator.generate();
+        }
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public double getPairCount() {
+        return pairCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GraphDistanceDistribution that = (GraphDistanceDistribution) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -47,15 +47,36 @@ public class GraphMetrics {
     @Column(name = "component_count", nullable = false)
     private int componentCount;
 
+    @Column(name = "strong_component_count", nullable = false)
+    private int strongComponentCount;
+
     @Column(name = "diameter")
     private Integer diameter;
 
+    @Column(name = "diameter_exact", nullable = false)
+    private boolean diameterExact = true;
+
+    @Column(name = "diameter_upper_bound")
+    private Integer diameterUpperBound;
+
     @Column(name = "average_path_length")
     private Double averagePathLength;
 
+    @Column(name = "effective_diameter")
+    private Double effectiveDiameter;
+
+    @Column(name = "path_lengths_approximate", nullable = false)
+    private boolean pathLengthsApproximate;
+
     @Column(name = "average_clustering_coefficient")
     private Double averageClusteringCoefficient;
 
+    @Column(name = "clustering_approximate", nullable = false)
+    private boolean clusteringApproximate;
+
+    @Column(name = "path_metrics_stale", nullable = false)
+    private boolean pathMetricsStale;
+
     @Column(name = "computed_at", nullable = false)
     private Instant computedAt;
 
@@ -131,6 +152,14 @@ public class GraphMetrics {
         this.componentCount = componentCount;
     }
 
+    public int getStrongComponentCount() {
+        return strongComponentCount;
+    }
+
+    public void setStrongComponentCount(int strongComponentCount) {
+        this.strongComponentCount = strongComponentCount;
+    }
+
     public Integer getDiameter() {
         return diameter;
     }
@@ -139,6 +168,25 @@ public class GraphMetrics {
         this.diameter = diameter;
     }
 
+    /**
+     * Whether diameter is exact; if not, it is a lower bound and diameterUpperBound the upper one
+     */
+    public boolean isDiameterExact() {
+        return diameterExact;
+    }
+
+    public void setDiameterExact(boolean diameterExact) {
+        this.diameterExact = diameterExact;
+    }
+
+    public Integer getDiameterUpperBound() {
+        return diameterUpperBound;
+    }
+
+    public void setDiameterUpperBound(Integer diameterUpperBound) {
+        this.diameterUpperBound = diameterUpperBound;
+    }
+
     public Double getAveragePathLength() {
         return averagePathLength;
     }
@@ -147,6 +195,29 @@ public class GraphMetrics {
         this.averagePathLength = averagePathLength;
     }
 
+    /**
+     * Distance within which 90% of reachable node pairs lie, interpolated
+     */
+    public Double getEffectiveDiameter() {
+        return effectiveDiameter;
+    }
+
+    public void setEffectiveDiameter(Double effectiveDiameter) {
+        this.effectiveDiameter = effectiveDiameter;
+    }
+
+    /**
+     * Whether average path length, effective diameter and the distance distribution were
+     * estimated with HyperANF rather than computed exactly
+     */
+    public boolean isPathLengthsApproximate() {
+        return pathLengthsApproximate;
+    }
+
+    public void setPathLengthsApproximate(boolean pathLengthsApproximate) {
+        this.pathLengthsApproximate = pathLengthsApproximate;
+    }
+
     public Double getAverageClusteringCoefficient() {
         return averageClusteringCoefficient;
     }
@@ -155,6 +226,33 @@ public class GraphMetrics {
         this.averageClusteringCoefficient = averageClusteringCoefficient;
     }
 
+    /**
+     * Whether the average clustering coefficient was estimated by wedge sampling, in which
+     * case per-node coefficients are not computed
+     */
+    public boolean isClusteringApproximate() {
+        return clusteringApproximate;
+    }
+
+    public void setClusteringApproximate(boolean clusteringApproximate) {
+        this.clusteringApproximate = clusteringApproximate;
+    }
+
+    /**
+     * Whether the graph has changed since the last full computation. Only counts, density,
+     * average degree, weak connectivity, node degrees and the degree distribution follow
+     * each edit; the strong component count, diameter, path lengths, effective diameter,
+     * distance distribution, clustering coefficients and node closeness, betweenness and
+     * clustering describe an earlier version until the next full computation
+     */
+    public boolean isPathMetricsStale() {
+        return pathMetricsStale;
+    }
+
+    public void setPathMetricsStale(boolean pathMetricsStale) {
+        this.pathMetricsStale = pathMetricsStale;
+    }
+
     public Instant getComputedAt() {
         return computedAt;
     }
@@ -45,6 +45,9 @@ public class GraphNodeMetrics {
     @Column(name = "betweenness_centrality")
     private Double betweennessCentrality;
 
+    @Column(name = "betweenness_approximate", nullable = false)
+    private boolean betweennessApproximate;
+
     @Column(name = "closeness_centrality")
     private Double closenessCentrality;
 
@@ -111,6 +114,17 @@ public class GraphNodeMetrics {
         this.betweennessCentrality = betweennessCentrality;
     }
 
+    /**
+     * Whether betweenness was estimated by sampling rather than computed exactly
+     */
+    public boolean isBetweennessApproximate() {
+        return betweennessApproximate;
+    }
+
+    public void setBetweennessApproximate(boolean betweennessApproximate) {
+        this.betweennessApproximate = betweennessApproximate;
+    }
+
     public Double getClosenessCentrality() {
         return closenessCentrality;
     }
@@ -3,6 +3,7 @@ package com.robsartin.graphs.ports.out;
 import com.robsartin.graphs.models.GraphDegreeDistribution;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -16,5 +17,9 @@ public interface GraphDegreeDistributionRepository {
 
     List<GraphDegreeDistribution> findByGraphId(UUID graphId);
 
+    Optional<GraphDegreeDistribution> findByGraphIdAndDegreeValue(UUID graphId, int degreeValue);
+
+    void delete(GraphDegreeDistribution distribution);
+
     void deleteByGraphId(UUID graphId);
 }
@@ -0,0 +1,20 @@
+package com.robsartin.graphs.ports.out;
+
+import com.robsartin.graphs.models.GraphDistanceDistribution;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Port interface for distance distribution persistence.
+ */
+public interface GraphDistanceDistributionRepository {
+
+    GraphDistanceDistribution save(GraphDistanceDistribution distribution);
+
+    List<GraphDistanceDistribution> saveAll(List<GraphDistanceDistribution> distributionList);
+
+    List<GraphDistanceDistribution> findByGraphId(UUID graphId);
+
+    void deleteByGraphId(UUID graphId);
+}
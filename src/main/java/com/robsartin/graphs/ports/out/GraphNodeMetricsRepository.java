@@ -3,6 +3,7 @@ package com.robsartin.graphs.ports.out;
 import com.robsartin.graphs.models.GraphNodeMetrics;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -16,5 +17,18 @@ public interface GraphNodeMetricsRepository {
 
     List<GraphNodeMetrics> findByGraphId(UUID graphId);
 
+    Optional<GraphNodeMetrics> findByGraphIdAndNodeId(UUID graphId, UUID nodeId);
+
+    void delete(GraphNodeMetrics metrics);
+
     void deleteByGraphId(UUID graphId);
+
+    /**
+     * Renormalizes the degree centrality of every node of a graph for a new node count,
+     * in one statement rather than one update per node.
+     *
+     * @param graphId the graph ID
+     * @param nodeCount the graph's node count
+     */
+    void rescaleDegreeCentrality(UUID graphId, int nodeCount);
 }
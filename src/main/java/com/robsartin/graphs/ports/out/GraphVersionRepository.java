@@ -0,0 +1,57 @@
+package com.robsartin.graphs.ports.out;
+
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Port for the recent in-memory versions of each graph's immutable structure.
+ * Only a bounded number of versions per graph is retained; older ones are dropped.
+ */
+public interface GraphVersionRepository {
+
+    /**
+     * Records a new latest version of a graph.
+     *
+     * @param graphId the graph ID
+     * @param graph the graph structure after the change
+     * @return the number assigned to the new version
+     */
+    long save(UUID graphId, ImmutableGraph<String, String> graph);
+
+    /**
+     * Finds a retained version of a graph.
+     *
+     * @param graphId the graph ID
+     * @param version the version number
+     * @return the graph structure at that version, or empty if it is not retained
+     */
+    Optional<ImmutableGraph<String, String>> findVersion(UUID graphId, long version);
+
+    /**
+     * Finds the latest version of a graph.
+     *
+     * @param graphId the graph ID
+     * @return the number and structure of the latest version, or empty if none is retained
+     */
+    Optional<GraphVersion> findLatestVersion(UUID graphId);
+
+    /**
+     * Lists the retained version numbers of a graph, oldest first.
+     *
+     * @param graphId the graph ID
+     * @return the retained version numbers, empty if none were recorded
+     */
+    List<Long> findVersionNumbers(UUID graphId);
+
+    void deleteByGraphId(UUID graphId);
+
+    void deleteAll();
+
+    /**
+     * A retained version of a graph's structure
+     */
+    record GraphVersion(long number, ImmutableGraph<String, String> graph) {}
+}
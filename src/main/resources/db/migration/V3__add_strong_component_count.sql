@@ -0,0 +1,4 @@
+-- V3: Record the number of strongly connected components alongside the weak component count
+-- Existing rows are recomputed on the next graph save; until then they report 0
+
+ALTER TABLE graph_metrics ADD COLUMN strong_component_count INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- V4: Flag node betweenness that was estimated by sampling rather than computed exactly
+-- Existing rows were all computed exactly
+
+ALTER TABLE graph_node_metrics ADD COLUMN betweenness_approximate BOOLEAN NOT NULL DEFAULT FALSE;
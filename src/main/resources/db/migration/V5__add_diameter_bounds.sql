@@ -0,0 +1,5 @@
+-- V5: Large graphs bound the diameter instead of searching from every node
+-- diameter holds the lower bound when diameter_exact is false
+
+ALTER TABLE graph_metrics ADD COLUMN diameter_exact BOOLEAN NOT NULL DEFAULT TRUE;
+ALTER TABLE graph_metrics ADD COLUMN diameter_upper_bound INTEGER;
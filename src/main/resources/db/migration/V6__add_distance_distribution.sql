@@ -0,0 +1,15 @@
+-- V6: Distance distribution and effective diameter, exact or estimated with HyperANF
+-- Existing rows were computed exactly and get their distribution on the next graph save
+
+ALTER TABLE graph_metrics ADD COLUMN effective_diameter DOUBLE PRECISION;
+ALTER TABLE graph_metrics ADD COLUMN path_lengths_approximate BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE graph_distance_distribution (
+    id UUID PRIMARY KEY,
+    graph_id UUID NOT NULL,
+    distance INTEGER NOT NULL,
+    pair_count DOUBLE PRECISION NOT NULL,
+    CONSTRAINT fk_graph_distance_dist_graph FOREIGN KEY (graph_id) REFERENCES graphs(id)
+);
+
+CREATE INDEX idx_distance_dist_graph ON graph_distance_distribution(graph_id);
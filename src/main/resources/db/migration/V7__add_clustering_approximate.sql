@@ -0,0 +1,4 @@
+-- V7: Flag average clustering estimated by wedge sampling rather than counted exactly
+-- Existing rows were all counted exactly
+
+ALTER TABLE graph_metrics ADD COLUMN clustering_approximate BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,4 @@
+-- V8: Flag path-based metrics left behind by an incremental update of the cheap ones
+-- Existing rows were all computed in full
+
+ALTER TABLE graph_metrics ADD COLUMN path_metrics_stale BOOLEAN NOT NULL DEFAULT FALSE;
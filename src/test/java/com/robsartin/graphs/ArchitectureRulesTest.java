@@ -2,6 +2,7 @@ package com.robsartin.graphs;
 
 import com.tngtech.archunit.core.domain.JavaClasses;
 import com.tngtech.archunit.core.importer.ClassFileImporter;
+import com.tngtech.archunit.core.importer.ImportOption;
 import com.tngtech.archunit.library.GeneralCodingRules;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -21,12 +22,47 @@ import static com.tngtech.archunit.library.dependencies.SlicesRuleDefinition.sli
 @DisplayName("Architecture Rules")
 class ArchitectureRulesTest {
 
+    private static final String[] INFRASTRUCTURE_DEPENDENCIES = {
+            "java..",
+            "jakarta..",
+            "dev.openfeature..",
+            "com.robsartin.graphs..",
+            "org.mockito..",
+            "org.junit..",
+            "org.jmolecules..",
+            "org.slf4j..",
+            "org.springframework..",
+            "org.assertj.."
+    };
+
+    private static final String[] INFRASTRUCTURE_TEST_DEPENDENCIES = {
+            "java..",
+            "jakarta..",
+            "dev.openfeature..",
+            "com.robsartin.graphs..",
+            "org.mockito..",
+            "org.junit..",
+            "org.jmolecules..",
+            "org.slf4j..",
+            "org.springframework..",
+            "org.assertj..",
+            "org.openjdk.jol.."
+    };
+
     private static JavaClasses classes;
+    private static JavaClasses productionClasses;
+    private static JavaClasses testClasses;
 
     @BeforeAll
     static void setUp() {
         classes = new ClassFileImporter()
                 .importPackages("com.robsartin.graphs");
+        productionClasses = new ClassFileImporter()
+                .withImportOption(ImportOption.Predefined.DO_NOT_INCLUDE_TESTS)
+                .importPackages("com.robsartin.graphs");
+        testClasses = new ClassFileImporter()
+                .withImportOption(ImportOption.Predefined.ONLY_INCLUDE_TESTS)
+                .importPackages("com.robsartin.graphs");
     }
 
     @Nested
@@ -38,20 +74,19 @@ class ArchitectureRulesTest {
         void shouldEnforceInfrastructureRules() {
             classes()
                     .that().resideInAPackage("com.robsartin.graphs.infrastructure..")
-                    .should().onlyDependOnClassesThat().resideInAnyPackage(
-                            "java..",
-                            "jakarta..",
-                            "dev.openfeature..",
-                            "com.robsartin.graphs..",
-                            "org.mockito..",
-                            "org.junit..",
-                            "org.jmolecules..",
-                            "org.slf4j..",
-                            "org.springframework..",
-                            "org.assertj.."
-                            )
+                    .should().onlyDependOnClassesThat().resideInAnyPackage(INFRASTRUCTURE_DEPENDENCIES)
                     .allowEmptyShould(true)
-                    .check(classes);
+                    .check(productionClasses);
+        }
+
+        @Test
+        @DisplayName("infrastructure tests may also measure footprints with JOL")
+        void shouldEnforceInfrastructureTestRules() {
+            classes()
+                    .that().resideInAPackage("com.robsartin.graphs.infrastructure..")
+                    .should().onlyDependOnClassesThat().resideInAnyPackage(INFRASTRUCTURE_TEST_DEPENDENCIES)
+                    .allowEmptyShould(true)
+                    .check(testClasses);
         }
 
         @Test
@@ -6,6 +6,7 @@ import com.robsartin.graphs.infrastructure.UuidV7Generator;
 import com.robsartin.graphs.models.Graph;
 import com.robsartin.graphs.models.GraphNode;
 import com.robsartin.graphs.ports.out.GraphRepository;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
 import jakarta.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +22,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -44,6 +47,9 @@ class GraphControllerTest {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private GraphVersionRepository versionRepository;
+
     private RequestPostProcessor authenticatedUser;
 
     @BeforeEach
@@ -52,6 +58,14 @@ class GraphControllerTest {
         authenticatedUser = user("testuser").roles("USER");
     }
 
+    /**
+     * Records the version committing the latest save would; test transactions roll back
+     * instead, so saves made in them record none
+     */
+    private void recordCommittedVersion(UUID graphId) {
+        versionRepository.save(graphId, graphRepository.findById(graphId).orElseThrow().getImmutableGraph());
+    }
+
     // GET /graphs - list all graphs
     @Test
     void shouldReturnAllGraphs() throws Exception {
@@ -504,6 +518,40 @@ class GraphControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldLimitTraversalWithQueryParameters() throws Exception {
+        // A -> B -> C -> D
+        Graph graph = new Graph("Chain");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), d.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId();
+
+        mockMvc.perform(get(base + "/dfs/" + a.getId()).param("limit", "2").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].name").value("B"));
+
+        mockMvc.perform(get(base + "/bfs/" + a.getId()).param("maxDepth", "2").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].name").value("C"));
+
+        mockMvc.perform(get(base + "/bfs/" + d.getId()).param("direction", "in")
+                        .param("stopAt", b.getId().toString()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].name").value("B"));
+
+        mockMvc.perform(get(base + "/dfs/" + a.getId()).param("direction", "sideways").with(authenticatedUser))
+                .andExpect(status().isBadRequest());
+    }
+
     // GET /graphs/{id}/bfs/{nodeId} - breadth-first search
     @Test
     void shouldPerformBreadthFirstSearch() throws Exception {
@@ -560,6 +608,396 @@ class GraphControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    // GET /graphs/{id}/path/{fromId}/{toId} - shortest path
+    @Test
+    void shouldFindShortestPath() throws Exception {
+        // A -> B -> C -> D and a shortcut A -> C
+        Graph graph = new Graph("Paths");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), d.getId());
+        graph.addEdge(a.getId(), c.getId());
+        Graph savedGraph = graphRepository.save(graph);
+
+        mockMvc.perform(get("/graphs/" + savedGraph.getId() + "/path/" + a.getId() + "/" + d.getId())
+                        .with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hops").value(2))
+                .andExpect(jsonPath("$.nodes.length()").value(3))
+                .andExpect(jsonPath("$.nodes[0].name").value("A"))
+                .andExpect(jsonPath("$.nodes[1].name").value("C"))
+                .andExpect(jsonPath("$.nodes[2].name").value("D"));
+
+        mockMvc.perform(get("/graphs/" + savedGraph.getId() + "/path/" + d.getId() + "/" + a.getId())
+                        .with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturn404WhenPathOnNonExistentGraph() throws Exception {
+        UUID randomUuid = UuidV7Generator.generate();
+        mockMvc.perform(get("/graphs/" + randomUuid + "/path/" + UuidV7Generator.generate() + "/"
+                        + UuidV7Generator.generate()).with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    // GET /graphs/{id}/reachable/{fromId}/{toId} and POST /graphs/{id}/reachable - reachability
+    @Test
+    void shouldAnswerReachabilityQueries() throws Exception {
+        // A -> B -> C, D isolated
+        Graph graph = new Graph("Reachability");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId() + "/reachable";
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + c.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reachable").value(true));
+
+        mockMvc.perform(get(base + "/" + c.getId() + "/" + a.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reachable").value(false));
+
+        mockMvc.perform(post(base).with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"from\": \"" + b.getId() + "\", \"to\": \"" + c.getId() + "\"},"
+                                + " {\"from\": \"" + a.getId() + "\", \"to\": \"" + d.getId() + "\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].reachable").value(true))
+                .andExpect(jsonPath("$[1].reachable").value(false));
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + UuidV7Generator.generate()).with(authenticatedUser))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ?atVersion=N - reads of retained graph versions
+    @Test
+    void shouldReadRetainedGraphVersions() throws Exception {
+        Graph graph = new Graph("Versions");
+        GraphNode a = graph.addNode("A");
+        Graph savedGraph = graphRepository.save(graph);
+        recordCommittedVersion(savedGraph.getId());
+        String base = "/graphs/" + savedGraph.getId();
+
+        String nodeBResponse = mockMvc.perform(post(base + "/nodes").with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"B\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        recordCommittedVersion(savedGraph.getId());
+        String nodeBId = objectMapper.readTree(nodeBResponse).get("id").asText();
+        mockMvc.perform(post(base + "/nodes/" + a.getId() + "/" + nodeBId).with(authenticatedUser).with(csrf()))
+                .andExpect(status().isOk());
+        recordCommittedVersion(savedGraph.getId());
+
+        mockMvc.perform(get(base + "/versions").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions.length()").value(3));
+
+        mockMvc.perform(get(base + "/full").param("atVersion", "1").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(1))
+                .andExpect(jsonPath("$.edges.length()").value(0));
+
+        mockMvc.perform(get(base + "/full").param("atVersion", "3").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(2))
+                .andExpect(jsonPath("$.edges.length()").value(1));
+
+        mockMvc.perform(get(base + "/bfs/" + a.getId()).param("atVersion", "2").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(get(base + "/full").param("atVersion", "99").with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldTraverseRetainedVersionWithItsOwnNames() throws Exception {
+        Graph graph = new Graph("Renames");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        graph.addEdge(a.getId(), b.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        recordCommittedVersion(savedGraph.getId());
+        String base = "/graphs/" + savedGraph.getId();
+
+        mockMvc.perform(patch(base + "/nodes/" + b.getId()).with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"B2\"}"))
+                .andExpect(status().isOk());
+        recordCommittedVersion(savedGraph.getId());
+
+        mockMvc.perform(get(base + "/dfs/" + a.getId()).param("atVersion", "1").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(b.getId().toString()))
+                .andExpect(jsonPath("$[1].name").value("B"));
+
+        mockMvc.perform(get(base + "/dfs/" + a.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].name").value("B2"));
+    }
+
+    // GET /graphs/{id}/toposort and /critical-path - DAG ordering
+    @Test
+    void shouldSortTopologicallyAndFindCriticalPath() throws Exception {
+        // A -> B -> C -> D, A -> D
+        Graph graph = new Graph("DAG");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), d.getId());
+        graph.addEdge(a.getId(), d.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId();
+
+        mockMvc.perform(get(base + "/toposort").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acyclic").value(true))
+                .andExpect(jsonPath("$.order[*].name").value(contains("A", "B", "C", "D")))
+                .andExpect(jsonPath("$.cycle.length()").value(0));
+
+        mockMvc.perform(get(base + "/critical-path").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hops").value(3))
+                .andExpect(jsonPath("$.nodes[*].name").value(contains("A", "B", "C", "D")));
+
+        mockMvc.perform(post(base + "/nodes/" + d.getId() + "/" + b.getId()).with(authenticatedUser).with(csrf()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(base + "/toposort").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acyclic").value(false))
+                .andExpect(jsonPath("$.order.length()").value(0))
+                .andExpect(jsonPath("$.cycle[*].name").value(containsInAnyOrder("B", "C", "D")));
+
+        mockMvc.perform(get(base + "/critical-path").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acyclic").value(false))
+                .andExpect(jsonPath("$.nodes.length()").value(0));
+    }
+
+    // GET /graphs/{id}/nodes/{nodeId}/neighborhood - k-hop induced subgraph
+    @Test
+    void shouldExtractNeighborhood() throws Exception {
+        // E -> A -> B -> C -> D
+        Graph graph = new Graph("Ego");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        GraphNode e = graph.addNode("E");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), d.getId());
+        graph.addEdge(e.getId(), a.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId() + "/nodes/" + a.getId() + "/neighborhood";
+
+        mockMvc.perform(get(base).param("hops", "1").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes[0].name").value("A"))
+                .andExpect(jsonPath("$.nodes[*].name").value(containsInAnyOrder("A", "B", "E")))
+                .andExpect(jsonPath("$.edges.length()").value(2))
+                .andExpect(jsonPath("$.truncated").value(false));
+
+        mockMvc.perform(get(base).param("hops", "2").param("direction", "out").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes[*].name").value(contains("A", "B", "C")))
+                .andExpect(jsonPath("$.edges[*].target").value(containsInAnyOrder(
+                        b.getId().toString(), c.getId().toString())));
+
+        mockMvc.perform(get(base).param("hops", "3").param("maxNodes", "2").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(2))
+                .andExpect(jsonPath("$.truncated").value(true));
+
+        mockMvc.perform(get("/graphs/" + savedGraph.getId() + "/nodes/" + UUID.randomUUID() + "/neighborhood")
+                        .with(authenticatedUser))
+                .andExpect(status().isBadRequest());
+    }
+
+    // GET /graphs/{id}/scc - strongly connected components and condensation
+    @Test
+    void shouldFindStronglyConnectedComponents() throws Exception {
+        // A -> B <-> C -> D
+        Graph graph = new Graph("Components");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), b.getId());
+        graph.addEdge(c.getId(), d.getId());
+        Graph savedGraph = graphRepository.save(graph);
+
+        mockMvc.perform(get("/graphs/" + savedGraph.getId() + "/scc").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.componentCount").value(3))
+                .andExpect(jsonPath("$.components[0].nodes[*].name").value(contains("D")))
+                .andExpect(jsonPath("$.components[1].nodes[*].name").value(containsInAnyOrder("B", "C")))
+                .andExpect(jsonPath("$.components[2].nodes[*].name").value(contains("A")))
+                .andExpect(jsonPath("$.condensationEdges.length()").value(2))
+                .andExpect(jsonPath("$.condensationEdges[0].source").value(1))
+                .andExpect(jsonPath("$.condensationEdges[0].target").value(0))
+                .andExpect(jsonPath("$.condensationEdges[1].source").value(2))
+                .andExpect(jsonPath("$.condensationEdges[1].target").value(1));
+
+        mockMvc.perform(get("/graphs/" + UUID.randomUUID() + "/scc").with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    // GET /graphs/{id}/components and GET /graphs/{id}/components/{fromId}/{toId} - weak components
+    @Test
+    void shouldFindWeaklyConnectedComponents() throws Exception {
+        // A -> B <- C, D -> E
+        Graph graph = new Graph("Weak Components");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        GraphNode e = graph.addNode("E");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(c.getId(), b.getId());
+        graph.addEdge(d.getId(), e.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId() + "/components";
+
+        mockMvc.perform(get(base).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.componentCount").value(2))
+                .andExpect(jsonPath("$.nodes.length()").value(5));
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + c.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sameComponent").value(true));
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + e.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sameComponent").value(false));
+
+        // Removing C -> B splits C off
+        mockMvc.perform(delete("/graphs/" + savedGraph.getId() + "/nodes/" + c.getId() + "/" + b.getId())
+                        .with(authenticatedUser).with(csrf()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + c.getId()).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sameComponent").value(false));
+
+        mockMvc.perform(get(base).with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.componentCount").value(3));
+
+        mockMvc.perform(get(base + "/" + a.getId() + "/" + UuidV7Generator.generate()).with(authenticatedUser))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/graphs/" + UUID.randomUUID() + "/components").with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    // GET /graphs/{id}/diff?from=&to= - changes between retained versions
+    @Test
+    void shouldDiffRetainedGraphVersions() throws Exception {
+        Graph graph = new Graph("Diff");
+        GraphNode a = graph.addNode("A");
+        Graph savedGraph = graphRepository.save(graph);
+        recordCommittedVersion(savedGraph.getId());
+        String base = "/graphs/" + savedGraph.getId();
+
+        String nodeBResponse = mockMvc.perform(post(base + "/nodes").with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"B\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        recordCommittedVersion(savedGraph.getId());
+        String nodeBId = objectMapper.readTree(nodeBResponse).get("id").asText();
+        mockMvc.perform(post(base + "/nodes/" + a.getId() + "/" + nodeBId).with(authenticatedUser).with(csrf()))
+                .andExpect(status().isOk());
+        recordCommittedVersion(savedGraph.getId());
+
+        mockMvc.perform(get(base + "/diff").param("from", "1").param("to", "3").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addedNodes.length()").value(1))
+                .andExpect(jsonPath("$.addedNodes[0].id").value(nodeBId))
+                .andExpect(jsonPath("$.addedEdges.length()").value(1))
+                .andExpect(jsonPath("$.addedEdges[0].source").value(a.getId().toString()))
+                .andExpect(jsonPath("$.addedEdges[0].target").value(nodeBId))
+                .andExpect(jsonPath("$.removedNodes.length()").value(0));
+
+        mockMvc.perform(get(base + "/diff").param("from", "3").param("to", "1").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.removedNodes[0]").value(nodeBId))
+                .andExpect(jsonPath("$.removedEdges.length()").value(1));
+
+        mockMvc.perform(get(base + "/diff").param("from", "1").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.toVersion").value(3))
+                .andExpect(jsonPath("$.addedNodes.length()").value(1))
+                .andExpect(jsonPath("$.addedEdges.length()").value(1));
+
+        mockMvc.perform(get(base + "/diff").param("from", "3").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.toVersion").value(3))
+                .andExpect(jsonPath("$.addedNodes.length()").value(0))
+                .andExpect(jsonPath("$.addedEdges.length()").value(0));
+
+        mockMvc.perform(get(base + "/diff").param("from", "99").with(authenticatedUser))
+                .andExpect(status().isNotFound());
+    }
+
+    // POST /graphs/{id}/delete - bulk delete of nodes and edges
+    @Test
+    void shouldBulkDeleteNodesAndEdges() throws Exception {
+        // A -> B -> C -> D, A -> C
+        Graph graph = new Graph("Bulk delete");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), d.getId());
+        graph.addEdge(a.getId(), c.getId());
+        Graph savedGraph = graphRepository.save(graph);
+        String base = "/graphs/" + savedGraph.getId();
+
+        mockMvc.perform(post(base + "/delete").with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nodeIds\": [\"" + b.getId() + "\", \"" + UuidV7Generator.generate() + "\"],"
+                                + " \"edges\": [{\"from\": \"" + c.getId() + "\", \"to\": \"" + d.getId() + "\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodesDeleted").value(1))
+                .andExpect(jsonPath("$.edgesDeleted").value(1));
+
+        mockMvc.perform(get(base + "/full").with(authenticatedUser))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(3))
+                .andExpect(jsonPath("$.edges.length()").value(1))
+                .andExpect(jsonPath("$.edges[0].source").value(a.getId().toString()))
+                .andExpect(jsonPath("$.edges[0].target").value(c.getId().toString()));
+
+        mockMvc.perform(post("/graphs/" + UuidV7Generator.generate() + "/delete").with(authenticatedUser).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nodeIds\": []}"))
+                .andExpect(status().isNotFound());
+    }
+
     // GET /graphs/{id}/full - get full graph with nodes and edges
     @Test
     void shouldReturnFullGraphWithNodesAndEdges() throws Exception {
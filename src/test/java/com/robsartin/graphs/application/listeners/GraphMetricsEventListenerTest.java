@@ -1,18 +1,26 @@
 package com.robsartin.graphs.application.listeners;
 
 import com.robsartin.graphs.application.services.GraphMetricsComputationService;
+import com.robsartin.graphs.application.services.GraphMetricsComputationService.ChangeOutcome;
 import com.robsartin.graphs.events.GraphSavedEvent;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @DisplayName("GraphMetricsEventListener")
 @ExtendWith(MockitoExtension.class)
@@ -48,4 +56,67 @@ class GraphMetricsEventListenerTest {
 
         verify(metricsService).computeAndSaveMetrics(graphId);
     }
+
+    @Test
+    @DisplayName("should not recompute when changes were applied in place")
+    void shouldNotRecomputeWhenChangesApplied() {
+        UUID graphId = UUID.randomUUID();
+        GraphSavedEvent event = new GraphSavedEvent(graphId, 2);
+        when(metricsService.applyChanges(event)).thenReturn(ChangeOutcome.CURRENT);
+
+        listener.handleGraphSavedEvent(event);
+
+        verify(metricsService, never()).computeAndSaveMetrics(graphId);
+    }
+
+    @Test
+    @DisplayName("should leave stale path metrics to the latest save")
+    void shouldDeferStalePathMetricsToLatestSave() {
+        UUID graphId = UUID.randomUUID();
+        GraphSavedEvent event = new GraphSavedEvent(graphId, 2);
+        when(metricsService.applyChanges(event)).thenReturn(ChangeOutcome.PATH_METRICS_STALE);
+        when(metricsService.hasNewerVersion(graphId, 2)).thenReturn(true);
+
+        listener.handleGraphSavedEvent(event);
+
+        verify(metricsService, never()).computeAndSaveMetrics(graphId);
+    }
+
+    @Test
+    @DisplayName("should recompute when changes could not be applied")
+    void shouldRecomputeWhenChangesNotApplied() {
+        UUID graphId = UUID.randomUUID();
+        GraphSavedEvent event = new GraphSavedEvent(graphId, 2);
+        when(metricsService.applyChanges(event)).thenReturn(ChangeOutcome.NOT_APPLIED);
+
+        listener.handleGraphSavedEvent(event);
+
+        verify(metricsService).computeAndSaveMetrics(graphId);
+    }
+
+    @Test
+    @DisplayName("should queue an event for a graph whose metrics are being computed behind it")
+    void shouldQueueEventsForGraphInProgress() {
+        UUID graphId = UUID.randomUUID();
+        GraphSavedEvent first = new GraphSavedEvent(graphId, 1);
+        GraphSavedEvent second = new GraphSavedEvent(graphId, 2);
+        when(metricsService.applyChanges(first)).thenReturn(ChangeOutcome.NOT_APPLIED);
+        when(metricsService.applyChanges(second)).thenReturn(ChangeOutcome.CURRENT);
+        AtomicInteger computations = new AtomicInteger();
+        doAnswer(invocation -> {
+            computations.incrementAndGet();
+            // Returns at once, leaving the event to the handler already running
+            listener.handleGraphSavedEvent(second);
+            assertEquals(1, computations.get());
+            return null;
+        }).when(metricsService).computeAndSaveMetrics(graphId);
+
+        listener.handleGraphSavedEvent(first);
+
+        InOrder order = inOrder(metricsService);
+        order.verify(metricsService).applyChanges(first);
+        order.verify(metricsService).computeAndSaveMetrics(graphId);
+        order.verify(metricsService).applyChanges(second);
+        verify(metricsService).computeAndSaveMetrics(graphId);
+    }
 }
@@ -0,0 +1,83 @@
+package com.robsartin.graphs.application.services;
+
+import com.robsartin.graphs.infrastructure.DynamicConnectivity;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("GraphConnectivityService")
+@ExtendWith(MockitoExtension.class)
+class GraphConnectivityServiceTest {
+
+    @Mock
+    private GraphVersionRepository versionRepository;
+
+    private GraphConnectivityService connectivityService;
+    private final UUID graphId = UUID.randomUUID();
+    private final List<UUID> ids = new ArrayList<>();
+    private ImmutableGraph<String, String> path;
+
+    @BeforeEach
+    void setUp() {
+        connectivityService = new GraphConnectivityService(versionRepository, 100);
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            builder.addEdge(ids.get(i - 1), ids.get(i), "edge");
+        }
+        path = builder.build();
+    }
+
+    @Test
+    @DisplayName("should apply edits to the components kept for an earlier version")
+    void shouldFollowEditsInPlace() {
+        DynamicConnectivity components = connectivityService.query(graphId, path, Function.identity());
+        assertThat(components.count()).isEqualTo(1);
+
+        ImmutableGraph<String, String> split = path.removeEdge(ids.get(499), ids.get(500));
+        assertThat(connectivityService.query(graphId, split, Function.identity())).isSameAs(components);
+        assertThat(components.count()).isEqualTo(2);
+
+        ImmutableGraph<String, String> joined = split.addEdge(ids.get(999), ids.get(0), "edge");
+        ImmutableGraph.GraphDiff<String, String> diff = split.diff(joined);
+        assertThat(connectivityService.componentCount(graphId, split, diff, joined)).isEqualTo(1);
+        assertThat(connectivityService.query(graphId, joined, Function.identity())).isSameAs(components);
+        assertThat(components.connected(ids.get(499), ids.get(500))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should load a version with no common history instead of diffing it")
+    void shouldReloadUnrelatedVersions() {
+        DynamicConnectivity components = connectivityService.query(graphId, path, Function.identity());
+
+        // The same nodes rebuilt from scratch, as from stored rows, with one edge missing
+        ImmutableGraph.Builder<String, String> rebuilt = ImmutableGraph.builder();
+        for (UUID nodeId : ids) {
+            rebuilt.addNode(nodeId, path.getContext(nodeId).getLabel());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            if (i != 500) {
+                rebuilt.addEdge(ids.get(i - 1), ids.get(i), "edge");
+            }
+        }
+        ImmutableGraph<String, String> unrelated = rebuilt.build();
+
+        DynamicConnectivity reloaded = connectivityService.query(graphId, unrelated, Function.identity());
+        assertThat(reloaded).isNotSameAs(components);
+        assertThat(reloaded.count()).isEqualTo(2);
+    }
+}
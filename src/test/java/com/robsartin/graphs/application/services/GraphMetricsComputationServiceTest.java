@@ -1,15 +1,21 @@
 package com.robsartin.graphs.application.services;
 
+import com.robsartin.graphs.application.services.GraphMetricsComputationService.ChangeOutcome;
 import com.robsartin.graphs.config.TestOpenFeatureConfiguration;
+import com.robsartin.graphs.events.GraphSavedEvent;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
 import com.robsartin.graphs.models.Graph;
 import com.robsartin.graphs.models.GraphDegreeDistribution;
+import com.robsartin.graphs.models.GraphDistanceDistribution;
 import com.robsartin.graphs.models.GraphMetrics;
 import com.robsartin.graphs.models.GraphNode;
 import com.robsartin.graphs.models.GraphNodeMetrics;
 import com.robsartin.graphs.ports.out.GraphDegreeDistributionRepository;
+import com.robsartin.graphs.ports.out.GraphDistanceDistributionRepository;
 import com.robsartin.graphs.ports.out.GraphMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphNodeMetricsRepository;
 import com.robsartin.graphs.ports.out.GraphRepository;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,8 +28,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
 
 @SpringBootTest
 @Import(TestOpenFeatureConfiguration.class)
@@ -45,6 +54,12 @@ class GraphMetricsComputationServiceTest {
     @Autowired
     private GraphDegreeDistributionRepository degreeDistRepository;
 
+    @Autowired
+    private GraphDistanceDistributionRepository distanceDistRepository;
+
+    @Autowired
+    private GraphVersionRepository versionRepository;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -58,6 +73,19 @@ class GraphMetricsComputationServiceTest {
         entityManager.clear();
     }
 
+    /**
+     * Records the version committing a save would; test transactions roll back instead, so
+     * saves made in them record none
+     */
+    private void recordCommittedVersion(Graph savedGraph) {
+        versionRepository.save(savedGraph.getId(), savedGraph.getImmutableGraph());
+    }
+
+    private GraphSavedEvent latestSave(UUID graphId) {
+        List<Long> versions = versionRepository.findVersionNumbers(graphId);
+        return new GraphSavedEvent(graphId, versions.get(versions.size() - 1));
+    }
+
     @Test
     @DisplayName("should compute metrics for empty graph")
     void shouldComputeMetricsForEmptyGraph() {
@@ -78,6 +106,7 @@ class GraphMetricsComputationServiceTest {
         assertThat(metrics.getAverageDegree()).isZero();
         assertThat(metrics.isConnected()).isTrue();
         assertThat(metrics.getComponentCount()).isZero();
+        assertThat(metrics.getStrongComponentCount()).isZero();
     }
 
     @Test
@@ -119,6 +148,7 @@ class GraphMetricsComputationServiceTest {
         assertThat(metrics.getEdgeCount()).isEqualTo(3);
         assertThat(metrics.isConnected()).isTrue();
         assertThat(metrics.getComponentCount()).isEqualTo(1);
+        assertThat(metrics.getStrongComponentCount()).isEqualTo(1);
         assertThat(metrics.getDensity()).isEqualTo(0.5); // 3 / (3 * 2) = 0.5
         assertThat(metrics.getAverageDegree()).isEqualTo(2.0); // (2 * 3) / 3 = 2
     }
@@ -141,6 +171,29 @@ class GraphMetricsComputationServiceTest {
         assertThat(metrics.getEdgeCount()).isZero();
         assertThat(metrics.isConnected()).isFalse();
         assertThat(metrics.getComponentCount()).isEqualTo(3);
+        assertThat(metrics.getStrongComponentCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should count strong components of a weakly connected graph")
+    void shouldCountStrongComponents() {
+        Graph graph = new Graph("Chain Into Cycle");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph.addEdge(c.getId(), b.getId());
+        graph = graphRepository.save(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+
+        metricsService.computeAndSaveMetrics(graphId);
+
+        GraphMetrics metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.isConnected()).isTrue();
+        assertThat(metrics.getComponentCount()).isEqualTo(1);
+        assertThat(metrics.getStrongComponentCount()).isEqualTo(2);
     }
 
     @Test
@@ -170,6 +223,70 @@ class GraphMetricsComputationServiceTest {
         assertThat(centerMetrics.getInDegree()).isZero();
     }
 
+    @Test
+    @DisplayName("should split betweenness between parallel shortest paths")
+    void shouldSplitBetweennessBetweenParallelPaths() {
+        // A -> B -> D and A -> C -> D
+        Graph graph = new Graph("Diamond");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        GraphNode d = graph.addNode("D");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(a.getId(), c.getId());
+        graph.addEdge(b.getId(), d.getId());
+        graph.addEdge(c.getId(), d.getId());
+        UUID bId = b.getId();
+        UUID cId = c.getId();
+        graph = graphRepository.save(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+
+        metricsService.computeAndSaveMetrics(graphId);
+
+        // Half of the A -> D pair each, normalized by (n - 1)(n - 2) = 6
+        for (GraphNodeMetrics nodeMetrics : nodeMetricsRepository.findByGraphId(graphId)) {
+            UUID nodeId = nodeMetrics.getNodeId();
+            double expected = nodeId.equals(bId) || nodeId.equals(cId) ? 0.5 / 6 : 0.0;
+            assertThat(nodeMetrics.getBetweennessCentrality()).isCloseTo(expected, within(1e-12));
+            assertThat(nodeMetrics.isBetweennessApproximate()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("should compute path metrics and closeness from one pass")
+    void shouldComputePathMetricsAndCloseness() {
+        // A -> B -> C: distances 1, 2 and 1
+        Graph graph = new Graph("Path");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), c.getId());
+        UUID aId = a.getId();
+        UUID bId = b.getId();
+        graph = graphRepository.save(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+
+        metricsService.computeAndSaveMetrics(graphId);
+
+        GraphMetrics metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getDiameter()).isEqualTo(2);
+        assertThat(metrics.getAveragePathLength()).isCloseTo(4.0 / 3, within(1e-12));
+        // 90% of the 3 pairs is 0.7 of the way past the 2 at distance 1
+        assertThat(metrics.getEffectiveDiameter()).isCloseTo(1.7, within(1e-12));
+        assertThat(metrics.isPathLengthsApproximate()).isFalse();
+        assertThat(distanceDistRepository.findByGraphId(graphId))
+                .extracting(GraphDistanceDistribution::getDistance, GraphDistanceDistribution::getPairCount)
+                .containsExactlyInAnyOrder(tuple(1, 2.0), tuple(2, 1.0));
+        for (GraphNodeMetrics nodeMetrics : nodeMetricsRepository.findByGraphId(graphId)) {
+            UUID nodeId = nodeMetrics.getNodeId();
+            double expected = nodeId.equals(aId) ? 2.0 / 3 : nodeId.equals(bId) ? 1.0 : 0.0;
+            assertThat(nodeMetrics.getClosenessCentrality()).isCloseTo(expected, within(1e-12));
+        }
+    }
+
     @Test
     @DisplayName("should compute degree distribution")
     void shouldComputeDegreeDistribution() {
@@ -239,4 +356,163 @@ class GraphMetricsComputationServiceTest {
         GraphMetrics secondMetrics = metricsRepository.findByGraphId(graphId).orElseThrow();
         assertThat(secondMetrics.getNodeCount()).isEqualTo(2);
     }
+
+    @Test
+    @DisplayName("should apply insertions to the cheap metrics in place")
+    void shouldApplyInsertionsInPlace() {
+        Graph graph = new Graph("Growing Graph");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        graph.addEdge(a.getId(), b.getId());
+        graph = graphRepository.save(graph);
+        recordCommittedVersion(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+        metricsService.computeAndSaveMetrics(graphId);
+        flushAndClear();
+
+        Graph reloadedGraph = graphRepository.findById(graphId).orElseThrow();
+        GraphNode c = reloadedGraph.addNode("C");
+        GraphNode d = reloadedGraph.addNode("D");
+        reloadedGraph.addEdge(b.getId(), c.getId());
+        recordCommittedVersion(graphRepository.save(reloadedGraph));
+        flushAndClear();
+
+        assertThat(metricsService.applyChanges(latestSave(graphId))).isEqualTo(ChangeOutcome.PATH_METRICS_STALE);
+        flushAndClear();
+
+        GraphMetrics metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getNodeCount()).isEqualTo(4);
+        assertThat(metrics.getEdgeCount()).isEqualTo(2);
+        assertThat(metrics.getDensity()).isCloseTo(2.0 / 12, within(1e-12));
+        assertThat(metrics.getAverageDegree()).isCloseTo(1.0, within(1e-12));
+        assertThat(metrics.getComponentCount()).isEqualTo(2);
+        assertThat(metrics.isConnected()).isFalse();
+        assertThat(metrics.isPathMetricsStale()).isTrue();
+
+        List<GraphNodeMetrics> nodeMetrics = nodeMetricsRepository.findByGraphId(graphId);
+        assertThat(nodeMetrics)
+                .extracting(GraphNodeMetrics::getNodeId, GraphNodeMetrics::getInDegree,
+                        GraphNodeMetrics::getOutDegree, GraphNodeMetrics::getDegreeCentrality)
+                .containsExactlyInAnyOrder(
+                        tuple(a.getId(), 0, 1, 1.0 / 6),
+                        tuple(b.getId(), 1, 1, 2.0 / 6),
+                        tuple(c.getId(), 1, 0, 1.0 / 6),
+                        tuple(d.getId(), 0, 0, 0.0));
+        assertThat(degreeDistRepository.findByGraphId(graphId))
+                .extracting(GraphDegreeDistribution::getDegreeValue, GraphDegreeDistribution::getNodeCount)
+                .containsExactlyInAnyOrder(tuple(0, 1), tuple(1, 2), tuple(2, 1));
+
+        // The same version again is already applied
+        assertThat(metricsService.applyChanges(latestSave(graphId))).isEqualTo(ChangeOutcome.CURRENT);
+    }
+
+    @Test
+    @DisplayName("should apply an edit from versions that share every unchanged node")
+    void shouldApplyChangesWithoutVisitingUnchangedNodes() {
+        Graph graph = new Graph("Long Path");
+        List<GraphNode> nodes = graph.addNodes(IntStream.range(0, 300).mapToObj(i -> "N" + i).toList());
+        graph.addEdges(IntStream.range(1, 300)
+                .mapToObj(i -> new ImmutableGraph.NodePair(nodes.get(i - 1).getId(), nodes.get(i).getId()))
+                .toList());
+        graph = graphRepository.save(graph);
+        recordCommittedVersion(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+        metricsService.computeAndSaveMetrics(graphId);
+        flushAndClear();
+        long describedVersion = latestSave(graphId).version();
+
+        UUID first = nodes.get(0).getId();
+        UUID last = nodes.get(299).getId();
+        Graph reloadedGraph = graphRepository.findById(graphId).orElseThrow();
+        reloadedGraph.addEdge(last, first);
+        recordCommittedVersion(graphRepository.save(reloadedGraph));
+        flushAndClear();
+        GraphSavedEvent event = latestSave(graphId);
+
+        // Only the edge's endpoints have new contexts; the diff skips every shared one
+        ImmutableGraph<String, String> before = versionRepository.findVersion(graphId, describedVersion).orElseThrow();
+        ImmutableGraph<String, String> after = versionRepository.findVersion(graphId, event.version()).orElseThrow();
+        assertThat(before.getNodeIds())
+                .filteredOn(nodeId -> before.getContext(nodeId) != after.getContext(nodeId))
+                .containsExactlyInAnyOrder(first, last);
+
+        assertThat(metricsService.applyChanges(event)).isEqualTo(ChangeOutcome.PATH_METRICS_STALE);
+        flushAndClear();
+        GraphMetrics metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getEdgeCount()).isEqualTo(300);
+        assertThat(metrics.getComponentCount()).isEqualTo(1);
+        assertThat(nodeMetricsRepository.findByGraphIdAndNodeId(graphId, first).orElseThrow().getInDegree())
+                .isEqualTo(1);
+        assertThat(nodeMetricsRepository.findByGraphIdAndNodeId(graphId, last).orElseThrow().getOutDegree())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should apply removals that split a component in place")
+    void shouldApplyRemovalsInPlace() {
+        Graph graph = new Graph("Shrinking Graph");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        GraphNode c = graph.addNode("C");
+        graph.addEdge(a.getId(), b.getId());
+        graph.addEdge(b.getId(), a.getId());
+        graph.addEdge(b.getId(), c.getId());
+        graph = graphRepository.save(graph);
+        recordCommittedVersion(graph);
+        UUID graphId = graph.getId();
+        flushAndClear();
+        metricsService.computeAndSaveMetrics(graphId);
+        flushAndClear();
+
+        // B -> A leaves A -> B joining them
+        Graph reloadedGraph = graphRepository.findById(graphId).orElseThrow();
+        reloadedGraph.removeEdge(b.getId(), a.getId());
+        recordCommittedVersion(graphRepository.save(reloadedGraph));
+        flushAndClear();
+
+        assertThat(metricsService.applyChanges(latestSave(graphId))).isEqualTo(ChangeOutcome.PATH_METRICS_STALE);
+        flushAndClear();
+        GraphMetrics metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getEdgeCount()).isEqualTo(2);
+        assertThat(metrics.getComponentCount()).isEqualTo(1);
+
+        // Nothing else joins B and C
+        reloadedGraph = graphRepository.findById(graphId).orElseThrow();
+        reloadedGraph.removeEdge(b.getId(), c.getId());
+        recordCommittedVersion(graphRepository.save(reloadedGraph));
+        flushAndClear();
+
+        assertThat(metricsService.applyChanges(latestSave(graphId))).isEqualTo(ChangeOutcome.PATH_METRICS_STALE);
+        flushAndClear();
+        metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getComponentCount()).isEqualTo(2);
+        assertThat(metrics.isConnected()).isFalse();
+
+        // Removing A takes its edge to B along
+        reloadedGraph = graphRepository.findById(graphId).orElseThrow();
+        reloadedGraph.removeNode(a.getId());
+        recordCommittedVersion(graphRepository.save(reloadedGraph));
+        flushAndClear();
+
+        assertThat(metricsService.applyChanges(latestSave(graphId))).isEqualTo(ChangeOutcome.PATH_METRICS_STALE);
+        flushAndClear();
+        metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getNodeCount()).isEqualTo(2);
+        assertThat(metrics.getEdgeCount()).isZero();
+        assertThat(metrics.getComponentCount()).isEqualTo(2);
+        assertThat(nodeMetricsRepository.findByGraphId(graphId))
+                .extracting(GraphNodeMetrics::getNodeId, GraphNodeMetrics::getInDegree, GraphNodeMetrics::getOutDegree)
+                .containsExactlyInAnyOrder(tuple(b.getId(), 0, 0), tuple(c.getId(), 0, 0));
+        assertThat(degreeDistRepository.findByGraphId(graphId))
+                .extracting(GraphDegreeDistribution::getDegreeValue, GraphDegreeDistribution::getNodeCount)
+                .containsExactly(tuple(0, 2));
+
+        metricsService.computeAndSaveMetrics(graphId);
+        flushAndClear();
+        metrics = metricsRepository.findByGraphId(graphId).orElseThrow();
+        assertThat(metrics.getComponentCount()).isEqualTo(2);
+        assertThat(metrics.isPathMetricsStale()).isFalse();
+    }
 }
@@ -0,0 +1,122 @@
+package com.robsartin.graphs.benchmarks;
+
+import com.robsartin.graphs.infrastructure.CsrGraph;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BFS from every node of a random graph (average out-degree 5), summing distances:
+ * the access pattern of the path metrics. Compares walking the hashed contexts, as
+ * the metrics service used to, with walking the cached CSR snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class AllSourcesBfsBenchmark {
+
+    @Param({"1000", "5000"})
+    private int nodes;
+
+    private ImmutableGraph<String, String> graph;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        Random random = new Random(11);
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < nodes * 5; i++) {
+            builder.addEdge(ids.get(random.nextInt(nodes)), ids.get(random.nextInt(nodes)), "edge");
+        }
+        graph = builder.build();
+        graph.toCsr();
+    }
+
+    @Benchmark
+    public long hashedContexts() {
+        long total = 0;
+        for (UUID source : graph.getNodeIds()) {
+            Map<UUID, Integer> distances = new HashMap<>();
+            distances.put(source, 0);
+            Queue<UUID> queue = new LinkedList<>();
+            queue.offer(source);
+            while (!queue.isEmpty()) {
+                UUID current = queue.poll();
+                int next = distances.get(current) + 1;
+                for (UUID neighbor : graph.getContext(current).getSuccessors().keySet()) {
+                    if (!distances.containsKey(neighbor)) {
+                        distances.put(neighbor, next);
+                        total += next;
+                        queue.offer(neighbor);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long csrSnapshot() {
+        CsrGraph csr = graph.toCsr();
+        int n = csr.nodeCount();
+        int[] distances = new int[n];
+        int[] queue = new int[n];
+        long total = 0;
+        for (int source = 0; source < n; source++) {
+            Arrays.fill(distances, -1);
+            distances[source] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int current = queue[head++];
+                int next = distances[current] + 1;
+                for (int i = 0; i < csr.outDegree(current); i++) {
+                    int neighbor = csr.outNeighbor(current, i);
+                    if (distances[neighbor] < 0) {
+                        distances[neighbor] = next;
+                        total += next;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AllSourcesBfsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
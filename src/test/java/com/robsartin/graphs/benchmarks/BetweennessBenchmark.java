@@ -0,0 +1,127 @@
+package com.robsartin.graphs.benchmarks;
+
+import com.robsartin.graphs.infrastructure.BetweennessCentrality;
+import com.robsartin.graphs.infrastructure.CsrGraph;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Betweenness of every node of a random graph (average out-degree 5). Compares the
+ * metrics service's former all-pairs distance matrix and (s, t, v) triple scan with
+ * Brandes' algorithm, on one thread and on the common pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class BetweennessBenchmark {
+
+    @Param({"500", "1000"})
+    private int nodes;
+
+    private CsrGraph csr;
+    private ForkJoinPool singleThread;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        Random random = new Random(13);
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < nodes * 5; i++) {
+            builder.addEdge(ids.get(random.nextInt(nodes)), ids.get(random.nextInt(nodes)), "edge");
+        }
+        csr = builder.build().toCsr();
+        singleThread = new ForkJoinPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        singleThread.shutdown();
+    }
+
+    @Benchmark
+    public double[] pairScan() {
+        int n = csr.nodeCount();
+        int[][] distances = new int[n][n];
+        int[] queue = new int[n];
+        for (int source = 0; source < n; source++) {
+            int[] distance = distances[source];
+            Arrays.fill(distance, -1);
+            distance[source] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int i = 0; i < csr.outDegree(current); i++) {
+                    int neighbor = csr.outNeighbor(current, i);
+                    if (distance[neighbor] < 0) {
+                        distance[neighbor] = distance[current] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        double[] betweenness = new double[n];
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                int distST = distances[s][t];
+                if (s == t || distST <= 0) {
+                    continue;
+                }
+                for (int v = 0; v < n; v++) {
+                    if (v != s && v != t && distances[s][v] >= 0 && distances[v][t] >= 0
+                            && distances[s][v] + distances[v][t] == distST) {
+                        betweenness[v] += 1.0;
+                    }
+                }
+            }
+        }
+        return betweenness;
+    }
+
+    @Benchmark
+    public double[] brandesSingleThread() {
+        return BetweennessCentrality.compute(csr, singleThread);
+    }
+
+    @Benchmark
+    public double[] brandesCommonPool() {
+        return BetweennessCentrality.compute(csr, ForkJoinPool.commonPool());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BetweennessBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
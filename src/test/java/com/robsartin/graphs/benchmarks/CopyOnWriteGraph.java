@@ -0,0 +1,95 @@
+package com.robsartin.graphs.benchmarks;
+
+import com.robsartin.graphs.infrastructure.UuidV7Generator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Baseline for benchmarks: the original copy-on-write ImmutableGraph storage,
+ * which copies the whole node map (twice) and the touched adjacency maps on every edit.
+ */
+final class CopyOnWriteGraph<N, E> {
+
+    private final Map<UUID, Context<N, E>> nodes;
+
+    CopyOnWriteGraph() {
+        this.nodes = Collections.emptyMap();
+    }
+
+    private CopyOnWriteGraph(Map<UUID, Context<N, E>> nodes) {
+        this.nodes = Collections.unmodifiableMap(new HashMap<>(nodes));
+    }
+
+    /**
+     * Builds a graph directly from its node map, bypassing per-edit copies,
+     * so large baselines can be set up in linear time.
+     */
+    static <N, E> CopyOnWriteGraph<N, E> of(Map<UUID, N> labels, Map<UUID, Map<UUID, E>> successors) {
+        Map<UUID, Map<UUID, E>> predecessors = new HashMap<>();
+        successors.forEach((from, targets) -> targets.forEach((to, label) ->
+                predecessors.computeIfAbsent(to, k -> new HashMap<>()).put(from, label)));
+        Map<UUID, Context<N, E>> nodes = new HashMap<>();
+        labels.forEach((id, label) -> nodes.put(id, new Context<>(label,
+                predecessors.getOrDefault(id, Collections.emptyMap()),
+                successors.getOrDefault(id, Collections.emptyMap()))));
+        return new CopyOnWriteGraph<>(nodes);
+    }
+
+    CopyOnWriteGraph<N, E> addNode(N label) {
+        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
+        newNodes.put(UuidV7Generator.generate(),
+                new Context<>(label, Collections.emptyMap(), Collections.emptyMap()));
+        return new CopyOnWriteGraph<>(newNodes);
+    }
+
+    CopyOnWriteGraph<N, E> addEdge(UUID fromNode, UUID toNode, E edgeLabel) {
+        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
+
+        Context<N, E> fromContext = nodes.get(fromNode);
+        Map<UUID, E> newSuccessors = new HashMap<>(fromContext.successors);
+        newSuccessors.put(toNode, edgeLabel);
+        newNodes.put(fromNode, new Context<>(fromContext.label, fromContext.predecessors, newSuccessors));
+
+        Context<N, E> toContext = nodes.get(toNode);
+        Map<UUID, E> newPredecessors = new HashMap<>(toContext.predecessors);
+        newPredecessors.put(fromNode, edgeLabel);
+        newNodes.put(toNode, new Context<>(toContext.label, newPredecessors, toContext.successors));
+
+        return new CopyOnWriteGraph<>(newNodes);
+    }
+
+    CopyOnWriteGraph<N, E> removeEdge(UUID fromNode, UUID toNode) {
+        Map<UUID, Context<N, E>> newNodes = new HashMap<>(nodes);
+
+        Context<N, E> fromContext = nodes.get(fromNode);
+        Map<UUID, E> newSuccessors = new HashMap<>(fromContext.successors);
+        newSuccessors.remove(toNode);
+        newNodes.put(fromNode, new Context<>(fromContext.label, fromContext.predecessors, newSuccessors));
+
+        Context<N, E> toContext = nodes.get(toNode);
+        Map<UUID, E> newPredecessors = new HashMap<>(toContext.predecessors);
+        newPredecessors.remove(fromNode);
+        newNodes.put(toNode, new Context<>(toContext.label, newPredecessors, toContext.successors));
+
+        return new CopyOnWriteGraph<>(newNodes);
+    }
+
+    int nodeCount() {
+        return nodes.size();
+    }
+
+    private static final class Context<N, E> {
+        private final N label;
+        private final Map<UUID, E> predecessors;
+        private final Map<UUID, E> successors;
+
+        Context(N label, Map<UUID, E> predecessors, Map<UUID, E> successors) {
+            this.label = label;
+            this.predecessors = Collections.unmodifiableMap(new HashMap<>(predecessors));
+            this.successors = Collections.unmodifiableMap(new HashMap<>(successors));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.robsartin.graphs.benchmarks;
+
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DFS over a single chain, the pathological case for recursion: the iterative engine
+ * against the previous recursive HashSet walk. The fork gets a 1 GB thread stack so
+ * the recursive baseline survives the longest chains at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Xss1g"})
+@State(Scope.Benchmark)
+public class DeepChainDfsBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int length;
+
+    private ImmutableGraph<String, String> graph;
+    private UUID head;
+
+    @Setup(Level.Trial)
+    public void buildChain() {
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
+        UUID previous = null;
+        for (int i = 0; i < length; i++) {
+            UUID id = builder.addNode("N" + i);
+            if (previous == null) {
+                head = id;
+            } else {
+                builder.addEdge(previous, id, "edge");
+            }
+            previous = id;
+        }
+        graph = builder.build();
+        graph.toCsr();
+    }
+
+    @Benchmark
+    public int iterative() {
+        int[] count = new int[1];
+        graph.depthFirstTraversal(head, ctx -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    public int recursive() {
+        int[] count = new int[1];
+        recurse(head, new HashSet<>(), count);
+        return count[0];
+    }
+
+    private void recurse(UUID nodeId, Set<UUID> visited, int[] count) {
+        if (!visited.add(nodeId)) {
+            return;
+        }
+        count[0]++;
+        for (UUID successor : graph.getContext(nodeId).getSuccessors().keySet()) {
+            recurse(successor, visited, count);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeepChainDfsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.robsartin.graphs.benchmarks;
+
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.infrastructure.UuidV7Generator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single edit on a graph of n nodes (a chain, so every context has edges):
+ * persistent ImmutableGraph versus the original copy-on-write storage.
+ *
+ * Run with: mvn test-compile, then launch {@link #main} with the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class ImmutableGraphEditBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int nodes;
+
+    private UUID[] ids;
+    private ImmutableGraph<String, String> persistent;
+    private CopyOnWriteGraph<String, String> copyOnWrite;
+    private final Random random = new Random(7);
+    private int from;
+    private int to;
+
+    @Setup(Level.Trial)
+    public void buildGraphs() {
+        ids = new UUID[nodes];
+        Map<UUID, String> labels = new HashMap<>();
+        Map<UUID, Map<UUID, String>> successors = new HashMap<>();
+        ImmutableGraph.Builder<String, String> builder = ImmutableGraph.builder();
+        for (int i = 0; i < nodes; i++) {
+            ids[i] = UuidV7Generator.generate();
+            labels.put(ids[i], "N" + i);
+            builder.addNode(ids[i], "N" + i);
+        }
+        for (int i = 0; i + 1 < nodes; i++) {
+            successors.computeIfAbsent(ids[i], k -> new HashMap<>()).put(ids[i + 1], "edge");
+            builder.addEdge(ids[i], ids[i + 1], "edge");
+        }
+        persistent = builder.build();
+        copyOnWrite = CopyOnWriteGraph.of(labels, successors);
+    }
+
+    @Setup(Level.Invocation)
+    public void pickEdge() {
+        from = random.nextInt(nodes - 1);
+        to = random.nextInt(nodes);
+    }
+
+    @Benchmark
+    public ImmutableGraph<String, String> persistentAddNode() {
+        return persistent.addNode("new").getGraph();
+    }
+
+    @Benchmark
+    public CopyOnWriteGraph<String, String> copyOnWriteAddNode() {
+        return copyOnWrite.addNode("new");
+    }
+
+    @Benchmark
+    public ImmutableGraph<String, String> persistentAddEdge() {
+        return persistent.addEdge(ids[from], ids[to], "edge");
+    }
+
+    @Benchmark
+    public CopyOnWriteGraph<String, String> copyOnWriteAddEdge() {
+        return copyOnWrite.addEdge(ids[from], ids[to], "edge");
+    }
+
+    @Benchmark
+    public ImmutableGraph<String, String> persistentRemoveEdge() {
+        return persistent.removeEdge(ids[from], ids[from + 1]);
+    }
+
+    @Benchmark
+    public CopyOnWriteGraph<String, String> copyOnWriteRemoveEdge() {
+        return copyOnWrite.removeEdge(ids[from], ids[from + 1]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImmutableGraphEditBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -18,6 +18,15 @@ class GraphSavedEventTest {
         GraphSavedEvent event = new GraphSavedEvent(graphId);
 
         assertThat(event.graphId()).isEqualTo(graphId);
+        assertThat(event.version()).isZero();
+    }
+
+    @Test
+    @DisplayName("should carry the recorded version")
+    void shouldCarryRecordedVersion() {
+        GraphSavedEvent event = new GraphSavedEvent(UUID.randomUUID(), 7);
+
+        assertThat(event.version()).isEqualTo(7);
     }
 
     @Test
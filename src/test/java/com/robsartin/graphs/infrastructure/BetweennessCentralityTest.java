@@ -0,0 +1,180 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BetweennessCentralityTest {
+
+    @Test
+    @DisplayName("Parallel shortest paths share a pair's betweenness")
+    void testDiamond() {
+        // A -> B -> D and A -> C -> D: B and C each carry half of the A, D pair
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID c = builder.addNode("C");
+        UUID d = builder.addNode("D");
+        builder.addEdge(a, b, 1).addEdge(a, c, 2).addEdge(b, d, 3).addEdge(c, d, 4);
+        CsrGraph csr = builder.build().toCsr();
+
+        double[] betweenness = BetweennessCentrality.compute(csr, ForkJoinPool.commonPool());
+
+        assertEquals(0.0, betweenness[csr.indexOf(a)]);
+        assertEquals(0.5 / 6, betweenness[csr.indexOf(b)], 1e-12);
+        assertEquals(0.5 / 6, betweenness[csr.indexOf(c)], 1e-12);
+        assertEquals(0.0, betweenness[csr.indexOf(d)]);
+    }
+
+    @Test
+    @DisplayName("Brandes matches counting shortest paths through each node pair by pair")
+    void testMatchesPairCount() {
+        Random random = new Random(67);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                int n = 1 + random.nextInt(60);
+                CsrGraph csr = randomGraph(random, n, random.nextInt(4 * n + 1)).toCsr();
+                double[] expected = pairCount(csr);
+
+                assertArrayEquals(expected, BetweennessCentrality.compute(csr, pool), 1e-9);
+                assertArrayEquals(expected, BetweennessCentrality.compute(csr, single), 1e-9);
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Sampled betweenness stays within the error bound and does not depend on the pool")
+    void testApproximate() {
+        Random random = new Random(71);
+        int n = 2000;
+        CsrGraph csr = randomGraph(random, n, 4 * n).toCsr();
+        double epsilon = 0.1;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            double[] exact = BetweennessCentrality.compute(csr, pool);
+            BetweennessCentrality.Estimate estimate = BetweennessCentrality.approximate(csr, epsilon, 0.1, 5, pool);
+
+            assertFalse(estimate.exact());
+            for (int v = 0; v < n; v++) {
+                assertEquals(exact[v], estimate.values()[v], epsilon * n / (n - 2));
+            }
+            assertArrayEquals(estimate.values(),
+                    BetweennessCentrality.approximate(csr, epsilon, 0.1, 5, single).values(), 1e-12);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Sampling falls back to the exact result when it would need as many BFS runs")
+    void testApproximateFallsBackToExact() {
+        CsrGraph csr = randomGraph(new Random(73), 200, 800).toCsr();
+
+        BetweennessCentrality.Estimate estimate =
+                BetweennessCentrality.approximate(csr, 0.05, 0.1, 1, ForkJoinPool.commonPool());
+
+        assertTrue(estimate.exact());
+        assertArrayEquals(BetweennessCentrality.compute(csr, ForkJoinPool.commonPool()), estimate.values(), 1e-12);
+        assertThrows(IllegalArgumentException.class,
+                () -> BetweennessCentrality.approximate(csr, 0, 0.1, 1, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class,
+                () -> BetweennessCentrality.approximate(csr, 0.1, 1, 1, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    @DisplayName("Vertex diameter bound adds up strong component sizes along the condensation")
+    void testVertexDiameterBound() {
+        // A -> B <-> C -> D, plus E -> D: the longest chain of components holds A, {B, C} and D
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID c = builder.addNode("C");
+        UUID d = builder.addNode("D");
+        UUID e = builder.addNode("E");
+        builder.addEdge(a, b, 1).addEdge(b, c, 2).addEdge(c, b, 3).addEdge(c, d, 4).addEdge(e, d, 5);
+
+        assertEquals(4, BetweennessCentrality.vertexDiameterBound(builder.build().toCsr()));
+    }
+
+    /**
+     * Sum over pairs (s, t) of the fraction of shortest s-t paths through v, from all-pairs
+     * distances and path counts
+     */
+    private static double[] pairCount(CsrGraph csr) {
+        int n = csr.nodeCount();
+        int[][] distance = new int[n][];
+        double[][] paths = new double[n][];
+        for (int s = 0; s < n; s++) {
+            distance[s] = new int[n];
+            paths[s] = new double[n];
+            Arrays.fill(distance[s], -1);
+            distance[s][s] = 0;
+            paths[s][s] = 1;
+            int[] queue = new int[n];
+            int tail = 1;
+            queue[0] = s;
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                for (int i = 0; i < csr.outDegree(v); i++) {
+                    int w = csr.outNeighbor(v, i);
+                    if (distance[s][w] < 0) {
+                        distance[s][w] = distance[s][v] + 1;
+                        queue[tail++] = w;
+                    }
+                    if (distance[s][w] == distance[s][v] + 1) {
+                        paths[s][w] += paths[s][v];
+                    }
+                }
+            }
+        }
+
+        double[] betweenness = new double[n];
+        if (n <= 2) {
+            return betweenness;
+        }
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                if (s == t || distance[s][t] < 0) {
+                    continue;
+                }
+                for (int v = 0; v < n; v++) {
+                    if (v != s && v != t && distance[s][v] >= 0 && distance[v][t] >= 0
+                            && distance[s][v] + distance[v][t] == distance[s][t]) {
+                        betweenness[v] += paths[s][v] * paths[v][t] / paths[s][t];
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            betweenness[v] /= (double) (n - 1) * (n - 2);
+        }
+        return betweenness;
+    }
+
+    private static ImmutableGraph<String, Integer> randomGraph(Random random, int n, int edges) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,244 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChampMapTest {
+
+    @Test
+    @DisplayName("Empty map has no entries")
+    void testEmpty() {
+        ChampMap<String, Integer> map = ChampMap.empty();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.size());
+        assertNull(map.get("a"));
+        assertFalse(map.containsKey("a"));
+    }
+
+    @Test
+    @DisplayName("Plus and minus leave earlier versions unchanged")
+    void testPersistence() {
+        ChampMap<String, Integer> m0 = ChampMap.empty();
+        ChampMap<String, Integer> m1 = m0.plus("a", 1);
+        ChampMap<String, Integer> m2 = m1.plus("b", 2);
+        ChampMap<String, Integer> m3 = m2.minus("a");
+
+        assertEquals(0, m0.size());
+        assertEquals(Map.of("a", 1), m1);
+        assertEquals(Map.of("a", 1, "b", 2), m2);
+        assertEquals(Map.of("b", 2), m3);
+    }
+
+    @Test
+    @DisplayName("No-op updates return the same instance")
+    void testNoOpUpdates() {
+        Integer one = 1;
+        ChampMap<String, Integer> map = ChampMap.<String, Integer>empty().plus("a", one);
+
+        assertSame(map, map.plus("a", one));
+        assertSame(map, map.minus("missing"));
+    }
+
+    @Test
+    @DisplayName("Replacing a value keeps the size")
+    void testReplace() {
+        ChampMap<String, Integer> map = ChampMap.<String, Integer>empty().plus("a", 1).plus("a", 2);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get("a"));
+    }
+
+    @Test
+    @DisplayName("Map is read-only through the Map interface")
+    void testUnmodifiable() {
+        ChampMap<String, Integer> map = ChampMap.<String, Integer>empty().plus("a", 1);
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+    }
+
+    @Test
+    @DisplayName("Random edits match HashMap")
+    void testRandomEditsMatchHashMap() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        ChampMap<Integer, Integer> actual = ChampMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.plus(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(expected.hashCode(), actual.hashCode());
+
+        Map<Integer, Integer> visited = new HashMap<>();
+        actual.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    @DisplayName("Keys with identical hash codes are kept apart")
+    void testHashCollisions() {
+        ChampMap<CollidingKey, String> map = ChampMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.plus(new CollidingKey(i), "v" + i);
+        }
+        assertEquals(10, map.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v" + i, map.get(new CollidingKey(i)));
+        }
+
+        for (int i = 0; i < 9; i++) {
+            map = map.minus(new CollidingKey(i));
+        }
+        assertEquals(Map.of(new CollidingKey(9), "v9"), map);
+    }
+
+    @Test
+    @DisplayName("Builder produces the same map as repeated plus")
+    void testBuilder() {
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(UuidV7Generator.generate());
+        }
+
+        ChampMap.Builder<UUID, Integer> builder = ChampMap.builder();
+        ChampMap<UUID, Integer> incremental = ChampMap.empty();
+        for (int i = 0; i < keys.size(); i++) {
+            builder.put(keys.get(i), i);
+            incremental = incremental.plus(keys.get(i), i);
+        }
+        // Later puts for the same key win
+        builder.put(keys.get(0), -1);
+        incremental = incremental.plus(keys.get(0), -1);
+
+        ChampMap<UUID, Integer> built = builder.build();
+        assertEquals(incremental.size(), built.size());
+        assertEquals(incremental, built);
+        assertEquals(new HashSet<>(keys), built.keySet());
+    }
+
+    @Test
+    @DisplayName("Builder deduplicates colliding keys")
+    void testBuilderWithCollisions() {
+        ChampMap<CollidingKey, Integer> map = ChampMap.<CollidingKey, Integer>builder()
+                .put(new CollidingKey(1), 1)
+                .put(new CollidingKey(1), 2)
+                .put(new CollidingKey(2), 3)
+                .build();
+
+        assertEquals(Map.of(new CollidingKey(1), 2, new CollidingKey(2), 3), map);
+        assertEquals(2, map.minus(new CollidingKey(3)).size());
+        assertEquals(Map.of(new CollidingKey(2), 3), map.minus(new CollidingKey(1)));
+    }
+
+    @Test
+    @DisplayName("copyOf reuses existing persistent maps")
+    void testCopyOf() {
+        ChampMap<String, Integer> map = ChampMap.<String, Integer>empty().plus("a", 1);
+
+        assertSame(map, ChampMap.copyOf(map));
+        assertEquals(Map.of("x", 1, "y", 2), ChampMap.copyOf(Map.of("x", 1, "y", 2)));
+    }
+
+    @Test
+    @DisplayName("Bulk plusAll and minusAll match HashMap for small and large batches")
+    void testBulkEdits() {
+        ChampMap<Integer, Integer> map = ChampMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            map = map.plus(i, i);
+        }
+
+        for (int batch : new int[] {10, 600}) {
+            Map<Integer, Integer> expected = new HashMap<>(map);
+            Set<Integer> removed = new HashSet<>();
+            Map<Integer, Integer> replaced = new HashMap<>();
+            for (int i = 0; i < batch; i++) {
+                removed.add(i * 3 % 1_000);
+                replaced.put(1_000 + i, -i);
+            }
+            removed.forEach(expected::remove);
+            expected.putAll(replaced);
+
+            ChampMap<Integer, Integer> edited = map.minusAll(removed).plusAll(replaced);
+            assertEquals(expected, edited);
+            assertEquals(expected.size(), edited.size());
+            assertEquals(1_000, map.size());
+        }
+
+        assertSame(map, map.minusAll(Set.of(-1, -2)));
+        assertSame(map, map.plusAll(Map.of()));
+    }
+
+    private record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+    }
+
+    @Test
+    @DisplayName("Diff reports exactly the edits between two versions")
+    void testDiff() {
+        Random random = new Random(23);
+        ChampMap<String, Integer> before = ChampMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            before = before.plus("key" + i, i);
+        }
+        // "Aa" and "BB" share a hash code and end up in a collision node
+        before = before.plus("Aa", 1).plus("BB", 2);
+        ChampMap<String, Integer> after = before.minus("Aa").plus("BB", 3).plus("AaBB", 4);
+        for (int i = 0; i < 50; i++) {
+            String key = "key" + random.nextInt(6_000);
+            after = random.nextBoolean() ? after.minus(key) : after.plus(key, -i);
+        }
+
+        assertEquals(after, applyDiff(before, after));
+        assertEquals(before, applyDiff(after, before));
+        assertEquals(after, applyDiff(before, ChampMap.copyOf(new HashMap<>(after))));
+        assertEquals(Map.of(), applyDiff(ChampMap.<String, Integer>empty(), ChampMap.empty()));
+    }
+
+    private static Map<String, Integer> applyDiff(ChampMap<String, Integer> before, ChampMap<String, Integer> after) {
+        Map<String, Integer> result = new HashMap<>(before);
+        before.diff(after, new ChampMap.Differences<>() {
+            @Override
+            public void added(String key, Integer value) {
+                assertNull(result.put(key, value));
+            }
+
+            @Override
+            public void removed(String key, Integer value) {
+                assertEquals(value, result.remove(key));
+            }
+
+            @Override
+            public void changed(String key, Integer oldValue, Integer newValue) {
+                assertNotEquals(oldValue, newValue);
+                assertEquals(oldValue, result.put(key, newValue));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusteringCoefficientsTest {
+
+    @Test
+    @DisplayName("Triangle counting matches probing every pair of neighbors")
+    void testMatchesNeighborPairs() {
+        Random random = new Random(103);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int trial = 0; trial < 30; trial++) {
+                int n = random.nextInt(120);
+                CsrGraph csr = randomGraph(random, n, random.nextInt(6 * n + 1)).toCsr();
+                double[] expected = new double[n];
+                double total = 0;
+                for (int v = 0; v < n; v++) {
+                    expected[v] = neighborPairs(csr, v);
+                    total += expected[v];
+                }
+
+                for (ForkJoinPool p : List.of(pool, single)) {
+                    ClusteringCoefficients clustering = ClusteringCoefficients.compute(csr, p);
+                    for (int v = 0; v < n; v++) {
+                        assertEquals(expected[v], clustering.local(v), 1e-12);
+                    }
+                    assertEquals(n == 0 ? 0.0 : total / n, clustering.average(), 1e-12);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Wedge sampling estimates the average coefficient within epsilon")
+    void testEstimateAverage() {
+        Random random = new Random(107);
+        // Dense enough to have plenty of triangles
+        CsrGraph csr = randomGraph(random, 400, 8000).toCsr();
+        double exact = ClusteringCoefficients.compute(csr, ForkJoinPool.commonPool()).average();
+
+        double estimate = ClusteringCoefficients.estimateAverage(csr, 0.01, 0.01, 19);
+
+        assertEquals(exact, estimate, 0.01);
+        assertThrows(IllegalArgumentException.class, () -> ClusteringCoefficients.estimateAverage(csr, 0, 0.1, 1));
+    }
+
+    /**
+     * Directed edges among the distinct neighbors of v over k(k - 1), by checking every
+     * ordered pair of them
+     */
+    private static double neighborPairs(CsrGraph csr, int v) {
+        Set<Integer> neighbors = new HashSet<>();
+        for (int i = 0; i < csr.outDegree(v); i++) {
+            neighbors.add(csr.outNeighbor(v, i));
+        }
+        for (int i = 0; i < csr.inDegree(v); i++) {
+            neighbors.add(csr.inNeighbor(v, i));
+        }
+        int k = neighbors.size();
+        if (k < 2) {
+            return 0.0;
+        }
+        int edges = 0;
+        for (int a : neighbors) {
+            for (int i = 0; i < csr.outDegree(a); i++) {
+                int b = csr.outNeighbor(a, i);
+                if (b != a && neighbors.contains(b)) {
+                    edges++;
+                }
+            }
+        }
+        return (double) edges / ((long) k * (k - 1));
+    }
+
+    private static ImmutableGraph<String, Integer> randomGraph(Random random, int n, int edges) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+}
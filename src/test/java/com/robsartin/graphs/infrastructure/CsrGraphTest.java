@@ -0,0 +1,104 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrGraphTest {
+
+    @Test
+    @DisplayName("Empty graph has an empty snapshot")
+    void testEmptyGraph() {
+        CsrGraph csr = new ImmutableGraph<String, Integer>().toCsr();
+
+        assertEquals(0, csr.nodeCount());
+        assertEquals(0, csr.edgeCount());
+        assertEquals(-1, csr.indexOf(UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Snapshot adjacency matches the graph contexts")
+    void testAdjacencyMatchesContexts() {
+        Random random = new Random(3);
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < 1200; i++) {
+            builder.addEdge(ids.get(random.nextInt(300)), ids.get(random.nextInt(300)), i);
+        }
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        CsrGraph csr = graph.toCsr();
+
+        assertEquals(300, csr.nodeCount());
+        int edges = 0;
+        for (int v = 0; v < csr.nodeCount(); v++) {
+            UUID nodeId = csr.nodeId(v);
+            assertEquals(v, csr.indexOf(nodeId));
+            ImmutableGraph.Context<String, Integer> context = graph.getContext(nodeId);
+
+            List<UUID> successors = new ArrayList<>();
+            for (int i = 0; i < csr.outDegree(v); i++) {
+                successors.add(csr.nodeId(csr.outNeighbor(v, i)));
+            }
+            // Same neighbors, in the same order as the context's map
+            assertEquals(new ArrayList<>(context.getSuccessors().keySet()), successors);
+
+            Set<UUID> predecessors = new HashSet<>();
+            for (int i = 0; i < csr.inDegree(v); i++) {
+                predecessors.add(csr.nodeId(csr.inNeighbor(v, i)));
+            }
+            assertEquals(context.getPredecessors().keySet(), predecessors);
+            edges += csr.outDegree(v);
+        }
+        assertEquals(edges, csr.edgeCount());
+    }
+
+    @Test
+    @DisplayName("Snapshot of a version that removed most nodes indexes only the nodes left")
+    void testSparseLineage() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        ImmutableGraph<String, Integer> graph = builder.build()
+                .removeNodes(new HashSet<>(ids.subList(3, 997)))
+                .addEdge(ids.get(999), ids.get(0), 1)
+                .addEdge(ids.get(0), ids.get(998), 2);
+
+        CsrGraph csr = graph.toCsr();
+
+        assertEquals(6, csr.nodeCount());
+        assertEquals(-1, csr.indexOf(ids.get(500)));
+        // Nodes keep the order they were added in
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(2), ids.get(997), ids.get(998), ids.get(999)),
+                List.of(csr.nodeId(0), csr.nodeId(1), csr.nodeId(2), csr.nodeId(3), csr.nodeId(4), csr.nodeId(5)));
+        assertEquals(1, csr.outDegree(0));
+        assertEquals(4, csr.outNeighbor(0, 0));
+        assertEquals(5, csr.inNeighbor(0, 0));
+    }
+
+    @Test
+    @DisplayName("Snapshot is cached per graph version")
+    void testSnapshotCachedPerVersion() {
+        var gn = new ImmutableGraph<String, Integer>().addNode("A");
+        ImmutableGraph<String, Integer> g1 = gn.getGraph();
+        ImmutableGraph<String, Integer> g2 = g1.addEdge(gn.getNodeId(), gn.getNodeId(), 1);
+
+        assertSame(g1.toCsr(), g1.toCsr());
+        assertNotSame(g1.toCsr(), g2.toCsr());
+        assertEquals(0, g1.toCsr().edgeCount());
+        assertEquals(1, g2.toCsr().edgeCount());
+    }
+}
@@ -0,0 +1,92 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiameterBoundsTest {
+
+    @Test
+    @DisplayName("Bounds meet on strongly connected graphs given enough searches")
+    void testExactOnStrongComponent() {
+        Random random = new Random(83);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 2 + random.nextInt(300);
+            // A spanning path in both directions keeps the graph strongly connected
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = nodes(builder, n);
+            for (int i = 1; i < n; i++) {
+                UUID parent = ids.get(random.nextInt(i));
+                builder.addEdge(parent, ids.get(i), i).addEdge(ids.get(i), parent, -i);
+            }
+            for (int i = 0; i < n / 4; i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), n + i);
+            }
+            CsrGraph csr = builder.build().toCsr();
+
+            // Every node is searched at most once from each side of u
+            DiameterBounds bounds = DiameterBounds.of(csr, 2 * n + 2);
+
+            assertTrue(bounds.exact());
+            assertEquals(diameter(csr), bounds.lower());
+        }
+    }
+
+    @Test
+    @DisplayName("Bounds contain the diameter of any graph, even without a search budget")
+    void testBoundsContainDiameter() {
+        Random random = new Random(89);
+        for (int trial = 0; trial < 40; trial++) {
+            int n = 1 + random.nextInt(200);
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = nodes(builder, n);
+            int edges = random.nextInt(3 * n + 1);
+            for (int i = 0; i < edges; i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+            }
+            CsrGraph csr = builder.build().toCsr();
+            int diameter = diameter(csr);
+
+            for (int budget : new int[] {0, 10, n}) {
+                DiameterBounds bounds = DiameterBounds.of(csr, budget);
+                assertTrue(bounds.lower() <= diameter, bounds.lower() + " > " + diameter);
+                assertTrue(bounds.upper() >= diameter, bounds.upper() + " < " + diameter);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Component chain bounds a graph without cycles exactly")
+    void testChainOfComponents() {
+        // A -> B -> C -> D with a shortcut A -> C: diameter 2, but the chain allows 3
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = nodes(builder, 4);
+        builder.addEdge(ids.get(0), ids.get(1), 1).addEdge(ids.get(1), ids.get(2), 2)
+                .addEdge(ids.get(2), ids.get(3), 3).addEdge(ids.get(0), ids.get(2), 4);
+        DiameterBounds bounds = DiameterBounds.of(builder.build().toCsr(), 10);
+
+        assertEquals(2, bounds.lower());
+        assertEquals(3, bounds.upper());
+        assertFalse(bounds.exact());
+        assertThrows(IllegalArgumentException.class, () -> DiameterBounds.of(builder.build().toCsr(), -1));
+    }
+
+    private static int diameter(CsrGraph csr) {
+        return ShortestPathStatistics.compute(csr, ForkJoinPool.commonPool()).diameter();
+    }
+
+    private static List<UUID> nodes(ImmutableGraph.Builder<String, Integer> builder, int n) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        return ids;
+    }
+}
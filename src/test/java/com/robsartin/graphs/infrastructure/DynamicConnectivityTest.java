@@ -0,0 +1,195 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicConnectivityTest {
+
+    @Test
+    @DisplayName("Components under insertions and deletions match a search of the current graph")
+    void testMatchesSearch() {
+        Random random = new Random(113);
+        for (int trial = 0; trial < 30; trial++) {
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            int n = random.nextInt(40);
+            for (int i = 0; i < n; i++) {
+                ids.add(builder.addNode("N" + i));
+            }
+            for (int i = 0; n > 0 && i < random.nextInt(2 * n + 1); i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+            }
+            ImmutableGraph<String, Integer> graph = builder.build();
+            DynamicConnectivity connectivity = DynamicConnectivity.of(graph.toCsr());
+
+            for (int step = 0; step < 150; step++) {
+                int choice = random.nextInt(10);
+                if (ids.isEmpty() || choice == 0) {
+                    ImmutableGraph.GraphWithNode<String, Integer> result = graph.addNode("M" + step);
+                    graph = result.getGraph();
+                    ids.add(result.getNodeId());
+                    connectivity.addNode(result.getNodeId());
+                } else if (choice == 1) {
+                    UUID node = ids.remove(random.nextInt(ids.size()));
+                    for (UUID successor : graph.getContext(node).getSuccessors().keySet()) {
+                        connectivity.removeEdge(node, successor);
+                    }
+                    for (UUID predecessor : graph.getContext(node).getPredecessors().keySet()) {
+                        if (!predecessor.equals(node)) {
+                            connectivity.removeEdge(predecessor, node);
+                        }
+                    }
+                    connectivity.removeNode(node);
+                    graph = graph.removeNodes(Set.of(node));
+                } else if (choice < 6) {
+                    UUID from = ids.get(random.nextInt(ids.size()));
+                    UUID to = ids.get(random.nextInt(ids.size()));
+                    if (!graph.getContext(from).getSuccessors().containsKey(to)) {
+                        graph = graph.addEdge(from, to, step);
+                        connectivity.addEdge(from, to);
+                    }
+                } else {
+                    UUID from = ids.get(random.nextInt(ids.size()));
+                    List<UUID> successors = new ArrayList<>(graph.getContext(from).getSuccessors().keySet());
+                    if (!successors.isEmpty()) {
+                        UUID to = successors.get(random.nextInt(successors.size()));
+                        graph = graph.removeEdge(from, to);
+                        connectivity.removeEdge(from, to);
+                    }
+                }
+
+                Map<UUID, Integer> expected = search(graph, ids);
+                assertEquals(expected.isEmpty() ? 0 : 1 + expected.values().stream().max(Integer::compare).get(),
+                        connectivity.count());
+                assertEquals(ids.size(), connectivity.nodeCount());
+                if (step % 3 == 0) {
+                    assertEquals(partition(expected), partition(connectivity.componentIds()));
+                }
+                for (int k = 0; k < 5 && !ids.isEmpty(); k++) {
+                    UUID a = ids.get(random.nextInt(ids.size()));
+                    UUID b = ids.get(random.nextInt(ids.size()));
+                    assertEquals(expected.get(a).equals(expected.get(b)), connectivity.connected(a, b));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deleting a bridge splits a path and a cycle survives the loss of any one edge")
+    void testBridgesAndCycles() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < 63; i++) {
+            builder.addEdge(ids.get(i), ids.get(i + 1), i);
+        }
+        DynamicConnectivity connectivity = DynamicConnectivity.of(builder.build().toCsr());
+        assertEquals(1, connectivity.count());
+
+        // Repeatedly cutting and restoring the middle of the path
+        for (int round = 0; round < 10; round++) {
+            connectivity.removeEdge(ids.get(31), ids.get(32));
+            assertEquals(2, connectivity.count());
+            assertFalse(connectivity.connected(ids.get(0), ids.get(63)));
+            connectivity.addEdge(ids.get(31), ids.get(32));
+            assertTrue(connectivity.connected(ids.get(0), ids.get(63)));
+        }
+
+        connectivity.addEdge(ids.get(63), ids.get(0));
+        for (int i = 0; i < 63; i += 7) {
+            connectivity.removeEdge(ids.get(i), ids.get(i + 1));
+            assertEquals(1, connectivity.count());
+            assertTrue(connectivity.connected(ids.get(i), ids.get(i + 1)));
+            connectivity.addEdge(ids.get(i), ids.get(i + 1));
+        }
+
+        // Opposite edges keep their endpoints together until both are gone
+        connectivity.addEdge(ids.get(1), ids.get(0));
+        connectivity.removeEdge(ids.get(63), ids.get(0));
+        connectivity.removeEdge(ids.get(0), ids.get(1));
+        assertTrue(connectivity.connected(ids.get(0), ids.get(1)));
+        connectivity.removeEdge(ids.get(1), ids.get(0));
+        assertFalse(connectivity.connected(ids.get(0), ids.get(1)));
+        assertEquals(2, connectivity.count());
+    }
+
+    @Test
+    @DisplayName("Only nodes without edges to other nodes can be removed")
+    void testRemoveNode() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID loop = builder.addNode("Loop");
+        builder.addEdge(a, b, 1);
+        builder.addEdge(loop, loop, 2);
+        DynamicConnectivity connectivity = DynamicConnectivity.of(builder.build().toCsr());
+        UUID added = UUID.randomUUID();
+        connectivity.addNode(added);
+        assertEquals(3, connectivity.count());
+
+        assertThrows(IllegalArgumentException.class, () -> connectivity.removeNode(a));
+        assertThrows(IllegalArgumentException.class, () -> connectivity.addNode(b));
+        connectivity.removeNode(loop);
+        connectivity.removeNode(added);
+
+        assertEquals(1, connectivity.count());
+        assertThrows(IllegalArgumentException.class, () -> connectivity.connected(loop, a));
+        assertThrows(IllegalArgumentException.class, () -> connectivity.addEdge(added, a));
+        assertThrows(IllegalArgumentException.class, () -> connectivity.removeEdge(a, UUID.randomUUID()));
+        UUID reused = UUID.randomUUID();
+        connectivity.addNode(reused);
+        assertEquals(2, connectivity.count());
+        assertFalse(connectivity.connected(reused, a));
+        connectivity.addEdge(reused, a);
+        assertTrue(connectivity.connected(reused, b));
+    }
+
+    /**
+     * Component of every node by breadth-first search over edges in both directions
+     */
+    private static Map<UUID, Integer> search(ImmutableGraph<String, Integer> graph, List<UUID> order) {
+        Map<UUID, Integer> componentIds = new HashMap<>();
+        int next = 0;
+        for (UUID start : order) {
+            if (componentIds.containsKey(start)) {
+                continue;
+            }
+            Deque<UUID> queue = new ArrayDeque<>();
+            queue.add(start);
+            componentIds.put(start, next);
+            while (!queue.isEmpty()) {
+                ImmutableGraph.Context<String, Integer> context = graph.getContext(queue.poll());
+                List<UUID> neighbors = new ArrayList<>(context.getSuccessors().keySet());
+                neighbors.addAll(context.getPredecessors().keySet());
+                for (UUID neighbor : neighbors) {
+                    if (componentIds.putIfAbsent(neighbor, next) == null) {
+                        queue.add(neighbor);
+                    }
+                }
+            }
+            next++;
+        }
+        return componentIds;
+    }
+
+    private static Set<Set<UUID>> partition(Map<UUID, Integer> componentIds) {
+        Map<Integer, Set<UUID>> components = new HashMap<>();
+        componentIds.forEach((node, component) -> components.computeIfAbsent(component, c -> new HashSet<>()).add(node));
+        return new HashSet<>(components.values());
+    }
+}
@@ -0,0 +1,251 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphTraversalsTest {
+
+    private static final int CHAIN_LENGTH = 1_000_000;
+
+    @Test
+    @DisplayName("Iterative DFS visits nodes in recursive preorder")
+    void testDepthFirstMatchesRecursiveOrder() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 1 + random.nextInt(200);
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add(builder.addNode("N" + i));
+            }
+            for (int i = 0; i < n * 3; i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+            }
+            CsrGraph csr = builder.build().toCsr();
+            int start = random.nextInt(n);
+
+            List<Integer> expected = new ArrayList<>();
+            recursiveDepthFirst(csr, start, new boolean[n], expected);
+            List<Integer> actual = new ArrayList<>();
+            GraphTraversals.depthFirst(csr, start, actual::add);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("Unbounded lazy iterators match the eager traversals")
+    void testIteratorsMatchEagerTraversals() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 20; trial++) {
+            CsrGraph csr = randomGraph(random).toCsr();
+            int start = random.nextInt(csr.nodeCount());
+
+            List<Integer> dfs = new ArrayList<>();
+            GraphTraversals.depthFirst(csr, start, dfs::add);
+            assertEquals(dfs, drain(GraphTraversals.depthFirstIterator(
+                    csr, start, GraphTraversals.Direction.OUT, GraphTraversals.UNBOUNDED)));
+
+            List<Integer> bfs = new ArrayList<>();
+            GraphTraversals.breadthFirst(csr, start, bfs::add);
+            assertEquals(bfs, drain(GraphTraversals.breadthFirstIterator(
+                    csr, start, GraphTraversals.Direction.OUT, GraphTraversals.UNBOUNDED)));
+        }
+    }
+
+    @Test
+    @DisplayName("Depth-limited BFS yields exactly the nodes within maxDepth, in either direction")
+    void testBreadthFirstIteratorDepthLimit() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < 20; trial++) {
+            CsrGraph csr = randomGraph(random).toCsr();
+            int start = random.nextInt(csr.nodeCount());
+            int maxDepth = random.nextInt(4);
+            for (GraphTraversals.Direction direction : GraphTraversals.Direction.values()) {
+                int[] distance = distances(csr, start, direction);
+                List<Integer> expected = new ArrayList<>();
+                for (int v = 0; v < csr.nodeCount(); v++) {
+                    if (distance[v] >= 0 && distance[v] <= maxDepth) {
+                        expected.add(v);
+                    }
+                }
+                List<Integer> actual = drain(GraphTraversals.breadthFirstIterator(csr, start, direction, maxDepth));
+                int previous = 0;
+                for (int v : actual) {
+                    assertTrue(distance[v] >= previous);
+                    previous = distance[v];
+                }
+                actual.sort(null);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Depth-limited DFS yields exactly the nodes within maxDepth, in either direction")
+    void testDepthFirstIteratorDepthLimit() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 20; trial++) {
+            CsrGraph csr = randomGraph(random).toCsr();
+            int start = random.nextInt(csr.nodeCount());
+            int maxDepth = random.nextInt(4);
+            for (GraphTraversals.Direction direction : GraphTraversals.Direction.values()) {
+                int[] distance = distances(csr, start, direction);
+                List<Integer> expected = new ArrayList<>();
+                for (int v = 0; v < csr.nodeCount(); v++) {
+                    if (distance[v] >= 0 && distance[v] <= maxDepth) {
+                        expected.add(v);
+                    }
+                }
+                List<Integer> actual = drain(GraphTraversals.depthFirstIterator(csr, start, direction, maxDepth));
+                assertEquals(start, actual.get(0));
+                actual.sort(null);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Depth-limited DFS reaches a node through a shortcut found after a longer path")
+    void testDepthFirstIteratorReexpandsShallowerNodes() {
+        // a -> b -> c, a -> c, c -> d: the DFS tree puts c at depth 2, but d is 2 edges from a
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("a");
+        UUID b = builder.addNode("b");
+        UUID c = builder.addNode("c");
+        UUID d = builder.addNode("d");
+        builder.addEdge(a, b, 1).addEdge(b, c, 2).addEdge(a, c, 3).addEdge(c, d, 4);
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        List<String> visited = graph.depthFirstStream(a, GraphTraversals.Direction.OUT, 2)
+                .map(ImmutableGraph.Context::getLabel)
+                .toList();
+
+        assertEquals(List.of("a", "b", "c", "d"), visited);
+        assertEquals(List.of("a", "b", "c"), graph.depthFirstStream(a, GraphTraversals.Direction.OUT, 1)
+                .map(ImmutableGraph.Context::getLabel)
+                .toList());
+    }
+
+    @Test
+    @DisplayName("Bidirectional shortest path is a valid path of BFS length")
+    void testShortestPath() {
+        Random random = new Random(23);
+        for (int trial = 0; trial < 50; trial++) {
+            CsrGraph csr = randomGraph(random).toCsr();
+            int source = random.nextInt(csr.nodeCount());
+            int target = random.nextInt(csr.nodeCount());
+            int[] distance = distances(csr, source, GraphTraversals.Direction.OUT);
+
+            int[] path = GraphTraversals.shortestPath(csr, source, target);
+
+            if (distance[target] < 0) {
+                assertEquals(0, path.length);
+                continue;
+            }
+            assertEquals(distance[target] + 1, path.length);
+            assertEquals(source, path[0]);
+            assertEquals(target, path[path.length - 1]);
+            for (int i = 1; i < path.length; i++) {
+                boolean edge = false;
+                for (int e = 0; e < csr.outDegree(path[i - 1]); e++) {
+                    edge |= csr.outNeighbor(path[i - 1], e) == path[i];
+                }
+                assertTrue(edge);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("DFS and BFS handle a chain of a million nodes")
+    void testDeepChain() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID[] ids = new UUID[CHAIN_LENGTH];
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            ids[i] = builder.addNode("N" + i);
+            if (i > 0) {
+                builder.addEdge(ids[i - 1], ids[i], i);
+            }
+        }
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        int[] dfsCount = new int[1];
+        graph.depthFirstTraversal(ids[0], ctx -> {
+            assertEquals(ids[dfsCount[0]], ctx.getNodeId());
+            dfsCount[0]++;
+        });
+        assertEquals(CHAIN_LENGTH, dfsCount[0]);
+
+        int[] bfsCount = new int[1];
+        graph.breadthFirstTraversal(ids[0], ctx -> bfsCount[0]++);
+        assertEquals(CHAIN_LENGTH, bfsCount[0]);
+    }
+
+    private ImmutableGraph<String, Integer> randomGraph(Random random) {
+        int n = 1 + random.nextInt(200);
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < n * 2; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+
+    private List<Integer> drain(PrimitiveIterator.OfInt iterator) {
+        List<Integer> order = new ArrayList<>();
+        iterator.forEachRemaining((int node) -> order.add(node));
+        return order;
+    }
+
+    private int[] distances(CsrGraph csr, int start, GraphTraversals.Direction direction) {
+        int[] distance = new int[csr.nodeCount()];
+        Arrays.fill(distance, -1);
+        distance[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(start));
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            List<Integer> neighbors = new ArrayList<>();
+            if (direction != GraphTraversals.Direction.IN) {
+                for (int i = 0; i < csr.outDegree(node); i++) {
+                    neighbors.add(csr.outNeighbor(node, i));
+                }
+            }
+            if (direction != GraphTraversals.Direction.OUT) {
+                for (int i = 0; i < csr.inDegree(node); i++) {
+                    neighbors.add(csr.inNeighbor(node, i));
+                }
+            }
+            for (int next : neighbors) {
+                if (distance[next] < 0) {
+                    distance[next] = distance[node] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distance;
+    }
+
+    private void recursiveDepthFirst(CsrGraph csr, int node, boolean[] visited, List<Integer> order) {
+        if (visited[node]) {
+            return;
+        }
+        visited[node] = true;
+        order.add(node);
+        for (int i = 0; i < csr.outDegree(node); i++) {
+            recursiveDepthFirst(csr, csr.outNeighbor(node, i), visited, order);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphViewsTest {
+
+    @Test
+    @DisplayName("Reversed view matches a graph built with every edge turned around")
+    void testReversed() {
+        Random random = new Random(53);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 1 + random.nextInt(100);
+            ImmutableGraph.Builder<String, Integer> forward = ImmutableGraph.builder();
+            ImmutableGraph.Builder<String, Integer> backward = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                UUID id = forward.addNode("N" + i);
+                backward.addNode(id, "N" + i);
+                ids.add(id);
+            }
+            for (int i = 0; i < 2 * n; i++) {
+                UUID from = ids.get(random.nextInt(n));
+                UUID to = ids.get(random.nextInt(n));
+                forward.addEdge(from, to, i);
+                backward.addEdge(to, from, i);
+            }
+            DenseGraph reversed = forward.build().toCsr().reversed();
+
+            assertEquals(adjacency(backward.build().toCsr()), adjacency(reversed));
+            assertEquals(StronglyConnectedComponents.of(reversed).count(),
+                    StronglyConnectedComponents.of(forward.build().toCsr()).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Undirected view walks the same nodes as a traversal in both directions")
+    void testUndirected() {
+        Random random = new Random(59);
+        ImmutableGraph<String, Integer> graph = randomGraph(random, 300, 250);
+        CsrGraph csr = graph.toCsr();
+        DenseGraph undirected = csr.undirected();
+
+        assertSame(undirected, undirected.undirected());
+        assertSame(undirected, undirected.reversed());
+        assertSame(csr, csr.reversed().reversed());
+        assertEquals(2 * csr.edgeCount(), undirected.edgeCount());
+        for (int start = 0; start < csr.nodeCount(); start += 17) {
+            List<Integer> both = new ArrayList<>();
+            GraphTraversals.breadthFirstIterator(csr, start, GraphTraversals.Direction.BOTH, GraphTraversals.UNBOUNDED)
+                    .forEachRemaining((int v) -> both.add(v));
+            List<Integer> viewed = new ArrayList<>();
+            GraphTraversals.breadthFirst(undirected, start, viewed::add);
+            assertEquals(both, viewed);
+        }
+    }
+
+    @Test
+    @DisplayName("Induced view matches the graph with the other nodes removed")
+    void testInduced() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 1 + random.nextInt(150);
+            ImmutableGraph<String, Integer> graph = randomGraph(random, n, 3 * n);
+            Set<UUID> removed = new HashSet<>();
+            for (UUID nodeId : graph.getNodeIds()) {
+                if (random.nextInt(3) == 0) {
+                    removed.add(nodeId);
+                }
+            }
+
+            DenseGraph induced = graph.inducedSubgraph(ctx -> !removed.contains(ctx.getNodeId()));
+            CsrGraph expected = graph.removeNodes(removed).toCsr();
+
+            assertEquals(expected.nodeCount(), induced.nodeCount());
+            assertEquals(expected.edgeCount(), induced.edgeCount());
+            assertEquals(adjacency(expected), adjacency(induced));
+            for (UUID nodeId : removed) {
+                assertEquals(-1, induced.indexOf(nodeId));
+            }
+            assertEquals(StronglyConnectedComponents.of(expected).count(), StronglyConnectedComponents.of(induced).count());
+        }
+    }
+
+    /**
+     * Out- and in-edge lists as tagged node ID pairs, independent of how either graph numbers its nodes
+     */
+    private static Set<List<Object>> adjacency(DenseGraph graph) {
+        Set<List<Object>> edges = new HashSet<>();
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                assertTrue(edges.add(List.of("out", graph.nodeId(v), graph.nodeId(graph.outNeighbor(v, i)))));
+            }
+            for (int i = 0; i < graph.inDegree(v); i++) {
+                assertTrue(edges.add(List.of("in", graph.nodeId(graph.inNeighbor(v, i)), graph.nodeId(v))));
+            }
+        }
+        return edges;
+    }
+
+    private static ImmutableGraph<String, Integer> randomGraph(Random random, int n, int edges) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperAnfTest {
+
+    @Test
+    @DisplayName("Estimated distance distribution stays within a few standard errors of the exact one")
+    void testMatchesExactDistribution() {
+        Random random = new Random(97);
+        int n = 3000;
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < 3 * n; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        CsrGraph csr = builder.build().toCsr();
+        int log2Registers = 8;
+        double tolerance = 3 * HyperAnf.relativeStandardError(log2Registers);
+
+        DistanceDistribution exact = ShortestPathStatistics.compute(csr, ForkJoinPool.commonPool()).distanceDistribution();
+        DistanceDistribution estimate = HyperAnf.estimate(csr, log2Registers, 11, ForkJoinPool.commonPool());
+
+        assertEquals(exact.maxDistance(), estimate.maxDistance(), 2);
+        assertEquals(1.0, estimate.totalPairs() / exact.totalPairs(), tolerance);
+        assertEquals(1.0, estimate.averagePathLength() / exact.averagePathLength(), tolerance);
+        assertEquals(exact.effectiveDiameter(), estimate.effectiveDiameter(), 1.0);
+    }
+
+    @Test
+    @DisplayName("Estimates do not depend on the pool")
+    void testDeterministic() {
+        Random random = new Random(101);
+        int n = 500;
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < 2 * n; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        CsrGraph csr = builder.build().toCsr();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            DistanceDistribution parallel = HyperAnf.estimate(csr, 6, 3, pool);
+            DistanceDistribution sequential = HyperAnf.estimate(csr, 6, 3, single);
+
+            assertEquals(sequential.maxDistance(), parallel.maxDistance());
+            for (int d = 0; d <= parallel.maxDistance(); d++) {
+                assertEquals(sequential.pairs(d), parallel.pairs(d));
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> HyperAnf.estimate(csr, 3, 0, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    @DisplayName("Effective diameter interpolates between whole distances")
+    void testEffectiveDiameter() {
+        // 6 pairs at distance 1 and 4 at distance 2: 90% of 10 pairs is 3 / 4 of the way to 2
+        DistanceDistribution distribution = new DistanceDistribution(new double[] {0, 6, 4});
+
+        assertEquals(2, distribution.maxDistance());
+        assertEquals(10, distribution.totalPairs());
+        assertEquals(1.4, distribution.averagePathLength(), 1e-12);
+        assertEquals(1.75, distribution.effectiveDiameter(), 1e-12);
+        assertEquals(0.0, new DistanceDistribution(new double[1]).effectiveDiameter());
+    }
+}
@@ -2,10 +2,15 @@ package com.robsartin.graphs.infrastructure;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.openjdk.jol.info.GraphLayout;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 
 class ImmutableGraphTest {
@@ -155,6 +160,173 @@ class ImmutableGraphTest {
         assertEquals(2, g1.nodeCount());
     }
 
+    @Test
+    @DisplayName("removeNodes leaves the same graph as matching the nodes one at a time")
+    void testRemoveNodes() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            builder.addNode(id, "N" + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            builder.addEdge(ids.get(i), ids.get((i + 1) % 200), i);
+            builder.addEdge(ids.get(i), ids.get(i * 7 % 200), i);
+        }
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        for (int count : new int[] {5, 150}) {
+            Set<UUID> removed = new HashSet<>(ids.subList(0, count));
+            removed.add(UUID.randomUUID());
+            ImmutableGraph<String, Integer> expected = graph;
+            for (UUID id : removed) {
+                expected = expected.match(id).getGraph();
+            }
+
+            ImmutableGraph<String, Integer> actual = graph.removeNodes(removed);
+
+            assertEquals(expected.getNodeIds(), actual.getNodeIds());
+            for (UUID id : actual.getNodeIds()) {
+                assertEquals(expected.getContext(id).getSuccessors(), actual.getContext(id).getSuccessors());
+                assertEquals(expected.getContext(id).getPredecessors(), actual.getContext(id).getPredecessors());
+            }
+            assertEquals(200, graph.nodeCount());
+        }
+        assertSame(graph, graph.removeNodes(Set.of(UUID.randomUUID())));
+    }
+
+    @Test
+    @DisplayName("removeEdges updates both endpoints and ignores missing edges")
+    void testRemoveEdges() {
+        ImmutableGraph<String, Integer> g0 = new ImmutableGraph<>();
+        var gn1 = g0.addNode("A");
+        var gn2 = gn1.getGraph().addNode("B");
+        var gn3 = gn2.getGraph().addNode("C");
+        UUID nodeA = gn1.getNodeId();
+        UUID nodeB = gn2.getNodeId();
+        UUID nodeC = gn3.getNodeId();
+        ImmutableGraph<String, Integer> graph = gn3.getGraph()
+                .addEdge(nodeA, nodeB, 1)
+                .addEdge(nodeA, nodeC, 2)
+                .addEdge(nodeB, nodeC, 3);
+
+        ImmutableGraph<String, Integer> result = graph.removeEdges(List.of(
+                new ImmutableGraph.NodePair(nodeA, nodeB),
+                new ImmutableGraph.NodePair(nodeA, nodeC),
+                new ImmutableGraph.NodePair(nodeC, nodeA)));
+
+        assertTrue(result.getContext(nodeA).getSuccessors().isEmpty());
+        assertFalse(result.getContext(nodeB).getPredecessors().containsKey(nodeA));
+        assertEquals(Set.of(nodeB), result.getContext(nodeC).getPredecessors().keySet());
+        assertEquals(3, result.nodeCount());
+        assertSame(graph, graph.removeEdges(List.of(new ImmutableGraph.NodePair(nodeC, nodeA))));
+    }
+
+    @Test
+    @DisplayName("Diff lists node and edge changes between versions")
+    void testDiff() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID nodeA = builder.addNode("A");
+        UUID nodeB = builder.addNode("B");
+        UUID nodeC = builder.addNode("C");
+        builder.addEdge(nodeA, nodeB, 1).addEdge(nodeB, nodeC, 2).addEdge(nodeA, nodeC, 3);
+        ImmutableGraph<String, Integer> before = builder.build();
+
+        var withD = before.addNode("D");
+        UUID nodeD = withD.getNodeId();
+        ImmutableGraph<String, Integer> after = withD.getGraph()
+                .addEdge(nodeD, nodeA, 4)
+                .addEdge(nodeA, nodeC, 5)
+                .relabelNode(nodeC, "C2")
+                .match(nodeB).getGraph();
+
+        ImmutableGraph.GraphDiff<String, Integer> diff = before.diff(after);
+        assertEquals(Map.of(nodeD, "D"), diff.addedNodes());
+        assertEquals(Set.of(nodeB), diff.removedNodes());
+        assertEquals(Map.of(nodeC, "C2"), diff.relabeledNodes());
+        assertEquals(List.of(new ImmutableGraph.Edge<>(nodeD, nodeA, 4)), diff.addedEdges());
+        assertEquals(Set.of(new ImmutableGraph.NodePair(nodeA, nodeB), new ImmutableGraph.NodePair(nodeB, nodeC)),
+                new HashSet<>(diff.removedEdges()));
+        assertEquals(List.of(new ImmutableGraph.Edge<>(nodeA, nodeC, 5)), diff.relabeledEdges());
+        assertTrue(after.diff(after).isEmpty());
+
+        // A graph rebuilt from scratch shares nothing with before, but must diff the same
+        ImmutableGraph.Builder<String, Integer> rebuilt = ImmutableGraph.builder();
+        for (UUID nodeId : after.getNodeIds()) {
+            rebuilt.addNode(nodeId, after.getContext(nodeId).getLabel());
+        }
+        for (UUID nodeId : after.getNodeIds()) {
+            after.getContext(nodeId).getSuccessors().forEach((to, label) -> rebuilt.addEdge(nodeId, to, label));
+        }
+        ImmutableGraph.GraphDiff<String, Integer> fullDiff = before.diff(rebuilt.build());
+        assertEquals(diff.addedNodes(), fullDiff.addedNodes());
+        assertEquals(diff.removedNodes(), fullDiff.removedNodes());
+        assertEquals(diff.relabeledNodes(), fullDiff.relabeledNodes());
+        assertEquals(diff.addedEdges(), fullDiff.addedEdges());
+        assertEquals(new HashSet<>(diff.removedEdges()), new HashSet<>(fullDiff.removedEdges()));
+        assertEquals(diff.relabeledEdges(), fullDiff.relabeledEdges());
+    }
+
+    @Test
+    @DisplayName("Diff between related versions only compares the nodes that changed")
+    void testDiffSkipsUnchangedNodes() {
+        ImmutableGraph.Builder<CountedLabel, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(builder.addNode(new CountedLabel("N" + i)));
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            builder.addEdge(ids.get(i - 1), ids.get(i), i);
+        }
+        ImmutableGraph<CountedLabel, Integer> before = builder.build();
+        ImmutableGraph<CountedLabel, Integer> after = before
+                .addEdge(ids.get(10), ids.get(4000), 0)
+                .removeEdge(ids.get(2000), ids.get(2001))
+                .relabelNode(ids.get(3000), new CountedLabel("Renamed"));
+
+        CountedLabel.comparisons = 0;
+        ImmutableGraph.GraphDiff<CountedLabel, Integer> diff = before.diff(after);
+        assertEquals(1, diff.addedEdges().size());
+        assertEquals(1, diff.removedEdges().size());
+        assertEquals(1, diff.relabeledNodes().size());
+        // Only the five nodes whose contexts changed are compared
+        assertTrue(CountedLabel.comparisons <= 5, "compared " + CountedLabel.comparisons + " labels");
+
+        // A copy rebuilt from scratch, as from stored rows, compares every node
+        ImmutableGraph.Builder<CountedLabel, Integer> rebuilt = ImmutableGraph.builder();
+        for (UUID nodeId : after.getNodeIds()) {
+            rebuilt.addNode(nodeId, new CountedLabel(after.getContext(nodeId).getLabel().name()));
+        }
+        for (UUID nodeId : after.getNodeIds()) {
+            after.getContext(nodeId).getSuccessors().forEach((to, label) -> rebuilt.addEdge(nodeId, to, label));
+        }
+        ImmutableGraph<CountedLabel, Integer> copy = rebuilt.build();
+        CountedLabel.comparisons = 0;
+        before.diff(copy);
+        assertTrue(CountedLabel.comparisons >= ids.size());
+        assertTrue(before.sharesHistoryWith(after));
+        assertFalse(before.sharesHistoryWith(copy));
+    }
+
+    /**
+     * Node label counting how often it is compared
+     */
+    private record CountedLabel(String name) {
+        static int comparisons;
+
+        @Override
+        public boolean equals(Object o) {
+            comparisons++;
+            return o instanceof CountedLabel other && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
     @Test
     @DisplayName("Depth-first traversal")
     void testDepthFirstTraversal() {
@@ -178,6 +350,33 @@ class ImmutableGraphTest {
         assertTrue(bIndex < dIndex);
     }
 
+    @Test
+    @DisplayName("Depth-first traversal follows successors in the order their nodes were added")
+    void testDepthFirstSuccessorOrder() {
+        var gn = new ImmutableGraph<String, Integer>().addNode("A");
+        UUID a = gn.getNodeId();
+        gn = gn.getGraph().addNode("B");
+        UUID b = gn.getNodeId();
+        gn = gn.getGraph().addNode("C");
+        UUID c = gn.getNodeId();
+        gn = gn.getGraph().addNode("D");
+        UUID d = gn.getNodeId();
+        gn = gn.getGraph().addNode("E");
+        UUID e = gn.getNodeId();
+        // Edges added in the opposite order to their targets
+        ImmutableGraph<String, Integer> graph = gn.getGraph()
+                .addEdge(a, e, 1)
+                .addEdge(a, c, 2)
+                .addEdge(c, d, 3)
+                .addEdge(a, b, 4)
+                .addEdge(b, d, 5);
+
+        List<String> visited = new ArrayList<>();
+        graph.depthFirstTraversal(a, ctx -> visited.add(ctx.getLabel()));
+
+        assertEquals(List.of("A", "B", "D", "C", "E"), visited);
+    }
+
     @Test
     @DisplayName("Breadth-first traversal")
     void testBreadthFirstTraversal() {
@@ -200,6 +399,102 @@ class ImmutableGraphTest {
         assertTrue(cIndex < dIndex);
     }
 
+    @Test
+    @DisplayName("Lazy traversal streams honour limit, depth and direction")
+    void testTraversalStreams() {
+        TestGraph testGraph = buildTestGraph();
+        ImmutableGraph<String, Integer> graph = testGraph.graph;
+
+        List<String> dfs = new ArrayList<>();
+        graph.depthFirstTraversal(testGraph.nodeA, ctx -> dfs.add(ctx.getLabel()));
+        assertEquals(dfs, graph.depthFirstStream(testGraph.nodeA).map(ImmutableGraph.Context::getLabel).toList());
+        assertEquals(dfs.subList(0, 2),
+                graph.depthFirstStream(testGraph.nodeA).limit(2).map(ImmutableGraph.Context::getLabel).toList());
+
+        List<String> firstLevel = graph.breadthFirstStream(testGraph.nodeA, GraphTraversals.Direction.OUT, 1)
+                .map(ImmutableGraph.Context::getLabel).toList();
+        assertEquals(3, firstLevel.size());
+        assertFalse(firstLevel.contains("D"));
+
+        List<String> ancestors = graph.depthFirstStream(testGraph.nodeD, GraphTraversals.Direction.IN,
+                GraphTraversals.UNBOUNDED).map(ImmutableGraph.Context::getLabel).toList();
+        assertEquals(List.of("D", "B", "A"), ancestors);
+
+        List<String> untilB = GraphTraversals.takeUntil(graph.breadthFirstStream(testGraph.nodeA),
+                ctx -> ctx.getNodeId().equals(testGraph.nodeB)).map(ImmutableGraph.Context::getLabel).toList();
+        assertEquals("B", untilB.get(untilB.size() - 1));
+        assertFalse(untilB.contains("D"));
+
+        assertThrows(IllegalArgumentException.class, () -> graph.depthFirstStream(UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Parallel breadth-first traversal visits nodes level by level")
+    void testParallelBreadthFirstTraversal() {
+        TestGraph testGraph = buildTestGraph();
+        ImmutableGraph<String, Integer> graph = testGraph.graph;
+
+        List<String> visited = new ArrayList<>();
+        graph.parallelBreadthFirstTraversal(testGraph.nodeA, GraphTraversals.Direction.OUT,
+                GraphTraversals.UNBOUNDED, ctx -> visited.add(ctx.getLabel()));
+
+        assertEquals(4, visited.size());
+        assertEquals("A", visited.get(0));
+        assertEquals("D", visited.get(3));
+    }
+
+    @Test
+    @DisplayName("Neighborhood is the induced subgraph within k hops, cut off at maxNodes")
+    void testNeighborhood() {
+        Random random = new Random(47);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 1 + random.nextInt(200);
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add(builder.addNode("N" + i));
+            }
+            for (int i = 0; i < 2 * n; i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+            }
+            ImmutableGraph<String, Integer> graph = builder.build();
+            UUID center = ids.get(random.nextInt(n));
+            GraphTraversals.Direction direction = GraphTraversals.Direction.values()[trial % 3];
+            int hops = random.nextInt(4);
+
+            Set<UUID> inRange = new HashSet<>();
+            graph.breadthFirstStream(center, direction, hops).forEach(ctx -> inRange.add(ctx.getNodeId()));
+            ImmutableGraph.Neighborhood<String, Integer> full = graph.neighborhood(center, direction, hops, n);
+            Set<UUID> found = new HashSet<>();
+            full.nodes().forEach(ctx -> found.add(ctx.getNodeId()));
+            assertEquals(inRange, found);
+            assertEquals(center, full.nodes().get(0).getNodeId());
+            assertFalse(full.truncated());
+
+            int inducedEdges = 0;
+            for (UUID from : found) {
+                for (UUID to : graph.getContext(from).getSuccessors().keySet()) {
+                    inducedEdges += found.contains(to) ? 1 : 0;
+                }
+            }
+            assertEquals(inducedEdges, full.edges().size());
+            for (ImmutableGraph.Edge<Integer> edge : full.edges()) {
+                assertTrue(found.contains(edge.from()) && found.contains(edge.to()));
+                assertEquals(graph.getContext(edge.from()).getSuccessors().get(edge.to()), edge.label());
+            }
+
+            int maxNodes = 1 + random.nextInt(inRange.size());
+            ImmutableGraph.Neighborhood<String, Integer> capped = graph.neighborhood(center, direction, hops, maxNodes);
+            assertEquals(maxNodes, capped.nodes().size());
+            assertEquals(maxNodes < inRange.size(), capped.truncated());
+            capped.nodes().forEach(ctx -> assertTrue(inRange.contains(ctx.getNodeId())));
+        }
+
+        ImmutableGraph<String, Integer> graph = buildTestGraph().graph;
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.neighborhood(UUID.randomUUID(), GraphTraversals.Direction.BOTH, 2, 10));
+    }
+
     @Test
     @DisplayName("Multiple traversals on same graph (immutability test)")
     void testMultipleTraversals() {
@@ -217,6 +512,22 @@ class ImmutableGraphTest {
         assertEquals(4, graph.nodeCount());
     }
 
+    @Test
+    @DisplayName("Relabel node keeps edges and earlier versions")
+    void testRelabelNode() {
+        TestGraph testGraph = buildTestGraph();
+        ImmutableGraph<String, Integer> graph = testGraph.graph;
+
+        ImmutableGraph<String, Integer> relabeled = graph.relabelNode(testGraph.nodeB, "B2");
+
+        assertEquals("B2", relabeled.getContext(testGraph.nodeB).getLabel());
+        assertEquals("B", graph.getContext(testGraph.nodeB).getLabel());
+        assertEquals(graph.getContext(testGraph.nodeB).getSuccessors(),
+                relabeled.getContext(testGraph.nodeB).getSuccessors());
+        assertSame(relabeled, relabeled.relabelNode(testGraph.nodeB, "B2"));
+        assertThrows(IllegalArgumentException.class, () -> graph.relabelNode(UUID.randomUUID(), "X"));
+    }
+
     @Test
     @DisplayName("Compose operation rebuilds graph")
     void testCompose() {
@@ -241,6 +552,106 @@ class ImmutableGraphTest {
         assertTrue(contextA.getSuccessors().containsKey(nodeB));
     }
 
+    @Test
+    @DisplayName("Compose accepts a context built outside the graph")
+    void testComposeForeignContext() {
+        ImmutableGraph<String, Integer> g0 = new ImmutableGraph<>();
+        var gn1 = g0.addNode("A");
+        UUID nodeA = gn1.getNodeId();
+        UUID nodeB = UUID.randomUUID();
+
+        var context = new ImmutableGraph.Context<String, Integer>(nodeB, "B", Map.of(nodeA, 5), Map.of());
+        ImmutableGraph<String, Integer> g1 = gn1.getGraph().compose(context);
+
+        assertEquals(Map.of(nodeA, 5), g1.getContext(nodeB).getPredecessors());
+        assertEquals(Map.of(nodeB, 5), g1.getContext(nodeA).getSuccessors());
+        assertEquals(List.of(nodeA, nodeB), g1.shortestPath(nodeA, nodeB).stream()
+                .map(ImmutableGraph.Context::getNodeId).toList());
+        assertNull(g1.getContext(nodeA).getSuccessors().get("not a node id"));
+    }
+
+    @Test
+    @DisplayName("Earlier versions stay valid after many edits")
+    void testEarlierVersionsStayValid() {
+        ImmutableGraph<String, Integer> g = new ImmutableGraph<>();
+        List<UUID> ids = new ArrayList<>();
+        List<ImmutableGraph<String, Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            var result = g.addNode("N" + i);
+            g = result.getGraph();
+            ids.add(result.getNodeId());
+            if (i > 0) {
+                g = g.addEdge(ids.get(i - 1), ids.get(i), i);
+            }
+            versions.add(g);
+        }
+
+        for (int i = 0; i < versions.size(); i++) {
+            ImmutableGraph<String, Integer> version = versions.get(i);
+            assertEquals(i + 1, version.nodeCount());
+            assertEquals(0, version.getContext(ids.get(i)).getSuccessors().size());
+            if (i > 0) {
+                assertEquals(i, version.getContext(ids.get(i - 1)).getSuccessors().get(ids.get(i)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Self-loop is recorded on both sides of the context")
+    void testSelfLoop() {
+        var gn = new ImmutableGraph<String, Integer>().addNode("A");
+        UUID nodeA = gn.getNodeId();
+
+        ImmutableGraph<String, Integer> g = gn.getGraph().addEdge(nodeA, nodeA, 1);
+
+        assertTrue(g.getContext(nodeA).getSuccessors().containsKey(nodeA));
+        assertTrue(g.getContext(nodeA).getPredecessors().containsKey(nodeA));
+
+        var decomp = g.match(nodeA);
+        assertTrue(decomp.getGraph().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Builder produces the same graph as repeated edits")
+    void testBuilder() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        ImmutableGraph<String, Integer> incremental = new ImmutableGraph<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID id = builder.addNode("N" + i);
+            ids.add(id);
+            incremental = incremental.addNodeWithId(id, "N" + i).getGraph();
+        }
+        for (int i = 0; i < 500; i++) {
+            UUID from = ids.get(i);
+            UUID to = ids.get((i * 7 + 3) % 500);
+            builder.addEdge(from, to, i);
+            incremental = incremental.addEdge(from, to, i);
+        }
+        // Repeated edge keeps the last label, self-loop is recorded on both sides
+        builder.addEdge(ids.get(0), ids.get(3), -1).addEdge(ids.get(1), ids.get(1), 99);
+        incremental = incremental.addEdge(ids.get(0), ids.get(3), -1).addEdge(ids.get(1), ids.get(1), 99);
+
+        ImmutableGraph<String, Integer> built = builder.build();
+
+        assertEquals(incremental.getNodeIds(), built.getNodeIds());
+        for (UUID id : ids) {
+            assertEquals(incremental.getContext(id).getLabel(), built.getContext(id).getLabel());
+            assertEquals(incremental.getContext(id).getPredecessors(), built.getContext(id).getPredecessors());
+            assertEquals(incremental.getContext(id).getSuccessors(), built.getContext(id).getSuccessors());
+        }
+    }
+
+    @Test
+    @DisplayName("Builder rejects edges to unknown nodes")
+    void testBuilderRejectsUnknownNodes() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID nodeA = builder.addNode("A");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.addEdge(nodeA, UUID.randomUUID(), 1));
+        assertEquals(1, builder.build().nodeCount());
+    }
+
     /**
      * Helper record to hold a test graph with its node IDs
      */
@@ -272,4 +683,61 @@ class ImmutableGraphTest {
 
         return new TestGraph(g, nodeA, nodeB, nodeC, nodeD);
     }
+
+    @Test
+    @DisplayName("Compacting renumbers a lineage that removed most of its nodes")
+    void testCompacted() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        ImmutableGraph<String, Integer> full = builder.build();
+        assertSame(full, full.compacted());
+
+        ImmutableGraph<String, Integer> sparse = full.removeNodes(new HashSet<>(ids.subList(10, 2_000)))
+                .addEdge(ids.get(0), ids.get(1), 7)
+                .relabelNode(ids.get(2), "Renamed");
+        ImmutableGraph<String, Integer> compacted = sparse.compacted();
+
+        assertNotSame(sparse, compacted);
+        assertFalse(compacted.sharesHistoryWith(sparse));
+        assertSame(compacted, compacted.compacted());
+        assertTrue(sparse.diff(compacted).isEmpty());
+        assertEquals(7, compacted.getContext(ids.get(0)).getSuccessors().get(ids.get(1)));
+        assertEquals("Renamed", compacted.getContext(ids.get(2)).getLabel());
+    }
+
+    /**
+     * The interned representation was meant to bring adjacency under 16 bytes per directed
+     * edge. Each edge is stored twice, as a successor and as a predecessor key, and each
+     * node holds two maps of its own, so low degrees stay well above that: measured with
+     * 20,000 nodes, about 46 bytes per edge at average degree 1, 35 at degree 3 and 22 at
+     * degree 10, against 132 and 57 for the UUID-keyed maps at degrees 1 and 3.
+     */
+    @Test
+    @DisplayName("Low-degree adjacency costs well under 40 bytes per edge")
+    void testLowDegreeFootprint() {
+        int nodeCount = 2_000;
+        int degree = 3;
+        Random random = new Random(5);
+        UUID[] ids = new UUID[nodeCount];
+        ImmutableGraph.Builder<String, Integer> nodesOnly = ImmutableGraph.builder();
+        ImmutableGraph.Builder<String, Integer> withEdges = ImmutableGraph.builder();
+        for (int i = 0; i < nodeCount; i++) {
+            ids[i] = UUID.randomUUID();
+            nodesOnly.addNode(ids[i], "N");
+            withEdges.addNode(ids[i], "N");
+        }
+        for (UUID from : ids) {
+            for (int d = 0; d < degree; d++) {
+                withEdges.addEdge(from, ids[random.nextInt(nodeCount)], 1);
+            }
+        }
+
+        long edgeBytes = GraphLayout.parseInstance(withEdges.build()).totalSize()
+                - GraphLayout.parseInstance(nodesOnly.build()).totalSize();
+        double bytesPerEdge = (double) edgeBytes / (nodeCount * degree);
+        assertTrue(bytesPerEdge < 40, "adjacency took " + bytesPerEdge + " bytes per edge");
+    }
 }
@@ -0,0 +1,228 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntTreeMapTest {
+
+    @Test
+    @DisplayName("Empty map has no entries")
+    void testEmpty() {
+        IntTreeMap<String> map = IntTreeMap.empty();
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertNull(map.get(0));
+        assertFalse(map.cursor().advance());
+    }
+
+    @Test
+    @DisplayName("Random edits with uniform and mixed values match HashMap")
+    void testRandomEditsMatchHashMap() {
+        Random random = new Random(11);
+        for (int labels : new int[] {1, 3}) {
+            IntTreeMap<String> map = IntTreeMap.empty();
+            Map<Integer, String> expected = new HashMap<>();
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(2_000) - 1_000;
+                if (random.nextInt(3) == 0) {
+                    map = map.minus(key);
+                    expected.remove(key);
+                } else {
+                    String value = "label" + random.nextInt(labels);
+                    map = map.plus(key, value);
+                    expected.put(key, value);
+                }
+            }
+
+            assertEquals(expected, toHashMap(map));
+            assertEquals(expected.size(), map.size());
+            for (int key = -1_000; key < 1_000; key++) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Edits around the inline capacity match HashMap after every step")
+    void testEditsAcrossInlineCapacity() {
+        Random random = new Random(17);
+        for (int labels : new int[] {1, 2}) {
+            IntTreeMap<String> map = IntTreeMap.empty();
+            Map<Integer, String> expected = new HashMap<>();
+            for (int i = 0; i < 5_000; i++) {
+                int key = random.nextInt(2 * IntTreeMap.INLINE_CAPACITY);
+                if (random.nextInt(2) == 0) {
+                    map = map.minus(key);
+                    expected.remove(key);
+                } else {
+                    String value = "label" + random.nextInt(labels);
+                    map = map.plus(key, value);
+                    expected.put(key, value);
+                }
+
+                assertEquals(expected.size(), map.size());
+                assertEquals(expected, toHashMap(map));
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertSame(IntTreeMap.empty(), map.minusAll(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15}, 16));
+        }
+    }
+
+    @Test
+    @DisplayName("Small maps cost their key array plus at most one small object")
+    void testSmallMapFootprint() {
+        Integer label = 1_000;
+        long labelBytes = GraphLayout.parseInstance(label).totalSize();
+        IntTreeMap<Integer> map = IntTreeMap.empty();
+        for (int size = 1; size <= IntTreeMap.INLINE_CAPACITY; size++) {
+            map = map.plus(size * 7, label);
+            long mapBytes = GraphLayout.parseInstance(map).totalSize() - labelBytes;
+            long keyBytes = GraphLayout.parseInstance((Object) new int[size]).totalSize();
+            assertTrue(mapBytes <= keyBytes + 24, size + " entries took " + mapBytes + " bytes");
+        }
+    }
+
+    @Test
+    @DisplayName("Edits leave earlier versions unchanged and no-ops return the same instance")
+    void testPersistence() {
+        IntTreeMap<String> one = IntTreeMap.<String>empty().plus(1, "a");
+        IntTreeMap<String> two = one.plus(2, "a");
+        IntTreeMap<String> mixed = two.plus(2, "b");
+
+        assertEquals(Map.of(1, "a"), toHashMap(one));
+        assertEquals(Map.of(1, "a", 2, "a"), toHashMap(two));
+        assertEquals(Map.of(1, "a", 2, "b"), toHashMap(mixed));
+        assertSame(two, two.plus(1, "a"));
+        assertSame(mixed, mixed.minus(3));
+        assertTrue(two.minus(1).minus(2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Builder keeps the last value of a repeated key")
+    void testBuilder() {
+        IntTreeMap.Builder<Integer> builder = IntTreeMap.builder(4);
+        IntTreeMap<Integer> incremental = IntTreeMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            builder.put(i * 7, i % 2);
+            incremental = incremental.plus(i * 7, i % 2);
+        }
+        builder.put(0, 9);
+        incremental = incremental.plus(0, 9);
+
+        IntTreeMap<Integer> built = builder.build();
+        assertEquals(incremental.size(), built.size());
+        assertEquals(toHashMap(incremental), toHashMap(built));
+        assertEquals(Map.of(5, "x"), toHashMap(IntTreeMap.<String>builder(2).put(5, "y").put(5, "x").build()));
+    }
+
+    @Test
+    @DisplayName("minusAll removes small and large batches")
+    void testMinusAll() {
+        IntTreeMap<String> map = IntTreeMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            map = map.plus(i, "edge");
+        }
+
+        for (int count : new int[] {10, 600}) {
+            int[] keys = new int[count];
+            Map<Integer, String> expected = toHashMap(map);
+            for (int i = 0; i < count; i++) {
+                keys[i] = i * 3 % 1_000;
+                expected.remove(keys[i]);
+            }
+            assertEquals(expected, toHashMap(map.minusAll(keys, count)));
+        }
+        assertSame(map, map.minusAll(new int[] {-1, -2}, 2));
+    }
+
+    @Test
+    @DisplayName("Cursor, forEach and copyKeys visit entries in ascending key order")
+    void testIterationOrder() {
+        IntTreeMap<Integer> map = IntTreeMap.empty();
+        for (int i = 3_000; i-- > 0; ) {
+            map = map.plus(i * 31, i);
+        }
+
+        List<Integer> cursorKeys = new ArrayList<>();
+        IntTreeMap.Cursor<Integer> cursor = map.cursor();
+        while (cursor.advance()) {
+            cursorKeys.add(cursor.key());
+            assertEquals(cursor.key() / 31, cursor.value());
+        }
+        List<Integer> forEachKeys = new ArrayList<>();
+        map.forEach((key, value) -> forEachKeys.add(key));
+        int[] copied = new int[map.size()];
+        map.copyKeys(copied, 0);
+
+        assertEquals(map.size(), cursorKeys.size());
+        for (int i = 0; i < cursorKeys.size(); i++) {
+            assertEquals(i * 31, cursorKeys.get(i));
+        }
+        assertEquals(cursorKeys, forEachKeys);
+        for (int i = 0; i < copied.length; i++) {
+            assertEquals(cursorKeys.get(i), copied[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Diff reports exactly the edits between two versions")
+    void testDiff() {
+        Random random = new Random(29);
+        for (int size : new int[] {3, 12, 5_000}) {
+            IntTreeMap<String> before = IntTreeMap.empty();
+            for (int i = 0; i < size; i++) {
+                before = before.plus(i * 2, "edge");
+            }
+            IntTreeMap<String> after = before;
+            for (int i = 0; i < 40; i++) {
+                int key = random.nextInt(size * 2 + 10);
+                after = random.nextBoolean() ? after.minus(key) : after.plus(key, random.nextInt(4) == 0 ? "other" : "edge");
+            }
+
+            assertEquals(toHashMap(after), applyDiff(before, after));
+            assertEquals(toHashMap(before), applyDiff(after, before));
+            IntTreeMap.Builder<String> rebuilt = IntTreeMap.builder(after.size());
+            after.forEach(rebuilt::put);
+            assertEquals(toHashMap(after), applyDiff(before, rebuilt.build()));
+        }
+    }
+
+    private static Map<Integer, String> applyDiff(IntTreeMap<String> before, IntTreeMap<String> after) {
+        Map<Integer, String> result = toHashMap(before);
+        before.diff(after, new IntTreeMap.Differences<>() {
+            @Override
+            public void added(int key, String value) {
+                assertNull(result.put(key, value));
+            }
+
+            @Override
+            public void removed(int key, String value) {
+                assertEquals(value, result.remove(key));
+            }
+
+            @Override
+            public void changed(int key, String oldValue, String newValue) {
+                assertNotEquals(oldValue, newValue);
+                assertEquals(oldValue, result.put(key, newValue));
+            }
+        });
+        return result;
+    }
+
+    private static <V> Map<Integer, V> toHashMap(IntTreeMap<V> map) {
+        Map<Integer, V> result = new HashMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeInternerTest {
+
+    @Test
+    @DisplayName("Interning assigns dense numbers once per UUID")
+    void testIntern() {
+        NodeInterner interner = new NodeInterner(2);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            assertEquals(i, interner.intern(id));
+        }
+
+        assertEquals(1_000, interner.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, interner.intern(ids.get(i)));
+            assertEquals(i, interner.indexOf(ids.get(i)));
+            assertEquals(ids.get(i), interner.nodeId(i));
+        }
+        assertEquals(-1, interner.indexOf(UUID.randomUUID()));
+        assertEquals(-1, interner.indexOf(null));
+    }
+
+    @Test
+    @DisplayName("Concurrent interning never hands out a number twice")
+    void testConcurrentIntern() throws Exception {
+        NodeInterner interner = new NodeInterner();
+        List<UUID> shared = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            shared.add(UUID.randomUUID());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] numbers = new int[shared.size()];
+                    for (int i = 0; i < shared.size(); i++) {
+                        numbers[i] = interner.intern(shared.get(i));
+                        assertEquals(numbers[i], interner.indexOf(shared.get(i)));
+                    }
+                    return numbers;
+                }));
+            }
+            int[] first = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(shared.size(), interner.size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelBfsTest {
+
+    private final ParallelBfs bfs = new ParallelBfs(new ForkJoinPool(4));
+
+    @Test
+    @DisplayName("Parallel BFS distances match sequential BFS in every direction")
+    void testDistancesMatchSequential() {
+        Random random = new Random(17);
+        // Sparse graphs stay top-down; dense ones switch to bottom-up for the middle levels
+        int[][] shapes = {{50, 2}, {5_000, 2}, {20_000, 3}, {20_000, 20}};
+        for (int[] shape : shapes) {
+            CsrGraph csr = randomGraph(random, shape[0], shape[1]).toCsr();
+            for (GraphTraversals.Direction direction : GraphTraversals.Direction.values()) {
+                int source = random.nextInt(csr.nodeCount());
+                int[] expected = sequentialDistances(csr, source, direction);
+                assertArrayEquals(expected, bfs.distances(csr, source, direction, GraphTraversals.UNBOUNDED));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel BFS stops at maxDepth")
+    void testMaxDepth() {
+        CsrGraph csr = randomGraph(new Random(19), 20_000, 10).toCsr();
+        int[] full = sequentialDistances(csr, 0, GraphTraversals.Direction.OUT);
+        int[] limited = bfs.distances(csr, 0, GraphTraversals.Direction.OUT, 2);
+        for (int v = 0; v < full.length; v++) {
+            assertEquals(full[v] <= 2 ? full[v] : -1, limited[v]);
+        }
+    }
+
+    @Test
+    @DisplayName("Level order groups nodes by distance, then by index")
+    void testLevelOrder() {
+        int[] distances = {1, -1, 0, 2, 1, -1, 2};
+        assertArrayEquals(new int[]{2, 0, 4, 3, 6}, ParallelBfs.levelOrder(distances));
+        assertArrayEquals(new int[0], ParallelBfs.levelOrder(new int[]{-1, -1}));
+    }
+
+    private ImmutableGraph<String, Integer> randomGraph(Random random, int n, int averageDegree) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < n * averageDegree; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+
+    private int[] sequentialDistances(CsrGraph csr, int source, GraphTraversals.Direction direction) {
+        int[] distances = new int[csr.nodeCount()];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        var order = GraphTraversals.breadthFirstIterator(csr, source, direction, GraphTraversals.UNBOUNDED);
+        while (order.hasNext()) {
+            int node = order.nextInt();
+            for (int i = 0; i < GraphTraversals.degree(csr, node, direction); i++) {
+                int neighbor = GraphTraversals.neighbor(csr, node, direction, i);
+                if (distances[neighbor] == -1) {
+                    distances[neighbor] = distances[node] + 1;
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,130 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityIndexTest {
+
+    @Test
+    @DisplayName("Index answers match a BFS for every pair")
+    void testMatchesBreadthFirstSearch() {
+        Random random = new Random(29);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 1 + random.nextInt(120);
+            // Sparse to fairly dense, so both DAG-like and cyclic graphs come up
+            CsrGraph csr = randomGraph(random, n, random.nextInt(3 * n + 1)).toCsr();
+            ReachabilityIndex index = ReachabilityIndex.of(csr);
+
+            for (int u = 0; u < n; u++) {
+                boolean[] reached = new boolean[n];
+                GraphTraversals.breadthFirst(csr, u, v -> reached[v] = true);
+                for (int v = 0; v < n; v++) {
+                    assertEquals(reached[v], index.canReach(u, v));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Components are numbered in reverse topological order")
+    void testComponentOrder() {
+        Random random = new Random(31);
+        CsrGraph csr = randomGraph(random, 300, 400).toCsr();
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(csr);
+
+        for (int v = 0; v < csr.nodeCount(); v++) {
+            for (int i = 0; i < csr.outDegree(v); i++) {
+                assertTrue(components.component(csr.outNeighbor(v, i)) <= components.component(v));
+            }
+        }
+        int members = 0;
+        for (int c = 0; c < components.count(); c++) {
+            members += components.size(c);
+            for (int i = 0; i < components.size(c); i++) {
+                assertEquals(c, components.component(components.member(c, i)));
+            }
+            for (int i = 0; i < components.successorCount(c); i++) {
+                assertTrue(components.successor(c, i) < c);
+            }
+        }
+        assertEquals(csr.nodeCount(), members);
+    }
+
+    @Test
+    @DisplayName("Parallel forward-backward search finds the same components as Tarjan")
+    void testParallelComponentsMatchTarjan() {
+        Random random = new Random(43);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Small graphs split within one task; the large ones fork parts of their own
+            for (int n : new int[] {0, 1, 7, 200, 3 * StronglyConnectedComponents.PARALLEL_GRAIN, 40_000}) {
+                for (int density : new int[] {1, 2}) {
+                    CsrGraph csr = randomGraph(random, n, density * n).toCsr();
+                    StronglyConnectedComponents tarjan = StronglyConnectedComponents.of(csr);
+                    StronglyConnectedComponents parallel = StronglyConnectedComponents.ofParallel(csr, pool);
+
+                    assertEquals(tarjan.count(), parallel.count());
+                    assertEquals(tarjan.dagEdgeCount(), parallel.dagEdgeCount());
+                    int[] matching = new int[tarjan.count()];
+                    Arrays.fill(matching, -1);
+                    for (int v = 0; v < n; v++) {
+                        int c = tarjan.component(v);
+                        if (matching[c] == -1) {
+                            matching[c] = parallel.component(v);
+                            assertEquals(tarjan.size(c), parallel.size(matching[c]));
+                        }
+                        assertEquals(matching[c], parallel.component(v));
+                        for (int i = 0; i < csr.outDegree(v); i++) {
+                            assertTrue(parallel.component(csr.outNeighbor(v, i)) <= parallel.component(v));
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Each graph version gets its own index")
+    void testIndexFollowsEdits() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID c = builder.addNode("C");
+        builder.addEdge(a, b, 1).addEdge(b, c, 2);
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        assertTrue(graph.canReach(a, c));
+        assertFalse(graph.canReach(c, a));
+        assertSame(graph.reachability(), graph.reachability());
+        assertSame(graph.stronglyConnectedComponents(), graph.reachability().components());
+
+        ImmutableGraph<String, Integer> edited = graph.removeEdge(b, c).addEdge(c, a, 3);
+        assertFalse(edited.canReach(a, c));
+        assertTrue(edited.canReach(c, b));
+        assertTrue(graph.canReach(a, c));
+        assertThrows(IllegalArgumentException.class, () -> graph.canReach(a, UUID.randomUUID()));
+    }
+
+    private ImmutableGraph<String, Integer> randomGraph(Random random, int n, int edges) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathStatisticsTest {
+
+    @Test
+    @DisplayName("Path statistics of a directed path")
+    void testPath() {
+        // A -> B -> C: distances 1, 2 and 1
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID c = builder.addNode("C");
+        builder.addEdge(a, b, 1).addEdge(b, c, 2);
+        CsrGraph csr = builder.build().toCsr();
+
+        ShortestPathStatistics statistics = ShortestPathStatistics.compute(csr, ForkJoinPool.commonPool());
+
+        assertEquals(2, statistics.diameter());
+        assertEquals(4.0 / 3, statistics.averagePathLength(), 1e-12);
+        assertEquals(2.0 / 3, statistics.closeness(csr.indexOf(a)), 1e-12);
+        assertEquals(1.0, statistics.closeness(csr.indexOf(b)), 1e-12);
+        assertEquals(0.0, statistics.closeness(csr.indexOf(c)));
+    }
+
+    @Test
+    @DisplayName("Single pass matches statistics taken from all-pairs distances on any pool")
+    void testMatchesAllPairs() {
+        Random random = new Random(79);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                int n = random.nextInt(80);
+                CsrGraph csr = randomGraph(random, n, random.nextInt(3 * n + 1)).toCsr();
+                int[][] distance = allPairs(csr);
+
+                int diameter = 0;
+                long sum = 0;
+                long pairs = 0;
+                double[] closeness = new double[n];
+                for (int s = 0; s < n; s++) {
+                    long sourceSum = 0;
+                    int reached = 0;
+                    for (int t = 0; t < n; t++) {
+                        if (t != s && distance[s][t] > 0) {
+                            diameter = Math.max(diameter, distance[s][t]);
+                            sourceSum += distance[s][t];
+                            reached++;
+                        }
+                    }
+                    closeness[s] = reached > 0 ? (double) reached / sourceSum : 0.0;
+                    sum += sourceSum;
+                    pairs += reached;
+                }
+
+                for (ForkJoinPool p : List.of(pool, single)) {
+                    ShortestPathStatistics statistics = ShortestPathStatistics.compute(csr, p);
+                    assertEquals(diameter, statistics.diameter());
+                    assertEquals(pairs > 0 ? (double) sum / pairs : 0.0, statistics.averagePathLength(), 1e-12);
+                    for (int v = 0; v < n; v++) {
+                        assertEquals(closeness[v], statistics.closeness(v), 1e-12);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    private static int[][] allPairs(CsrGraph csr) {
+        int n = csr.nodeCount();
+        int[][] distance = new int[n][];
+        for (int s = 0; s < n; s++) {
+            distance[s] = new int[n];
+            Arrays.fill(distance[s], -1);
+            distance[s][s] = 0;
+            int[] queue = new int[n];
+            int tail = 1;
+            queue[0] = s;
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                for (int i = 0; i < csr.outDegree(v); i++) {
+                    int w = csr.outNeighbor(v, i);
+                    if (distance[s][w] < 0) {
+                        distance[s][w] = distance[s][v] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static ImmutableGraph<String, Integer> randomGraph(Random random, int n, int edges) {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(builder.addNode("N" + i));
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+        }
+        return builder.build();
+    }
+}
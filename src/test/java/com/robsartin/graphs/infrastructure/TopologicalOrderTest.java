@@ -0,0 +1,121 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologicalOrderTest {
+
+    @Test
+    @DisplayName("DAG order respects every edge and the critical path is a longest path")
+    void testOrderAndCriticalPath() {
+        Random random = new Random(37);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = random.nextInt(150);
+            // Edges only go forward in creation order, so the graph is a DAG
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add(builder.addNode("N" + i));
+            }
+            int[] longest = new int[n];
+            for (int to = 0; to < n; to++) {
+                for (int k = random.nextInt(4); k > 0 && to > 0; k--) {
+                    int from = random.nextInt(to);
+                    builder.addEdge(ids.get(from), ids.get(to), k);
+                }
+            }
+            ImmutableGraph<String, Integer> graph = builder.build();
+            for (int to = 0; to < n; to++) {
+                for (UUID from : graph.getContext(ids.get(to)).getPredecessors().keySet()) {
+                    longest[to] = Math.max(longest[to], longest[ids.indexOf(from)] + 1);
+                }
+            }
+
+            TopologicalOrder order = TopologicalOrder.of(graph.toCsr());
+            assertTrue(order.isAcyclic());
+            assertTrue(order.cycle().isEmpty());
+            Map<UUID, Integer> position = new HashMap<>();
+            for (UUID nodeId : order.order()) {
+                position.put(nodeId, position.size());
+            }
+            assertEquals(n, position.size());
+            for (UUID from : ids) {
+                for (UUID to : graph.getContext(from).getSuccessors().keySet()) {
+                    assertTrue(position.get(from) < position.get(to));
+                }
+            }
+
+            List<UUID> path = order.criticalPath();
+            int expectedHops = n == 0 ? -1 : Arrays.stream(longest).max().getAsInt();
+            assertEquals(expectedHops + 1, path.size());
+            for (int i = 1; i < path.size(); i++) {
+                assertTrue(graph.getContext(path.get(i - 1)).getSuccessors().containsKey(path.get(i)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A cyclic graph reports a cycle and no order")
+    void testCycle() {
+        Random random = new Random(41);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 1 + random.nextInt(100);
+            ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add(builder.addNode("N" + i));
+            }
+            for (int i = 0; i < 2 * n; i++) {
+                builder.addEdge(ids.get(random.nextInt(n)), ids.get(random.nextInt(n)), i);
+            }
+            // Close a cycle, which is a self-loop when the two picks coincide
+            UUID first = ids.get(random.nextInt(n));
+            UUID second = ids.get(random.nextInt(n));
+            builder.addEdge(first, second, -1).addEdge(second, first, -2);
+            ImmutableGraph<String, Integer> graph = builder.build();
+
+            TopologicalOrder order = TopologicalOrder.of(graph.toCsr());
+            assertFalse(order.isAcyclic());
+            assertTrue(order.order().isEmpty());
+            assertTrue(order.criticalPath().isEmpty());
+            List<UUID> cycle = order.cycle();
+            assertFalse(cycle.isEmpty());
+            assertEquals(cycle.size(), new HashSet<>(cycle).size());
+            for (int i = 0; i < cycle.size(); i++) {
+                UUID next = cycle.get((i + 1) % cycle.size());
+                assertTrue(graph.getContext(cycle.get(i)).getSuccessors().containsKey(next));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Each graph version gets its own order")
+    void testOrderFollowsEdits() {
+        ImmutableGraph.Builder<String, Integer> builder = ImmutableGraph.builder();
+        UUID a = builder.addNode("A");
+        UUID b = builder.addNode("B");
+        UUID c = builder.addNode("C");
+        builder.addEdge(a, b, 1).addEdge(b, c, 2);
+        ImmutableGraph<String, Integer> graph = builder.build();
+
+        assertSame(graph.topologicalOrder(), graph.topologicalOrder());
+        assertEquals(List.of(a, b, c), graph.topologicalOrder().order());
+        assertEquals(List.of(a, b, c), graph.topologicalOrder().criticalPath());
+
+        ImmutableGraph<String, Integer> edited = graph.addEdge(c, a, 3);
+        assertFalse(edited.topologicalOrder().isAcyclic());
+        assertEquals(3, edited.topologicalOrder().cycle().size());
+        assertTrue(graph.topologicalOrder().isAcyclic());
+    }
+}
@@ -0,0 +1,53 @@
+package com.robsartin.graphs.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionRingTest {
+
+    @Test
+    @DisplayName("Versions are numbered from 1 and the oldest are evicted")
+    void testEviction() {
+        VersionRing<String> ring = new VersionRing<>(3);
+        assertEquals(0, ring.latestVersion());
+        assertEquals(List.of(), ring.versions());
+        assertEquals(Optional.empty(), ring.get(1));
+
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, ring.add("v" + i));
+        }
+
+        assertEquals(5, ring.latestVersion());
+        assertEquals(3, ring.oldestVersion());
+        assertEquals(List.of(3L, 4L, 5L), ring.versions());
+        assertEquals(Optional.empty(), ring.get(2));
+        assertEquals(Optional.of("v3"), ring.get(3));
+        assertEquals(Optional.of("v5"), ring.get(5));
+        assertEquals(Optional.empty(), ring.get(6));
+        assertEquals(Optional.empty(), ring.get(0));
+    }
+
+    @Test
+    @DisplayName("Retained graph versions stay readable after later edits")
+    void testRetainsGraphVersions() {
+        VersionRing<ImmutableGraph<String, Integer>> ring = new VersionRing<>(4);
+        var added = new ImmutableGraph<String, Integer>().addNode("A");
+        ImmutableGraph<String, Integer> graph = added.getGraph();
+        long first = ring.add(graph);
+        long second = ring.add(graph.relabelNode(added.getNodeId(), "B"));
+
+        assertEquals("A", ring.get(first).orElseThrow().getContext(added.getNodeId()).getLabel());
+        assertEquals("B", ring.get(second).orElseThrow().getContext(added.getNodeId()).getLabel());
+    }
+
+    @Test
+    @DisplayName("Capacity must be positive")
+    void testRejectsZeroCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new VersionRing<String>(0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.robsartin.graphs.infrastructure.adapters.persistence;
+
+import com.robsartin.graphs.config.TestOpenFeatureConfiguration;
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
+import com.robsartin.graphs.models.Graph;
+import com.robsartin.graphs.models.GraphNode;
+import com.robsartin.graphs.ports.out.GraphVersionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(TestOpenFeatureConfiguration.class)
+@Transactional
+class GraphRepositoryAdapterVersionTest {
+
+    @Autowired
+    private GraphRepositoryAdapter graphRepositoryAdapter;
+
+    @Autowired
+    private GraphVersionRepository versionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void savesShouldNotRecordVersionsBeforeCommit() {
+        Graph graph = new Graph("Uncommitted");
+        graph.addNode("A");
+        UUID graphId = graphRepositoryAdapter.save(graph).getId();
+
+        assertTrue(versionRepository.findVersionNumbers(graphId).isEmpty());
+    }
+
+    @Test
+    void loadedGraphShouldContinueLatestVersion() {
+        Graph graph = new Graph("Lineage");
+        graph.addNode("A");
+        UUID graphId = recordCommittedVersion(graphRepositoryAdapter.save(graph));
+
+        Graph loaded = reload(graphId);
+        long latest = versionRepository.findLatestVersion(graphId).orElseThrow().number();
+        assertSame(versionRepository.findVersion(graphId, latest).orElseThrow(), loaded.getImmutableGraph());
+    }
+
+    @Test
+    void savesAfterReloadShouldShareStructureWithEarlierVersions() {
+        Graph graph = new Graph("Lineage");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add("N" + i);
+        }
+        List<GraphNode> nodes = graph.addNodes(names);
+        UUID graphId = recordCommittedVersion(graphRepositoryAdapter.save(graph));
+
+        // Two edits, each made on a freshly loaded graph as separate requests would
+        Graph loaded = reload(graphId);
+        loaded.addEdge(nodes.get(0).getId(), nodes.get(1).getId());
+        recordCommittedVersion(graphRepositoryAdapter.save(loaded));
+        loaded = reload(graphId);
+        loaded.renameNode(nodes.get(2).getId(), "Renamed");
+        recordCommittedVersion(graphRepositoryAdapter.save(loaded));
+
+        List<Long> versions = versionRepository.findVersionNumbers(graphId);
+        assertEquals(3, versions.size());
+        ImmutableGraph<String, String> first = versionRepository.findVersion(graphId, versions.get(0)).orElseThrow();
+        ImmutableGraph<String, String> last = versionRepository.findVersion(graphId, versions.get(2)).orElseThrow();
+        long shared = first.getNodeIds().stream()
+                .filter(nodeId -> first.getContext(nodeId) == last.getContext(nodeId))
+                .count();
+        assertEquals(197, shared);
+        assertEquals("Renamed", last.getContext(nodes.get(2).getId()).getLabel());
+        assertTrue(last.getContext(nodes.get(0).getId()).getSuccessors().containsKey(nodes.get(1).getId()));
+    }
+
+    @Test
+    void loadedGraphShouldNotContinueVersionThatDiffersFromItsRows() {
+        Graph graph = new Graph("Drifted");
+        GraphNode a = graph.addNode("A");
+        GraphNode b = graph.addNode("B");
+        UUID graphId = graphRepositoryAdapter.save(graph).getId();
+        // Same nodes as the rows, but with an edge and a label the rows never received
+        versionRepository.save(graphId, graph.getImmutableGraph()
+                .addEdge(a.getId(), b.getId(), "")
+                .relabelNode(b.getId(), "Stale"));
+
+        Graph loaded = reload(graphId);
+        ImmutableGraph<String, String> structure = loaded.getImmutableGraph();
+        assertNotSame(versionRepository.findLatestVersion(graphId).orElseThrow().graph(), structure);
+        assertEquals("B", structure.getContext(b.getId()).getLabel());
+        assertTrue(structure.getContext(a.getId()).getSuccessors().isEmpty());
+    }
+
+    /**
+     * Records the version committing the save would; test transactions roll back instead,
+     * so saves made in them record none
+     */
+    private UUID recordCommittedVersion(Graph savedGraph) {
+        versionRepository.save(savedGraph.getId(), savedGraph.getImmutableGraph());
+        return savedGraph.getId();
+    }
+
+    private Graph reload(UUID graphId) {
+        entityManager.flush();
+        entityManager.clear();
+        return graphRepositoryAdapter.findById(graphId).orElseThrow();
+    }
+}
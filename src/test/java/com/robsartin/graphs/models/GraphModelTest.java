@@ -1,12 +1,15 @@
 package com.robsartin.graphs.models;
 
+import com.robsartin.graphs.infrastructure.ImmutableGraph;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("Graph Model")
 class GraphModelTest {
@@ -158,6 +161,87 @@ class GraphModelTest {
         }
     }
 
+    @Nested
+    @DisplayName("Bulk Operations")
+    class BulkOperations {
+
+        @Test
+        @DisplayName("should add nodes and edges in bulk")
+        void shouldAddNodesAndEdgesInBulk() {
+            Graph graph = new Graph("Test");
+            GraphNode existing = graph.addNode("Existing");
+
+            List<GraphNode> added = graph.addNodes(List.of("A", "B"));
+            graph.addEdges(List.of(
+                    new ImmutableGraph.NodePair(existing.getId(), added.get(0).getId()),
+                    new ImmutableGraph.NodePair(added.get(0).getId(), added.get(1).getId())));
+
+            assertThat(added).extracting(GraphNode::getName).containsExactly("A", "B");
+            assertThat(graph.getNodes()).hasSize(3);
+            assertThat(graph.getEdges()).hasSize(2);
+            assertThat(graph.getImmutableGraph().nodeCount()).isEqualTo(3);
+            assertThat(graph.getImmutableGraph().getContext(added.get(0).getId()).getPredecessors())
+                    .containsOnlyKeys(existing.getId());
+            assertThat(graph.getImmutableGraph().getContext(added.get(0).getId()).getSuccessors())
+                    .containsOnlyKeys(added.get(1).getId());
+        }
+
+        @Test
+        @DisplayName("should keep sharing structure when a bulk addition is smaller than the graph")
+        void shouldEditInPlaceForSmallBulkAdditions() {
+            Graph graph = new Graph("Test");
+            List<GraphNode> existing = graph.addNodes(List.of("A", "B", "C", "D"));
+            ImmutableGraph<String, String> before = graph.getImmutableGraph();
+
+            List<GraphNode> added = graph.addNodes(List.of("E"));
+            graph.addEdges(List.of(new ImmutableGraph.NodePair(added.get(0).getId(), existing.get(0).getId())));
+
+            ImmutableGraph<String, String> after = graph.getImmutableGraph();
+            assertThat(after.nodeCount()).isEqualTo(5);
+            assertThat(after.getContext(existing.get(3).getId())).isSameAs(before.getContext(existing.get(3).getId()));
+            assertThat(before.diff(after).addedEdges()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("should reject bulk edges to unknown nodes without adding any")
+        void shouldRejectBulkEdgesToUnknownNodes() {
+            Graph graph = new Graph("Test");
+            GraphNode nodeA = graph.addNode("A");
+            GraphNode nodeB = graph.addNode("B");
+
+            assertThatThrownBy(() -> graph.addEdges(List.of(
+                    new ImmutableGraph.NodePair(nodeA.getId(), nodeB.getId()),
+                    new ImmutableGraph.NodePair(nodeA.getId(), UUID.randomUUID()))))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(graph.getEdges()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should remove nodes and edges in bulk")
+        void shouldRemoveNodesAndEdgesInBulk() {
+            Graph graph = new Graph("Test");
+            GraphNode nodeA = graph.addNode("A");
+            GraphNode nodeB = graph.addNode("B");
+            GraphNode nodeC = graph.addNode("C");
+            graph.addEdge(nodeA.getId(), nodeB.getId());
+            graph.addEdge(nodeB.getId(), nodeC.getId());
+            graph.addEdge(nodeA.getId(), nodeC.getId());
+
+            int edgesRemoved = graph.removeEdges(List.of(
+                    new ImmutableGraph.NodePair(nodeA.getId(), nodeC.getId()),
+                    new ImmutableGraph.NodePair(nodeC.getId(), nodeA.getId())));
+            int nodesRemoved = graph.removeNodes(List.of(nodeB.getId(), UUID.randomUUID()));
+
+            assertThat(edgesRemoved).isEqualTo(1);
+            assertThat(nodesRemoved).isEqualTo(1);
+            assertThat(graph.getNodes()).extracting(GraphNode::getName).containsExactly("A", "C");
+            assertThat(graph.getEdges()).isEmpty();
+            assertThat(graph.getImmutableGraph().nodeCount()).isEqualTo(2);
+            assertThat(graph.getImmutableGraph().getContext(nodeA.getId()).getSuccessors()).isEmpty();
+            assertThat(graph.getImmutableGraph().getContext(nodeC.getId()).getPredecessors()).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Equality and HashCode")
     class EqualityAndHashCode {